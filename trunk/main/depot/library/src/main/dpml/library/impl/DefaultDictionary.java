@@ -21,6 +21,7 @@ package dpml.library.impl;
 import dpml.library.info.AbstractDirective;
 
 import dpml.util.PropertyResolver;
+import dpml.util.PropertySnapshot;
 
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -37,10 +38,28 @@ import dpml.library.Dictionary;
  */
 public class DefaultDictionary implements Dictionary
 {
+    private static final boolean SNAPSHOT = 
+      Boolean.valueOf( System.getProperty( "dpml.library.snapshot", "true" ) ).booleanValue();
+    
     private final DefaultDictionary m_parent;
     private final AbstractDirective m_directive;
     private final Properties m_properties;
     
+   /**
+    * Snapshot mode flag (maintained by the root dictionary).
+    */
+    private volatile boolean m_snapshotMode = false;
+    
+   /**
+    * The property snapshot used while snapshot mode is enabled.
+    */
+    private volatile PropertySnapshot m_snapshot;
+    
+   /**
+    * The parent snapshot that the current snapshot was layered over.
+    */
+    private volatile PropertySnapshot m_snapshotBase;
+    
    /**
     * Creation of a new dictionary.  The dictionary provides support
     * for property inheritance within the hierachy of of modules based
@@ -163,7 +182,15 @@ public class DefaultDictionary implements Dictionary
     */
     public String resolve( String value )
     {
-        return PropertyResolver.resolve( m_properties, value );
+        PropertySnapshot snapshot = getPropertySnapshot();
+        if( null != snapshot )
+        {
+            return PropertyResolver.resolve( snapshot, value );
+        }
+        else
+        {
+            return PropertyResolver.resolve( m_properties, value );
+        }
     }
     
    /**
@@ -173,7 +200,15 @@ public class DefaultDictionary implements Dictionary
     */
     public Properties resolveProperties( Properties properties )
     {
-        return PropertyResolver.resolve( m_properties, properties );
+        PropertySnapshot snapshot = getPropertySnapshot();
+        if( null != snapshot )
+        {
+            return PropertyResolver.resolve( snapshot, properties );
+        }
+        else
+        {
+            return PropertyResolver.resolve( m_properties, properties );
+        }
     }
     
     //----------------------------------------------------------------------------
@@ -183,6 +218,59 @@ public class DefaultDictionary implements Dictionary
     void setProperty( String name, String value )
     {
         m_properties.setProperty( name, value );
+        m_snapshot = null;
+    }
+    
+   /**
+    * Enable or disable snapshot mode.  While snapshot mode is enabled each 
+    * dictionary within the hierarchy resolves symbolic references against an
+    * immutable snapshot of its properties and the system properties (unless
+    * disabled by the <tt>dpml.library.snapshot</tt> system property).  The 
+    * snapshot of a dictionary is layered over the snapshot of its parent and 
+    * is discarded when a local property is modified or the parent snapshot 
+    * is replaced.
+    * @param flag true to enable snapshot mode
+    */
+    void setSnapshotMode( boolean flag )
+    {
+        m_snapshotMode = flag && SNAPSHOT;
+    }
+    
+    boolean isSnapshotMode()
+    {
+        if( null == m_parent )
+        {
+            return m_snapshotMode;
+        }
+        else
+        {
+            return m_parent.isSnapshotMode();
+        }
+    }
+    
+    private PropertySnapshot getPropertySnapshot()
+    {
+        if( !isSnapshotMode() )
+        {
+            m_snapshot = null;
+            return null;
+        }
+        PropertySnapshot base = ( null == m_parent ) ? null : m_parent.getPropertySnapshot();
+        PropertySnapshot snapshot = m_snapshot;
+        if( ( null == snapshot ) || ( base != m_snapshotBase ) )
+        {
+            if( null == base )
+            {
+                snapshot = new PropertySnapshot( m_properties );
+            }
+            else
+            {
+                snapshot = new PropertySnapshot( base, m_properties );
+            }
+            m_snapshotBase = base;
+            m_snapshot = snapshot;
+        }
+        return snapshot;
     }
     
     AbstractDirective getAbstractDirective()
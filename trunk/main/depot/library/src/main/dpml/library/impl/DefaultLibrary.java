@@ -99,6 +99,21 @@ public final class DefaultLibrary extends DefaultDictionary implements Library
         getLogger().debug( "loaded root module: " + m_root );
         System.setProperty( "dpml.library.basedir", m_root.toString() );
         
+        // resolve the library against a consistent property view
+        
+        setSnapshotMode( true );
+        try
+        {
+            loadModules();
+        }
+        finally
+        {
+            setSnapshotMode( false );
+        }
+    }
+    
+    private void loadModules() throws Exception
+    {
         // handle expansion of import directives 
         
         ImportDirective[] imports = m_directive.getImportDirectives();
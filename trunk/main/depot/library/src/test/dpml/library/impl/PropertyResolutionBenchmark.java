@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.library.impl;
+
+import dpml.library.Module;
+import dpml.library.Resource;
+
+import dpml.util.DefaultLogger;
+import dpml.util.PropertyResolver;
+import dpml.util.PropertySnapshot;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import net.dpml.util.Logger;
+
+/**
+ * Measurement of the per-value cost of property resolution against live 
+ * resource properties and property snapshots together with the library 
+ * load time.  The benchmark is not part of the test suite and is run directly
+ * from the command line with the library index as the first argument.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class PropertyResolutionBenchmark
+{
+    private static final int ITERATIONS = 2000;
+    private static final int LOADS = 20;
+    
+    private PropertyResolutionBenchmark()
+    {
+        // static utility
+    }
+    
+   /**
+    * Run the benchmark.
+    * @param args the command line arguments
+    * @exception Exception if an error occurs
+    */
+    public static void main( String[] args ) throws Exception
+    {
+        if( args.length != 1 )
+        {
+            System.err.println( "Usage: PropertyResolutionBenchmark <index>" );
+            return;
+        }
+        Thread.currentThread().setContextClassLoader( 
+          PropertyResolutionBenchmark.class.getClassLoader() );
+        Logger logger = new DefaultLogger( "benchmark" );
+        File index = new File( args[0] ).getCanonicalFile();
+        List<DefaultResource> resources = getResources( new DefaultLibrary( logger, index ) );
+        int n = resources.size();
+        Properties[] properties = new Properties[ n ];
+        String[][] values = new String[ n ][];
+        int count = 0;
+        for( int i=0; i < n; i++ )
+        {
+            DefaultResource resource = resources.get( i );
+            properties[i] = resource.getProperties();
+            String[] names = resource.getPropertyNames();
+            values[i] = new String[ names.length ];
+            for( int j=0; j < names.length; j++ )
+            {
+                values[i][j] = properties[i].getProperty( names[j] );
+            }
+            count = count + names.length;
+        }
+        long start = System.nanoTime();
+        for( int k=0; k < ITERATIONS; k++ )
+        {
+            for( int i=0; i < n; i++ )
+            {
+                for( String value : values[i] )
+                {
+                    PropertyResolver.resolve( properties[i], value );
+                }
+            }
+        }
+        long live = ( System.nanoTime() - start ) / ( (long) count * ITERATIONS );
+        PropertySnapshot[] snapshots = new PropertySnapshot[ n ];
+        start = System.nanoTime();
+        for( int k=0; k < ITERATIONS; k++ )
+        {
+            for( int i=0; i < n; i++ )
+            {
+                snapshots[i] = new PropertySnapshot( properties[i] );
+            }
+        }
+        long creation = ( System.nanoTime() - start ) / ( (long) n * ITERATIONS );
+        start = System.nanoTime();
+        for( int k=0; k < ITERATIONS; k++ )
+        {
+            for( int i=0; i < n; i++ )
+            {
+                for( String value : values[i] )
+                {
+                    PropertyResolver.resolve( snapshots[i], value );
+                }
+            }
+        }
+        long snapshot = ( System.nanoTime() - start ) / ( (long) count * ITERATIONS );
+        start = System.nanoTime();
+        for( int i=0; i < LOADS; i++ )
+        {
+            new DefaultLibrary( logger, index );
+        }
+        long load = ( System.nanoTime() - start ) / LOADS;
+        System.out.println( 
+          "property resolution (" + count + " values): live " + live + "ns, snapshot " 
+          + snapshot + "ns, snapshot creation " + creation + "ns, library load " 
+          + ( load / 1000 ) + "us" );
+    }
+    
+    private static List<DefaultResource> getResources( DefaultLibrary library )
+    {
+        List<DefaultResource> list = new ArrayList<DefaultResource>();
+        for( Module module : library.getAllModules() )
+        {
+            list.add( (DefaultResource) module );
+            for( Resource resource : module.getResources() )
+            {
+                list.add( (DefaultResource) resource );
+            }
+        }
+        return list;
+    }
+}
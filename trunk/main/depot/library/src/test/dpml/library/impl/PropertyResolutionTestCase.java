@@ -0,0 +1,113 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.library.impl;
+
+import dpml.library.Module;
+import dpml.library.Resource;
+
+import dpml.util.PropertyResolver;
+import dpml.util.PropertySnapshot;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Property resolution test case using the property declarations of the 
+ * DPML index.  Validates that snapshot resolution is consistent with the 
+ * resolution of values against the live properties of a resource.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class PropertyResolutionTestCase extends AbstractTestCase
+{
+    private static final String INDEX = "samples/index.xml";
+    private static final String VENDOR = "Digital Product Management Library";
+    
+   /**
+    * Testcase setup using the index sample.
+    * @exception Exception if an error in library setup occurs
+    */
+    public void setUp() throws Exception
+    {
+        setUp( INDEX );
+    }
+    
+   /**
+    * Test that resource properties are resolved during library loading.
+    * @exception Exception if an error occurs
+    */
+    public void testResolvedProperties() throws Exception
+    {
+        Resource resource = getLibrary().getResource( "dpml/transit/dpml-transit-main" );
+        assertEquals( "vendor", VENDOR, resource.getProperty( "project.specification.vendor" ) );
+        assertEquals( "group", "dpml/transit", resource.getProperty( "project.group" ) );
+        File basedir = resource.getBaseDir();
+        assertEquals( "basedir", basedir.toString(), resource.getProperty( "basedir" ) );
+    }
+    
+   /**
+    * Test that snapshot resolution (including the layered snapshots used by 
+    * dictionaries in snapshot mode) returns the same values as resolution 
+    * against the live resource properties.
+    * @exception Exception if an error occurs
+    */
+    public void testSnapshotConsistency() throws Exception
+    {
+        DefaultLibrary library = getLibrary();
+        library.setSnapshotMode( true );
+        try
+        {
+            for( DefaultResource resource : getResources() )
+            {
+                Properties properties = resource.getProperties();
+                PropertySnapshot snapshot = new PropertySnapshot( properties );
+                for( String name : resource.getPropertyNames() )
+                {
+                    String value = properties.getProperty( name );
+                    String expected = PropertyResolver.resolve( properties, value );
+                    assertEquals( 
+                      resource + "#" + name, expected, PropertyResolver.resolve( snapshot, value ) );
+                    assertEquals( 
+                      resource + "#" + name, expected, resource.resolve( value ) );
+                }
+            }
+        }
+        finally
+        {
+            library.setSnapshotMode( false );
+        }
+    }
+    
+    private List<DefaultResource> getResources()
+    {
+        List<DefaultResource> list = new ArrayList<DefaultResource>();
+        for( Module module : getLibrary().getAllModules() )
+        {
+            list.add( (DefaultResource) module );
+            for( Resource resource : module.getResources() )
+            {
+                list.add( (DefaultResource) resource );
+            }
+        }
+        return list;
+    }
+}
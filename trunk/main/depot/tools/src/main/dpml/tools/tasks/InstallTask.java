@@ -20,6 +20,8 @@ package dpml.tools.tasks;
 
 import dpml.tools.BuilderError;
 
+import dpml.transit.StreamUtils;
+
 import java.io.File;
 import java.io.OutputStream;
 import java.io.FileOutputStream;
@@ -146,15 +148,20 @@ public class InstallTask extends GenericTask
             parent.mkdirs();
         }
         
-        final Copy copy = (Copy) getProject().createTask( "copy" );
-        copy.setTaskName( "install" );
-        copy.setFile( local );
-        copy.setTofile( cached );
-        copy.setFiltering( false );
-        copy.setOverwrite( true );
-        copy.setPreserveLastModified( true );
-        copy.init();
-        copy.execute();
+        try
+        {
+            StreamUtils.copyFile( local, cached );
+        }
+        catch( IOException e )
+        {
+            final String error = 
+              "Unable to install [" 
+              + local
+              + "] to [" 
+              + cached
+              + "].";
+            throw new BuildException( error, e, getLocation() );
+        }
         
         // take care of alias production
         
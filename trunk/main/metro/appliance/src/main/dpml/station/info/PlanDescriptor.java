@@ -25,7 +25,7 @@ import java.net.URI;
 
 import net.dpml.util.Resolver;
 
-import org.w3c.dom.Element;
+import org.w3c.dom.Element;
 
 /**
  * Immutable datastructure used to describe an deployment scenario.
@@ -40,6 +40,7 @@ public final class PlanDescriptor
     private final String m_title;
     private final EntryDescriptor[] m_entries;
     private final URI m_codebase;
+    private final int m_spares;
     
    /**
     * Creation of a new plan descriptor.
@@ -54,6 +55,8 @@ public final class PlanDescriptor
         m_codebase = codebase;
         m_name = ElementHelper.getAttribute( element, "name", null, resolver );
         m_title = ElementHelper.getAttribute( element, "title", null, resolver );
+        String spares = ElementHelper.getAttribute( element, "spares", "0", resolver );
+        m_spares = Integer.parseInt( spares );
         Element[] elements = ElementHelper.getChildren( element );
         m_entries = new EntryDescriptor[ elements.length ];
         for( int i=0; i<elements.length; i++ )
@@ -114,6 +117,17 @@ public final class PlanDescriptor
         return m_title;
     }
     
+   /**
+    * Get the number of spare processes the station maintains for the 
+    * deployment of plan appliances.
+    * 
+    * @return the spare process count
+    */
+    public int getSpareCount()
+    {
+        return m_spares;
+    }
+    
    /**
     * Get the deployment uris.
     * 
@@ -19,22 +19,28 @@
 package dpml.station.util;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.BufferedInputStream;
-import java.net.Socket;
-import java.net.ServerSocket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.logging.ErrorManager;
 import java.util.logging.Logger;
 import java.util.logging.LogRecord;
 
+import dpml.util.LogRecordCodec;
 import dpml.util.LogStatement;
 
 import dpml.util.PID;
 
 /**
  * The LoggingServer is a remote service that handles the aggregation of 
- * log records from multiple jvm processes.
+ * log records from multiple jvm processes.  Client connections are 
+ * multiplexed over a single selector thread and records are decoded 
+ * from the {@link LogRecordCodec} binary format.
  *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
@@ -44,6 +50,7 @@ public class LoggingServer extends Thread
     private static final PID PROCESS = new PID();
     private static final String LOG_SERVER_PORT_KEY = "dpml.station.logging.port";
     private static final int DEFAULT_LOG_SERVER_PORT = 2020;
+    private static final int BUFFER_SIZE = 64 * 1024;
     
     private static LoggingServer m_SERVER;
     
@@ -81,7 +88,9 @@ public class LoggingServer extends Thread
         }
     }
     
-    private final ServerSocket m_server;
+    private final ServerSocketChannel m_server;
+    private final Selector m_selector;
+    private final ErrorManager m_errorManager = new ErrorManager();
     
     private int m_count = 0;
     
@@ -101,7 +110,43 @@ public class LoggingServer extends Thread
     */
     public LoggingServer( int port ) throws IOException
     {
-        m_server = new ServerSocket( port );
+        m_selector = Selector.open();
+        m_server = ServerSocketChannel.open();
+        m_server.socket().bind( new InetSocketAddress( port ) );
+        m_server.configureBlocking( false );
+        m_server.register( m_selector, SelectionKey.OP_ACCEPT );
+    }
+    
+   /**
+    * Return the port the server is listening on.
+    * @return the port
+    */
+    public int getPort()
+    {
+        return m_server.socket().getLocalPort();
+    }
+    
+   /**
+    * Close the server and all client connections.
+    */
+    public void close()
+    {
+        try
+        {
+            m_selector.close();
+        }
+        catch( IOException e )
+        {
+            m_errorManager.error( "Unable to close selector.", e, ErrorManager.CLOSE_FAILURE );
+        }
+        try
+        {
+            m_server.close();
+        }
+        catch( IOException e )
+        {
+            m_errorManager.error( "Unable to close server socket.", e, ErrorManager.CLOSE_FAILURE );
+        }
     }
     
    /**
@@ -109,14 +154,33 @@ public class LoggingServer extends Thread
     */ 
     public void run()
     {
-        while( true )
+        while( m_selector.isOpen() )
         {
             try
             {
-                Socket socket = m_server.accept();
-                RequestHandler handler = new RequestHandler( socket );
-                Thread thread = new Thread( handler );
-                thread.start();
+                m_selector.select();
+                Iterator<SelectionKey> iterator = m_selector.selectedKeys().iterator();
+                while( iterator.hasNext() )
+                {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if( !key.isValid() )
+                    {
+                        continue;
+                    }
+                    else if( key.isAcceptable() )
+                    {
+                        accept();
+                    }
+                    else if( key.isReadable() )
+                    {
+                        read( key );
+                    }
+                }
+            }
+            catch( ClosedSelectorException e )
+            {
+                return;
             }
             catch( Throwable e )
             {
@@ -131,78 +195,128 @@ public class LoggingServer extends Thread
         return m_count;
     }
     
+    private void accept() throws IOException
+    {
+        SocketChannel channel = m_server.accept();
+        if( null != channel )
+        {
+            channel.configureBlocking( false );
+            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+            channel.register( m_selector, SelectionKey.OP_READ, buffer );
+        }
+    }
+    
+    private void read( SelectionKey key )
+    {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        try
+        {
+            int n = channel.read( buffer );
+            buffer.flip();
+            buffer = process( buffer );
+            if( buffer != key.attachment() )
+            {
+                key.attach( buffer );
+            }
+            if( n < 0 )
+            {
+                close( key );
+            }
+        }
+        catch( IOException e )
+        {
+            close( key );
+        }
+    }
+    
    /**
-    * Internal utility class to handle a client connection.
+    * Log the complete frames in the buffer and prepare the buffer for the
+    * next read.
+    * @param buffer the buffer in read mode
+    * @return the buffer in write mode (possibly expanded)
+    * @exception IOException if a decoding error occurs
     */
-    final class RequestHandler implements Runnable
+    private ByteBuffer process( ByteBuffer buffer ) throws IOException
     {
-        private final Socket m_socket;
-        
-       /**
-        * Creation of a new request handler.
-        * @param socket the socket
-        */
-        private RequestHandler( Socket socket )
-        {
-            m_socket = socket;
-        }
-        
-       /**
-        * Run the process.
-        */
-        public void run()
+        while( buffer.remaining() >= 4 )
         {
-            try
+            int length = buffer.getInt( buffer.position() );
+            if( ( length < 0 ) || ( length > LogRecordCodec.MAXIMUM_FRAME_LENGTH ) )
             {
-                InputStream input = m_socket.getInputStream();
-                BufferedInputStream buffer = new BufferedInputStream( input );
-                ObjectInputStream ois = new ObjectInputStream( buffer );
-                while( true )
-                {
-                    Object object = ois.readObject();
-                    if( object instanceof LogStatement )
-                    {
-                        LogStatement statement = (LogStatement) object;
-                        PID pid = statement.getPID();
-                        if( !PROCESS.equals( pid ) )
-                        {
-                            int id = pid.getValue();
-                            LogRecord record = statement.getLogRecord();
-                            String raw = record.getMessage();
-                            String message = "$[" + id + "] " + raw;
-                            record.setMessage( message );
-                            Logger logger = getNamedLogger( record );
-                            logger.log( record );
-                        }
-                    }
-                }
+                throw new IOException( "Illegal log record frame length: " + length );
             }
-            catch( ClassNotFoundException e )
+            if( buffer.remaining() < length + 4 )
             {
-                e.printStackTrace();
+                if( buffer.capacity() < length + 4 )
+                {
+                    ByteBuffer expanded = ByteBuffer.allocate( length + 4 );
+                    expanded.put( buffer );
+                    return expanded;
+                }
+                break;
             }
-            catch( SocketException ioe )
+            buffer.getInt();
+            int end = buffer.position() + length;
+            ByteBuffer frame = buffer.slice();
+            frame.limit( length );
+            buffer.position( end );
+            try
             {
-                // ignore
+                log( LogRecordCodec.decode( frame ) );
             }
-            catch( IOException ioe )
+            catch( RuntimeException e )
             {
-                //ioe.printStackTrace();
+                m_errorManager.error( "Unable to decode log record.", e, ErrorManager.FORMAT_FAILURE );
+                m_count++;
             }
         }
+        buffer.compact();
+        if( ( buffer.position() == 0 ) && ( buffer.capacity() > BUFFER_SIZE ) )
+        {
+            return ByteBuffer.allocate( BUFFER_SIZE );
+        }
+        return buffer;
+    }
+    
+    private void log( LogStatement statement )
+    {
+        PID pid = statement.getPID();
+        if( !PROCESS.equals( pid ) )
+        {
+            int id = pid.getValue();
+            LogRecord record = statement.getLogRecord();
+            String raw = record.getMessage();
+            String message = "$[" + id + "] " + raw;
+            record.setMessage( message );
+            Logger logger = getNamedLogger( record );
+            logger.log( record );
+        }
+    }
+    
+    private void close( SelectionKey key )
+    {
+        key.cancel();
+        try
+        {
+            key.channel().close();
+        }
+        catch( IOException e )
+        {
+            // ignore
+        }
+    }
 
-        private Logger getNamedLogger( LogRecord record )
+    private static Logger getNamedLogger( LogRecord record )
+    {
+        String name = record.getLoggerName();
+        if( null != name )
         {
-            String name = record.getLoggerName();
-            if( null != name )
-            {
-                return Logger.getLogger( name );
-            }
-            else
-            {
-                return Logger.getAnonymousLogger();
-            }
+            return Logger.getLogger( name );
+        }
+        else
+        {
+            return Logger.getAnonymousLogger();
         }
     }
 }
-
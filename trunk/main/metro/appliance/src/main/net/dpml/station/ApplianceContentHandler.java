@@ -44,11 +44,11 @@ import net.dpml.appliance.Appliance;
 import net.dpml.appliance.ApplianceManager;
 import net.dpml.appliance.ApplianceContentManager;
 import net.dpml.appliance.ApplianceFactory;
-import net.dpml.appliance.ApplianceException;
+import net.dpml.appliance.ApplianceException;
 
 import dpml.station.info.ApplianceDescriptor;
 
-import org.w3c.dom.Element;
+import org.w3c.dom.Element;
 import org.w3c.dom.Document;
 import org.w3c.dom.TypeInfo;
 
@@ -83,7 +83,7 @@ public class ApplianceContentHandler extends ContentHandler implements Appliance
                 MBeanServer server = ManagementFactory.getPlatformMBeanServer();
                 Hashtable<String,String> table = new Hashtable<String,String>();
                 table.put( "type", "Appliances" );
-                ObjectName name =
+                ObjectName name =
                   ObjectName.getInstance( "net.dpml.transit", table );
                 server.registerMBean( handler, name );
             }
@@ -224,13 +224,19 @@ public class ApplianceContentHandler extends ContentHandler implements Appliance
     }
     
     static final Appliance newAppliance( String key, ApplianceDescriptor descriptor ) throws IOException
+    {
+        return newAppliance( key, descriptor, null );
+    }
+    
+    static final Appliance newAppliance( 
+      String key, ApplianceDescriptor descriptor, SparePool pool ) throws IOException
     {
         if( null == key )
         {
             throw new NullPointerException( "key" );
-        }
+        }
         Logger logger = getLogger();
-        Application application = new Application( logger, key, descriptor );
+        Application application = new Application( logger, key, descriptor, pool );
         Appliance appliance = application.getAppliance();
         register( key, appliance );
         return appliance;
@@ -253,7 +259,7 @@ public class ApplianceContentHandler extends ContentHandler implements Appliance
                     Hashtable<String, String> table = new Hashtable<String, String>();
                     table.put( "type", "Appliances" );
                     table.put( "name", id );
-                    ObjectName name =
+                    ObjectName name =
                       ObjectName.getInstance( "net.dpml.transit", table );
                     server.registerMBean( manager, name );
                     MANAGERS.add( manager );
@@ -67,33 +67,56 @@ final class Application
     private final LocalConnector m_connector;
     private final String m_address;
     private final String m_key;
+    private final SparePool m_pool;
     
     Application( Logger logger, String key, ApplianceDescriptor descriptor ) throws IOException
+    {
+        this( logger, key, descriptor, null );
+    }
+    
+    Application( 
+      Logger logger, String key, ApplianceDescriptor descriptor, SparePool pool ) throws IOException
     {
         m_logger = logger;
         m_descriptor = descriptor;
         m_key = key;
+        m_pool = pool;
         
-        m_logger.debug( 
-          "new appliance [" 
-          + key 
-          + "]"
-          + " defined by " + descriptor.getCodebaseURI() 
-          + " targetting " + descriptor.getTargetURI() 
-          + " on " + descriptor.getExecutable()
-        );
+        m_logger.debug( 
+          "new appliance [" 
+          + key 
+          + "]"
+          + " defined by " + descriptor.getCodebaseURI() 
+          + " targetting " + descriptor.getTargetURI() 
+          + " on " + descriptor.getExecutable()
+        );
 
+        m_connector = new LocalConnector();
+        m_address = bind( logger, this, m_connector );
+        m_builder = newProcessBuilder();
+    }
+    
+   /**
+    * Bind a station callback connector to the local RMI registry.
+    * @param logger the logging channel
+    * @param owner the object owning the connector
+    * @param connector the connector
+    * @return the registry address of the connector
+    * @exception ApplianceException if the connector cannot be bound
+    */
+    static String bind( Logger logger, Object owner, LocalConnector connector ) throws ApplianceException
+    {
         int port = getConnectorPort();
         try
         {
-            m_connector = new LocalConnector();
-            Registry registry = resolveRegistry( port );
-            m_address = 
+            Registry registry = resolveRegistry( logger, port );
+            String address = 
               "dpml/station/" 
               + PROCESS_ID.getValue() 
               + "/"
-              + System.identityHashCode( this );
-            registry.bind( m_address, m_connector );
+              + System.identityHashCode( owner );
+            registry.bind( address, connector );
+            return address;
         }
         catch( ApplianceException e )
         {
@@ -105,16 +128,32 @@ final class Application
               "Unable to bind local station callback to RMI registry.";
             throw new ApplianceException( error, e );
         }
-        
-        m_builder = newProcessBuilder();
     }
     
-    private Registry resolveRegistry( int port )throws ApplianceException
+   /**
+    * Remove a station callback connector from the local RMI registry.
+    * @param logger the logging channel
+    * @param address the registry address of the connector
+    */
+    static void unbind( Logger logger, String address )
+    {
+        try
+        {
+            Registry registry = LocateRegistry.getRegistry( getConnectorPort() );
+            registry.unbind( address );
+        }
+        catch( Throwable e )
+        {
+            logger.debug( "unable to unbind " + address );
+        }
+    }
+    
+    private static Registry resolveRegistry( Logger logger, int port ) throws ApplianceException
     {
         try
         {
             Registry registry = LocateRegistry.createRegistry( port );
-            getLogger().debug( "created local registry on port " + port );
+            logger.debug( "created local registry on port " + port );
             return registry;
         }
         catch( RemoteException re )
@@ -122,7 +161,7 @@ final class Application
             try
             {
                 Registry registry = LocateRegistry.getRegistry( port );
-                getLogger().debug( "using local registry on port " + port );
+                logger.debug( "using local registry on port " + port );
                 return registry;
             }
             catch( RemoteException e )
@@ -134,7 +173,7 @@ final class Application
         }
     }
     
-    private int getConnectorPort()
+    private static int getConnectorPort()
     {
         String port = System.getProperty( "dpml.appliance.connector.port", null );
         if( null == port )
@@ -188,16 +227,75 @@ final class Application
     }
 
     public Appliance getAppliance( TimeUnit unit, int timeout ) throws IOException
-    {
-        final Process process = newProcess();
+    {
         long now = new Date().getTime();
-        Appliance appliance = m_connector.getAppliance( unit, timeout );
+        long deadline = now + unit.toMillis( timeout );
+        Appliance appliance = getSpareAppliance();
+        if( null != appliance )
+        {
+            long diff = new Date().getTime() - now;
+            getLogger().info( "spare process assigned in " + diff + " ms" );
+            return appliance;
+        }
+        
+        //
+        // the startup timeout covers any wait for a spare process so only
+        // the remaining time is available to a dedicated process
+        //
+        
+        now = new Date().getTime();
+        long remaining = deadline - now;
+        if( remaining <= 0 )
+        {
+            throw new IOException( "Appliance connection timeout (" + timeout + ")." );
+        }
+        final Process process = newProcess();
+        appliance = 
+          m_connector.getAppliance( 
+            TimeUnit.MILLISECONDS, (int) Math.min( remaining, Integer.MAX_VALUE ) );
         long then = new Date().getTime();
         long diff = then - now;
         getLogger().info( "process established in " + diff + " ms" );
         return appliance;
     }
     
+   /**
+    * Assign the appliance to a spare process if the application is associated
+    * with a spare process pool, the process profile of the application 
+    * matches the spare process profile and a spare process is ready.  If the
+    * appliance cannot be established in the spare process the spare process
+    * is terminated and the appliance is assigned to a dedicated process.
+    * @return the appliance or null if no spare process is available
+    * @exception IOException if an I/O error occurs
+    */
+    private Appliance getSpareAppliance() throws IOException
+    {
+        if( ( null == m_pool ) || !m_pool.isCompatible( m_descriptor ) )
+        {
+            return null;
+        }
+        SparePool.Spare spare = m_pool.take();
+        if( null == spare )
+        {
+            return null;
+        }
+        URI uri = m_descriptor.getTargetURI();
+        try
+        {
+            return spare.getHost().newAppliance( uri, getApplianceProperties() );
+        }
+        catch( Throwable e )
+        {
+            final String warning = 
+              "Unable to establish appliance ["
+              + m_descriptor.getCodebaseURI() 
+              + "] in spare process.";
+            getLogger().warn( warning, e );
+            spare.destroy();
+            return null;
+        }
+    }
+    
     Logger getLogger()
     {
         return m_logger;
@@ -209,8 +307,8 @@ final class Application
     }
     
     Process newProcess() throws IOException
-    {
-	try
+    {
+	try
         {
             Process process = m_builder.start();
             setShutdownHook( process );
@@ -218,15 +316,15 @@ final class Application
               new OutputStreamReader( m_logger, process.getInputStream() );
             output.setDaemon( true );
             output.start();
-            return process;
-        }
-        catch( IOException e )
-        {
-             final String error = 
-               "Unable to establish application process for ["
-               + m_descriptor.getCodebaseURI() 
-               + "].";
-             throw new ApplianceException( error, e, m_descriptor.getElement() );
+            return process;
+        }
+        catch( IOException e )
+        {
+             final String error = 
+               "Unable to establish application process for ["
+               + m_descriptor.getCodebaseURI() 
+               + "].";
+             throw new ApplianceException( error, e, m_descriptor.getElement() );
         }
     }
     
@@ -239,7 +337,7 @@ final class Application
         builder.directory( dir );
         Map<String,String> environment = builder.environment();
         Map<String,String> env = m_descriptor.getEnvironmentMap();
-        environment.putAll( env );
+        environment.putAll( env );
         return builder;
     }
     
@@ -301,38 +399,12 @@ final class Application
         String executable = m_descriptor.getExecutable();
         list.add( executable );
         
-        //
-        // add partition
-        //
-        
-        if( null != m_key )
-        {
-            list.add( "-Ddpml.station.partition=" + m_key );
-        }
-        
         //
         // add connection key
         //
         
         list.add( "-Ddpml.appliance.connector.key=" + m_address );
         
-        //
-        // add codebase uri
-        //
-        
-        URI codebase = m_descriptor.getCodebaseURI();
-        if( null != codebase )
-        {
-            String spec = codebase.toASCIIString();
-            list.add( "-Ddpml.appliance.codebase.uri=" + spec );
-        }
-        
-        //
-        // add decommissioning timeout
-        //
-        
-        list.add( "-Ddpml.decommmission.timeout=" + m_descriptor.getShutdownTimeout() );
-        
         //
         // add default system properties
         //
@@ -340,10 +412,10 @@ final class Application
         list.add( "-Djava.util.logging.config.class=dpml.util.DepotLoggingConfiguration" );
 
         //
-        // add declared system properties
+        // add appliance and declared system properties
         //
         
-        Properties properties = m_descriptor.getSystemProperties();
+        Properties properties = getApplianceProperties();
         Set<String> names = properties.stringPropertyNames();
         for( String name : names )
         {
@@ -362,6 +434,49 @@ final class Application
         return list;
     }
     
+   /**
+    * Return the system properties applied to the appliance process.
+    * @return the appliance system properties
+    */
+    private Properties getApplianceProperties()
+    {
+        Properties properties = new Properties();
+        
+        //
+        // add partition
+        //
+        
+        if( null != m_key )
+        {
+            properties.setProperty( "dpml.station.partition", m_key );
+        }
+        
+        //
+        // add codebase uri
+        //
+        
+        URI codebase = m_descriptor.getCodebaseURI();
+        if( null != codebase )
+        {
+            properties.setProperty( "dpml.appliance.codebase.uri", codebase.toASCIIString() );
+        }
+        
+        //
+        // add decommissioning timeout
+        //
+        
+        properties.setProperty( 
+          "dpml.decommmission.timeout", 
+          "" + m_descriptor.getShutdownTimeout() );
+        
+        //
+        // add declared system properties
+        //
+        
+        properties.putAll( m_descriptor.getSystemProperties() );
+        return properties;
+    }
+    
     private static void setShutdownHook( final ApplianceListener listener )
     {
         Runtime.getRuntime().addShutdownHook(
@@ -381,7 +496,7 @@ final class Application
         );
     }
     
-    private static void setShutdownHook( final Process process )
+    static void setShutdownHook( final Process process )
     {
         Runtime.getRuntime().addShutdownHook(
           new Thread()
@@ -26,6 +26,7 @@ import dpml.station.info.EntryDescriptor;
 import dpml.station.info.IncludeDescriptor;
 import dpml.station.info.ApplianceDescriptor;
 
+import dpml.appliance.ApplianceActivator;
 import dpml.appliance.ApplianceHelper;
 import dpml.appliance.AbstractAppliance;
 
@@ -34,11 +35,15 @@ import java.net.URI;
 import java.rmi.RemoteException;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import net.dpml.appliance.Appliance;
 import net.dpml.appliance.ApplianceException;
 import net.dpml.appliance.ApplianceEvent;
 import net.dpml.appliance.ApplianceManager;
+import net.dpml.appliance.ServiceDependencies;
 
 import net.dpml.runtime.Status;
 
@@ -46,7 +51,7 @@ import net.dpml.state.State;
 
 import net.dpml.util.Logger;
 
-import org.w3c.dom.Element;
+import org.w3c.dom.Element;
 
 /**
  * Appliance implementation that aggregates a collection of ordered appliance instances.
@@ -54,10 +59,13 @@ import org.w3c.dom.Element;
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
-class CompositeAppliance extends AbstractAppliance implements Appliance, ApplianceManager
+class CompositeAppliance extends AbstractAppliance 
+  implements Appliance, ApplianceManager, ServiceDependencies
 {
     private PlanDescriptor m_descriptor;
     private ArrayList<Appliance> m_list = new ArrayList<Appliance>();
+    private final ApplianceActivator m_activator;
+    private final SparePool m_pool;
     
     CompositeAppliance( final Logger logger, final PlanDescriptor descriptor ) throws IOException
     {
@@ -69,6 +77,8 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
         super( logger, descriptor.getCodebaseURI() );
         
         m_descriptor = descriptor;
+        m_pool = new SparePool( logger, descriptor.getSpareCount() );
+        m_pool.start();
         
         for( EntryDescriptor entry : m_descriptor.getEntryDescriptors() )
         {
@@ -106,7 +116,7 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
                     throw new ApplianceException( error, null, element );
                 }
                 String name = getQualifiedName( partition, key );
-                Appliance appliance = ApplianceContentHandler.newAppliance( name, d );
+                Appliance appliance = ApplianceContentHandler.newAppliance( name, d, m_pool );
                 m_list.add( appliance );
                 ApplianceContentHandler.register( name, appliance );
             }
@@ -122,6 +132,10 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
             }
         }
         
+        m_activator = 
+          new ApplianceActivator( 
+            logger, m_list.toArray( new Appliance[0] ), ApplianceActivator.PARALLEL );
+        
         ApplianceEvent ae = new ApplianceEvent( this, Status.CREATION );
         processEvent( ae );
     }
@@ -172,6 +186,46 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
         return m_list.toArray( new Appliance[0] );
     }
 
+   /**
+    * Return the classnames of the services provided by the plan entries.
+    * @return the provided service classnames
+    * @exception RemoteException if a remote IO error occurs
+    */
+    public String[] getProvidedServices() throws RemoteException
+    {
+        Set<String> provided = new LinkedHashSet<String>();
+        for( Appliance appliance : m_list )
+        {
+            if( appliance instanceof ServiceDependencies )
+            {
+                ServiceDependencies dependencies = (ServiceDependencies) appliance;
+                provided.addAll( Arrays.asList( dependencies.getProvidedServices() ) );
+            }
+        }
+        return provided.toArray( new String[0] );
+    }
+    
+   /**
+    * Return the classnames of the services required by the plan entries
+    * that are not provided by the plan.
+    * @return the required service classnames
+    * @exception RemoteException if a remote IO error occurs
+    */
+    public String[] getRequiredServices() throws RemoteException
+    {
+        Set<String> required = new LinkedHashSet<String>();
+        for( Appliance appliance : m_list )
+        {
+            if( appliance instanceof ServiceDependencies )
+            {
+                ServiceDependencies dependencies = (ServiceDependencies) appliance;
+                required.addAll( Arrays.asList( dependencies.getRequiredServices() ) );
+            }
+        }
+        required.removeAll( Arrays.asList( getProvidedServices() ) );
+        return required.toArray( new String[0] );
+    }
+    
     private String getQualifiedName( String partition, String key )
     {
         if( null == partition )
@@ -200,10 +254,7 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
             ApplianceEvent ae = new ApplianceEvent( this, Status.INCARNATION );
             processEvent( ae );
             super.commission();
-            for( Appliance appliance : m_list )
-            {
-                appliance.commission();
-            }
+            m_activator.commission();
         }
         getLogger().info( "plan commissioning complete" );
     }
@@ -215,12 +266,8 @@ class CompositeAppliance extends AbstractAppliance implements Appliance, Applian
         {
             ApplianceEvent ee = new ApplianceEvent( this, Status.ETHERIALIZATION );
             processEvent( ee );
-            Appliance[] appliances = m_list.toArray( new Appliance[0] );
-            for( int i = appliances.length; i>0; i-- )
-            {
-                Appliance appliance = appliances[i-1];
-                appliance.decommission();
-            }
+            m_activator.decommission();
+            m_pool.close();
             ApplianceEvent te = new ApplianceEvent( this, Status.TERMINATION );
             processEvent( te );
             super.decommission( timeout, units );
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.station;
+
+import dpml.station.connector.LocalConnector;
+import dpml.station.info.ApplianceDescriptor;
+import dpml.station.util.OutputStreamReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.dpml.appliance.ApplianceHost;
+
+import net.dpml.util.Logger;
+
+/**
+ * Pool of spare metro processes.  Each spare is a generic metro process 
+ * started in host mode that has initialized Transit and connected back to the
+ * station, and is waiting to be assigned an appliance.  Assigning an appliance
+ * to a spare avoids the cost of process startup.  A replacement spare is 
+ * started whenever a spare is taken from the pool.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class SparePool
+{
+   /**
+    * The executable used to launch spare processes.
+    */
+    static final String EXECUTABLE = "metro";
+    
+   /**
+    * Duration in seconds to wait for a spare process to connect.
+    */
+    private static final int STARTUP_TIMEOUT = 
+      Integer.getInteger( "dpml.station.spare.timeout", 60 );
+    
+    private final Logger m_logger;
+    private final int m_size;
+    private final BlockingQueue<Spare> m_ready = new LinkedBlockingQueue<Spare>();
+    private final Set<Spare> m_spares = new CopyOnWriteArraySet<Spare>();
+    private final ExecutorService m_launcher;
+    
+    private volatile boolean m_closed = false;
+    
+   /**
+    * Creation of a new spare process pool.
+    * @param logger the logging channel
+    * @param size the number of spare processes to maintain
+    */
+    SparePool( Logger logger, int size )
+    {
+        m_logger = logger;
+        m_size = Math.max( 0, size );
+        m_launcher = Executors.newCachedThreadPool( new LauncherThreadFactory() );
+    }
+    
+   /**
+    * Start the spare processes.
+    */
+    void start()
+    {
+        if( m_size > 0 )
+        {
+            m_logger.info( "starting " + m_size + " spare processes" );
+        }
+        for( int i=0; i<m_size; i++ )
+        {
+            launch();
+        }
+    }
+    
+   /**
+    * Return the number of spare processes maintained by the pool.
+    * @return the pool size
+    */
+    int getSize()
+    {
+        return m_size;
+    }
+    
+   /**
+    * Test if an appliance can be assigned to a spare process.  Spare processes
+    * are launched with the default executable, working directory, environment
+    * and system properties so an appliance declaring a different process profile
+    * requires a dedicated process.  Declared system properties are excluded as 
+    * properties read during JVM or Transit initialization would have no effect
+    * once applied to a running spare.
+    * @param descriptor the appliance descriptor
+    * @return true if the appliance can be assigned to a spare process
+    */
+    boolean isCompatible( ApplianceDescriptor descriptor )
+    {
+        if( m_size == 0 )
+        {
+            return false;
+        }
+        if( !EXECUTABLE.equals( descriptor.getExecutable() ) )
+        {
+            return false;
+        }
+        if( null != descriptor.getPath() )
+        {
+            return false;
+        }
+        Map<String,String> environment = descriptor.getEnvironmentMap();
+        if( ( null != environment ) && !environment.isEmpty() )
+        {
+            return false;
+        }
+        Properties properties = descriptor.getSystemProperties();
+        return ( null == properties ) || properties.isEmpty();
+    }
+    
+   /**
+    * Take a ready spare process from the pool.  The call does not wait for 
+    * starting spares as a dedicated process can be started in the meantime.
+    * Spare processes that have terminated while idle are discarded.  A 
+    * replacement is started for each spare taken or discarded.
+    * @return the spare process or null if no spare is ready
+    */
+    Spare take()
+    {
+        while( !m_closed )
+        {
+            Spare spare = m_ready.poll();
+            if( null == spare )
+            {
+                return null;
+            }
+            m_spares.remove( spare );
+            launch();
+            if( spare.isAlive() )
+            {
+                spare.release();
+                return spare;
+            }
+            m_logger.warn( "Discarding terminated spare process." );
+            spare.destroy();
+        }
+        return null;
+    }
+    
+   /**
+    * Terminate the idle spare processes.
+    */
+    void close()
+    {
+        m_closed = true;
+        m_launcher.shutdownNow();
+        for( Spare spare : m_spares )
+        {
+            spare.destroy();
+        }
+        m_spares.clear();
+        m_ready.clear();
+    }
+    
+    private void launch()
+    {
+        if( !m_closed )
+        {
+            m_launcher.execute( new Spare() );
+        }
+    }
+    
+    private List<String> getProcessCommands( String address )
+    {
+        List<String> list = new ArrayList<String>();
+        list.add( EXECUTABLE );
+        list.add( "-Ddpml.appliance.host=true" );
+        list.add( "-Ddpml.appliance.connector.key=" + address );
+        list.add( "-Djava.util.logging.config.class=dpml.util.DepotLoggingConfiguration" );
+        return list;
+    }
+    
+   /**
+    * A spare process.
+    */
+    final class Spare implements Runnable
+    {
+        private volatile String m_address;
+        private volatile Process m_process;
+        private ApplianceHost m_host;
+        
+        private Spare()
+        {
+        }
+        
+        public void run()
+        {
+            try
+            {
+                long now = System.currentTimeMillis();
+                LocalConnector connector = new LocalConnector();
+                m_address = Application.bind( m_logger, this, connector );
+                m_spares.add( this );
+                ProcessBuilder builder = new ProcessBuilder( getProcessCommands( m_address ) );
+                builder.redirectErrorStream( true );
+                m_process = builder.start();
+                Application.setShutdownHook( m_process );
+                OutputStreamReader output = 
+                  new OutputStreamReader( m_logger, m_process.getInputStream() );
+                output.setDaemon( true );
+                output.start();
+                m_host = connector.getApplianceHost( TimeUnit.SECONDS, STARTUP_TIMEOUT );
+                if( m_closed )
+                {
+                    destroy();
+                }
+                else
+                {
+                    long diff = System.currentTimeMillis() - now;
+                    m_logger.debug( "spare process established in " + diff + " ms" );
+                    m_ready.add( this );
+                }
+            }
+            catch( Throwable e )
+            {
+                m_logger.warn( "Unable to establish spare process.", e );
+                m_spares.remove( this );
+                destroy();
+            }
+        }
+        
+       /**
+        * Return the appliance host exported by the spare process.
+        * @return the appliance host
+        */
+        ApplianceHost getHost()
+        {
+            return m_host;
+        }
+        
+       /**
+        * Test if the spare process is running.
+        * @return true if the process has not terminated
+        */
+        boolean isAlive()
+        {
+            Process process = m_process;
+            if( null == process )
+            {
+                return false;
+            }
+            try
+            {
+                process.exitValue();
+                return false;
+            }
+            catch( IllegalThreadStateException e )
+            {
+                return true;
+            }
+        }
+        
+       /**
+        * Release the spare from the pool registry.
+        */
+        void release()
+        {
+            String address = m_address;
+            if( null != address )
+            {
+                m_address = null;
+                Application.unbind( m_logger, address );
+            }
+        }
+        
+       /**
+        * Release the spare and terminate the spare process.
+        */
+        void destroy()
+        {
+            release();
+            if( null != m_process )
+            {
+                m_process.destroy();
+            }
+        }
+    }
+    
+   /**
+    * Factory of daemon launcher threads.
+    */
+    private static class LauncherThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger m_count = new AtomicInteger();
+        
+        public Thread newThread( Runnable runnable )
+        {
+            String name = "DPML Spare Process Launcher " + m_count.incrementAndGet();
+            Thread thread = new Thread( runnable, name );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
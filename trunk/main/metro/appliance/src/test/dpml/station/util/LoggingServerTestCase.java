@@ -0,0 +1,153 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.station.util;
+
+import dpml.util.DepotHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+/**
+ * Validation of log record transport from the depot handler to the 
+ * logging server.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class LoggingServerTestCase extends TestCase
+{
+    private static final String CATEGORY = "dpml.station.util.test";
+    private static final int COUNT = 20000;
+    
+    private LoggingServer m_server;
+    private DepotHandler m_handler;
+    private Logger m_logger;
+    private CollectingHandler m_collector;
+    
+   /**
+    * Setup the server, the client handler and the collecting handler.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_server = new LoggingServer( 0 );
+        m_server.setDaemon( true );
+        m_server.start();
+        m_handler = new DepotHandler( "localhost", m_server.getPort() );
+        m_collector = new CollectingHandler();
+        m_logger = Logger.getLogger( CATEGORY );
+        m_logger.setUseParentHandlers( false );
+        m_logger.addHandler( m_collector );
+    }
+    
+   /**
+    * Close the handler and server.
+    * @exception Exception if an error occurs
+    */
+    public void tearDown() throws Exception
+    {
+        m_handler.close();
+        m_server.close();
+        m_logger.removeHandler( m_collector );
+    }
+    
+   /**
+    * Test the transfer of record content.
+    * @exception Exception if an error occurs
+    */
+    public void testRecordContent() throws Exception
+    {
+        LogRecord record = new LogRecord( Level.WARNING, "Hello {0}" );
+        record.setLoggerName( CATEGORY );
+        record.setParameters( new Object[]{ "World" } );
+        record.setThrown( new IllegalStateException( "test" ) );
+        record.setSourceClassName( "org.acme.Widget" );
+        record.setSourceMethodName( "run" );
+        m_handler.publish( record );
+        List<LogRecord> records = m_collector.await( 1 );
+        assertEquals( "count", 1, records.size() );
+        LogRecord result = records.get( 0 );
+        assertEquals( "level", Level.WARNING, result.getLevel() );
+        assertTrue( "message", result.getMessage().endsWith( "] Hello World" ) );
+        assertEquals( "millis", record.getMillis(), result.getMillis() );
+        assertEquals( "source", "org.acme.Widget", result.getSourceClassName() );
+        assertEquals( "method", "run", result.getSourceMethodName() );
+        assertTrue( "thrown", result.getThrown() instanceof IllegalStateException );
+        assertEquals( "cause", "test", result.getThrown().getMessage() );
+    }
+    
+   /**
+    * Test that records are delivered in order without loss.
+    * @exception Exception if an error occurs
+    */
+    public void testOrdering() throws Exception
+    {
+        for( int i=0; i<COUNT; i++ )
+        {
+            LogRecord record = new LogRecord( Level.INFO, "message " + i );
+            record.setLoggerName( CATEGORY );
+            m_handler.publish( record );
+        }
+        List<LogRecord> records = m_collector.await( COUNT );
+        assertEquals( "dropped", 0, m_handler.getDroppedCount() );
+        assertEquals( "count", COUNT, records.size() );
+        for( int i=0; i<COUNT; i++ )
+        {
+            assertTrue( "order", records.get( i ).getMessage().endsWith( "] message " + i ) );
+        }
+    }
+    
+   /**
+    * Handler collecting delivered records.
+    */
+    private static class CollectingHandler extends Handler
+    {
+        private final List<LogRecord> m_records = new ArrayList<LogRecord>();
+        
+        public synchronized void publish( LogRecord record )
+        {
+            m_records.add( record );
+            notifyAll();
+        }
+        
+        public void flush()
+        {
+        }
+        
+        public void close()
+        {
+        }
+        
+        synchronized List<LogRecord> await( int count ) throws InterruptedException
+        {
+            long deadline = System.currentTimeMillis() + 10000;
+            while( ( m_records.size() < count ) && ( System.currentTimeMillis() < deadline ) )
+            {
+                wait( 100 );
+            }
+            return new ArrayList<LogRecord>( m_records );
+        }
+    }
+}
@@ -39,6 +39,16 @@ public class PlanDescriptorTestCase extends AbstractTestCase
         assertEquals( "title", "Plan Demo", title );
     }
     
+   /**
+    * Test the plan spare process count.
+    * @exception Exception if an error occurs
+    */
+    public void testSpareCount() throws Exception
+    {
+        assertEquals( "declared", 2, loadPlanDescriptor( "spare-plan.xml" ).getSpareCount() );
+        assertEquals( "default", 0, loadPlanDescriptor( "empty.xml" ).getSpareCount() );
+    }
+    
    /**
     * Test integrity of the plan entry uris.
     * @exception Exception if an error occurs
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.station;
+
+import dpml.station.info.ApplianceDescriptor;
+import dpml.util.DefaultLogger;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLConnection;
+
+import junit.framework.TestCase;
+
+import net.dpml.util.Logger;
+
+/**
+ * Validation of the spare process pool compatibility rules and of the 
+ * behaviour of a pool without spare processes.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class SparePoolTestCase extends TestCase
+{
+    private final Logger m_logger = new DefaultLogger( "test" );
+    
+   /**
+    * Test that an appliance using the default process profile is compatible.
+    * @exception Exception if an error occurs
+    */
+    public void testDefaultProfile() throws Exception
+    {
+        SparePool pool = new SparePool( m_logger, 1 );
+        assertTrue( "compatible", pool.isCompatible( load( "spare.xml" ) ) );
+    }
+    
+   /**
+    * Test that an appliance declaring system properties is not compatible.
+    * @exception Exception if an error occurs
+    */
+    public void testSystemProperties() throws Exception
+    {
+        SparePool pool = new SparePool( m_logger, 1 );
+        assertFalse( "compatible", pool.isCompatible( load( "spare-properties.xml" ) ) );
+    }
+    
+   /**
+    * Test that an appliance declaring environment variables is not compatible.
+    * @exception Exception if an error occurs
+    */
+    public void testEnvironment() throws Exception
+    {
+        SparePool pool = new SparePool( m_logger, 1 );
+        assertFalse( "compatible", pool.isCompatible( load( "foo.xml" ) ) );
+    }
+    
+   /**
+    * Test that no appliance is compatible with an empty pool and that a 
+    * request against an empty pool returns without a host.
+    * @exception Exception if an error occurs
+    */
+    public void testEmptyPool() throws Exception
+    {
+        SparePool pool = new SparePool( m_logger, 0 );
+        pool.start();
+        assertEquals( "size", 0, pool.getSize() );
+        assertFalse( "compatible", pool.isCompatible( load( "spare.xml" ) ) );
+        assertNull( "host", pool.take() );
+        pool.close();
+    }
+    
+   /**
+    * Test that a closed pool returns without a host.
+    * @exception Exception if an error occurs
+    */
+    public void testClosedPool() throws Exception
+    {
+        SparePool pool = new SparePool( m_logger, 1 );
+        pool.close();
+        assertNull( "host", pool.take() );
+    }
+    
+    private ApplianceDescriptor load( String path ) throws Exception
+    {
+        File dir = new File( System.getProperty( "project.test.dir" ) );
+        URL url = new File( dir, path ).toURI().toURL();
+        URLConnection connection = url.openConnection();
+        ApplianceContentHandler handler = new ApplianceContentHandler();
+        return (ApplianceDescriptor) handler.getContent( 
+          connection, new Class[]{ApplianceDescriptor.class} );
+    }
+}
@@ -20,6 +20,7 @@ package dpml.station.connector;
 
 import net.dpml.appliance.Appliance;
 import net.dpml.appliance.ApplianceConnector;
+import net.dpml.appliance.ApplianceHost;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
@@ -37,6 +38,7 @@ public class LocalConnector extends UnicastRemoteObject implements ApplianceConn
 {
     private final Object m_lock = new Object();
     private Appliance m_appliance;
+    private ApplianceHost m_host;
     private Monitor m_monitor;
     
    /**
@@ -65,6 +67,23 @@ public class LocalConnector extends UnicastRemoteObject implements ApplianceConn
         }
     }
     
+   /**
+    * Connect an appliance host to the station.
+    * @param host the appliance host
+    * @exception RemoteException if a remote error occurs
+    */
+    public void connect( ApplianceHost host ) throws RemoteException
+    {
+        synchronized( m_lock )
+        {
+            m_host = host;
+            if( null != m_monitor )
+            {
+                m_monitor.interrupt();
+            }
+        }
+    }
+    
    /**
     * Wait for the specified time for appliance registration.
     * @param units the time units
@@ -74,6 +93,7 @@ public class LocalConnector extends UnicastRemoteObject implements ApplianceConn
     */
     public Appliance getAppliance( TimeUnit units, int timeout ) throws IOException
     {
+        await( units, timeout );
         synchronized( m_lock )
         {
             if( null != m_appliance )
@@ -82,16 +102,56 @@ public class LocalConnector extends UnicastRemoteObject implements ApplianceConn
             }
             else
             {
-                m_monitor = new Monitor( units, timeout );
-                m_monitor.setName( "DPML Connection Monitor " 
+                throw new IOException( "Appliance connection timeout (" + timeout + ")." );
+            }
+        }
+    }
+    
+   /**
+    * Wait for the specified time for appliance host registration.
+    * @param units the time units
+    * @param timeout the number of units
+    * @return the registered appliance host
+    * @exception IOException if an IO or timout error occurs
+    */
+    public ApplianceHost getApplianceHost( TimeUnit units, int timeout ) throws IOException
+    {
+        await( units, timeout );
+        synchronized( m_lock )
+        {
+            if( null != m_host )
+            {
+                return m_host;
+            }
+            else
+            {
+                throw new IOException( "Appliance host connection timeout (" + timeout + ")." );
+            }
+        }
+    }
+    
+    private void await( TimeUnit units, int timeout )
+    {
+        Monitor monitor;
+        synchronized( m_lock )
+        {
+            if( ( null != m_appliance ) || ( null != m_host ) )
+            {
+                return;
+            }
+            else
+            {
+                monitor = new Monitor( units, timeout );
+                monitor.setName( "DPML Connection Monitor " 
                   + System.identityHashCode( this ) );
-                m_monitor.start();
+                m_monitor = monitor;
+                monitor.start();
             }
         }
         
         try
         {
-            m_monitor.join();
+            monitor.join();
         }
         catch( InterruptedException e )
         {
@@ -100,14 +160,6 @@ public class LocalConnector extends UnicastRemoteObject implements ApplianceConn
         synchronized( m_lock )
         {
             m_monitor = null;
-            if( null != m_appliance )
-            {
-                return m_appliance;
-            }
-            else
-            {
-                throw new IOException( "Appliance connection timeout (" + timeout + ")." );
-            }
         }
     }
     
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.station.connector;
+
+import java.io.IOException;
+import java.net.URI;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import net.dpml.appliance.Appliance;
+import net.dpml.appliance.ApplianceHost;
+
+/**
+ * Validation of appliance host registration through the local connector.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class LocalConnectorTestCase extends TestCase
+{
+    private LocalConnector m_connector;
+    
+   /**
+    * Setup the connector.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_connector = new LocalConnector();
+    }
+    
+   /**
+    * Unexport the connector.
+    * @exception Exception if an error occurs
+    */
+    public void tearDown() throws Exception
+    {
+        UnicastRemoteObject.unexportObject( m_connector, true );
+    }
+    
+   /**
+    * Test that a waiting request returns the host on connection.
+    * @exception Exception if an error occurs
+    */
+    public void testHostConnection() throws Exception
+    {
+        final ApplianceHost host = new TestHost();
+        Thread thread = 
+          new Thread()
+          {
+              public void run()
+              {
+                  try
+                  {
+                      Thread.sleep( 200 );
+                      m_connector.connect( host );
+                  }
+                  catch( Exception e )
+                  {
+                      throw new RuntimeException( e );
+                  }
+              }
+          };
+        thread.start();
+        assertSame( "host", host, m_connector.getApplianceHost( TimeUnit.SECONDS, 60 ) );
+        thread.join();
+    }
+    
+   /**
+    * Test that a host connected ahead of the request is returned.
+    * @exception Exception if an error occurs
+    */
+    public void testPriorConnection() throws Exception
+    {
+        ApplianceHost host = new TestHost();
+        m_connector.connect( host );
+        assertSame( "host", host, m_connector.getApplianceHost( TimeUnit.SECONDS, 60 ) );
+    }
+    
+   /**
+    * Test that a request is terminated on timeout.
+    * @exception Exception if an error occurs
+    */
+    public void testTimeout() throws Exception
+    {
+        try
+        {
+            m_connector.getApplianceHost( TimeUnit.MILLISECONDS, 100 );
+            fail( "Host returned without connection." );
+        }
+        catch( IOException e )
+        {
+            // success
+        }
+    }
+    
+   /**
+    * Appliance host that does not establish appliances.
+    */
+    private static class TestHost implements ApplianceHost
+    {
+        public Appliance newAppliance( URI uri, Properties properties ) throws IOException
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.metro.console;
+
+import dpml.appliance.ApplianceHelper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Properties;
+
+import net.dpml.appliance.Appliance;
+import net.dpml.appliance.ApplianceListener;
+import net.dpml.appliance.ApplianceHost;
+
+/**
+ * Appliance host exported by a spare metro process.  The host waits for the 
+ * station to assign an appliance codebase and establishes the appliance within
+ * the already initialized process.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+class LocalApplianceHost extends UnicastRemoteObject implements ApplianceHost
+{
+   /**
+    * Serial version identifier.
+    */
+    static final long serialVersionUID = 1L;
+    
+    private final ApplianceListener m_listener;
+    
+    private boolean m_assigned = false;
+    
+   /**
+    * Creation of a new appliance host.
+    * @param listener listener to attach to the assigned appliance
+    * @exception RemoteException if a remote error occurs
+    */
+    LocalApplianceHost( ApplianceListener listener ) throws RemoteException
+    {
+        super();
+        m_listener = listener;
+    }
+    
+   /**
+    * Establish an appliance within the host process.
+    * @param uri the appliance codebase uri
+    * @param properties system properties to apply before appliance creation
+    * @return the appliance
+    * @exception IOException if an I/O error occurs
+    */
+    public synchronized Appliance newAppliance( URI uri, Properties properties ) throws IOException
+    {
+        if( m_assigned )
+        {
+            final String error = 
+              "Appliance host has already been assigned.";
+            throw new IllegalStateException( error );
+        }
+        m_assigned = true;
+        for( String name : properties.stringPropertyNames() )
+        {
+            System.setProperty( name, properties.getProperty( name ) );
+        }
+        ClassLoader current = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader( getClass().getClassLoader() );
+        try
+        {
+            Appliance appliance = ApplianceHelper.newAppliance( uri );
+            appliance.addApplianceListener( m_listener );
+            return appliance;
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader( current );
+        }
+    }
+}
@@ -121,8 +121,8 @@ public class Main implements Tool
     {
         return Collections.unmodifiableSet(
           EnumSet.range(
-            SourceVersion.RELEASE_4,
-            SourceVersion.latest() ) );
+            SourceVersion.RELEASE_4,
+            SourceVersion.latest() ) );
     }
     
    /**
@@ -167,6 +167,11 @@ public class Main implements Tool
     
     private int execute( String... args ) throws Exception
     {
+        if( Boolean.getBoolean( "dpml.appliance.host" ) )
+        {
+            return executeAsHost();
+        }
+        
         CommandLine line = getCommandLine( args );
         if( ( null == line ) || !line.hasOption( CODEBASE ) )
         {
@@ -282,6 +287,26 @@ public class Main implements Tool
         }
     }
     
+   /**
+    * Execute as a spare process.  The process connects an appliance host
+    * to the parent process and waits for the assignment of an appliance.
+    */
+    private int executeAsHost() throws Exception
+    {
+        String key = System.getProperty( "dpml.appliance.connector.key", null );
+        if( null == key )
+        {
+            final String error = 
+              "Host execution requires a connector key.";
+            m_logger.error( error );
+            return -1;
+        }
+        LocalApplianceHost host = new LocalApplianceHost( new LocalApplianceListener() );
+        ApplianceConnector connector = getApplianceConnector( key );
+        connector.connect( host );
+        return 1;
+    }
+    
    /**
     * Execute the appliance.
     * @param appliance the appliance
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.appliance;
+
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.dpml.appliance.Appliance;
+import net.dpml.appliance.ServiceDependencies;
+
+import net.dpml.util.Logger;
+
+/**
+ * Utility class handling the commissioning and decommissioning of an ordered
+ * collection of appliances.  In sequential mode appliances are commissioned in 
+ * the declared order.  In parallel mode (enabled by setting the 
+ * <tt>dpml.appliance.activation</tt> system property to <tt>parallel</tt>) an
+ * appliance is commissioned on a bounded thread pool as soon as the appliances
+ * it depends on have been commissioned.  An appliance depends on an earlier
+ * appliance if it requires a service the earlier appliance provides (as declared
+ * by the {@link ServiceDependencies} interface).  Appliances that do not declare
+ * their dependencies are considered independent.  In both modes appliances are 
+ * decommissioned in the reverse of the order in which commissioning completed.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class ApplianceActivator
+{
+   /**
+    * True if parallel activation is enabled.
+    */
+    public static final boolean PARALLEL = 
+      "parallel".equalsIgnoreCase( System.getProperty( "dpml.appliance.activation", "sequential" ) );
+    
+   /**
+    * The maximum number of appliances commissioned concurrently.
+    */
+    private static final int THREADS = 
+      Integer.getInteger( 
+        "dpml.appliance.activation.threads", 
+        Runtime.getRuntime().availableProcessors() * 2 );
+    
+    private final Logger m_logger;
+    private final Appliance[] m_appliances;
+    private final boolean m_parallel;
+    private final List<Appliance> m_commissioned = new ArrayList<Appliance>();
+    private final Map<String,Long> m_times = new LinkedHashMap<String,Long>();
+    
+   /**
+    * Creation of a new activator.
+    * @param logger the logging channel
+    * @param appliances the appliances in declaration order
+    * @param parallel true if independent appliances are commissioned concurrently
+    */
+    public ApplianceActivator( Logger logger, Appliance[] appliances, boolean parallel )
+    {
+        m_logger = logger;
+        m_appliances = appliances;
+        m_parallel = parallel;
+    }
+    
+   /**
+    * Commission the appliances.  If an appliance fails to commission, no 
+    * further appliances are commissioned and the error is raised once the
+    * appliances being commissioned have completed.
+    * @exception IOException if an appliance commissioning error occurs
+    */
+    public void commission() throws IOException
+    {
+        if( !m_parallel || ( m_appliances.length < 2 ) )
+        {
+            for( int i=0; i<m_appliances.length; i++ )
+            {
+                commission( i );
+            }
+        }
+        else
+        {
+            commission( getDependencies() );
+        }
+    }
+    
+   /**
+    * Decommission the appliances in reverse commissioning order followed by
+    * any appliances that were not commissioned in reverse declaration order.
+    */
+    public void decommission()
+    {
+        List<Appliance> list = new ArrayList<Appliance>( Arrays.asList( m_appliances ) );
+        synchronized( m_commissioned )
+        {
+            list.removeAll( m_commissioned );
+            list.addAll( m_commissioned );
+            m_commissioned.clear();
+        }
+        for( int i = list.size(); i>0; i-- )
+        {
+            Appliance appliance = list.get( i-1 );
+            try
+            {
+                appliance.decommission();
+            }
+            catch( Throwable e )
+            {
+                final String error = 
+                  "Appliance decommissioning error in [" 
+                  + getName( appliance ) 
+                  + "].";
+                m_logger.error( error, e );
+            }
+        }
+    }
+    
+   /**
+    * Return the commissioning duration of each commissioned appliance 
+    * in commissioning order.
+    * @return a map of appliance name to duration in milliseconds
+    */
+    public Map<String,Long> getActivationTimes()
+    {
+        synchronized( m_commissioned )
+        {
+            return Collections.unmodifiableMap( new LinkedHashMap<String,Long>( m_times ) );
+        }
+    }
+    
+   /**
+    * Return the indices of the earlier appliances each appliance depends on.
+    * @return the dependency indices per appliance
+    */
+    int[][] getDependencies()
+    {
+        int n = m_appliances.length;
+        List<Set<String>> provided = getServices( true );
+        List<Set<String>> required = getServices( false );
+        int[][] dependencies = new int[n][];
+        for( int i=0; i<n; i++ )
+        {
+            int[] list = new int[i];
+            int count = 0;
+            for( int j=0; j<i; j++ )
+            {
+                if( !Collections.disjoint( required.get( i ), provided.get( j ) ) )
+                {
+                    list[count++] = j;
+                }
+            }
+            dependencies[i] = Arrays.copyOf( list, count );
+        }
+        return dependencies;
+    }
+    
+    private void commission( int[][] dependencies ) throws IOException
+    {
+        int n = m_appliances.length;
+        int[] pending = new int[n];
+        List<List<Integer>> dependents = new ArrayList<List<Integer>>();
+        for( int i=0; i<n; i++ )
+        {
+            dependents.add( new ArrayList<Integer>() );
+        }
+        for( int i=0; i<n; i++ )
+        {
+            pending[i] = dependencies[i].length;
+            for( int j : dependencies[i] )
+            {
+                dependents.get( j ).add( i );
+            }
+        }
+        ExecutorService executor = 
+          Executors.newFixedThreadPool( Math.max( 1, Math.min( THREADS, n ) ), new ActivationThreadFactory() );
+        CompletionService<Integer> service = new ExecutorCompletionService<Integer>( executor );
+        try
+        {
+            int submitted = 0;
+            for( int i=0; i<n; i++ )
+            {
+                if( 0 == pending[i] )
+                {
+                    service.submit( new Activation( i ) );
+                    submitted++;
+                }
+            }
+            Throwable failure = null;
+            int completed = 0;
+            while( completed < submitted )
+            {
+                try
+                {
+                    int i = service.take().get();
+                    completed++;
+                    if( null == failure )
+                    {
+                        for( int d : dependents.get( i ) )
+                        {
+                            if( --pending[d] == 0 )
+                            {
+                                service.submit( new Activation( d ) );
+                                submitted++;
+                            }
+                        }
+                    }
+                }
+                catch( ExecutionException e )
+                {
+                    completed++;
+                    if( null == failure )
+                    {
+                        failure = e.getCause();
+                    }
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    final String error = "Appliance commissioning interrupted.";
+                    IOException ioe = new IOException( error );
+                    ioe.initCause( e );
+                    throw ioe;
+                }
+            }
+            if( failure instanceof IOException )
+            {
+                throw (IOException) failure;
+            }
+            else if( failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) failure;
+            }
+            else if( failure instanceof Error )
+            {
+                throw (Error) failure;
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    private void commission( int index ) throws IOException
+    {
+        Appliance appliance = m_appliances[index];
+        String name = getName( appliance );
+        long start = System.nanoTime();
+        appliance.commission();
+        long duration = ( System.nanoTime() - start ) / 1000000;
+        synchronized( m_commissioned )
+        {
+            m_commissioned.add( appliance );
+            m_times.put( name, duration );
+        }
+        if( m_logger.isInfoEnabled() )
+        {
+            m_logger.info( "commissioned [" + name + "] in " + duration + "ms" );
+        }
+    }
+    
+    private List<Set<String>> getServices( boolean provided )
+    {
+        List<Set<String>> services = new ArrayList<Set<String>>( m_appliances.length );
+        for( int i=0; i<m_appliances.length; i++ )
+        {
+            Set<String> set = new HashSet<String>();
+            services.add( set );
+            Appliance appliance = m_appliances[i];
+            if( appliance instanceof ServiceDependencies )
+            {
+                ServiceDependencies dependencies = (ServiceDependencies) appliance;
+                try
+                {
+                    String[] names = 
+                      provided 
+                      ? dependencies.getProvidedServices() 
+                      : dependencies.getRequiredServices();
+                    set.addAll( Arrays.asList( names ) );
+                }
+                catch( RemoteException e )
+                {
+                    final String warning = 
+                      "Unable to resolve the service dependencies of [" 
+                      + getName( appliance ) 
+                      + "].";
+                    m_logger.warn( warning, e );
+                }
+            }
+        }
+        return services;
+    }
+    
+    private static String getName( Appliance appliance )
+    {
+        try
+        {
+            return appliance.getName();
+        }
+        catch( RemoteException e )
+        {
+            return appliance.toString();
+        }
+    }
+    
+   /**
+    * Commissioning task.
+    */
+    private class Activation implements java.util.concurrent.Callable<Integer>
+    {
+        private final int m_index;
+        
+        Activation( int index )
+        {
+            m_index = index;
+        }
+        
+        public Integer call() throws Exception
+        {
+            commission( m_index );
+            return m_index;
+        }
+    }
+    
+   /**
+    * Factory of daemon activation threads.
+    */
+    private static class ActivationThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger m_count = new AtomicInteger();
+        
+        public Thread newThread( Runnable runnable )
+        {
+            String name = "DPML Appliance Activation Thread " + m_count.incrementAndGet();
+            Thread thread = new Thread( runnable, name );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
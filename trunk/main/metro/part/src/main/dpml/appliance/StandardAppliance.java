@@ -27,10 +27,15 @@ import java.util.concurrent.TimeUnit;
 import net.dpml.appliance.Appliance;
 import net.dpml.appliance.ApplianceEvent;
 import net.dpml.appliance.ApplianceManager;
+import net.dpml.appliance.ServiceDependencies;
+
+import net.dpml.lang.PartContentHandler;
+import net.dpml.lang.Strategy;
 
 import net.dpml.runtime.Component;
 import net.dpml.runtime.ComponentEvent;
 import net.dpml.runtime.ComponentListener;
+import net.dpml.runtime.ComponentStrategy;
 import net.dpml.runtime.Provider;
 import net.dpml.runtime.ProviderEvent;
 import net.dpml.runtime.Status;
@@ -44,7 +49,8 @@ import net.dpml.util.Logger;
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
-public class StandardAppliance extends AbstractAppliance implements Appliance, ApplianceManager
+public class StandardAppliance extends AbstractAppliance 
+  implements Appliance, ApplianceManager, ServiceDependencies
 {
     private final Component m_component;
     private final ComponentListener m_listener; 
@@ -96,6 +102,52 @@ public class StandardAppliance extends AbstractAppliance implements Appliance, A
         return m_component.getName();
     }
     
+   /**
+    * Return the classnames of the services provided by the component.
+    * @return the provided service classnames
+    * @exception RemoteException if a remote IO error occurs
+    */
+    public String[] getProvidedServices() throws RemoteException
+    {
+        if( m_component instanceof ComponentStrategy )
+        {
+            ComponentStrategy strategy = (ComponentStrategy) m_component;
+            return getClassnames( strategy.getProvidedServices() );
+        }
+        else
+        {
+            return new String[0];
+        }
+    }
+    
+   /**
+    * Return the classnames of the services required by the component.
+    * @return the required service classnames
+    * @exception RemoteException if a remote IO error occurs
+    */
+    public String[] getRequiredServices() throws RemoteException
+    {
+        if( m_component instanceof ComponentStrategy )
+        {
+            ComponentStrategy strategy = (ComponentStrategy) m_component;
+            return getClassnames( strategy.getRequiredServices() );
+        }
+        else
+        {
+            return new String[0];
+        }
+    }
+    
+    private static String[] getClassnames( Class<?>[] classes )
+    {
+        String[] names = new String[ classes.length ];
+        for( int i=0; i<classes.length; i++ )
+        {
+            names[i] = classes[i].getName();
+        }
+        return names;
+    }
+    
    /**
     * Return a value assignable to the supplied remote type or null if the type
     * cannot be resolved from this strategy.
@@ -166,6 +218,11 @@ public class StandardAppliance extends AbstractAppliance implements Appliance, A
             m_instance = null;
             m_component.terminate();
             m_component.removeComponentListener( m_listener );
+            if( m_component instanceof Strategy )
+            {
+                Strategy strategy = (Strategy) m_component;
+                PartContentHandler.invalidate( strategy.getClassLoader() );
+            }
             super.decommission( timeout, units );
         }
     }
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.lang;
+
+import dpml.util.Category;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Compiled form of a validated part definition.  The compiled form holds the
+ * part info, classpath, strategy namespace and the strategy element content
+ * in a compact binary format stored next to the cached part.  Each compiled
+ * part records a digest of the part content, the compiled format version and 
+ * the version of the handler that produced it, and is only used when the 
+ * digest matches, enabling a part to be loaded without xml parsing and 
+ * schema validation.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class CompiledPart
+{
+   /**
+    * Filename suffix of compiled parts.
+    */
+    public static final String SUFFIX = ".compiled";
+
+    private static final int MAGIC = 0x44504D4C;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte ELEMENT_NODE = 1;
+    private static final byte TEXT_NODE = 2;
+    private static final byte END = 0;
+
+    private static final Category[] CATEGORIES =
+      new Category[]{Category.SYSTEM, Category.PUBLIC, Category.PROTECTED, Category.PRIVATE};
+
+    private static final DOMImplementation DOM_IMPLEMENTATION = createDOMImplementation();
+
+    private final String m_title;
+    private final String m_description;
+    private final Classpath m_classpath;
+    private final String m_namespace;
+    private final Element m_element;
+
+    private CompiledPart(
+      String title, String description, Classpath classpath, String namespace, Element element )
+    {
+        m_title = title;
+        m_description = description;
+        m_classpath = classpath;
+        m_namespace = namespace;
+        m_element = element;
+    }
+
+   /**
+    * Return the part title.
+    * @return the title (possibly null)
+    */
+    public String getTitle()
+    {
+        return m_title;
+    }
+
+   /**
+    * Return the part description.
+    * @return the description (possibly null)
+    */
+    public String getDescription()
+    {
+        return m_description;
+    }
+
+   /**
+    * Return the part classpath.
+    * @return the classpath
+    */
+    public Classpath getClasspath()
+    {
+        return m_classpath;
+    }
+
+   /**
+    * Return the schema type namespace of the strategy element.
+    * @return the strategy namespace
+    */
+    public String getNamespace()
+    {
+        return m_namespace;
+    }
+
+   /**
+    * Return the strategy element.
+    * @return the strategy element
+    */
+    public Element getStrategyElement()
+    {
+        return m_element;
+    }
+
+   /**
+    * Return the compiled part file associated with a part file.
+    * @param file the part file
+    * @return the compiled part file
+    */
+    public static File getCompiledFile( File file )
+    {
+        return new File( file.getParentFile(), file.getName() + SUFFIX );
+    }
+
+   /**
+    * Return the digest of part content.
+    * @param content the part content
+    * @return the content digest
+    */
+    public static byte[] digest( byte[] content )
+    {
+        return digest( "", content );
+    }
+
+   /**
+    * Return the digest of part content produced by a particular version
+    * of the part handler.  The digest covers the handler version, the 
+    * compiled format version and the part content.
+    * @param version the part handler version
+    * @param content the part content
+    * @return the content digest
+    */
+    public static byte[] digest( String version, byte[] content )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            digest.update( ( version + "/" + FORMAT_VERSION + "/" ).getBytes( "UTF-8" ) );
+            return digest.digest( content );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( "UTF-8 encoding not available." );
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 digest not available." );
+        }
+    }
+
+   /**
+    * Load a compiled part.
+    * @param file the compiled part file
+    * @param digest the digest of the current part content
+    * @param uri the document uri assigned to the restored strategy element
+    * @return the compiled part or null if the file does not exist or was
+    *   produced from different content
+    * @exception IOException if an IO error occurs
+    */
+    public static CompiledPart load( File file, byte[] digest, URI uri ) throws IOException
+    {
+        if( !file.exists() )
+        {
+            return null;
+        }
+        DataInputStream input =
+          new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+        try
+        {
+            if( ( input.readInt() != MAGIC ) || ( input.readInt() != FORMAT_VERSION ) )
+            {
+                return null;
+            }
+            byte[] stored = new byte[ input.readUnsignedByte() ];
+            input.readFully( stored );
+            if( !Arrays.equals( stored, digest ) )
+            {
+                return null;
+            }
+            String title = readString( input );
+            String description = readString( input );
+            URI[][] uris = new URI[ CATEGORIES.length ][];
+            for( int i=0; i < CATEGORIES.length; i++ )
+            {
+                uris[i] = new URI[ input.readInt() ];
+                for( int j=0; j < uris[i].length; j++ )
+                {
+                    uris[i][j] = URI.create( readString( input ) );
+                }
+            }
+            Classpath classpath = new Classpath( uris[0], uris[1], uris[2], uris[3] );
+            String namespace = readString( input );
+            Document document = DOM_IMPLEMENTATION.createDocument( null, null, null );
+            if( null != uri )
+            {
+                document.setDocumentURI( uri.toASCIIString() );
+            }
+            input.readByte();
+            Element element = readElement( input, document );
+            document.appendChild( element );
+            return new CompiledPart( title, description, classpath, namespace, element );
+        }
+        catch( IllegalArgumentException e )
+        {
+            final String error = "Invalid compiled part: " + file;
+            IOException ioe = new IOException( error );
+            ioe.initCause( e );
+            throw ioe;
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+   /**
+    * Store a compiled part.  The compiled part is written to a temporary
+    * file that replaces the target file on completion.
+    * @param file the compiled part file
+    * @param digest the digest of the part content
+    * @param title the part title
+    * @param description the part description
+    * @param classpath the part classpath
+    * @param namespace the schema type namespace of the strategy element
+    * @param element the validated strategy element
+    * @exception IOException if an IO error occurs
+    */
+    public static void store(
+      File file, byte[] digest, String title, String description, Classpath classpath,
+      String namespace, Element element ) throws IOException
+    {
+        File temp = File.createTempFile( file.getName(), ".tmp", file.getParentFile() );
+        DataOutputStream output =
+          new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+        try
+        {
+            output.writeInt( MAGIC );
+            output.writeInt( FORMAT_VERSION );
+            output.writeByte( digest.length );
+            output.write( digest );
+            writeString( output, title );
+            writeString( output, description );
+            for( int i=0; i < CATEGORIES.length; i++ )
+            {
+                URI[] uris = classpath.getDependencies( CATEGORIES[i] );
+                output.writeInt( uris.length );
+                for( int j=0; j < uris.length; j++ )
+                {
+                    writeString( output, uris[j].toString() );
+                }
+            }
+            writeString( output, namespace );
+            writeElement( output, element );
+        }
+        catch( IOException e )
+        {
+            output.close();
+            temp.delete();
+            throw e;
+        }
+        output.close();
+        file.delete();
+        if( !temp.renameTo( file ) )
+        {
+            temp.delete();
+            throw new IOException( "Unable to replace compiled part: " + file );
+        }
+    }
+
+    private static void writeElement( DataOutputStream output, Element element ) throws IOException
+    {
+        output.writeByte( ELEMENT_NODE );
+        writeString( output, element.getNamespaceURI() );
+        writeString( output, element.getNodeName() );
+        NamedNodeMap attributes = element.getAttributes();
+        output.writeInt( attributes.getLength() );
+        for( int i=0; i < attributes.getLength(); i++ )
+        {
+            Attr attribute = (Attr) attributes.item( i );
+            writeString( output, attribute.getNamespaceURI() );
+            writeString( output, attribute.getNodeName() );
+            writeString( output, attribute.getValue() );
+        }
+        NodeList children = element.getChildNodes();
+        for( int i=0; i < children.getLength(); i++ )
+        {
+            Node node = children.item( i );
+            short type = node.getNodeType();
+            if( Node.ELEMENT_NODE == type )
+            {
+                writeElement( output, (Element) node );
+            }
+            else if( ( Node.TEXT_NODE == type ) || ( Node.CDATA_SECTION_NODE == type ) )
+            {
+                output.writeByte( TEXT_NODE );
+                writeString( output, node.getNodeValue() );
+            }
+        }
+        output.writeByte( END );
+    }
+
+    private static Element readElement( DataInputStream input, Document document ) throws IOException
+    {
+        String namespace = readString( input );
+        Element element = document.createElementNS( namespace, readString( input ) );
+        int n = input.readInt();
+        for( int i=0; i < n; i++ )
+        {
+            String ns = readString( input );
+            String name = readString( input );
+            element.setAttributeNS( ns, name, readString( input ) );
+        }
+        byte type = input.readByte();
+        while( END != type )
+        {
+            if( ELEMENT_NODE == type )
+            {
+                element.appendChild( readElement( input, document ) );
+            }
+            else if( TEXT_NODE == type )
+            {
+                element.appendChild( document.createTextNode( readString( input ) ) );
+            }
+            else
+            {
+                throw new IOException( "Unexpected node type: " + type );
+            }
+            type = input.readByte();
+        }
+        return element;
+    }
+
+    private static void writeString( DataOutputStream output, String value ) throws IOException
+    {
+        if( null == value )
+        {
+            output.writeInt( -1 );
+        }
+        else
+        {
+            byte[] bytes = value.getBytes( "UTF-8" );
+            output.writeInt( bytes.length );
+            output.write( bytes );
+        }
+    }
+
+    private static String readString( DataInputStream input ) throws IOException
+    {
+        int n = input.readInt();
+        if( n < 0 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[ n ];
+        input.readFully( bytes );
+        return new String( bytes, "UTF-8" );
+    }
+
+    private static DOMImplementation createDOMImplementation()
+    {
+        try
+        {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware( true );
+            return factory.newDocumentBuilder().getDOMImplementation();
+        }
+        catch( Exception e )
+        {
+            final String error = "Unable to establish a DOM implementation.";
+            throw new IllegalStateException( error, e );
+        }
+    }
+}
@@ -21,16 +21,19 @@ package dpml.lang;
 
 import dpml.util.DefaultLogger;
 
+import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.WeakHashMap;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.FileNotFoundException;
 
 import net.dpml.lang.DecodingException;
 
@@ -39,25 +42,51 @@ import net.dpml.transit.InvalidArtifactException;
 
 import net.dpml.util.Logger;
 
-import org.w3c.dom.DOMError;
-import org.w3c.dom.DOMLocator;
-import org.w3c.dom.bootstrap.DOMImplementationRegistry;
-import org.w3c.dom.DOMErrorHandler;
+import org.w3c.dom.DOMError;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.DOMLocator;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.DOMErrorHandler;
 import org.w3c.dom.DOMConfiguration;
 import org.w3c.dom.Document;
-import org.w3c.dom.ls.DOMImplementationLS;
-import org.w3c.dom.ls.LSOutput;
-import org.w3c.dom.ls.LSParser;
-import org.w3c.dom.ls.LSSerializer;
-import org.w3c.dom.ls.LSResourceResolver;
-import org.w3c.dom.ls.LSInput;
-import org.w3c.dom.ls.LSException;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+import org.w3c.dom.ls.LSParser;
+import org.w3c.dom.ls.LSSerializer;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSException;
 
 /**
- * Utility class that creates a schema validating DOM3 parser.
+ * Utility class that creates a schema validating DOM3 parser.  Parsers are
+ * pooled and shared by all document builders together with a cache of 
+ * preparsed schema grammars and the namespace resolvers.
  */
 public class DOM3DocumentBuilder
 {
+   /**
+    * Maximum number of idle parsers held in the parser pool.
+    */
+    private static final int POOL_SIZE = 
+      Integer.getInteger( "dpml.lang.parser.pool", 8 ).intValue();
+    
+   /**
+    * Xerces parser property used to assign a grammar pool.
+    */
+    private static final String GRAMMAR_POOL = 
+      "http://apache.org/xml/properties/internal/grammar-pool";
+    
+    private static final LinkedList<LSParser> PARSERS = new LinkedList<LSParser>();
+    
+    private static final Logger LOGGER = new DefaultLogger( "dpml.lang" );
+    
+    private static final InternalResourceResolver RESOLVER = 
+      new InternalResourceResolver( LOGGER );
+    
+    private static DOMImplementationLS m_IMPLEMENTATION;
+    private static Object m_GRAMMAR_POOL;
+    private static boolean m_GRAMMAR_POOL_RESOLVED = false;
+    
     private final Logger m_logger;
     
    /**
@@ -122,33 +151,46 @@ public class DOM3DocumentBuilder
             throw new NullPointerException( "connection" );
         }
         URL url = connection.getURL();
+        InputStream stream = connection.getInputStream();
+        return parse( url, stream );
+    }
+    
+   /**
+    * Parse an xml schema document from a supplied input stream.
+    * @param url the document url 
+    * @param stream the document content
+    * @return the validated document
+    * @exception IOException if an IO error occurs
+    */
+    public Document parse( URL url, InputStream stream ) throws IOException
+    {
+        if( null == stream )
+        {
+            throw new NullPointerException( "stream" );
+        }
         try
         {
-            DOMImplementationRegistry registry =
-                DOMImplementationRegistry.newInstance();
-            DOMImplementationLS impl = 
-                (DOMImplementationLS) registry.getDOMImplementation( "LS" );
-            if( null == impl )
-            {
-                final String error = 
-                  "Unable to locate a DOM3 parser.";
-                throw new IllegalStateException( error );
-            }
-            LSParser builder = impl.createLSParser( DOMImplementationLS.MODE_SYNCHRONOUS, null );
-            DOMConfiguration config = builder.getDomConfig();
-            
-            URI uri = url.toURI();
+            URI uri = url.toURI();
             InternalErrorHandler errorHandler = new InternalErrorHandler( m_logger, uri );
-            config.setParameter( "error-handler", errorHandler );
-            config.setParameter( "resource-resolver", new InternalResourceResolver( m_logger ) );
-            config.setParameter( "validate", Boolean.TRUE );
-            DOMInput input = new DOMInput();
-            
-            InputStream stream = connection.getInputStream();
-            InputStreamReader reader = new InputStreamReader( stream );
-            input.setCharacterStream( reader );
-            
-            Document doc = builder.parse( input );
+            LSParser builder = acquireParser();
+            DOMConfiguration config = builder.getDomConfig();
+            config.setParameter( "error-handler", errorHandler );
+            Document doc = null;
+            try
+            {
+                DOMInput input = new DOMInput();
+                InputStreamReader reader = new InputStreamReader( stream );
+                input.setCharacterStream( reader );
+                doc = builder.parse( input );
+            }
+            finally
+            {
+                config.setParameter( "error-handler", null );
+                if( null != doc )
+                {
+                    releaseParser( builder );
+                }
+            }
             int n = errorHandler.getErrorCount();
             if( n > 0 )
             {
@@ -158,11 +200,7 @@ public class DOM3DocumentBuilder
                 throw new DecodingException( error, null, null );
             }
             doc.setDocumentURI( uri.toASCIIString() );
-            return doc;
-        }
-        catch( FileNotFoundException e )
-        {
-            throw e;
+            return doc;
         }
         catch( InvalidArtifactException e )
         {
@@ -190,20 +228,147 @@ public class DOM3DocumentBuilder
     */
     public void write( Document doc, OutputStream output ) throws Exception
     {
-        DOMImplementationRegistry registry =
-            DOMImplementationRegistry.newInstance();
-        DOMImplementationLS impl = 
-            (DOMImplementationLS) registry.getDOMImplementation( "LS" );
-        if( null == impl )
+        DOMImplementationLS impl = getImplementation();
+        LSSerializer domWriter = impl.createLSSerializer();
+        LSOutput lsOut = impl.createLSOutput();
+        lsOut.setByteStream( output );
+        domWriter.write( doc, lsOut );
+    }
+    
+   /**
+    * Return a parser from the pool or a new parser if the pool is empty.
+    * @return the parser
+    * @exception Exception if a parser cannot be created
+    */
+    private static LSParser acquireParser() throws Exception
+    {
+        synchronized( PARSERS )
         {
-            final String error = 
-              "Unable to locate a DOM3 implementation.";
-            throw new IllegalStateException( error );
-        }
-        LSSerializer domWriter = impl.createLSSerializer();
-        LSOutput lsOut = impl.createLSOutput();
-        lsOut.setByteStream( output );
-        domWriter.write( doc, lsOut );
+            if( !PARSERS.isEmpty() )
+            {
+                return PARSERS.removeFirst();
+            }
+        }
+        return createParser();
+    }
+    
+   /**
+    * Return a parser to the pool.  Parsers are only returned following a 
+    * successful parse.
+    * @param parser the parser
+    */
+    private static void releaseParser( LSParser parser )
+    {
+        synchronized( PARSERS )
+        {
+            if( PARSERS.size() < POOL_SIZE )
+            {
+                PARSERS.addFirst( parser );
+            }
+        }
+    }
+    
+    private static LSParser createParser() throws Exception
+    {
+        DOMImplementationLS impl = getImplementation();
+        LSParser parser = impl.createLSParser( DOMImplementationLS.MODE_SYNCHRONOUS, null );
+        DOMConfiguration config = parser.getDomConfig();
+        config.setParameter( "resource-resolver", RESOLVER );
+        config.setParameter( "validate", Boolean.TRUE );
+        Object pool = getGrammarPool( parser );
+        if( null != pool )
+        {
+            // canSetParameter is not reliable for implementation properties
+            
+            try
+            {
+                config.setParameter( GRAMMAR_POOL, pool );
+            }
+            catch( DOMException e )
+            {
+                disableGrammarPool();
+            }
+        }
+        return parser;
+    }
+    
+    private static synchronized DOMImplementationLS getImplementation() throws Exception
+    {
+        if( null == m_IMPLEMENTATION )
+        {
+            DOMImplementationRegistry registry =
+                DOMImplementationRegistry.newInstance();
+            DOMImplementationLS impl = 
+                (DOMImplementationLS) registry.getDOMImplementation( "LS" );
+            if( null == impl )
+            {
+                final String error = 
+                  "Unable to locate a DOM3 implementation.";
+                throw new IllegalStateException( error );
+            }
+            m_IMPLEMENTATION = impl;
+        }
+        return m_IMPLEMENTATION;
+    }
+    
+   /**
+    * Return the grammar pool shared by all parsers.  Grammar pools are
+    * specific to the Xerces implementation backing the parser and are located
+    * relative to the parser implementation package.  If a pool cannot be 
+    * established (e.g. a non-Xerces parser or an inaccessible implementation)
+    * the implementation returns null and grammars are loaded per parse.
+    * @param parser a parser
+    * @return the grammar pool or null if not available
+    */
+    static synchronized Object getGrammarPool( LSParser parser )
+    {
+        if( !m_GRAMMAR_POOL_RESOLVED )
+        {
+            m_GRAMMAR_POOL_RESOLVED = true;
+            Class<?> c = parser.getClass();
+            String name = c.getName();
+            int index = name.indexOf( ".parsers." );
+            if( index == -1 )
+            {
+                if( LOGGER.isDebugEnabled() )
+                {
+                    LOGGER.debug( "grammar pool not supported by parser: " + name );
+                }
+                return null;
+            }
+            String classname = name.substring( 0, index ) + ".util.XMLGrammarPoolImpl";
+            try
+            {
+                Class<?> pool = Class.forName( classname, true, c.getClassLoader() );
+                m_GRAMMAR_POOL = pool.getDeclaredConstructor().newInstance();
+            }
+            catch( Exception e )
+            {
+                logGrammarPoolFailure( classname, e );
+            }
+            catch( LinkageError e )
+            {
+                logGrammarPoolFailure( classname, e );
+            }
+        }
+        return m_GRAMMAR_POOL;
+    }
+    
+    private static synchronized void disableGrammarPool()
+    {
+        if( LOGGER.isDebugEnabled() )
+        {
+            LOGGER.debug( "grammar pool rejected by parser configuration" );
+        }
+        m_GRAMMAR_POOL = null;
+    }
+    
+    private static void logGrammarPoolFailure( String classname, Throwable cause )
+    {
+        if( LOGGER.isDebugEnabled() )
+        {
+            LOGGER.debug( "grammar pool unavailable: " + classname + " (" + cause + ")" );
+        }
     }
     
    /**
@@ -216,6 +381,9 @@ public class DOM3DocumentBuilder
           
         private final Logger m_logger;
         
+        private final Map<ClassLoader, SoftReference<LSResourceResolver[]>> m_resolvers = 
+          new WeakHashMap<ClassLoader, SoftReference<LSResourceResolver[]>>();
+        
        /**
         * Creation of a new InternalResourceResolver.
         * @param map the namespace to builder map
@@ -272,8 +440,27 @@ public class DOM3DocumentBuilder
             }
         }
         
+       /**
+        * Return the namespace resolvers visible to the context classloader.
+        * Resolvers are loaded once per context classloader and are softly
+        * referenced as resolver classes may be loaded by the classloader key.
+        * @return the namespace resolvers
+        */
         private LSResourceResolver[] getNamespaceResolvers()
         {
+            ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+            synchronized( m_resolvers )
+            {
+                SoftReference<LSResourceResolver[]> reference = m_resolvers.get( classloader );
+                if( null != reference )
+                {
+                    LSResourceResolver[] resolvers = reference.get();
+                    if( null != resolvers )
+                    {
+                        return resolvers;
+                    }
+                }
+            }
             ArrayList<LSResourceResolver> list = new ArrayList<LSResourceResolver>();
             ServiceLoader<LSResourceResolver> loaders = 
               ServiceLoader.load( LSResourceResolver.class );
@@ -281,7 +468,12 @@ public class DOM3DocumentBuilder
             {
                 list.add( resolver );
             }
-            return list.toArray( new LSResourceResolver[0] );
+            LSResourceResolver[] resolvers = list.toArray( new LSResourceResolver[0] );
+            synchronized( m_resolvers )
+            {
+                m_resolvers.put( classloader, new SoftReference<LSResourceResolver[]>( resolvers ) );
+            }
+            return resolvers;
         }
     }
     
@@ -335,16 +527,16 @@ public class DOM3DocumentBuilder
               + source;
             short severity = error.getSeverity();
             if( severity == DOMError.SEVERITY_WARNING )
-            {
+            {
                 m_logger.warn( notice );
                 //return true;
                 return false;
             }
             else
-            {
+            {
                 m_logger.warn( notice );
                 return false;
             }
-        }
+        }
     }
 }
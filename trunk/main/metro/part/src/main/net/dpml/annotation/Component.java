@@ -55,6 +55,11 @@ public @interface Component
     */
     CollectionPolicy collection() default CollectionPolicy.HARD;
     
+   /**
+    * Declaration of the pool settings applied under the pooled lifestyle policy.
+    */
+    Pool pool() default @Pool;
+    
    /**
     * Declaration of an alternative lifestyle graph via a URI.  If undefined the 
     * default semantics are derived from a graph definition colocated with the class
@@ -41,5 +41,18 @@ public enum LifestylePolicy
    /**
     * Declares that a new instance shall be created per request.
     */
-    TRANSIENT;
+    TRANSIENT,
+    
+   /**
+    * Declares that instances shall be drawn from a bounded pool and 
+    * returned to the pool on provider release.
+    */
+    POOLED,
+    
+   /**
+    * Declares that a new instance shall be created per scope and released 
+    * when the scope is closed.
+    * @see net.dpml.runtime.Scope
+    */
+    SCOPED;
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Pool settings applied to components declaring the pooled lifestyle policy.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+@Target( {} )
+@Retention( RetentionPolicy.RUNTIME )
+@Documented
+public @interface Pool
+{
+   /**
+    * The minimum number of instances maintained by the pool.
+    */
+    int minimum() default 0;
+    
+   /**
+    * The maximum number of instances established by the pool.
+    */
+    int maximum() default 8;
+    
+   /**
+    * The duration in milliseconds after which an idle instance in excess 
+    * of the minimum is discarded.  A value of zero disables idle expiry.
+    */
+    long idle() default 60000;
+}
@@ -36,6 +36,13 @@ public interface ApplianceConnector extends Remote
     */
     void connect( Appliance appliance ) throws RemoteException;
     
+   /**
+    * Connect an appliance host to the connector.
+    * @param host the appliance host
+    * @exception RemoteException if a remote error occurs
+    */
+    void connect( ApplianceHost host ) throws RemoteException;
+    
    /**
     * Retrieve the connected appliance.
     * @param units the timout units
@@ -45,5 +52,14 @@ public interface ApplianceConnector extends Remote
     */
     Appliance getAppliance( TimeUnit units, int timeout ) throws IOException;
     
+   /**
+    * Retrieve the connected appliance host.
+    * @param units the timout units
+    * @param timeout duration (in units) to wait for a connection
+    * @return the appliance host
+    * @exception IOException if an I/O error occurs
+    */
+    ApplianceHost getApplianceHost( TimeUnit units, int timeout ) throws IOException;
+    
 }
 
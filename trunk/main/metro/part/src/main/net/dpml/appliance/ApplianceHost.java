@@ -0,0 +1,44 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.appliance;
+
+import java.io.IOException;
+import java.net.URI;
+import java.rmi.Remote;
+import java.util.Properties;
+
+/**
+ * Interface implemented by a generic metro process that has been started 
+ * ahead of demand and is waiting to be assigned an appliance.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public interface ApplianceHost extends Remote
+{
+   /**
+    * Establish an appliance within the host process.  A host accepts a 
+    * single appliance assignment.
+    * @param uri the appliance codebase uri
+    * @param properties system properties to apply before appliance creation
+    * @return the appliance
+    * @exception IOException if an I/O error occurs
+    */
+    Appliance newAppliance( URI uri, Properties properties ) throws IOException;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.appliance;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Interface implemented by appliances that declare the services they provide
+ * and the services they require from their environment.  The declaration is
+ * used to establish the commissioning order of appliances within a plan.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public interface ServiceDependencies extends Remote
+{
+   /**
+    * Return the classnames of the services provided by the appliance.
+    * @return the provided service classnames
+    * @exception RemoteException if a RMI error occurs
+    */
+    String[] getProvidedServices() throws RemoteException;
+    
+   /**
+    * Return the classnames of the services the appliance requires that are
+    * not provided by the appliance.
+    * @return the required service classnames
+    * @exception RemoteException if a RMI error occurs
+    */
+    String[] getRequiredServices() throws RemoteException;
+}
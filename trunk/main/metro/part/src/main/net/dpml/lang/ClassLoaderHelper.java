@@ -26,6 +26,8 @@ import dpml.util.DefaultLogger;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 
 import net.dpml.util.Logger;
 
@@ -60,9 +62,31 @@ final class ClassLoaderHelper
         }
         //ClassLoader anchor = getAnchorClassLoader( parent );
         String spec = codebase.toASCIIString();
+        prefetch( classpath );
         return newClassLoader( anchor, classpath, spec, true );
     }
     
+   /**
+    * Warm the Transit cache with all entries of a classpath (including
+    * entries in base classpaths) so that downloads proceed in parallel
+    * rather than one at a time as each classloader is built.
+    * @param classpath the classpath definition
+    */
+    private static void prefetch( Classpath classpath )
+    {
+        ArrayList<URI> list = new ArrayList<URI>();
+        Classpath cp = classpath;
+        while( null != cp )
+        {
+            Collections.addAll( list, cp.getDependencies( Category.PUBLIC ) );
+            Collections.addAll( list, cp.getDependencies( Category.PROTECTED ) );
+            Collections.addAll( list, cp.getDependencies( Category.PRIVATE ) );
+            cp = cp.getBaseClasspath();
+        }
+        URI[] uris = list.toArray( new URI[ list.size() ] );
+        StandardClassLoader.prefetch( LOGGER, uris );
+    }
+    
     private static ClassLoader newClassLoader( 
       ClassLoader base, Classpath classpath, String spec, boolean expand ) throws IOException
     {
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.lang;
+
+import dpml.lang.Part;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of parts keyed by anchor classloader and part uri.  Anchor classloaders
+ * are weakly referenced and parts are softly referenced so that the cache does
+ * not prevent the collection of a classloader tree once the parts established
+ * within it are no longer in use.  The number of cached parts is bounded and the
+ * least recently used part is evicted when the maximum is exceeded.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class PartCache
+{
+    private final int m_maximum;
+
+    private final ReferenceQueue<ClassLoader> m_queue = new ReferenceQueue<ClassLoader>();
+
+   /**
+    * Map of anchor classloader to a map of part uri to entry key.
+    */
+    private final Map<ClassLoader, Map<String, Key>> m_anchors =
+      new WeakHashMap<ClassLoader, Map<String, Key>>();
+
+   /**
+    * Cached parts in least recently used order.
+    */
+    private final LinkedHashMap<Key, Reference<Part>> m_entries =
+      new LinkedHashMap<Key, Reference<Part>>( 16, 0.75f, true );
+
+    private long m_hits = 0;
+    private long m_misses = 0;
+    private long m_evictions = 0;
+
+   /**
+    * Creation of a new part cache.
+    * @param maximum the maximum number of cached parts
+    */
+    PartCache( int maximum )
+    {
+        m_maximum = Math.max( 1, maximum );
+    }
+
+   /**
+    * Return a cached part.
+    * @param anchor the anchor classloader
+    * @param uri the part uri
+    * @return the part or null if not cached
+    */
+    synchronized Part get( ClassLoader anchor, String uri )
+    {
+        purge();
+        Map<String, Key> parts = m_anchors.get( anchor );
+        Key key = ( null == parts ) ? null : parts.get( uri );
+        if( null == key )
+        {
+            m_misses++;
+            return null;
+        }
+        Part part = m_entries.get( key ).get();
+        if( null == part )
+        {
+            remove( key );
+            m_evictions++;
+            m_misses++;
+            return null;
+        }
+        m_hits++;
+        return part;
+    }
+
+   /**
+    * Add a part to the cache.
+    * @param anchor the anchor classloader
+    * @param uri the part uri
+    * @param part the part
+    */
+    synchronized void put( ClassLoader anchor, String uri, Part part )
+    {
+        purge();
+        Map<String, Key> parts = m_anchors.get( anchor );
+        if( null == parts )
+        {
+            parts = new HashMap<String, Key>();
+            m_anchors.put( anchor, parts );
+        }
+        Key key = new Key( anchor, uri, m_queue );
+        Key previous = parts.put( uri, key );
+        if( null != previous )
+        {
+            m_entries.remove( previous );
+        }
+        m_entries.put( key, new SoftReference<Part>( part ) );
+        while( m_entries.size() > m_maximum )
+        {
+            Key eldest = m_entries.keySet().iterator().next();
+            remove( eldest );
+            m_evictions++;
+        }
+    }
+
+   /**
+    * Remove the parts anchored by a classloader or established within the
+    * classloader together with any parts anchored by the classloaders of
+    * removed parts.
+    * @param classloader the classloader
+    * @return the number of parts removed
+    */
+    synchronized int invalidate( ClassLoader classloader )
+    {
+        purge();
+        Set<ClassLoader> invalid = new HashSet<ClassLoader>();
+        invalid.add( classloader );
+        int count = 0;
+        boolean changed = true;
+        while( changed )
+        {
+            changed = false;
+            Iterator<Map.Entry<Key, Reference<Part>>> iterator = m_entries.entrySet().iterator();
+            while( iterator.hasNext() )
+            {
+                Map.Entry<Key, Reference<Part>> entry = iterator.next();
+                Key key = entry.getKey();
+                Part part = entry.getValue().get();
+                ClassLoader loader = ( null == part ) ? null : part.getStrategy().getClassLoader();
+                if( invalid.contains( key.get() ) || ( ( null != loader ) && invalid.contains( loader ) ) )
+                {
+                    iterator.remove();
+                    removeAnchorEntry( key );
+                    count++;
+                    if( ( null != loader ) && invalid.add( loader ) )
+                    {
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+   /**
+    * Remove all cached parts.
+    */
+    synchronized void clear()
+    {
+        m_entries.clear();
+        m_anchors.clear();
+        while( null != m_queue.poll() )
+        {
+            continue;
+        }
+    }
+
+   /**
+    * Return the cached parts.
+    * @return the parts
+    */
+    synchronized Part[] getParts()
+    {
+        purge();
+        ArrayList<Part> list = new ArrayList<Part>();
+        for( Reference<Part> reference : m_entries.values() )
+        {
+            Part part = reference.get();
+            if( null != part )
+            {
+                list.add( part );
+            }
+        }
+        return list.toArray( new Part[ list.size() ] );
+    }
+
+   /**
+    * Return the number of cached parts.
+    * @return the cache size
+    */
+    synchronized int size()
+    {
+        purge();
+        return m_entries.size();
+    }
+
+   /**
+    * Return the number of cache hits.
+    * @return the hit count
+    */
+    synchronized long getHits()
+    {
+        return m_hits;
+    }
+
+   /**
+    * Return the number of cache misses.
+    * @return the miss count
+    */
+    synchronized long getMisses()
+    {
+        return m_misses;
+    }
+
+   /**
+    * Return the number of parts evicted due to the size limit or collection.
+    * @return the eviction count
+    */
+    synchronized long getEvictions()
+    {
+        return m_evictions;
+    }
+
+    private void remove( Key key )
+    {
+        m_entries.remove( key );
+        removeAnchorEntry( key );
+    }
+
+    private void removeAnchorEntry( Key key )
+    {
+        ClassLoader anchor = key.get();
+        if( null == anchor )
+        {
+            return;
+        }
+        Map<String, Key> parts = m_anchors.get( anchor );
+        if( ( null != parts ) && ( parts.get( key.m_uri ) == key ) )
+        {
+            parts.remove( key.m_uri );
+            if( parts.isEmpty() )
+            {
+                m_anchors.remove( anchor );
+            }
+        }
+    }
+
+   /**
+    * Remove the entries of collected anchor classloaders.
+    */
+    private void purge()
+    {
+        Reference<? extends ClassLoader> reference = m_queue.poll();
+        while( null != reference )
+        {
+            if( null != m_entries.remove( reference ) )
+            {
+                m_evictions++;
+            }
+            reference = m_queue.poll();
+        }
+    }
+
+   /**
+    * Entry key holding a weak reference to the anchor classloader.  Keys
+    * are compared by identity.
+    */
+    private static final class Key extends WeakReference<ClassLoader>
+    {
+        private final String m_uri;
+
+        Key( ClassLoader anchor, String uri, ReferenceQueue<ClassLoader> queue )
+        {
+            super( anchor, queue );
+            m_uri = uri;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package net.dpml.lang;
 
 import dpml.lang.Info;
 import dpml.lang.Classpath;
+import dpml.lang.CompiledPart;
 import dpml.lang.Part;
 import dpml.lang.DOM3DocumentBuilder;
 
@@ -24,12 +25,16 @@ import dpml.util.DefaultLogger;
 import dpml.util.SimpleResolver;
 import dpml.util.ElementHelper;
 
+import dpml.transit.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.lang.management.ManagementFactory;
-import java.util.Map;
 import java.util.Hashtable;
 import java.util.ServiceLoader;
 import java.util.ArrayList;
@@ -51,7 +56,7 @@ import net.dpml.transit.ContentHandler;
 import net.dpml.util.Logger;
 import net.dpml.util.Resolver;
 
-import org.w3c.dom.Element;
+import org.w3c.dom.Element;
 import org.w3c.dom.Document;
 import org.w3c.dom.TypeInfo;
 
@@ -71,19 +76,34 @@ public final class PartContentHandler extends ContentHandler implements PartCont
     
     private static final Logger LOGGER = new DefaultLogger( "dpml.part" );
     
-    // DOES NOT WORK
-    //private static final Map<String, WeakReference<Part>> CACHE = 
-    //  new Hashtable<String, WeakReference<Part>>();
-
-    // POTENTIAL SOLUTION: map of anchor classloader (keys) to a map of part classloader and parts
-    //private static final Map<ClassLoader,Map<ClassLoader,Part>> CACHE = 
-    //  new Hashtable<ClassLoader,Map<ClassLoader,Part>>();
-    
-    private static final Map<String,Part> CACHE = new Hashtable<String,Part>();
+   /**
+    * Cache of parts keyed by anchor classloader and part uri.  The maximum 
+    * number of cached parts may be declared using the 'dpml.part.cache.size'
+    * system property.
+    */
+    private static final PartCache CACHE = 
+      new PartCache( Integer.getInteger( "dpml.part.cache.size", 256 ) );
 
     private static final DOM3DocumentBuilder DOCUMENT_BUILDER = 
       new DOM3DocumentBuilder();
     
+   /**
+    * If true validated parts resolved from the local cache are compiled to a
+    * binary form stored next to the cached part and subsequently loaded 
+    * without xml parsing and schema validation.  The compiled form is keyed
+    * by the part content and the handler version so that a compiled part is 
+    * ignored following an update of the part handler or schema.  Compilation
+    * may be disabled by setting the 'dpml.part.compiled' system property
+    * to false.
+    */
+    private static final boolean COMPILED = 
+      "true".equals( System.getProperty( "dpml.part.compiled", "true" ) );
+    
+   /**
+    * Version of the part handler recorded in the compiled part key.
+    */
+    private static final String HANDLER_VERSION = "@PROJECT-VERSION@ @BUILD-ID@";
+    
     private static final ComponentStrategyHandler STANDARD_STRATEGY_HANDLER = 
       new ComponentStrategyHandler();
 
@@ -158,6 +178,21 @@ public final class PartContentHandler extends ContentHandler implements PartCont
     {
         TypeInfo info = element.getSchemaTypeInfo();
         String namespace = info.getTypeNamespace();
+        return getStrategyHandler( namespace, element );
+    }
+    
+   /**
+    * Load a potentially foreign strategy handler using a supplied schema type 
+    * namespace.
+    *
+    * @param namespace the schema type namespace of the strategy element
+    * @param element the strategy element
+    * @return the strategy handler
+    * @exception Exception if loading error occurs
+    * @see #getStrategyHandler( Element )
+    */
+    private static StrategyHandler getStrategyHandler( String namespace, Element element ) throws Exception
+    {
         String override = System.getProperty( "handler:" + namespace );
         if( null != override )
         {
@@ -275,7 +310,7 @@ public final class PartContentHandler extends ContentHandler implements PartCont
                 MBeanServer server = ManagementFactory.getPlatformMBeanServer();
                 Hashtable<String,String> table = new Hashtable<String,String>();
                 table.put( "type", "Parts" );
-                ObjectName name =
+                ObjectName name =
                   ObjectName.getInstance( "net.dpml.transit", table );
                 server.registerMBean( this, name );
             }
@@ -354,7 +389,7 @@ public final class PartContentHandler extends ContentHandler implements PartCont
     public PartManager[] getPartManagers()
     {
         ArrayList<PartManager> list = new ArrayList<PartManager>();
-        Part[] parts = CACHE.values().toArray( new Part[0] );
+        Part[] parts = CACHE.getParts();
         for( Part part : parts )
         {
             if( part instanceof PartManager )
@@ -366,6 +401,70 @@ public final class PartContentHandler extends ContentHandler implements PartCont
         return list.toArray( new PartManager[0] );
     }
     
+   /**
+    * Return the number of part requests resolved from the part cache.
+    * @return the cache hit count
+    */
+    public long getCacheHits()
+    {
+        return CACHE.getHits();
+    }
+    
+   /**
+    * Return the number of part requests not resolved from the part cache.
+    * @return the cache miss count
+    */
+    public long getCacheMisses()
+    {
+        return CACHE.getMisses();
+    }
+    
+   /**
+    * Return the number of parts evicted from the part cache.
+    * @return the cache eviction count
+    */
+    public long getCacheEvictions()
+    {
+        return CACHE.getEvictions();
+    }
+    
+   /**
+    * Return the number of parts held in the part cache.
+    * @return the cache size
+    */
+    public int getCacheSize()
+    {
+        return CACHE.size();
+    }
+    
+   /**
+    * Remove all parts from the part cache.
+    */
+    public void clearCache()
+    {
+        CACHE.clear();
+    }
+    
+   /**
+    * Remove the parts anchored by or established within the supplied 
+    * classloader from the part cache.  Invoked when an appliance is 
+    * decommissioned so that a subsequent deployment resolves current
+    * part content and the classloader may be reclaimed.
+    * @param classloader the classloader
+    */
+    public static void invalidate( ClassLoader classloader )
+    {
+        if( null == classloader )
+        {
+            return;
+        }
+        int n = CACHE.invalidate( classloader );
+        if( ( n > 0 ) && LOGGER.isTraceEnabled() )
+        {
+            LOGGER.trace( "invalidated " + n + " cached parts" );
+        }
+    }
+    
     //--------------------------------------------------------------------------------
     // internals
     //--------------------------------------------------------------------------------
@@ -427,31 +526,10 @@ public final class PartContentHandler extends ContentHandler implements PartCont
         URL url = connection.getURL();
         try
         {
-            String key = buildKey( classloader, url );
+            String key = buildKey( url );
             if( cache )
             {
-                //WeakReference ref = CACHE.get( key );
-                //if( null != ref )
-                //{
-                //    Part part = (Part) ref.get();
-                    //if( null != part )
-                    //{
-                    //    if( getLogger().isTraceEnabled() )
-                    //    {
-                    //        getLogger().trace( "located cached part: " + url );
-                    //    }
-                    //    return part;
-                    //}
-                    //else
-                    //{
-                    //    if( getLogger().isTraceEnabled() )
-                    //    {
-                    //        getLogger().trace( "located disgarded ref: " + key );
-                    //    }
-                    //}
-                //}
-                
-                Part part = CACHE.get( key );
+                Part part = CACHE.get( classloader, key );
                 if( null != part )
                 {
                     return part;
@@ -461,14 +539,7 @@ public final class PartContentHandler extends ContentHandler implements PartCont
                     // otherwise we need to build it
                     
                     part = buildPart( classloader, connection, name, true );
-                    //if( part instanceof PartManager )
-                    //{
-                    //    // register it with the mbean server
-                    //}
-                    
-                    //WeakReference<Part> reference = new WeakReference<Part>( part );
-                    //CACHE.put( key, reference );
-                    CACHE.put( key, part );
+                    CACHE.put( classloader, key, part );
                     if( LOGGER.isTraceEnabled() )
                     {
                         LOGGER.trace( "caching part" 
@@ -522,38 +593,154 @@ public final class PartContentHandler extends ContentHandler implements PartCont
               + "]" );
         }
         
-        Document document = DOCUMENT_BUILDER.parse( connection );
-        final Element element = document.getDocumentElement();
-        TypeInfo type = element.getSchemaTypeInfo();
-        String namespace = type.getTypeNamespace();
-        if( isNamespaceRecognized( namespace ) )
+        URI uri = url.toURI();
+        File file = getCompiledFile( connection );
+        if( null == file )
         {
-            URI uri = url.toURI();
-            Resolver resolver = new SimpleResolver();
+            Document document = DOCUMENT_BUILDER.parse( connection );
+            Element element = getPartElement( document );
             Info info = getInfo( uri, element );
             Classpath classpath = getClasspath( element );
-            ClassLoader classloader = ClassLoaderHelper.newClassLoader( anchor, uri, classpath );
-            ClassLoader context = Thread.currentThread().getContextClassLoader();
-            Thread.currentThread().setContextClassLoader( classloader );
-            try
+            Element elem = getStrategyElement( element );
+            String namespace = elem.getSchemaTypeInfo().getTypeNamespace();
+            return buildPart( anchor, url, info, classpath, namespace, elem, name, validate );
+        }
+        
+        byte[] content = getByteArray( connection );
+        byte[] digest = CompiledPart.digest( HANDLER_VERSION, content );
+        CompiledPart compiled = loadCompiledPart( file, digest, uri );
+        if( null != compiled )
+        {
+            Info info = new Info( uri, compiled.getTitle(), compiled.getDescription() );
+            return buildPart( 
+              anchor, url, info, compiled.getClasspath(), compiled.getNamespace(), 
+              compiled.getStrategyElement(), name, validate );
+        }
+        
+        Document document = DOCUMENT_BUILDER.parse( url, new ByteArrayInputStream( content ) );
+        Element element = getPartElement( document );
+        Info info = getInfo( uri, element );
+        Classpath classpath = getClasspath( element );
+        Element elem = getStrategyElement( element );
+        String namespace = elem.getSchemaTypeInfo().getTypeNamespace();
+        Part part = buildPart( anchor, url, info, classpath, namespace, elem, name, validate );
+        try
+        {
+            CompiledPart.store( 
+              file, digest, info.getTitle(), info.getDescription(), classpath, namespace, elem );
+        }
+        catch( IOException e )
+        {
+            if( LOGGER.isTraceEnabled() )
             {
-                Element elem = getStrategyElement( element );
-                StrategyHandler handler = getStrategyHandler( elem );
-                String query = url.getQuery();
-                Strategy strategy = handler.build( classloader, elem, resolver, name, query, validate );
-                if( LOGGER.isTraceEnabled() )
-                {
-                    LOGGER.trace( 
-                      "establised new part using [" 
-                      + strategy.getClass().getName() 
-                      + "]" );
-                }
-                return new Part( info, classpath, strategy );
+                LOGGER.trace( "unable to store compiled part: " + file + " (" + e + ")" );
             }
-            finally
+        }
+        return part;
+    }
+    
+    private static Part buildPart( 
+      ClassLoader anchor, URL url, Info info, Classpath classpath, String namespace, 
+      Element elem, String name, boolean validate ) throws Exception
+    {
+        URI uri = info.getURI();
+        Resolver resolver = new SimpleResolver();
+        ClassLoader classloader = ClassLoaderHelper.newClassLoader( anchor, uri, classpath );
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader( classloader );
+        try
+        {
+            StrategyHandler handler = getStrategyHandler( namespace, elem );
+            String query = url.getQuery();
+            Strategy strategy = handler.build( classloader, elem, resolver, name, query, validate );
+            if( LOGGER.isTraceEnabled() )
             {
-                Thread.currentThread().setContextClassLoader( context );
+                LOGGER.trace( 
+                  "establised new part using [" 
+                  + strategy.getClass().getName() 
+                  + "]" );
             }
+            return new Part( info, classpath, strategy );
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader( context );
+        }
+    }
+    
+   /**
+    * Return the file holding the compiled form of the part referenced by a 
+    * connection.  Compiled parts are only maintained for artifacts resolved 
+    * from the local cache.
+    * @param connection the part connection
+    * @return the compiled part file or null if compiled parts are not supported
+    *   for the connection
+    * @exception IOException if an IO error occurs
+    */
+    private static File getCompiledFile( URLConnection connection ) throws IOException
+    {
+        if( !COMPILED )
+        {
+            return null;
+        }
+        String protocol = connection.getURL().getProtocol();
+        if( !Artifact.ARTIFACT.equals( protocol ) && !Artifact.LINK.equals( protocol ) )
+        {
+            return null;
+        }
+        Object local = connection.getContent( new Class<?>[]{File.class} );
+        if( local instanceof File )
+        {
+            return CompiledPart.getCompiledFile( (File) local );
+        }
+        else
+        {
+            return null;
+        }
+    }
+    
+    private static CompiledPart loadCompiledPart( File file, byte[] digest, URI uri )
+    {
+        try
+        {
+            CompiledPart compiled = CompiledPart.load( file, digest, uri );
+            if( ( null != compiled ) && LOGGER.isTraceEnabled() )
+            {
+                LOGGER.trace( "loaded compiled part: " + file );
+            }
+            return compiled;
+        }
+        catch( IOException e )
+        {
+            if( LOGGER.isTraceEnabled() )
+            {
+                LOGGER.trace( "ignoring compiled part: " + file + " (" + e + ")" );
+            }
+            return null;
+        }
+    }
+    
+    private static byte[] getByteArray( URLConnection connection ) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamUtils.copyStream( connection.getInputStream(), output, true );
+        return output.toByteArray();
+    }
+    
+   /**
+    * Return the document element of a validated part document.
+    * @param document the part document
+    * @return the part element
+    * @exception DecodingException if the document namespace is not recognized
+    */
+    private static Element getPartElement( Document document ) throws DecodingException
+    {
+        Element element = document.getDocumentElement();
+        TypeInfo type = element.getSchemaTypeInfo();
+        String namespace = type.getTypeNamespace();
+        if( isNamespaceRecognized( namespace ) )
+        {
+            return element;
         }
         else
         {
@@ -632,12 +819,11 @@ public final class PartContentHandler extends ContentHandler implements PartCont
     
     // cache utils
     
-    private static String buildKey( ClassLoader classloader, URL url ) throws IOException
+    private static String buildKey( URL url ) throws IOException
     {
         try
         {
-            int n = System.identityHashCode( classloader );
-            return "" + n + "#" + url.toURI().toASCIIString();
+            return url.toURI().toASCIIString();
         }
         catch( Exception e )
         {
@@ -20,7 +20,7 @@ package net.dpml.lang;
 
 import net.dpml.transit.ContentManager;
 
-import javax.management.MXBean;
+import javax.management.MXBean;
 
 /**
  * Abstract base class for artifact content handler.
@@ -36,4 +36,33 @@ public interface PartContentManager extends ContentManager
     * @return the part manager array
     */
     PartManager[] getPartManagers();
+    
+   /**
+    * Return the number of part requests resolved from the part cache.
+    * @return the cache hit count
+    */
+    long getCacheHits();
+    
+   /**
+    * Return the number of part requests not resolved from the part cache.
+    * @return the cache miss count
+    */
+    long getCacheMisses();
+    
+   /**
+    * Return the number of parts evicted from the part cache.
+    * @return the cache eviction count
+    */
+    long getCacheEvictions();
+    
+   /**
+    * Return the number of parts held in the part cache.
+    * @return the cache size
+    */
+    int getCacheSize();
+    
+   /**
+    * Remove all parts from the part cache.
+    */
+    void clearCache();
 }
@@ -21,6 +21,8 @@ package net.dpml.runtime;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
 * Invocation handler supporting instance isolation relative to services 
@@ -33,12 +35,27 @@ class ComponentInvocationHandler implements InvocationHandler
     private Object m_instance;
     
    /**
-    * Creation of a new component invocation handler.
+    * Map of service methods to the methods implemented by the instance class.
+    */
+    private final Map<Method,Method> m_methods = new HashMap<Method,Method>();
+    
+   /**
+    * Creation of a new component invocation handler with a dispatch table 
+    * established for the supplied service classes.
     * @param instance the instance to be isolated
+    * @param services the service classes published by the instance
     */
-    protected ComponentInvocationHandler( Object instance )
+    protected ComponentInvocationHandler( Object instance, Class<?>[] services )
     {
         m_instance = instance;
+        Class<?> c = instance.getClass();
+        for( Class<?> service : services )
+        {
+            for( Method method : service.getMethods() )
+            {
+                m_methods.put( method, getImplementation( c, method ) );
+            }
+        }
     }
     
    /**
@@ -54,11 +71,44 @@ class ComponentInvocationHandler implements InvocationHandler
     public Object invoke( final Object proxy, final Method method, final Object[] args ) 
       throws InvocationTargetException, IllegalAccessException
     {
-        return method.invoke( m_instance, args );
+        Method target = m_methods.get( method );
+        if( null != target )
+        {
+            return target.invoke( m_instance, args );
+        }
+        else
+        {
+            return method.invoke( m_instance, args );
+        }
     }
     
     protected Object getInstance()
     {
         return m_instance;
     }
+    
+   /**
+    * Return the method implemented by the instance class for a service method
+    * enabling invocation without interface resolution and access checks.
+    * @param c the instance class
+    * @param method the service method
+    * @return the implementation method or the service method if unresolved
+    */
+    private static Method getImplementation( Class<?> c, Method method )
+    {
+        try
+        {
+            Method target = c.getMethod( method.getName(), method.getParameterTypes() );
+            target.setAccessible( true );
+            return target;
+        }
+        catch( NoSuchMethodException e )
+        {
+            return method;
+        }
+        catch( RuntimeException e )
+        {
+            return method;
+        }
+    }
 }
@@ -30,13 +30,18 @@ import java.lang.ref.Reference;
 import java.net.URI;
 import java.net.URL;
 import java.util.WeakHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.dpml.annotation.CollectionPolicy;
 import net.dpml.annotation.LifestylePolicy;
@@ -71,13 +76,22 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
     private static final Logger LOGGER = new DefaultLogger( "dpml.lang.component" );
     private static final ComponentStrategyHandler HANDLER = new ComponentStrategyHandler();
     
+   /**
+    * Maximum duration in milliseconds that a request waits for the release 
+    * of a provider by an exhausted pool.
+    */
+    private static final long POOL_TIMEOUT = 
+      Long.getLong( "dpml.metro.pool.timeout", 30000 ).longValue();
+    
     private final String m_name;
     private final int m_priority;
     private final Class<?> m_class;
     private final String m_path;
     private final LifestylePolicy m_lifestyle;
     private final CollectionPolicy m_collection;
+    private final PoolPolicy m_pool;
     private final State m_graph;
+    private final StateTable m_table;
     private final LifestyleHandler m_handler;
     private final ContextModel m_context;
     private final ActivationPolicy m_activation;
@@ -86,7 +100,9 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
     private final Map<String,Object> m_map = new Hashtable<String,Object>();
     
     private final Set<ComponentListener> m_listeners = new CopyOnWriteArraySet<ComponentListener>();
-    private final ExecutorService m_queue = Executors.newSingleThreadExecutor();
+    private final EventQueue.Channel m_channel = EventQueue.getSharedQueue().createChannel();
+    private final AtomicInteger m_live = new AtomicInteger();
+    private final AtomicLong m_incarnations = new AtomicLong();
     
     private ServiceRegistry m_registry;
     private Element m_element;
@@ -100,6 +116,7 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
     * @param activation the activation policy
     * @param lifestyle the lifestyle policy
     * @param collection the collection policy
+    * @param pool the pool policy
     * @param context the context model
     * @param parts the internal part structure
     * @exception IOException if an IO error occurs
@@ -107,7 +124,7 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
     ComponentStrategy( 
       final String partition, final String name, int priority, final Class type, 
       ActivationPolicy activation, LifestylePolicy lifestyle, CollectionPolicy collection, 
-      ContextModel context, PartsDirective parts ) 
+      PoolPolicy pool, ContextModel context, PartsDirective parts ) 
       throws IOException
     {
         super( type.getClassLoader() );
@@ -117,12 +134,14 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         m_activation = activation;
         m_lifestyle = lifestyle;
         m_collection = collection;
+        m_pool = pool;
         m_context = context;
         
         m_name = getComponentName( name, m_class );
         m_path = getComponentPath( partition, m_name, m_class );
         m_logger = getComponentLogger( m_path );
         m_graph = getLifecycleGraph( m_class );
+        m_table = new StateTable( m_graph );
         m_parts = getPartsDirective( parts );
         
         m_parts.initialize( this );
@@ -195,7 +214,7 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         Logger logger= getLogger();
         for( ComponentListener listener : m_listeners )
         {
-            m_queue.execute( new ComponentEventDistatcher( logger, listener, event ) );
+            m_channel.execute( new ComponentEventDistatcher( logger, listener, event ), true );
         }
     }
     
@@ -336,10 +355,9 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
                 getLogger().trace( "termination" );
             }
             m_handler.terminate();
-            m_queue.shutdown();
             try
             {
-                boolean ok = m_queue.awaitTermination( timeout, units );
+                boolean ok = m_channel.drain( timeout, units );
                 if( !ok )
                 {
                     final String message = 
@@ -424,6 +442,11 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         return m_graph;
     }
     
+    StateTable getStateTable()
+    {
+        return m_table;
+    }
+    
     Logger getComponentLogger()
     {
         return m_logger;
@@ -461,6 +484,129 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         return m_activation;
     }
     
+   /**
+    * Return the pool utilisation statistics.
+    * @return the pool statistics or null if the lifestyle policy is not pooled
+    */
+    public PoolStatistics getPoolStatistics()
+    {
+        if( m_handler instanceof PoolStatistics )
+        {
+            return (PoolStatistics) m_handler;
+        }
+        else
+        {
+            return null;
+        }
+    }
+    
+   /**
+    * Return the service classes provided by the component.  The provided 
+    * services are the component class together with its superclasses and 
+    * interfaces.
+    * @return the provided service classes
+    */
+    public Class<?>[] getProvidedServices()
+    {
+        Set<Class<?>> services = new LinkedHashSet<Class<?>>();
+        addProvidedServices( services, m_class );
+        return services.toArray( new Class<?>[ services.size() ] );
+    }
+    
+   /**
+    * Return the service classes required by the component that are not
+    * resolvable from the parts of the component.  Required services include
+    * the service classes declared as constructor arguments and the unresolved
+    * services of nested parts, together with services referenced by context
+    * lookup entries.
+    * @return the required service classes
+    */
+    public Class<?>[] getRequiredServices()
+    {
+        Set<Class<?>> services = new LinkedHashSet<Class<?>>();
+        Class<?>[] types = ComponentStrategyHandler.getSingleConstructor( m_class ).getParameterTypes();
+        for( Class<?> type : types )
+        {
+            if( isaServiceType( type ) )
+            {
+                services.add( type );
+            }
+        }
+        String[] keys = m_parts.getKeys();
+        for( String key : keys )
+        {
+            Strategy strategy = m_parts.getStrategy( key );
+            if( strategy instanceof ComponentStrategy )
+            {
+                ComponentStrategy part = (ComponentStrategy) strategy;
+                for( Class<?> type : part.getRequiredServices() )
+                {
+                    services.add( type );
+                }
+            }
+        }
+        Iterator<Class<?>> iterator = services.iterator();
+        while( iterator.hasNext() )
+        {
+            Class<?> type = iterator.next();
+            for( String key : keys )
+            {
+                if( m_parts.getStrategy( key ).isaCandidate( type ) )
+                {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+        if( null != m_context )
+        {
+            m_context.addLookupServices( services );
+        }
+        return services.toArray( new Class<?>[ services.size() ] );
+    }
+    
+   /**
+    * Return the utilisation statistics of the event dispatch service shared 
+    * by all components.
+    * @return the event statistics
+    */
+    public EventStatistics getEventStatistics()
+    {
+        return EventQueue.getSharedQueue();
+    }
+    
+   /**
+    * Return the number of instances incarnated by the component and not 
+    * yet etherialized.  Instances held by providers that are not released 
+    * remain live until the provider is released or the component is 
+    * terminated.
+    * @return the live instance count
+    */
+    public int getInstanceCount()
+    {
+        return m_live.get();
+    }
+    
+   /**
+    * Return the total number of instances incarnated by the component.
+    * @return the incarnation count
+    */
+    public long getIncarnationCount()
+    {
+        return m_incarnations.get();
+    }
+    
+    void incarnated()
+    {
+        m_incarnations.incrementAndGet();
+        m_live.incrementAndGet();
+    }
+    
+    void etherialized()
+    {
+        m_live.decrementAndGet();
+    }
+    
     private Logger getComponentLogger( String path )
     {
         return new DefaultLogger( path );
@@ -595,6 +741,7 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
                 String activation = ElementHelper.getAttribute( m_element, "activation" );
                 ContextDirective context = getContextModel().getDirective();
                 PartsDirective parts = getPartsDirective();
+                Element pool = ElementHelper.getChild( m_element, "pool" );
                 buffer.nl( "<component" );
                 if( !flag )
                 {
@@ -629,7 +776,7 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
                 {
                     buffer.write( " activation=\"" + activation + "\"" );
                 }
-                if( ( context.size() == 0 ) && ( parts.size() == 0 ) )
+                if( ( context.size() == 0 ) && ( parts.size() == 0 ) && ( null == pool ) )
                 {
                     buffer.write( "/>" ); 
                 }
@@ -639,6 +786,14 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
                     Buffer b = buffer.namespace( NAMESPACE );
                     context.encode( b.indent(), null );
                     parts.encode( b.indent() );
+                    if( null != pool )
+                    {
+                        Buffer p = b.indent();
+                        p.nl( "<pool" );
+                        p.write( " minimum=\"" + m_pool.getMinimum() + "\"" );
+                        p.write( " maximum=\"" + m_pool.getMaximum() + "\"" );
+                        p.write( " idle=\"" + m_pool.getIdleTimeout() + "\"/>" );
+                    }
                     buffer.nl( "</component>" );
                 }
             }
@@ -699,6 +854,14 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         {
             return new ThreadLifestyleHandler( this );
         }
+        else if( policy.equals( LifestylePolicy.POOLED ) )
+        {
+            return new PooledLifestyleHandler( this, m_pool );
+        }
+        else if( policy.equals( LifestylePolicy.SCOPED ) )
+        {
+            return new ScopedLifestyleHandler( this );
+        }
         else
         {
             return new TransientLifestyleHandler( this );
@@ -805,6 +968,339 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
         }
     }
 
+   /**
+    * Pooled holder class.  The pooled holder maintains a bounded pool of 
+    * providers.  Providers are borrowed on request and returned to the pool
+    * on release such that established instances are reused.  Providers 
+    * that are not released remain leased until the component is terminated.
+    * Idle providers in excess of the pool minimum are disposed following 
+    * expiry of the pool idle duration.  New providers are created outside of
+    * the pool lock against a reserved pool slot.
+    */
+    private class PooledLifestyleHandler extends LifestyleHandler implements PoolStatistics
+    {
+        private final PoolPolicy m_policy;
+        private final LinkedList<Provider> m_idle = new LinkedList<Provider>();
+        private final LinkedList<Long> m_released = new LinkedList<Long>();
+        private final Set<Provider> m_active = new HashSet<Provider>();
+        
+        private boolean m_prepared = false;
+        private int m_pending = 0;
+        private long m_created = 0;
+        private long m_reused = 0;
+        private long m_disposed = 0;
+        private long m_waits = 0;
+        
+        PooledLifestyleHandler( ComponentStrategy strategy, PoolPolicy policy )
+        {
+            super( strategy );
+            m_policy = policy;
+        }
+        
+        Provider getProvider()
+        {
+            prepare();
+            synchronized( this )
+            {
+                Provider provider = lease();
+                if( null != provider )
+                {
+                    return provider;
+                }
+                m_pending++;
+            }
+            Provider provider = null;
+            try
+            {
+                provider = new StandardProvider( getComponentStrategy() );
+                return provider;
+            }
+            finally
+            {
+                synchronized( this )
+                {
+                    m_pending--;
+                    if( null != provider )
+                    {
+                        m_active.add( provider );
+                        m_created++;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+        
+       /**
+        * Lease an idle provider waiting if the pool is exhausted.
+        * @return the idle provider or null if a pool slot is available for
+        *   the creation of a new provider
+        */
+        private Provider lease()
+        {
+            expire();
+            if( isExhausted() )
+            {
+                m_waits++;
+                long deadline = System.currentTimeMillis() + POOL_TIMEOUT;
+                while( isExhausted() )
+                {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if( remaining <= 0 )
+                    {
+                        final String error = 
+                          "Pool exhausted in the component ["
+                          + getComponentPath()
+                          + "] (maximum "
+                          + m_policy.getMaximum()
+                          + ").";
+                        throw new ComponentError( error );
+                    }
+                    try
+                    {
+                        wait( remaining );
+                    }
+                    catch( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                        final String error = 
+                          "Interrupted while waiting for a pooled provider in the component ["
+                          + getComponentPath()
+                          + "].";
+                        throw new ComponentError( error, e );
+                    }
+                }
+            }
+            if( m_idle.isEmpty() )
+            {
+                return null;
+            }
+            Provider provider = m_idle.removeFirst();
+            m_released.removeFirst();
+            m_reused++;
+            m_active.add( provider );
+            return provider;
+        }
+        
+        private boolean isExhausted()
+        {
+            return m_idle.isEmpty() 
+              && ( m_active.size() + m_pending >= m_policy.getMaximum() );
+        }
+        
+        synchronized void release( Provider provider )
+        {
+            if( ( null == provider ) || !m_active.remove( provider ) )
+            {
+                return;
+            }
+            m_idle.addFirst( provider );
+            m_released.addFirst( System.currentTimeMillis() );
+            expire();
+            notifyAll();
+        }
+        
+        synchronized void terminate()
+        {
+            for( Provider provider : m_active )
+            {
+                dispose( provider );
+            }
+            m_active.clear();
+            for( Provider provider : m_idle )
+            {
+                dispose( provider );
+            }
+            m_idle.clear();
+            m_released.clear();
+            notifyAll();
+        }
+        
+       /**
+        * Establish the minimum number of incarnated providers on first use.
+        * Providers are incarnated outside of the pool lock.
+        */
+        private void prepare()
+        {
+            synchronized( this )
+            {
+                if( m_prepared )
+                {
+                    return;
+                }
+                m_prepared = true;
+            }
+            ComponentStrategy strategy = getComponentStrategy();
+            for( int i=0; i < m_policy.getMinimum(); i++ )
+            {
+                Provider provider = new StandardProvider( strategy );
+                provider.getInstance( Object.class );
+                synchronized( this )
+                {
+                    m_idle.addLast( provider );
+                    m_released.addLast( System.currentTimeMillis() );
+                    m_created++;
+                    notifyAll();
+                }
+            }
+        }
+        
+       /**
+        * Dispose of idle providers exceeding the idle duration while 
+        * retaining the pool minimum.
+        */
+        private void expire()
+        {
+            long idle = m_policy.getIdleTimeout();
+            if( 0 == idle )
+            {
+                return;
+            }
+            long limit = System.currentTimeMillis() - idle;
+            while( !m_idle.isEmpty() 
+              && ( m_released.getLast() < limit )
+              && ( m_idle.size() + m_active.size() > m_policy.getMinimum() ) )
+            {
+                m_released.removeLast();
+                dispose( m_idle.removeLast() );
+            }
+        }
+        
+        private void dispose( Provider provider )
+        {
+            if( provider instanceof Disposable )
+            {
+                Disposable disposable = (Disposable) provider;
+                disposable.dispose();
+            }
+            m_disposed++;
+        }
+        
+        public int getMinimum()
+        {
+            return m_policy.getMinimum();
+        }
+        
+        public int getMaximum()
+        {
+            return m_policy.getMaximum();
+        }
+        
+        public synchronized int getActiveCount()
+        {
+            return m_active.size();
+        }
+        
+        public synchronized int getIdleCount()
+        {
+            return m_idle.size();
+        }
+        
+        public synchronized long getCreatedCount()
+        {
+            return m_created;
+        }
+        
+        public synchronized long getReusedCount()
+        {
+            return m_reused;
+        }
+        
+        public synchronized long getDisposedCount()
+        {
+            return m_disposed;
+        }
+        
+        public synchronized long getWaitCount()
+        {
+            return m_waits;
+        }
+    }
+    
+   /**
+    * Scoped holder class.  The scoped holder maintains a single provider per
+    * {@link Scope}.  Providers are bound to the scope current on the calling 
+    * thread and are released when the scope is closed, independently of the 
+    * thread or threads on which the scope was used.  Access to the provider
+    * table is synchronized on the handler as scopes may be closed on any 
+    * thread concurrently with component termination.
+    */
+    private class ScopedLifestyleHandler extends LifestyleHandler
+    {
+        private final Map<Provider,Scope> m_providers = new HashMap<Provider,Scope>();
+        
+        ScopedLifestyleHandler( ComponentStrategy strategy )
+        {
+            super( strategy );
+        }
+        
+        synchronized Provider getProvider()
+        {
+            Scope scope = Scope.getCurrentScope();
+            ComponentStrategy strategy = getComponentStrategy();
+            if( null == scope )
+            {
+                final String error = 
+                  "No scope is bound to the current thread for the scoped component ["
+                  + strategy.getComponentPath()
+                  + "].";
+                throw new ComponentError( error );
+            }
+            Provider provider = scope.getProvider( strategy );
+            if( null == provider )
+            {
+                final String error = 
+                  "The scope bound to the current thread is closed for the scoped component ["
+                  + strategy.getComponentPath()
+                  + "].";
+                if( scope.isClosed() )
+                {
+                    throw new ComponentError( error );
+                }
+                provider = new StandardProvider( strategy );
+                try
+                {
+                    scope.bind( strategy, provider );
+                }
+                catch( IllegalStateException e )
+                {
+                    // scope closed concurrently
+                    
+                    if( provider instanceof Disposable )
+                    {
+                        Disposable disposable = (Disposable) provider;
+                        disposable.dispose();
+                    }
+                    throw new ComponentError( error, e );
+                }
+                m_providers.put( provider, scope );
+            }
+            return provider;
+        }
+        
+        synchronized void release( Provider provider )
+        {
+            Scope scope = m_providers.remove( provider );
+            if( null != scope )
+            {
+                scope.unbind( getComponentStrategy(), provider );
+                if( provider instanceof Disposable )
+                {
+                    Disposable disposable = (Disposable) provider;
+                    disposable.dispose();
+                }
+            }
+        }
+        
+        synchronized void terminate()
+        {
+            Provider[] providers = m_providers.keySet().toArray( new Provider[0] );
+            for( Provider provider : providers )
+            {
+                release( provider );
+            }
+        }
+    }
+    
    /**
     * The ThreadHolder class provides support for the per-thread lifestyle
     * policy within which new <tt>LifestyleHandler</tt> creation is based on a single
@@ -878,6 +1374,52 @@ public class ComponentStrategy extends Strategy implements Component, ServiceReg
     // utilities
     //-----------------------------------------------------------------------
 
+    private static void addProvidedServices( Set<Class<?>> services, Class<?> c )
+    {
+        if( ( null == c ) || ( Object.class == c ) || !services.add( c ) )
+        {
+            return;
+        }
+        addProvidedServices( services, c.getSuperclass() );
+        for( Class<?> type : c.getInterfaces() )
+        {
+            addProvidedServices( services, type );
+        }
+    }
+    
+   /**
+    * Return true if a constructor argument type is resolved as a service.
+    * Logging channels, context and parts arguments are supplied by the 
+    * container and array arguments default to an empty array.
+    */
+    private static boolean isaServiceType( Class<?> type )
+    {
+        if( type.isPrimitive() || type.isArray() )
+        {
+            return false;
+        }
+        else if( java.util.logging.Logger.class.isAssignableFrom( type ) )
+        {
+            return false;
+        }
+        else if( Logger.class.isAssignableFrom( type ) )
+        {
+            return false;
+        }
+        else if( ContextInvocationHandler.isaContext( type, false ) )
+        {
+            return false;
+        }
+        else if( PartsInvocationHandler.isaParts( type, false ) )
+        {
+            return false;
+        }
+        else
+        {
+            return !"net.dpml.logging.Logger".equals( type.getName() );
+        }
+    }
+    
     private static String getComponentName( Class<?> c )
     {
         if( c.isAnnotationPresent( net.dpml.annotation.Component.class ) )
@@ -79,9 +79,10 @@ public class ComponentStrategyHandler implements StrategyHandler
         Profile profile = new Profile( c, spec, null );
         ContextModel context = getContextModel( null, c, spec, profile, null, null, null, true );
         PartsDirective parts = profile.getPartsDirective();
+        PoolPolicy pool = PoolPolicy.getPoolPolicy( null, c, null );
         return new ComponentStrategy( 
           null, spec, 0, c, ActivationPolicy.SYSTEM, LifestylePolicy.THREAD, 
-          CollectionPolicy.HARD, context, parts );
+          CollectionPolicy.HARD, pool, context, parts );
     }
     
    /**
@@ -128,6 +129,7 @@ public class ComponentStrategyHandler implements StrategyHandler
         
         try
         {
+            PoolPolicy pool = PoolPolicy.getPoolPolicy( element, c, resolver );
             Element partsElement = ElementHelper.getChild( element, "parts" );
             PartsDirective parts = 
               new PartsDirective( 
@@ -145,6 +147,7 @@ public class ComponentStrategyHandler implements StrategyHandler
                 activation,
                 lifestyle,
                 collection,
+                pool,
                 context, 
                 parts );
             strategy.setElement( element );
@@ -25,6 +25,7 @@ import java.lang.reflect.Constructor;
 
 import dpml.lang.ValueDecoder;
 
+import dpml.lang.Construct;
 import dpml.lang.Value;
 import net.dpml.lang.DecodingException;
 import net.dpml.lang.Buffer;
@@ -235,6 +236,34 @@ class ContextDirective extends Directive implements Encodable
             return type.cast( value );
         }
         
+       /**
+        * Return true if the value is a simple construct free of symbolic 
+        * references and static method or field operators such that 
+        * resolution is independent of both the context map and the time 
+        * of resolution.
+        * @return the literal status
+        */
+        boolean isLiteral()
+        {
+            if( m_value instanceof Construct )
+            {
+                Construct construct = (Construct) m_value;
+                return !construct.isCompound()
+                  && ( null == construct.getMethodName() )
+                  && !isSymbolic( construct.getTargetExpression() )
+                  && !isSymbolic( construct.getBaseValue() );
+            }
+            else
+            {
+                return false;
+            }
+        }
+        
+        private static boolean isSymbolic( String expression )
+        {
+            return ( null != expression ) && ( expression.indexOf( "${" ) > -1 );
+        }
+        
         public void encode( Buffer buffer, String key ) throws IOException
         {
             m_value.encode( buffer, "entry", key );
@@ -322,6 +351,11 @@ class ContextDirective extends Directive implements Encodable
             }
         }
         
+        Class<?> getServiceClass()
+        {
+            return m_class;
+        }
+        
         public <T>T resolve( ComponentStrategy strategy, Class<T> type ) throws Exception
         {
             T value = strategy.getService( m_class, type );
@@ -18,13 +18,17 @@
 
 package net.dpml.runtime;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.beans.Introspector;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
 import net.dpml.annotation.Context;
+import net.dpml.runtime.ContextDirective.ValueWrapper;
 import net.dpml.runtime.Directive.Resolvable;
 
 import org.w3c.dom.Element;
@@ -82,7 +86,7 @@ final class ContextInvocationHandler implements InvocationHandler
     * @param map a map of context entry values
     * @exception IllegalArgumentException if validation fails
     */
-    public static void validate( Class clazz, Map<String,Object> map ) 
+    public static void validate( Class<?> clazz, Map<String,Object> map ) 
       throws IllegalArgumentException
     {
         for( Method method : clazz.getMethods() )
@@ -113,20 +117,20 @@ final class ContextInvocationHandler implements InvocationHandler
     
    /**
     * Construct a new context instance implementing the supplied class
-    * backed by entries in the supplied map.
+    * backed by entries in the supplied context model.
     *
     * @param clazz the context class
-    * @param map a map of context entry keys and values
+    * @param strategy the component strategy
+    * @param model the context model
     * @return the constructed context instance
     */
     public static <T>T getProxiedInstance( 
       final Class<T> clazz, final ComponentStrategy strategy, final ContextModel model )
     {
-        ClassLoader classloader = clazz.getClassLoader();
+        Dispatch dispatch = model.getDispatch( clazz );
         ContextInvocationHandler handler = 
-          new ContextInvocationHandler( strategy, model );
-        final Object instance = 
-          Proxy.newProxyInstance( classloader, new Class[]{clazz}, handler );
+          new ContextInvocationHandler( strategy, dispatch );
+        final Object instance = dispatch.newInstance( handler );
         return clazz.cast( instance );
     }
     
@@ -135,14 +139,19 @@ final class ContextInvocationHandler implements InvocationHandler
     //-------------------------------------------------------------------
 
    /**
-    * Context datatype.
+    * Dispatch table for the context class.
     */
-    private final ContextModel m_model;
+    private final Dispatch m_dispatch;
     
    /**
     * Component strategy handler.
     */
     private final ComponentStrategy m_strategy;
+    
+   /**
+    * Memoized values of constant context entries indexed by entry.
+    */
+    private final AtomicReferenceArray<Object> m_values;
 
     //-------------------------------------------------------------------
     // constructor
@@ -151,12 +160,14 @@ final class ContextInvocationHandler implements InvocationHandler
    /**
     * Create a context invocation handler.
     *
-    * @param map a map containing context key/value pairs.
+    * @param strategy the component strategy
+    * @param dispatch the context class dispatch table
     */
-    private ContextInvocationHandler( final ComponentStrategy strategy, final ContextModel model )
+    private ContextInvocationHandler( final ComponentStrategy strategy, final Dispatch dispatch )
     {
-        m_model = model;
+        m_dispatch = dispatch;
         m_strategy = strategy;
+        m_values = new AtomicReferenceArray<Object>( dispatch.size() );
     }
 
     //-------------------------------------------------------------------
@@ -173,66 +184,68 @@ final class ContextInvocationHandler implements InvocationHandler
     * @return the return value of method
     * @throws Throwable if an error occurs
     */
-    @SuppressWarnings( "unchecked" )
     public Object invoke( final Object proxy, final Method method, final Object[] args ) throws Throwable
     {
-        Class source = method.getDeclaringClass();
-        if( Object.class == source )
+        Entry entry = m_dispatch.getEntry( method );
+        if( null == entry )
         {
-            return method.invoke( this, args );
+            if( Object.class == method.getDeclaringClass() )
+            {
+                return method.invoke( this, args );
+            }
+            else
+            {
+                throw new UnsupportedOperationException( method.getName() );
+            }
         }
-        else
+        
+        Resolvable resolvable = entry.m_resolvable;
+        if( null != resolvable )
         {
-            String name = method.getName();
-            if( name.startsWith( "get" ) )
+            Object value = m_values.get( entry.m_index );
+            if( null != value )
             {
-                Class<?> clazz = method.getReturnType();
-                String key = Introspector.decapitalize( name.substring( 3 ) );
-                Resolvable entry = m_model.getResolvable( key );
-                if( null != entry )
-                {
-                    Class nc = normalize( clazz );
-                    Object v = resolve( entry, key, nc );
-                    if( nc.isAssignableFrom( v.getClass() ) )
-                    {
-                        return v;
-                    }
-                    else
-                    {
-                        final String error = 
-                          "Cannot cast [" 
-                          + v.getClass().getName()
-                          + "] to the return type ["
-                          + clazz.getName()
-                          + "] on the context entry ["
-                          + key
-                          + "]";
-                        Element element = entry.getElement();
-                        throw new ComponentException( error, null, element );
-                    }
-                }
-                if( ( null != args ) && ( args.length > 0 ) )
+                return value;
+            }
+            value = resolve( resolvable, entry.m_key, entry.m_normalized );
+            if( entry.m_normalized.isAssignableFrom( value.getClass() ) )
+            {
+                if( entry.isConstant( value ) )
                 {
-                    return args[0];
-                }
-                else
-                {
-                    // should not happen
-                    
-                    final String error = 
-                      "Unresolvable context entry [" 
-                      + key
-                      + "] in the component model ["
-                      + m_strategy.getComponentPath()
-                      + "].";
-                    throw new ComponentError( error );
+                    m_values.set( entry.m_index, value );
                 }
+                return value;
             }
             else
             {
-                throw new UnsupportedOperationException( name );
+                final String error = 
+                  "Cannot cast [" 
+                  + value.getClass().getName()
+                  + "] to the return type ["
+                  + entry.m_type.getName()
+                  + "] on the context entry ["
+                  + entry.m_key
+                  + "]";
+                Element element = resolvable.getElement();
+                throw new ComponentException( error, null, element );
             }
         }
+        if( ( null != args ) && ( args.length > 0 ) )
+        {
+            return args[0];
+        }
+        else
+        {
+            // should not happen
+            
+            final String error = 
+              "Unresolvable context entry [" 
+              + entry.m_key
+              + "] in the component model ["
+              + m_strategy.getComponentPath()
+              + "].";
+            throw new ComponentError( error );
+        }
     }
     
     private Object resolve( Resolvable entry, String key, Class<?> c ) throws ComponentException
@@ -344,6 +357,155 @@ final class ContextInvocationHandler implements InvocationHandler
         }
     }
     
+   /**
+    * Dispatch table established once per context model and context class 
+    * mapping each context method to its key, return type and resolvable 
+    * entry together with the constructor of the proxy class.
+    */
+    static final class Dispatch
+    {
+        private static final InvocationHandler NULL_HANDLER = 
+          new InvocationHandler()
+          {
+              public Object invoke( Object proxy, Method method, Object[] args )
+              {
+                  return null;
+              }
+          };
+        
+        private final Class<?> m_class;
+        private final Map<Method,Entry> m_entries = new HashMap<Method,Entry>();
+        private final Constructor<?> m_constructor;
+        
+        Dispatch( final Class<?> clazz, final ContextModel model )
+        {
+            m_class = clazz;
+            int index = 0;
+            for( Method method : clazz.getMethods() )
+            {
+                if( method.getName().startsWith( GET ) )
+                {
+                    String key = getKeyForMethod( method );
+                    Resolvable resolvable = model.getResolvable( key );
+                    Entry entry = new Entry( index++, key, method.getReturnType(), resolvable );
+                    m_entries.put( method, entry );
+                }
+            }
+            try
+            {
+                Object proxy = 
+                  Proxy.newProxyInstance( 
+                    clazz.getClassLoader(), new Class<?>[]{clazz}, NULL_HANDLER );
+                m_constructor = proxy.getClass().getConstructor( InvocationHandler.class );
+            }
+            catch( NoSuchMethodException e )
+            {
+                final String error = 
+                  "Unable to establish a proxy constructor for the context class ["
+                  + clazz.getName()
+                  + "].";
+                throw new ComponentError( error, e );
+            }
+        }
+        
+        Class<?> getContextClass()
+        {
+            return m_class;
+        }
+        
+        int size()
+        {
+            return m_entries.size();
+        }
+        
+        Entry getEntry( Method method )
+        {
+            return m_entries.get( method );
+        }
+        
+        Object newInstance( InvocationHandler handler )
+        {
+            try
+            {
+                return m_constructor.newInstance( handler );
+            }
+            catch( Exception e )
+            {
+                final String error = 
+                  "Unable to instantiate a proxy for the context class ["
+                  + m_class.getName()
+                  + "].";
+                throw new ComponentError( error, e );
+            }
+        }
+    }
+    
+   /**
+    * Dispatch table entry.
+    */
+    private static final class Entry
+    {
+        private final int m_index;
+        private final String m_key;
+        private final Class<?> m_type;
+        private final Class<?> m_normalized;
+        private final Resolvable m_resolvable;
+        private final boolean m_literal;
+        
+        Entry( int index, String key, Class<?> type, Resolvable resolvable )
+        {
+            m_index = index;
+            m_key = key;
+            m_type = type;
+            m_normalized = normalize( type );
+            m_resolvable = resolvable;
+            m_literal = isLiteral( resolvable );
+        }
+        
+       /**
+        * Return true if a resolved value may be reused for subsequent 
+        * invocations.  Nested context instances and immutable values 
+        * resolved from non-symbolic literal entries are constant.  Arrays,
+        * maps, service lookups and symbolic values are resolved on each
+        * invocation.
+        * @param value the resolved value
+        * @return true if the value is constant
+        */
+        boolean isConstant( Object value )
+        {
+            if( m_resolvable instanceof ContextModel )
+            {
+                return true;
+            }
+            else if( m_literal )
+            {
+                return ( value instanceof String )
+                  || ( value instanceof Boolean )
+                  || ( value instanceof Character )
+                  || ( value instanceof Enum )
+                  || ( ( value instanceof Number ) 
+                    && ( value.getClass().getName().startsWith( "java.lang." ) ) );
+            }
+            else
+            {
+                return false;
+            }
+        }
+        
+        private static boolean isLiteral( Resolvable resolvable )
+        {
+            if( resolvable instanceof ValueWrapper )
+            {
+                ValueWrapper wrapper = (ValueWrapper) resolvable;
+                return wrapper.isLiteral();
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+    
     private static final String STRICT_PROCESSING_KEY = "dpml.lang.context.policy";
     private static final String STRICT_PROCESSING_KEYWORD = "strict";
     private static final boolean STRICT_PROCESSING = getStrictProcessingPolicy();
@@ -19,6 +19,7 @@
 package net.dpml.runtime;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Hashtable;
 import java.lang.reflect.Method;
@@ -41,6 +42,8 @@ class ContextModel implements Resolvable
     
     private final Map<String,Resolvable> m_map = new Hashtable<String,Resolvable>();
     
+    private volatile ContextInvocationHandler.Dispatch m_dispatch;
+    
     ContextModel( 
       Class clazz, String path, Class subject, boolean policy,
       ContextDirective bundled, ContextDirective directive, Query query, boolean validate ) throws IOException
@@ -185,10 +188,50 @@ class ContextModel implements Resolvable
         return m_map.get( key );
     }
     
+   /**
+    * Return the dispatch table for the supplied context class.  The table
+    * is established on first use and reused for all context instances 
+    * backed by this model.
+    * @param type the context class
+    * @return the dispatch table
+    */
+    ContextInvocationHandler.Dispatch getDispatch( Class<?> type )
+    {
+        ContextInvocationHandler.Dispatch dispatch = m_dispatch;
+        if( ( null == dispatch ) || ( dispatch.getContextClass() != type ) )
+        {
+            dispatch = new ContextInvocationHandler.Dispatch( type, this );
+            m_dispatch = dispatch;
+        }
+        return dispatch;
+    }
+    
     ContextDirective getDirective()
     {
         return m_directive;
     }
+    
+   /**
+    * Add the service classes referenced by lookup entries within the model 
+    * and nested models to the supplied collection.
+    * @param services the service collection
+    */
+    void addLookupServices( Collection<Class<?>> services )
+    {
+        for( Resolvable value : m_map.values() )
+        {
+            if( value instanceof ContextDirective.Lookup )
+            {
+                ContextDirective.Lookup lookup = (ContextDirective.Lookup) value;
+                services.add( lookup.getServiceClass() );
+            }
+            else if( value instanceof ContextModel )
+            {
+                ContextModel model = (ContextModel) value;
+                model.addLookupServices( services );
+            }
+        }
+    }
 
     private ContextDirective getContextDirective( ContextDirective directive, String key )
     {
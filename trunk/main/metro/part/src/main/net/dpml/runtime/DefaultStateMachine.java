@@ -79,12 +79,14 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
     
     private final Object m_lock = new Object();
 
-    private final EventQueue m_queue;
+    private final EventQueue.Channel m_channel;
     
     private final WeakHashMap<StateListener,Void> m_listeners = new WeakHashMap<StateListener,Void>();
 
     private final Logger m_logger;
     
+    private final StateTable m_table;
+    
     //-------------------------------------------------------------------------------
     // constructor
     //-------------------------------------------------------------------------------
@@ -97,9 +99,23 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
     */
     public DefaultStateMachine( EventQueue queue, Logger logger, State state )
     {
-        m_queue = queue;
+        this( queue, logger, state, new StateTable( state ) );
+    }
+
+   /**
+    * Creation of a new state machine using a precompiled state graph.
+    * @param queue the event queue
+    * @param logger the logging channel
+    * @param state the initial state
+    * @param table the compiled state graph (if null the state graph is resolved 
+    *   on each request)
+    */
+    DefaultStateMachine( EventQueue queue, Logger logger, State state, StateTable table )
+    {
+        m_channel = queue.createChannel();
         m_logger = logger;
         m_state = state;
+        m_table = table;
     }
 
     //-------------------------------------------------------------------------------
@@ -211,7 +227,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
         checkDisposed();
         try
         {
-            return getAction( m_state, TriggerPolicy.INITIALIZATION );
+            return getAction( TriggerPolicy.INITIALIZATION );
         }
         catch( Throwable e )
         {
@@ -235,7 +251,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
         checkDisposed();
         try
         {
-            return getAction( m_state, TriggerPolicy.TERMINATION );
+            return getAction( TriggerPolicy.TERMINATION );
         }
         catch( Throwable e )
         {
@@ -324,19 +340,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
         
         // TODO: validate exposure of declaring interface
         
-        try
-        {
-            Expression expression = new Expression( object, method, args );
-            return expression.getValue();
-        }
-        catch( InvocationTargetException e )
-        {
-            throw e;
-        }
-        catch( Exception e )
-        {
-            throw new InvocationTargetException( e );
-        }
+        return invoke( object, method, args, true );
     }
     
    /**
@@ -548,11 +552,27 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
         }
         
         String method = getMethodName( operation );
-        
+        return invoke( object, method, args, true );
+    }
+    
+    private Object invoke( Object object, String method, Object[] args, boolean expression ) 
+      throws InvocationTargetException
+    {
+        if( null != m_table )
+        {
+            return m_table.invoke( object, method, args );
+        }
         try
         {
-            Expression expression = new Expression( object, method, args );
-            return expression.getValue();
+            if( expression )
+            {
+                return new Expression( object, method, args ).getValue();
+            }
+            else
+            {
+                new Statement( object, method, args ).execute();
+                return null;
+            }
         }
         catch( InvocationTargetException e )
         {
@@ -609,9 +629,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
     {
         synchronized( m_state )
         {
-            State context = transition.getState();
-            String target = transition.getTargetName();
-            State state = getState( context, target );
+            State state = getTarget( transition );
             Operation operation = transition.getOperation();
             if( getLogger().isTraceEnabled() )
             {
@@ -647,19 +665,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
                   + methodName 
                   + "]" );
             }
-            Statement statement = new Statement( object, methodName, new Object[0] );
-            try
-            {
-                statement.execute();
-            }
-            catch( InvocationTargetException e )
-            {
-                throw e;
-            }
-            catch( Exception e )
-            {
-                throw new InvocationTargetException( e );
-            }
+            invoke( object, methodName, new Object[0], false );
         }
         else
         {
@@ -691,9 +697,47 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
                 }
                 
                 final StateEvent event = new StateEvent( this, oldState, state );
-                m_queue.enqueueEvent( event );
+                m_channel.enqueueEvent( event );
+            }
+        }
+    }
+    
+    private Action getAction( TriggerPolicy category )
+      throws UnknownTransitionException, UnknownOperationException
+    {
+        StateTable.Node node = getNode( m_state );
+        if( ( null != node ) && node.isResolved( category ) )
+        {
+            return node.getAction( category );
+        }
+        return getAction( m_state, category );
+    }
+    
+    private State getTarget( Transition transition )
+    {
+        if( null != m_table )
+        {
+            State target = m_table.getTarget( transition );
+            if( null != target )
+            {
+                return target;
             }
         }
+        State context = transition.getState();
+        String target = transition.getTargetName();
+        return getState( context, target );
+    }
+    
+    private StateTable.Node getNode( State state )
+    {
+        if( null == m_table )
+        {
+            return null;
+        }
+        else
+        {
+            return m_table.getNode( state );
+        }
     }
     
     private Action getAction( State state, TriggerPolicy category )
@@ -737,6 +781,15 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
     
     private Transition getTransition( State state, String name ) throws UnknownTransitionException
     {
+        StateTable.Node node = getNode( state );
+        if( null != node )
+        {
+            Transition transition = node.getTransition( name );
+            if( null != transition )
+            {
+                return transition;
+            }
+        }
         Transition[] transitions = state.getTransitions();
         for( int i=0; i<transitions.length; i++ )
         {
@@ -778,6 +831,15 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
 
     private Operation getOperation( State state, String name ) throws UnknownOperationException
     {
+        StateTable.Node node = getNode( state );
+        if( null != node )
+        {
+            Operation operation = node.getOperation( name );
+            if( null != operation )
+            {
+                return operation;
+            }
+        }
         Operation[] operations = state.getOperations();
         for( int i=0; i<operations.length; i++ )
         {
@@ -908,7 +970,7 @@ class DefaultStateMachine implements StateMachine, EventQueue.EventHandler
         //System.out.println( "# v/operation: " + operation );
     }
 
-    private static State getState( State state, String target )
+    static State getState( State state, String target )
     {
         if( target.startsWith( "/" ) )
         {
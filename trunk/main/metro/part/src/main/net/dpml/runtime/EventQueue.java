@@ -20,20 +20,40 @@ package net.dpml.runtime;
 
 import java.util.EventObject;
 import java.util.EventListener;
-import java.util.List;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.dpml.util.Logger;
 import dpml.util.DefaultLogger;
 
 /**
- * A abstract base class that established an event queue and handles event dispatch 
- * operations for listeners declared in classes extending this base class.
+ * Event queue handling event dispatch operations for listeners declared in 
+ * classes implementing the event handler interface.  Events are queued on 
+ * channels and dispatched in FIFO order per channel by a bounded pool of 
+ * dispatch threads shared by all event queues.  A channel is scheduled for 
+ * dispatch when an event is added to an idle channel and is drained in batches
+ * such that a busy event source does not starve other sources.  The number of 
+ * pending events is bounded by the queue capacity - when the capacity is 
+ * reached the caller is blocked until space is available or the overflow 
+ * timeout expires (or if the <tt>dpml.metro.event.overflow</tt> property is 
+ * set to <tt>drop</tt>, the event is dropped immediately).  State and 
+ * lifecycle events are never dropped - on expiry of the overflow timeout 
+ * they are accepted in excess of the queue capacity.  Events are dispatched
+ * under the context classloader of the thread that raised the event.
  *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
-class EventQueue
+class EventQueue implements EventStatistics
 {
     /**
      * Interface implemented by objects that maintain a collection of event listeners
@@ -56,16 +76,76 @@ class EventQueue
         */
         void processEvent( EventObject event );
     }
+    
+    // ------------------------------------------------------------------------
+    // static
+    // ------------------------------------------------------------------------
+    
+   /**
+    * The maximum number of dispatch threads.
+    */
+    private static final int THREADS = 
+      Integer.getInteger( 
+        "dpml.metro.event.threads", 
+        Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+    
+   /**
+    * The default maximum number of pending events per queue.
+    */
+    private static final int CAPACITY = Integer.getInteger( "dpml.metro.event.capacity", 10000 );
+    
+   /**
+    * The maximum number of events dispatched from a channel before the 
+    * channel is rescheduled.
+    */
+    private static final int BATCH = Integer.getInteger( "dpml.metro.event.batch", 64 );
+    
+   /**
+    * The duration in milliseconds that a caller is blocked on a full queue
+    * before the event is dropped.
+    */
+    private static final long TIMEOUT = Long.getLong( "dpml.metro.event.timeout", 1000 );
+    
+    private static final boolean DROP = 
+      "drop".equalsIgnoreCase( System.getProperty( "dpml.metro.event.overflow", "block" ) );
+    
+    private static final Executor EXECUTOR = createExecutor();
+    
+    private static final EventQueue SHARED = 
+      new EventQueue( new DefaultLogger( "dpml.metro" ), "DPML Event Queue" );
+    
+   /**
+    * Return the event queue shared by runtime components.
+    * @return the shared event queue
+    */
+    static EventQueue getSharedQueue()
+    {
+        return SHARED;
+    }
 
     // ------------------------------------------------------------------------
     // state
     // ------------------------------------------------------------------------
     
-    private final EventDispatchThread m_thread;
-    
     private final Logger m_logger;
     
-    private final List<EventObject> m_queue = new LinkedList<EventObject>();
+    private final String m_name;
+    
+    private final int m_capacity;
+    
+    private final Semaphore m_permits;
+    
+    private final Channel m_channel;
+    
+    private final AtomicInteger m_depth = new AtomicInteger();
+    private final AtomicInteger m_maximumDepth = new AtomicInteger();
+    private final AtomicLong m_dispatched = new AtomicLong();
+    private final AtomicLong m_dropped = new AtomicLong();
+    private final AtomicLong m_overflows = new AtomicLong();
+    private final AtomicLong m_latency = new AtomicLong();
+    private final AtomicLong m_maximumLatency = new AtomicLong();
+    
+    private volatile boolean m_terminated = false;
     
     // ------------------------------------------------------------------------
     // constructor
@@ -96,7 +176,7 @@ class EventQueue
    /**
     * Creation of a new event queue.
     * @param category the name used to construct a logging channel
-    * @param name the name to assign to the thread
+    * @param name the queue name
     */
     public EventQueue( String category, String name ) 
     {
@@ -104,14 +184,28 @@ class EventQueue
     }
 
    /**
-    * Creation of a new model.
+    * Creation of a new event queue.
     * @param logger the assigned logging channel
-    * @param name the name to assign to the thread
+    * @param name the queue name
     * @exception NullPointerException if the supplied logging channel or 
-    *   thread name is null
+    *   queue name is null
     */
     public EventQueue( Logger logger, String name ) 
       throws NullPointerException
+    {
+        this( logger, name, CAPACITY );
+    }
+    
+   /**
+    * Creation of a new event queue.
+    * @param logger the assigned logging channel
+    * @param name the queue name
+    * @param capacity the maximum number of pending events
+    * @exception NullPointerException if the supplied logging channel or 
+    *   queue name is null
+    */
+    EventQueue( Logger logger, String name, int capacity ) 
+      throws NullPointerException
     {
         if( null == logger )
         {
@@ -122,116 +216,33 @@ class EventQueue
             throw new NullPointerException( "name" );
         }
         m_logger = logger;
-        m_thread = new EventDispatchThread();
-        m_thread.setName( name );
-        m_thread.setDaemon( true );
-        m_thread.start();
+        m_name = name;
+        m_capacity = Math.max( 1, capacity );
+        m_permits = new Semaphore( m_capacity );
+        m_channel = new Channel();
     }
 
     // ------------------------------------------------------------------------
     // EventQueue
     // ------------------------------------------------------------------------
-
+    
    /**
-    * Terminate the dispatch thread.
+    * Create a new channel.  Events added to a channel are dispatched in the 
+    * order in which they were added.
+    * @return the channel
     */
-    public synchronized void terminateDispatchThread()
+    Channel createChannel()
     {
-        if( null != m_thread )
-        {
-            m_thread.dispose();
-        }
+        return new Channel();
     }
 
    /**
-    * Return the assigned logging channel.
-    * @return the logging channel
+    * Terminate event dispatch.  Events pending dispatch are processed and 
+    * subsequent events are dropped.
     */
-    private Logger getLogger()
+    public void terminateDispatchThread()
     {
-        return m_logger;
-    }
-    
-    /**
-     * A single background thread ("the event notification thread") monitors
-     * the event queue and delivers events that are placed on the queue.
-     */
-    private class EventDispatchThread extends Thread 
-    {
-        private boolean m_continue = true;
-
-        void dispose()
-        {
-            synchronized( m_queue )
-            {
-                m_continue = false;
-                m_queue.notify();
-            }
-        }
-        
-        public void run() 
-        {
-            while( m_continue ) 
-            {
-                // Wait on m_queue till an event is present
-                EventObject event = null;
-                synchronized( m_queue ) 
-                {
-                    try 
-                    {
-                        while( m_continue && m_queue.isEmpty() )
-                        { 
-                            m_queue.wait();
-                        }
-                        if ( !m_continue )
-                        {
-                            break;
-                        }
-                        Object object = m_queue.remove( 0 );
-                        try
-                        {
-                            event = (EventObject) object;
-                        }
-                        catch( ClassCastException cce )
-                        {
-                            final String error = 
-                              "Unexpected class cast exception while processing an event." 
-                              + "\nEvent: " + object;
-                            throw new IllegalStateException( error );
-                        }
-                    }
-                    catch( InterruptedException e )
-                    {
-                        return;
-                    }
-                }
-
-                Object source = event.getSource();
-                if( source instanceof EventHandler )
-                {
-                    EventHandler handler = (EventHandler) source;
-                    try
-                    {
-                        handler.processEvent( event );
-                    }
-                    catch( Throwable e )
-                    {
-                        final String error = 
-                          "Unexpected error while processing event."
-                          + "\nEvent: " + event
-                          + "\nSource: " + this;
-                        getLogger().error( error, e );
-                    }
-                }
-                else
-                {
-                    final String error = 
-                      "Event source is not an instance of " 
-                      + EventHandler.class.getName();
-                    getLogger().error( error );
-                }
-            }
-        }
+        m_terminated = true;
     }
 
     /**
@@ -260,11 +271,7 @@ class EventQueue
     {
         if( !waitForCompletion )
         {    
-            synchronized( m_queue ) 
-            {
-                m_queue.add( event );
-                m_queue.notify();
-            }
+            m_channel.enqueueEvent( event );
         }
         else
         {
@@ -295,7 +302,219 @@ class EventQueue
             }
         }
     }
-
+    
+    // ------------------------------------------------------------------------
+    // EventStatistics
+    // ------------------------------------------------------------------------
+    
+    public int getCapacity()
+    {
+        return m_capacity;
+    }
+    
+    public int getDepth()
+    {
+        return m_depth.get();
+    }
+    
+    public int getMaximumDepth()
+    {
+        return m_maximumDepth.get();
+    }
+    
+    public long getDispatchedCount()
+    {
+        return m_dispatched.get();
+    }
+    
+    public long getDroppedCount()
+    {
+        return m_dropped.get();
+    }
+    
+    public long getAverageLatency()
+    {
+        long count = m_dispatched.get();
+        if( 0 == count )
+        {
+            return 0;
+        }
+        return m_latency.get() / count;
+    }
+    
+    public long getMaximumLatency()
+    {
+        return m_maximumLatency.get();
+    }
+    
+   /**
+    * Return a string representation of the queue.
+    * @return the queue name
+    */
+    public String toString()
+    {
+        return m_name;
+    }
+    
+    // ------------------------------------------------------------------------
+    // implementation
+    // ------------------------------------------------------------------------
+    
+   /**
+    * Return the assigned logging channel.
+    * @return the logging channel
+    */
+    private Logger getLogger()
+    {
+        return m_logger;
+    }
+    
+    private boolean submit( Channel channel, Runnable runnable, boolean required )
+    {
+        if( m_terminated )
+        {
+            drop( "terminated" );
+            return false;
+        }
+        boolean permit = acquire();
+        if( !permit && !( Thread.currentThread() instanceof DispatchThread ) )
+        {
+            if( !required )
+            {
+                drop( "capacity exceeded" );
+                return false;
+            }
+            long overflows = m_overflows.incrementAndGet();
+            if( getLogger().isWarnEnabled() && ( ( overflows & ( overflows - 1 ) ) == 0 ) )
+            {
+                final String warning = 
+                  "Event queue [" 
+                  + m_name 
+                  + "] capacity exceeded (" 
+                  + overflows 
+                  + " state or lifecycle events accepted in excess of capacity).";
+                getLogger().warn( warning );
+            }
+        }
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        channel.m_tasks.offer( new Task( runnable, permit, classloader ) );
+        int depth = m_depth.incrementAndGet();
+        int max = m_maximumDepth.get();
+        while( ( depth > max ) && !m_maximumDepth.compareAndSet( max, depth ) )
+        {
+            max = m_maximumDepth.get();
+        }
+        channel.schedule();
+        return true;
+    }
+    
+   /**
+    * Acquire a permit to add an event to the queue.  Dispatch threads never 
+    * block (an event raised during dispatch is accepted regardless of 
+    * capacity) as a blocked dispatch thread could prevent the queue from 
+    * draining.
+    */
+    private void drop( String reason )
+    {
+        long dropped = m_dropped.incrementAndGet();
+        if( getLogger().isWarnEnabled() )
+        {
+            final String warning = 
+              "Event queue [" 
+              + m_name 
+              + "] " 
+              + reason 
+              + " - event dropped (" 
+              + dropped 
+              + " events dropped).";
+            getLogger().warn( warning );
+        }
+    }
+    
+    private boolean acquire()
+    {
+        if( m_permits.tryAcquire() )
+        {
+            return true;
+        }
+        else if( DROP || ( Thread.currentThread() instanceof DispatchThread ) )
+        {
+            return false;
+        }
+        try
+        {
+            return m_permits.tryAcquire( TIMEOUT, TimeUnit.MILLISECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private void dispatch( Task task )
+    {
+        m_depth.decrementAndGet();
+        if( task.m_permit )
+        {
+            m_permits.release();
+        }
+        long latency = System.nanoTime() - task.m_time;
+        m_latency.addAndGet( latency );
+        long max = m_maximumLatency.get();
+        while( ( latency > max ) && !m_maximumLatency.compareAndSet( max, latency ) )
+        {
+            max = m_maximumLatency.get();
+        }
+        m_dispatched.incrementAndGet();
+        Thread thread = Thread.currentThread();
+        ClassLoader classloader = thread.getContextClassLoader();
+        thread.setContextClassLoader( task.m_classloader );
+        try
+        {
+            task.m_runnable.run();
+        }
+        catch( Throwable e )
+        {
+            final String error = 
+              "Unexpected error while processing event."
+              + "\nQueue: " + m_name;
+            getLogger().error( error, e );
+        }
+        finally
+        {
+            thread.setContextClassLoader( classloader );
+        }
+    }
+    
+    private void process( EventObject event )
+    {
+        Object source = event.getSource();
+        if( source instanceof EventHandler )
+        {
+            EventHandler handler = (EventHandler) source;
+            try
+            {
+                handler.processEvent( event );
+            }
+            catch( Throwable e )
+            {
+                final String error = 
+                  "Unexpected error while processing event."
+                  + "\nEvent: " + event
+                  + "\nSource: " + source;
+                getLogger().error( error, e );
+            }
+        }
+        else
+        {
+            final String error = 
+              "Event source is not an instance of " 
+              + EventHandler.class.getName();
+            getLogger().error( error );
+        }
+    }
+    
    /**
     * Return a logging channel for the supplied name.
     * @param name the name to use in construction of the logging channel
@@ -312,4 +531,166 @@ class EventQueue
             return new DefaultLogger( name );
         }
     }
+    
+    private static Executor createExecutor()
+    {
+        ThreadPoolExecutor executor = 
+          new ThreadPoolExecutor( 
+            THREADS, THREADS, 60, TimeUnit.SECONDS, 
+            new LinkedBlockingQueue<Runnable>(),
+            new DispatchThreadFactory() );
+        executor.allowCoreThreadTimeOut( true );
+        return executor;
+    }
+    
+   /**
+    * An ordered sequence of events.  A channel is scheduled on the shared 
+    * executor when the first event is added to an idle channel and at most
+    * one dispatch thread processes a channel at any time.
+    */
+    final class Channel implements Runnable
+    {
+        private final ConcurrentLinkedQueue<Task> m_tasks = new ConcurrentLinkedQueue<Task>();
+        private final AtomicBoolean m_scheduled = new AtomicBoolean( false );
+        
+        private Channel()
+        {
+        }
+        
+       /**
+        * Enqueue an event for delivery to the event source.
+        * @param event the event
+        */
+        void enqueueEvent( final EventObject event )
+        {
+            execute( 
+              new Runnable()
+              {
+                  public void run()
+                  {
+                      process( event );
+                  }
+              }, true );
+        }
+        
+       /**
+        * Add a task to the channel.  The task is dropped if the queue 
+        * capacity remains exhausted on expiry of the overflow timeout.
+        * @param runnable the task
+        * @return true if the task was accepted or false if the task was dropped
+        */
+        boolean execute( Runnable runnable )
+        {
+            return execute( runnable, false );
+        }
+        
+       /**
+        * Add a task to the channel.
+        * @param runnable the task
+        * @param required if true the task is accepted in excess of the queue 
+        *   capacity on expiry of the overflow timeout
+        * @return true if the task was accepted or false if the task was dropped
+        */
+        boolean execute( Runnable runnable, boolean required )
+        {
+            return submit( this, runnable, required );
+        }
+        
+       /**
+        * Wait for the dispatch of the events pending on the channel.  
+        * @param timeout the timeout duration
+        * @param units the measurement units
+        * @return true if the channel was drained
+        * @exception InterruptedException if interrupted while waiting
+        */
+        boolean drain( long timeout, TimeUnit units ) throws InterruptedException
+        {
+            final CountDownLatch latch = new CountDownLatch( 1 );
+            Runnable marker = 
+              new Runnable()
+              {
+                  public void run()
+                  {
+                      latch.countDown();
+                  }
+              };
+            if( !execute( marker ) )
+            {
+                return m_tasks.isEmpty();
+            }
+            return latch.await( timeout, units );
+        }
+        
+        private void schedule()
+        {
+            if( m_scheduled.compareAndSet( false, true ) )
+            {
+                EXECUTOR.execute( this );
+            }
+        }
+        
+       /**
+        * Dispatch a batch of events.
+        */
+        public void run()
+        {
+            int n = 0;
+            Task task = null;
+            while( ( n < BATCH ) && ( null != ( task = m_tasks.poll() ) ) )
+            {
+                dispatch( task );
+                n++;
+            }
+            m_scheduled.set( false );
+            if( !m_tasks.isEmpty() )
+            {
+                schedule();
+            }
+        }
+    }
+    
+   /**
+    * A queued task.
+    */
+    private static final class Task
+    {
+        private final Runnable m_runnable;
+        private final boolean m_permit;
+        private final ClassLoader m_classloader;
+        private final long m_time = System.nanoTime();
+        
+        private Task( Runnable runnable, boolean permit, ClassLoader classloader )
+        {
+            m_runnable = runnable;
+            m_permit = permit;
+            m_classloader = classloader;
+        }
+    }
+    
+   /**
+    * Dispatch thread marker class.
+    */
+    private static final class DispatchThread extends Thread
+    {
+        private DispatchThread( Runnable runnable, String name )
+        {
+            super( runnable, name );
+            setDaemon( true );
+            setContextClassLoader( EventQueue.class.getClassLoader() );
+        }
+    }
+    
+   /**
+    * Factory of daemon dispatch threads.
+    */
+    private static final class DispatchThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger m_count = new AtomicInteger();
+        
+        public Thread newThread( Runnable runnable )
+        {
+            String name = "DPML Event Dispatch Thread " + m_count.incrementAndGet();
+            return new DispatchThread( runnable, name );
+        }
+    }
 }
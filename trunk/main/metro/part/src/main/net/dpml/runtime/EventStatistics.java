@@ -0,0 +1,70 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+/**
+ * Utilisation statistics of the component event dispatch service.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public interface EventStatistics
+{
+   /**
+    * Return the maximum number of pending events.
+    * @return the queue capacity
+    */
+    int getCapacity();
+    
+   /**
+    * Return the number of events pending dispatch.
+    * @return the queue depth
+    */
+    int getDepth();
+    
+   /**
+    * Return the largest number of events pending dispatch.
+    * @return the maximum queue depth
+    */
+    int getMaximumDepth();
+    
+   /**
+    * Return the number of events dispatched.
+    * @return the dispatch count
+    */
+    long getDispatchedCount();
+    
+   /**
+    * Return the number of events dropped due to queue overflow.
+    * @return the drop count
+    */
+    long getDroppedCount();
+    
+   /**
+    * Return the average delay between the enqueuing and dispatch of an event.
+    * @return the average latency in nanoseconds
+    */
+    long getAverageLatency();
+    
+   /**
+    * Return the largest delay between the enqueuing and dispatch of an event.
+    * @return the maximum latency in nanoseconds
+    */
+    long getMaximumLatency();
+}
@@ -24,8 +24,6 @@ import java.lang.ref.WeakReference;
 
 import net.dpml.annotation.CollectionPolicy;
 
-import dpml.util.DefaultLogger;
-
 /**
  * Abstract lifestyle handler.
  *
@@ -34,11 +32,6 @@ import dpml.util.DefaultLogger;
  */
 abstract class LifestyleHandler
 {
-    private static final EventQueue QUEUE = 
-      new EventQueue( 
-        new DefaultLogger( "dpml.metro" ), 
-        "DPML Component Event Queue" );
-
     private final ComponentStrategy m_strategy;
     
     LifestyleHandler( ComponentStrategy strategy )
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import dpml.util.ElementHelper;
+
+import net.dpml.annotation.Pool;
+
+import net.dpml.util.Resolver;
+
+import org.w3c.dom.Element;
+
+/**
+ * Pool settings applied under the pooled lifestyle policy.  Settings declared
+ * by a pool element take precedence over settings declared by the component 
+ * annotation.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class PoolPolicy
+{
+    private final int m_minimum;
+    private final int m_maximum;
+    private final long m_idle;
+    
+    PoolPolicy( int minimum, int maximum, long idle )
+    {
+        if( maximum < 1 )
+        {
+            final String error = 
+              "Pool maximum [" + maximum + "] is less than 1.";
+            throw new IllegalArgumentException( error );
+        }
+        if( ( minimum < 0 ) || ( minimum > maximum ) )
+        {
+            final String error = 
+              "Pool minimum [" + minimum + "] is not within the range 0 to " + maximum + ".";
+            throw new IllegalArgumentException( error );
+        }
+        m_minimum = minimum;
+        m_maximum = maximum;
+        m_idle = Math.max( 0, idle );
+    }
+    
+   /**
+    * Return the minimum number of pooled instances.
+    * @return the minimum
+    */
+    int getMinimum()
+    {
+        return m_minimum;
+    }
+    
+   /**
+    * Return the maximum number of pooled instances.
+    * @return the maximum
+    */
+    int getMaximum()
+    {
+        return m_maximum;
+    }
+    
+   /**
+    * Return the idle expiry duration in milliseconds.
+    * @return the idle duration (zero if idle expiry is disabled)
+    */
+    long getIdleTimeout()
+    {
+        return m_idle;
+    }
+    
+   /**
+    * Resolve the pool policy for a component class.
+    * @param element the component element (possibly null)
+    * @param c the component class
+    * @param resolver symbolic property resolver
+    * @return the pool policy
+    */
+    static PoolPolicy getPoolPolicy( Element element, Class<?> c, Resolver resolver )
+    {
+        Pool pool = getPoolAnnotation( c );
+        int minimum = pool.minimum();
+        int maximum = pool.maximum();
+        long idle = pool.idle();
+        Element child = ElementHelper.getChild( element, "pool" );
+        if( null != child )
+        {
+            minimum = Integer.parseInt( 
+              ElementHelper.getAttribute( child, "minimum", "" + minimum, resolver ) );
+            maximum = Integer.parseInt( 
+              ElementHelper.getAttribute( child, "maximum", "" + maximum, resolver ) );
+            idle = Long.parseLong( 
+              ElementHelper.getAttribute( child, "idle", "" + idle, resolver ) );
+        }
+        return new PoolPolicy( minimum, maximum, idle );
+    }
+    
+    private static Pool getPoolAnnotation( Class<?> c )
+    {
+        if( c.isAnnotationPresent( net.dpml.annotation.Component.class ) )
+        {
+            net.dpml.annotation.Component annotation = 
+              c.getAnnotation( net.dpml.annotation.Component.class );
+            return annotation.pool();
+        }
+        else
+        {
+            return Default.class.getAnnotation( net.dpml.annotation.Component.class ).pool();
+        }
+    }
+    
+   /**
+    * Class used to resolve the default pool settings.
+    */
+    @net.dpml.annotation.Component
+    private static final class Default
+    {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+/**
+ * Utilisation statistics of a pooled component.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public interface PoolStatistics
+{
+   /**
+    * Return the minimum number of pooled instances.
+    * @return the minimum
+    */
+    int getMinimum();
+    
+   /**
+    * Return the maximum number of pooled instances.
+    * @return the maximum
+    */
+    int getMaximum();
+    
+   /**
+    * Return the number of providers currently borrowed from the pool.
+    * @return the active count
+    */
+    int getActiveCount();
+    
+   /**
+    * Return the number of providers held idle in the pool.
+    * @return the idle count
+    */
+    int getIdleCount();
+    
+   /**
+    * Return the number of providers created by the pool.
+    * @return the creation count
+    */
+    long getCreatedCount();
+    
+   /**
+    * Return the number of requests satisfied by an idle provider.
+    * @return the reuse count
+    */
+    long getReusedCount();
+    
+   /**
+    * Return the number of providers disposed due to idle expiry or termination.
+    * @return the disposal count
+    */
+    long getDisposedCount();
+    
+   /**
+    * Return the number of requests that waited for a provider to be released.
+    * @return the wait count
+    */
+    long getWaitCount();
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A scope binds the providers of components declaring the scoped lifestyle 
+ * policy.  A scope is either opened on the current thread and closed by the
+ * thread that opened it, or is used to run tasks on arbitrary threads (such
+ * as the threads of an executor).  Closing the scope releases all providers
+ * bound to the scope in the reverse order of their establishment.
+ *
+ * <pre>
+ * Scope scope = Scope.open();
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     scope.close();
+ * }
+ * </pre>
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class Scope
+{
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<Scope>();
+    
+    private final Map<ComponentStrategy,Provider> m_providers = 
+      new LinkedHashMap<ComponentStrategy,Provider>();
+    
+    private Scope m_previous;
+    private boolean m_bound = false;
+    private boolean m_closed = false;
+    
+   /**
+    * Open a new scope and bind the scope to the current thread.
+    * @return the scope
+    */
+    public static Scope open()
+    {
+        Scope scope = new Scope();
+        scope.m_previous = CURRENT.get();
+        scope.m_bound = true;
+        CURRENT.set( scope );
+        return scope;
+    }
+    
+   /**
+    * Return the scope bound to the current thread.
+    * @return the current scope or null if no scope is bound
+    */
+    public static Scope getCurrentScope()
+    {
+        return CURRENT.get();
+    }
+    
+   /**
+    * Creation of a new unbound scope.
+    */
+    public Scope()
+    {
+    }
+    
+   /**
+    * Run a task with this scope bound to the current thread.
+    * @param task the task
+    */
+    public void run( Runnable task )
+    {
+        Scope previous = bind( this );
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            bind( previous );
+        }
+    }
+    
+   /**
+    * Call a task with this scope bound to the current thread.
+    * @param task the task
+    * @return the task result
+    * @exception Exception if the task raises an error
+    */
+    public <T>T call( Callable<T> task ) throws Exception
+    {
+        Scope previous = bind( this );
+        try
+        {
+            return task.call();
+        }
+        finally
+        {
+            bind( previous );
+        }
+    }
+    
+   /**
+    * Return the number of providers bound to the scope.
+    * @return the provider count
+    */
+    public synchronized int size()
+    {
+        return m_providers.size();
+    }
+    
+   /**
+    * Return true if the scope has been closed.
+    * @return the closed status
+    */
+    public synchronized boolean isClosed()
+    {
+        return m_closed;
+    }
+    
+   /**
+    * Close the scope releasing all providers bound to the scope.  If the 
+    * scope was opened on the current thread the scope that was current when 
+    * this scope was opened is restored.
+    */
+    public void close()
+    {
+        List<Map.Entry<ComponentStrategy,Provider>> entries;
+        synchronized( this )
+        {
+            if( m_closed )
+            {
+                return;
+            }
+            m_closed = true;
+            entries = new ArrayList<Map.Entry<ComponentStrategy,Provider>>( m_providers.entrySet() );
+            m_providers.clear();
+        }
+        if( m_bound && ( CURRENT.get() == this ) )
+        {
+            bind( m_previous );
+        }
+        for( int i=entries.size() - 1; i > -1; i-- )
+        {
+            Map.Entry<ComponentStrategy,Provider> entry = entries.get( i );
+            entry.getKey().release( entry.getValue() );
+        }
+    }
+    
+    synchronized Provider getProvider( ComponentStrategy strategy )
+    {
+        return m_providers.get( strategy );
+    }
+    
+    synchronized void bind( ComponentStrategy strategy, Provider provider )
+    {
+        if( m_closed )
+        {
+            final String error = 
+              "Scope is closed.";
+            throw new IllegalStateException( error );
+        }
+        m_providers.put( strategy, provider );
+    }
+    
+    synchronized void unbind( ComponentStrategy strategy, Provider provider )
+    {
+        if( m_providers.get( strategy ) == provider )
+        {
+            m_providers.remove( strategy );
+        }
+    }
+    
+    private static Scope bind( Scope scope )
+    {
+        Scope previous = CURRENT.get();
+        if( null == scope )
+        {
+            CURRENT.remove();
+        }
+        else
+        {
+            CURRENT.set( scope );
+        }
+        return previous;
+    }
+}
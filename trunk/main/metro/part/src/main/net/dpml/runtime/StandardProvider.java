@@ -61,10 +61,7 @@ import static net.dpml.annotation.ActivationPolicy.STARTUP;
  */
 class StandardProvider implements Provider, Disposable
 {
-    private static final EventQueue QUEUE = 
-      new EventQueue( 
-        new DefaultLogger( "dpml.metro" ), 
-        "DPML Provider Event Queue" );
+    private static final EventQueue QUEUE = EventQueue.getSharedQueue();
 
     private static final ServiceRegistry REGISTRY = 
       new StandardServiceRegistry();
@@ -75,7 +72,13 @@ class StandardProvider implements Provider, Disposable
     private final String m_category;
     private final Logger m_logger;
     
-    private Object m_instance = null;
+    private volatile Object m_instance = null;
+    
+   /**
+    * Service proxy implementing the services published by the component
+    * established on the first request for a service interface.
+    */
+    private volatile Object m_proxy = null;
     
     StandardProvider( ComponentStrategy strategy )
     {
@@ -135,71 +138,72 @@ class StandardProvider implements Provider, Disposable
     
     public <T>T getInstance( Class<T> type )
     {
-        synchronized( this )
+        Object instance = m_instance;
+        if( null == instance )
         {
-            Object instance = getCachedInstance();
-            if( type.isInterface() )
+            instance = getCachedInstance();
+        }
+        if( type.isInterface() )
+        {
+            if( m_class.isAnnotationPresent( Services.class ) )
             {
-                if( m_class.isAnnotationPresent( Services.class ) )
+                Object proxy = m_proxy;
+                if( null == proxy )
                 {
-                    InvocationHandler handler = new ComponentInvocationHandler( instance );
-                    ClassLoader classloader = m_class.getClassLoader();
-                    Services annotation = m_class.getAnnotation( Services.class );
-                    Class[] services = annotation.value();
-                    Object proxy = Proxy.newProxyInstance( classloader, services, handler );
-                    try
-                    {
-                        return type.cast( proxy );
-                    }
-                    catch( ClassCastException cce )
-                    {
-                        StringBuffer buffer = new StringBuffer();
-                        buffer.append( "Cannot assign component class [" );
-                        buffer.append( instance.getClass().getName() + "]" );
-                        buffer.append( " to the return type [" );
-                        buffer.append( type.getName() + "] " );
-                        buffer.append( "because the requested service type is not " );
-                        buffer.append( "included in the public services published by the component." );
-                        String error = buffer.toString();
-                        throw new TypeCastException( error, m_class, type );
-                    }
+                    proxy = getServiceProxy();
                 }
-                else
+                try
                 {
-                    try
-                    {
-                        return type.cast( instance );
-                    }
-                    catch( ClassCastException cce )
-                    {
-                        StringBuffer buffer = new StringBuffer();
-                        buffer.append( "Cannot assign component class [" );
-                        buffer.append( instance.getClass().getName() + "]" );
-                        buffer.append( " to the return type [" );
-                        buffer.append( type.getName() + "]" );
-                        String error = buffer.toString();
-                        throw new TypeCastException( error, m_class, type );
-                    }
+                    return type.cast( proxy );
+                }
+                catch( ClassCastException cce )
+                {
+                    StringBuffer buffer = new StringBuffer();
+                    buffer.append( "Cannot assign component class [" );
+                    buffer.append( instance.getClass().getName() + "]" );
+                    buffer.append( " to the return type [" );
+                    buffer.append( type.getName() + "] " );
+                    buffer.append( "because the requested service type is not " );
+                    buffer.append( "included in the public services published by the component." );
+                    String error = buffer.toString();
+                    throw new TypeCastException( error, m_class, type );
                 }
-            }
-            else if( type.isAssignableFrom( m_class ) )
-            {
-                return type.cast( instance );
             }
             else
             {
-                StringBuffer buffer = new StringBuffer();
-                buffer.append( "Cannot assign component class [" );
-                buffer.append( instance.getClass().getName() + "]" );
-                buffer.append( " to the return type [" );
-                buffer.append( type.getName() + "]" );
-                String error = buffer.toString();
-                throw new TypeCastException( error, m_class, type );
+                try
+                {
+                    return type.cast( instance );
+                }
+                catch( ClassCastException cce )
+                {
+                    StringBuffer buffer = new StringBuffer();
+                    buffer.append( "Cannot assign component class [" );
+                    buffer.append( instance.getClass().getName() + "]" );
+                    buffer.append( " to the return type [" );
+                    buffer.append( type.getName() + "]" );
+                    String error = buffer.toString();
+                    throw new TypeCastException( error, m_class, type );
+                }
             }
         }
+        else if( type.isAssignableFrom( m_class ) )
+        {
+            return type.cast( instance );
+        }
+        else
+        {
+            StringBuffer buffer = new StringBuffer();
+            buffer.append( "Cannot assign component class [" );
+            buffer.append( instance.getClass().getName() + "]" );
+            buffer.append( " to the return type [" );
+            buffer.append( type.getName() + "]" );
+            String error = buffer.toString();
+            throw new TypeCastException( error, m_class, type );
+        }
     }
     
-    private Object getCachedInstance()
+    private synchronized Object getCachedInstance()
     {
         if( null == m_instance )
         {
@@ -208,6 +212,26 @@ class StandardProvider implements Provider, Disposable
         return m_instance;
     }
     
+   /**
+    * Return the service proxy, establishing it against the current instance
+    * under the provider monitor so that a proxy is never bound to an 
+    * instance disposed of by a concurrent request.
+    * @return the service proxy
+    */
+    private synchronized Object getServiceProxy()
+    {
+        if( null == m_proxy )
+        {
+            Object instance = getCachedInstance();
+            Services annotation = m_class.getAnnotation( Services.class );
+            Class<?>[] services = annotation.value();
+            InvocationHandler handler = new ComponentInvocationHandler( instance, services );
+            ClassLoader classloader = m_class.getClassLoader();
+            m_proxy = Proxy.newProxyInstance( classloader, services, handler );
+        }
+        return m_proxy;
+    }
+    
     private Object newInstance()
     {
         if( m_logger.isTraceEnabled() )
@@ -293,6 +317,7 @@ class StandardProvider implements Provider, Disposable
         {
             Object instance = constructor.newInstance( args );
             m_machine.initialize( instance );
+            m_strategy.incarnated();
             return instance;
         }
         catch( Throwable e )
@@ -319,8 +344,19 @@ class StandardProvider implements Provider, Disposable
                 m_logger.trace( "etherialization" );
             }
             Object instance = getUnwrappedInstance( m_instance );
-            m_machine.terminate( instance );
-            m_instance = null;
+            try
+            {
+                m_machine.terminate( instance );
+            }
+            finally
+            {
+                m_strategy.etherialized();
+                synchronized( this )
+                {
+                    m_proxy = null;
+                    m_instance = null;
+                }
+            }
         }
         ComponentEvent termination = new ProviderEvent( m_strategy, this, TERMINATION );
         m_strategy.processEvent( termination );
@@ -362,19 +398,20 @@ class StandardProvider implements Provider, Disposable
     * @return the constructor
     * @exception ControlException if the class does not declare a unique public constructor
     */
-    private Constructor getConstructor( Class c )
+    private Constructor<?> getConstructor( Class<?> c )
     {
         return ComponentStrategyHandler.getSingleConstructor( c );
     }
     
     private StateMachine getStateMachine( Logger logger, State graph )
     {
-        return new DefaultStateMachine( QUEUE, logger, graph );
+        StateTable table = m_strategy.getStateTable();
+        return new DefaultStateMachine( QUEUE, logger, graph, table );
     }
     
     private Object getUnwrappedInstance( Object instance )
     {
-        Class c = instance.getClass();
+        Class<?> c = instance.getClass();
         if( Proxy.isProxyClass( c ) )
         {
             InvocationHandler handler = Proxy.getInvocationHandler( instance );
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import java.beans.Expression;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.dpml.state.Action;
+import net.dpml.state.ApplyAction;
+import net.dpml.state.ExecAction;
+import net.dpml.state.Operation;
+import net.dpml.state.State;
+import net.dpml.state.Transition;
+import net.dpml.state.Trigger;
+import net.dpml.state.TriggerPolicy;
+
+/**
+ * Precompiled state graph.  The table resolves the transitions, operations 
+ * and trigger actions visible from each state together with transition 
+ * targets when the table is created, and caches the methods invoked by 
+ * operations and management requests per target class.  Entries that cannot 
+ * be resolved during compilation are omitted such that the state machine 
+ * falls back to resolution against the state graph (and reports the error 
+ * raised by that resolution).
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class StateTable
+{
+    private static final Object[] EMPTY = new Object[0];
+    
+    private final State m_root;
+    
+    private final Map<State,Node> m_nodes = new IdentityHashMap<State,Node>();
+    
+    private final Map<Transition,State> m_targets = new IdentityHashMap<Transition,State>();
+    
+    private final ConcurrentHashMap<Class<?>,Map<String,Invoker[]>> m_methods = 
+      new ConcurrentHashMap<Class<?>,Map<String,Invoker[]>>();
+    
+   /**
+    * Creation of a new state table.
+    * @param root the root state of the state graph
+    */
+    StateTable( State root )
+    {
+        m_root = root;
+        compile( root, null );
+    }
+    
+   /**
+    * Return the root state of the graph.
+    * @return the root state
+    */
+    State getRootState()
+    {
+        return m_root;
+    }
+    
+   /**
+    * Return the compiled entry for a state.
+    * @param state the state
+    * @return the state entry or null if the state is not a member of the graph
+    */
+    Node getNode( State state )
+    {
+        return m_nodes.get( state );
+    }
+    
+   /**
+    * Return the resolved target of a transition.
+    * @param transition the transition
+    * @return the target state or null if the transition was not resolved
+    */
+    State getTarget( Transition transition )
+    {
+        return m_targets.get( transition );
+    }
+    
+   /**
+    * Invoke a named method on a target object using a cached method.
+    * @param object the target object
+    * @param name the method name
+    * @param args the method arguments
+    * @return the return value
+    * @exception InvocationTargetException if an invocation error occurs
+    */
+    Object invoke( Object object, String name, Object[] args ) throws InvocationTargetException
+    {
+        Object[] values = ( null == args ) ? EMPTY : args;
+        Method method = getMethod( object.getClass(), name, values );
+        if( null != method )
+        {
+            try
+            {
+                return method.invoke( object, values );
+            }
+            catch( InvocationTargetException e )
+            {
+                throw e;
+            }
+            catch( IllegalAccessException e )
+            {
+                // fall through to introspection
+            }
+            catch( Exception e )
+            {
+                throw new InvocationTargetException( e );
+            }
+        }
+        try
+        {
+            Expression expression = new Expression( object, name, values );
+            return expression.getValue();
+        }
+        catch( InvocationTargetException e )
+        {
+            throw e;
+        }
+        catch( Exception e )
+        {
+            throw new InvocationTargetException( e );
+        }
+    }
+    
+    private Method getMethod( Class<?> c, String name, Object[] args )
+    {
+        Map<String,Invoker[]> methods = m_methods.get( c );
+        if( null == methods )
+        {
+            methods = getMethods( c );
+            m_methods.putIfAbsent( c, methods );
+        }
+        Invoker[] invokers = methods.get( name );
+        if( null == invokers )
+        {
+            return null;
+        }
+        Method result = null;
+        for( Invoker invoker : invokers )
+        {
+            if( invoker.accepts( args ) )
+            {
+                if( null != result )
+                {
+                    return null; // ambiguous - resolve by introspection
+                }
+                result = invoker.m_method;
+            }
+        }
+        return result;
+    }
+    
+    private static Map<String,Invoker[]> getMethods( Class<?> c )
+    {
+        Map<String,List<Invoker>> map = new HashMap<String,List<Invoker>>();
+        for( Method method : c.getMethods() )
+        {
+            try
+            {
+                method.setAccessible( true );
+            }
+            catch( RuntimeException e )
+            {
+                // invocation will fall back to introspection if access is denied
+            }
+            String name = method.getName();
+            List<Invoker> list = map.get( name );
+            if( null == list )
+            {
+                list = new ArrayList<Invoker>();
+                map.put( name, list );
+            }
+            list.add( new Invoker( method ) );
+        }
+        Map<String,Invoker[]> methods = new HashMap<String,Invoker[]>();
+        for( Map.Entry<String,List<Invoker>> entry : map.entrySet() )
+        {
+            List<Invoker> list = entry.getValue();
+            methods.put( entry.getKey(), list.toArray( new Invoker[ list.size() ] ) );
+        }
+        return methods;
+    }
+    
+    private void compile( State state, Node parent )
+    {
+        Node node = new Node( parent );
+        for( Transition transition : state.getTransitions() )
+        {
+            node.m_transitions.put( transition.getName(), transition );
+            try
+            {
+                State context = transition.getState();
+                State target = DefaultStateMachine.getState( context, transition.getTargetName() );
+                m_targets.put( transition, target );
+            }
+            catch( RuntimeException e )
+            {
+                // unresolved target
+            }
+        }
+        for( Operation operation : state.getOperations() )
+        {
+            node.m_operations.put( operation.getName(), operation );
+        }
+        for( TriggerPolicy policy : TriggerPolicy.values() )
+        {
+            Trigger trigger = getTrigger( state, policy );
+            if( null != trigger )
+            {
+                Action action = getAction( node, trigger.getAction() );
+                if( null != action )
+                {
+                    node.m_actions.put( policy, action );
+                }
+                else
+                {
+                    node.m_actions.remove( policy );
+                }
+            }
+        }
+        m_nodes.put( state, node );
+        for( State child : state.getStates() )
+        {
+            compile( child, node );
+        }
+    }
+    
+    private static Trigger getTrigger( State state, TriggerPolicy policy )
+    {
+        for( Trigger trigger : state.getTriggers() )
+        {
+            if( trigger.getPolicy().equals( policy ) )
+            {
+                return trigger;
+            }
+        }
+        return null;
+    }
+    
+    private static Action getAction( Node node, Action action )
+    {
+        if( action instanceof ApplyAction )
+        {
+            String id = ( (ApplyAction) action ).getID();
+            return node.getTransition( id );
+        }
+        else if( action instanceof ExecAction )
+        {
+            String id = ( (ExecAction) action ).getID();
+            return node.getOperation( id );
+        }
+        else
+        {
+            return action;
+        }
+    }
+    
+   /**
+    * The transitions, operations and trigger actions visible from a state.
+    */
+    static final class Node
+    {
+        private final Map<String,Transition> m_transitions;
+        private final Map<String,Operation> m_operations;
+        private final Map<TriggerPolicy,Action> m_actions;
+        
+        private Node( Node parent )
+        {
+            if( null == parent )
+            {
+                m_transitions = new HashMap<String,Transition>();
+                m_operations = new HashMap<String,Operation>();
+                m_actions = new EnumMap<TriggerPolicy,Action>( TriggerPolicy.class );
+                for( TriggerPolicy policy : TriggerPolicy.values() )
+                {
+                    m_actions.put( policy, null );
+                }
+            }
+            else
+            {
+                m_transitions = new HashMap<String,Transition>( parent.m_transitions );
+                m_operations = new HashMap<String,Operation>( parent.m_operations );
+                m_actions = new EnumMap<TriggerPolicy,Action>( parent.m_actions );
+            }
+        }
+        
+       /**
+        * Return a transition visible from the state.
+        * @param name the transition name
+        * @return the transition or null if not resolved
+        */
+        Transition getTransition( String name )
+        {
+            return m_transitions.get( name );
+        }
+        
+       /**
+        * Return an operation visible from the state.
+        * @param name the operation name
+        * @return the operation or null if not resolved
+        */
+        Operation getOperation( String name )
+        {
+            return m_operations.get( name );
+        }
+        
+       /**
+        * Return true if the trigger action for a policy was resolved.
+        * @param policy the trigger policy
+        * @return the resolution status
+        */
+        boolean isResolved( TriggerPolicy policy )
+        {
+            return m_actions.containsKey( policy );
+        }
+        
+       /**
+        * Return the trigger action for a policy.
+        * @param policy the trigger policy
+        * @return the action or null if no action is declared
+        */
+        Action getAction( TriggerPolicy policy )
+        {
+            return m_actions.get( policy );
+        }
+    }
+    
+   /**
+    * A public method and its parameter types.
+    */
+    private static final class Invoker
+    {
+        private final Method m_method;
+        private final Class<?>[] m_types;
+        
+        private Invoker( Method method )
+        {
+            m_method = method;
+            m_types = method.getParameterTypes();
+        }
+        
+        private boolean accepts( Object[] args )
+        {
+            if( args.length != m_types.length )
+            {
+                return false;
+            }
+            for( int i=0; i<args.length; i++ )
+            {
+                Object arg = args[i];
+                Class<?> type = m_types[i];
+                if( null == arg )
+                {
+                    if( type.isPrimitive() )
+                    {
+                        return false;
+                    }
+                }
+                else if( !getObjectType( type ).isInstance( arg ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static Class<?> getObjectType( Class<?> type )
+        {
+            if( !type.isPrimitive() )
+            {
+                return type;
+            }
+            else if( Integer.TYPE == type )
+            {
+                return Integer.class;
+            }
+            else if( Boolean.TYPE == type )
+            {
+                return Boolean.class;
+            }
+            else if( Long.TYPE == type )
+            {
+                return Long.class;
+            }
+            else if( Double.TYPE == type )
+            {
+                return Double.class;
+            }
+            else if( Float.TYPE == type )
+            {
+                return Float.class;
+            }
+            else if( Short.TYPE == type )
+            {
+                return Short.class;
+            }
+            else if( Byte.TYPE == type )
+            {
+                return Byte.class;
+            }
+            else
+            {
+                return Character.class;
+            }
+        }
+    }
+}
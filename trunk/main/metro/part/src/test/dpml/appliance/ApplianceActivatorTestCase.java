@@ -0,0 +1,259 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.appliance;
+
+import dpml.util.DefaultLogger;
+
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import net.dpml.appliance.Appliance;
+import net.dpml.appliance.ApplianceListener;
+import net.dpml.appliance.ServiceDependencies;
+
+import net.dpml.state.State;
+
+import net.dpml.util.Logger;
+
+/**
+ * Validation of sequential and parallel appliance activation.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class ApplianceActivatorTestCase extends TestCase
+{
+    private static final String[] NONE = new String[0];
+    private static final long DELAY = 200;
+    
+    private final Logger m_logger = new DefaultLogger( "test" );
+    private final List<String> m_events = new ArrayList<String>();
+    
+   /**
+    * Test dependency resolution against earlier appliances.
+    * @exception Exception if an error occurs
+    */
+    public void testDependencies() throws Exception
+    {
+        Appliance[] appliances = new Appliance[]
+        {
+            new TestAppliance( "a", new String[]{ "X" }, NONE, 0 ),
+            new TestAppliance( "b", NONE, new String[]{ "X" }, 0 ),
+            new TestAppliance( "c", new String[]{ "Y" }, new String[]{ "Z" }, 0 ),
+            new TestAppliance( "d", NONE, new String[]{ "X", "Y" }, 0 )
+        };
+        int[][] dependencies = new ApplianceActivator( m_logger, appliances, true ).getDependencies();
+        assertEquals( "a", 0, dependencies[0].length );
+        assertTrue( "b", Arrays.equals( new int[]{ 0 }, dependencies[1] ) );
+        assertEquals( "c", 0, dependencies[2].length );
+        assertTrue( "d", Arrays.equals( new int[]{ 0, 2 }, dependencies[3] ) );
+    }
+    
+   /**
+    * Test that sequential activation follows the declared order.
+    * @exception Exception if an error occurs
+    */
+    public void testSequential() throws Exception
+    {
+        ApplianceActivator activator = new ApplianceActivator( m_logger, createPlan(), false );
+        activator.commission();
+        assertEquals( 
+          "order", 
+          Arrays.asList( "+a", "-a", "+b", "-b", "+c", "-c" ), 
+          m_events );
+        Map<String,Long> times = activator.getActivationTimes();
+        assertEquals( "names", Arrays.asList( "a", "b", "c" ), new ArrayList<String>( times.keySet() ) );
+        assertTrue( "duration", times.get( "a" ) >= DELAY / 2 );
+    }
+    
+   /**
+    * Test that independent appliances are commissioned concurrently and 
+    * dependent appliances are commissioned after their providers.
+    * @exception Exception if an error occurs
+    */
+    public void testParallel() throws Exception
+    {
+        ApplianceActivator activator = new ApplianceActivator( m_logger, createPlan(), true );
+        activator.commission();
+        assertTrue( "b after a", m_events.indexOf( "-a" ) < m_events.indexOf( "+b" ) );
+        assertTrue( "c concurrent with a", m_events.indexOf( "+c" ) < m_events.indexOf( "-a" ) );
+        assertEquals( "timings", 3, activator.getActivationTimes().size() );
+    }
+    
+   /**
+    * Test that appliances are decommissioned in reverse commissioning order.
+    * @exception Exception if an error occurs
+    */
+    public void testReverseShutdown() throws Exception
+    {
+        ApplianceActivator activator = new ApplianceActivator( m_logger, createPlan(), true );
+        activator.commission();
+        List<String> completed = 
+          new ArrayList<String>( activator.getActivationTimes().keySet() );
+        m_events.clear();
+        activator.decommission();
+        List<String> expected = new ArrayList<String>();
+        for( int i = completed.size(); i>0; i-- )
+        {
+            expected.add( "x" + completed.get( i-1 ) );
+        }
+        assertEquals( "shutdown", expected, m_events );
+    }
+    
+   /**
+    * Test that a commissioning failure prevents the commissioning of dependent 
+    * appliances and is propagated to the caller.
+    * @exception Exception if an error occurs
+    */
+    public void testFailure() throws Exception
+    {
+        Appliance[] appliances = new Appliance[]
+        {
+            new TestAppliance( "a", new String[]{ "X" }, NONE, -1 ),
+            new TestAppliance( "b", NONE, new String[]{ "X" }, 0 )
+        };
+        ApplianceActivator activator = new ApplianceActivator( m_logger, appliances, true );
+        try
+        {
+            activator.commission();
+            fail( "Commissioning failure not propagated." );
+        }
+        catch( IOException e )
+        {
+            // success
+        }
+        assertFalse( "b commissioned", m_events.contains( "+b" ) );
+        m_events.clear();
+        activator.decommission();
+        assertEquals( "shutdown", Arrays.asList( "xb", "xa" ), m_events );
+    }
+    
+    private Appliance[] createPlan()
+    {
+        return new Appliance[]
+        {
+            new TestAppliance( "a", new String[]{ "X" }, NONE, DELAY ),
+            new TestAppliance( "b", NONE, new String[]{ "X" }, DELAY / 4 ),
+            new TestAppliance( "c", NONE, NONE, DELAY )
+        };
+    }
+    
+    private void event( String event )
+    {
+        synchronized( m_events )
+        {
+            m_events.add( event );
+        }
+    }
+    
+   /**
+    * Appliance declaring service dependencies and a commissioning delay.
+    * A negative delay raises a commissioning error.
+    */
+    private class TestAppliance implements Appliance, ServiceDependencies
+    {
+        private final String m_name;
+        private final String[] m_provided;
+        private final String[] m_required;
+        private final long m_delay;
+        private boolean m_commissioned;
+        
+        TestAppliance( String name, String[] provided, String[] required, long delay )
+        {
+            m_name = name;
+            m_provided = provided;
+            m_required = required;
+            m_delay = delay;
+        }
+        
+        public String[] getProvidedServices()
+        {
+            return m_provided;
+        }
+        
+        public String[] getRequiredServices()
+        {
+            return m_required;
+        }
+        
+        public void commission() throws IOException
+        {
+            event( "+" + m_name );
+            if( m_delay < 0 )
+            {
+                throw new IOException( "Commissioning failure in [" + m_name + "]." );
+            }
+            try
+            {
+                Thread.sleep( m_delay );
+            }
+            catch( InterruptedException e )
+            {
+                throw new IOException( "Interrupted." );
+            }
+            m_commissioned = true;
+            event( "-" + m_name );
+        }
+        
+        public void decommission()
+        {
+            event( "x" + m_name );
+            m_commissioned = false;
+        }
+        
+        public boolean isCommissioned()
+        {
+            return m_commissioned;
+        }
+        
+        public String getName()
+        {
+            return m_name;
+        }
+        
+        public String getCodebaseURI()
+        {
+            return null;
+        }
+        
+        public State getState()
+        {
+            return null;
+        }
+        
+        public Appliance[] getChildren()
+        {
+            return new Appliance[0];
+        }
+        
+        public void addApplianceListener( ApplianceListener listener ) throws RemoteException
+        {
+        }
+        
+        public void removeApplianceListener( ApplianceListener listener ) throws RemoteException
+        {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.lang;
+
+import dpml.util.ElementHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Comparison of the cost of a validating parse and a compiled part load (the 
+ * dominant per-part cost of a cold station start).  The benchmark is not part 
+ * of the test suite and is run directly from the command line with the part
+ * document as the first argument.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class CompiledPartBenchmark
+{
+    private static final int ITERATIONS = 50;
+    
+    private CompiledPartBenchmark()
+    {
+        // static utility
+    }
+    
+   /**
+    * Run the benchmark.
+    * @param args the command line arguments
+    * @exception Exception if an error occurs
+    */
+    public static void main( String[] args ) throws Exception
+    {
+        if( args.length != 1 )
+        {
+            System.err.println( "Usage: CompiledPartBenchmark <part-file>" );
+            return;
+        }
+        DOM3DocumentBuilder builder = new DOM3DocumentBuilder();
+        File file = new File( args[0] );
+        byte[] content = getContent( file );
+        byte[] digest = CompiledPart.digest( content );
+        Element element = getStrategyElement( parse( builder, file, content ) );
+        File compiled = File.createTempFile( file.getName(), CompiledPart.SUFFIX );
+        compiled.deleteOnExit();
+        CompiledPart.store(
+          compiled, digest, null, null, new Classpath(),
+          element.getSchemaTypeInfo().getTypeNamespace(), element );
+        
+        long start = System.nanoTime();
+        for( int i=0; i < ITERATIONS; i++ )
+        {
+            getStrategyElement( parse( builder, file, getContent( file ) ) );
+        }
+        long parse = ( System.nanoTime() - start ) / ITERATIONS;
+        start = System.nanoTime();
+        for( int i=0; i < ITERATIONS; i++ )
+        {
+            byte[] bytes = getContent( file );
+            CompiledPart.load( compiled, CompiledPart.digest( bytes ), null ).getStrategyElement();
+        }
+        long load = ( System.nanoTime() - start ) / ITERATIONS;
+        System.out.println(
+          "validating parse: " + ( parse / 1000 ) + "us, compiled load: " + ( load / 1000 ) + "us" );
+    }
+    
+    private static Document parse( 
+      DOM3DocumentBuilder builder, File file, byte[] content ) throws Exception
+    {
+        return builder.parse( file.toURI().toURL(), new ByteArrayInputStream( content ) );
+    }
+    
+    private static Element getStrategyElement( Document document )
+    {
+        Element[] children = ElementHelper.getChildren( document.getDocumentElement() );
+        for( Element element : children )
+        {
+            String name = element.getLocalName();
+            if( !name.equals( "info" ) && !name.equals( "classpath" ) )
+            {
+                return element;
+            }
+        }
+        throw new IllegalArgumentException( "Missing strategy element." );
+    }
+    
+    private static byte[] getContent( File file ) throws IOException
+    {
+        byte[] bytes = new byte[ (int) file.length() ];
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            int offset = 0;
+            while( offset < bytes.length )
+            {
+                offset = offset + input.read( bytes, offset, bytes.length - offset );
+            }
+            return bytes;
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.lang;
+
+import dpml.util.Category;
+import dpml.util.ElementHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Validation of the compiled part format against the validated part document.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class CompiledPartTestCase extends TestCase
+{
+    private static final String[] PARTS = new String[]
+    {
+        "component.xml", "composite.xml", "state.xml", "contextual.xml", "lookup.xml"
+    };
+
+    private final DOM3DocumentBuilder m_builder = new DOM3DocumentBuilder();
+
+    private File m_dir;
+
+   /**
+    * Setup the test directory.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_dir = new File( System.getProperty( "project.test.dir" ) );
+    }
+
+   /**
+    * Test that a compiled part restores the validated strategy element.
+    * @exception Exception if an error occurs
+    */
+    public void testCompiledStrategy() throws Exception
+    {
+        for( int i=0; i < PARTS.length; i++ )
+        {
+            File file = new File( m_dir, PARTS[i] );
+            byte[] content = getContent( file );
+            byte[] digest = CompiledPart.digest( content );
+            Element element = getStrategyElement( parse( file, content ) );
+            String namespace = element.getSchemaTypeInfo().getTypeNamespace();
+            Classpath classpath =
+              new Classpath(
+                new URI[0], new URI[]{new URI( "artifact:jar:acme/widget#1.0" )},
+                new URI[0], new URI[0] );
+            File compiled = getCompiledFile( file );
+            CompiledPart.store( compiled, digest, "title", null, classpath, namespace, element );
+
+            URI uri = file.toURI();
+            CompiledPart part = CompiledPart.load( compiled, digest, uri );
+            assertNotNull( PARTS[i], part );
+            assertEquals( "title", "title", part.getTitle() );
+            assertNull( "description", part.getDescription() );
+            assertEquals( "classpath", classpath, part.getClasspath() );
+            assertEquals(
+              "public", 1, part.getClasspath().getDependencies( Category.PUBLIC ).length );
+            assertEquals( "namespace", namespace, part.getNamespace() );
+            Element restored = part.getStrategyElement();
+            assertEquals(
+              "document", uri.toASCIIString(), restored.getOwnerDocument().getDocumentURI() );
+            assertEquivalent( element, restored );
+        }
+    }
+
+   /**
+    * Test that a compiled part produced from different content is ignored.
+    * @exception Exception if an error occurs
+    */
+    public void testStaleDigest() throws Exception
+    {
+        File file = new File( m_dir, PARTS[0] );
+        byte[] content = getContent( file );
+        Element element = getStrategyElement( parse( file, content ) );
+        File compiled = getCompiledFile( file );
+        CompiledPart.store(
+          compiled, CompiledPart.digest( content ), null, null, new Classpath(), "dpml:metro", element );
+        byte[] modified = CompiledPart.digest( ( new String( content, "UTF-8" ) + " " ).getBytes( "UTF-8" ) );
+        assertNull( "stale", CompiledPart.load( compiled, modified, null ) );
+        assertNull( "missing", CompiledPart.load( new File( m_dir, "missing.compiled" ), modified, null ) );
+    }
+
+   /**
+    * Test that a compiled part produced by a different handler version is ignored.
+    * @exception Exception if an error occurs
+    */
+    public void testHandlerVersion() throws Exception
+    {
+        File file = new File( m_dir, PARTS[0] );
+        byte[] content = getContent( file );
+        Element element = getStrategyElement( parse( file, content ) );
+        File compiled = getCompiledFile( file );
+        CompiledPart.store(
+          compiled, CompiledPart.digest( "1.0", content ), null, null, new Classpath(), 
+          "dpml:metro", element );
+        assertNotNull( "current", CompiledPart.load( compiled, CompiledPart.digest( "1.0", content ), null ) );
+        assertNull( "updated", CompiledPart.load( compiled, CompiledPart.digest( "1.1", content ), null ) );
+    }
+
+    private File getCompiledFile( File file ) throws IOException
+    {
+        File compiled = File.createTempFile( file.getName(), CompiledPart.SUFFIX );
+        compiled.deleteOnExit();
+        return compiled;
+    }
+
+    private Document parse( File file, byte[] content ) throws Exception
+    {
+        URL url = file.toURI().toURL();
+        return m_builder.parse( url, new ByteArrayInputStream( content ) );
+    }
+
+    private Element getStrategyElement( Document document )
+    {
+        Element[] children = ElementHelper.getChildren( document.getDocumentElement() );
+        for( Element element : children )
+        {
+            String name = element.getLocalName();
+            if( !name.equals( "info" ) && !name.equals( "classpath" ) )
+            {
+                return element;
+            }
+        }
+        fail( "Missing strategy element." );
+        return null;
+    }
+
+    private static byte[] getContent( File file ) throws IOException
+    {
+        byte[] bytes = new byte[ (int) file.length() ];
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            int offset = 0;
+            while( offset < bytes.length )
+            {
+                offset = offset + input.read( bytes, offset, bytes.length - offset );
+            }
+            return bytes;
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private void assertEquivalent( Element expected, Element actual )
+    {
+        assertEquals( "namespace", expected.getNamespaceURI(), actual.getNamespaceURI() );
+        assertEquals( "name", expected.getLocalName(), actual.getLocalName() );
+        NamedNodeMap attributes = expected.getAttributes();
+        assertEquals( "attributes", attributes.getLength(), actual.getAttributes().getLength() );
+        for( int i=0; i < attributes.getLength(); i++ )
+        {
+            Node attribute = attributes.item( i );
+            assertEquals(
+              attribute.getNodeName(),
+              attribute.getNodeValue(),
+              actual.getAttributeNS( attribute.getNamespaceURI(), attribute.getLocalName() ) );
+        }
+        Element[] children = ElementHelper.getChildren( expected );
+        Element[] restored = ElementHelper.getChildren( actual );
+        assertEquals( "children", children.length, restored.length );
+        for( int i=0; i < children.length; i++ )
+        {
+            assertEquivalent( children[i], restored[i] );
+        }
+        assertEquals( "value", ElementHelper.getValue( expected ), ElementHelper.getValue( actual ) );
+    }
+}
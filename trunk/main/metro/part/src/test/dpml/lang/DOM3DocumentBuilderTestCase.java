@@ -0,0 +1,156 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Test the pooled schema validating document builder.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class DOM3DocumentBuilderTestCase extends TestCase
+{
+    private static final String[] DOCUMENTS = new String[]
+    {
+        "component.xml", "composite.xml", "state.xml", "contextual.xml", "lookup.xml"
+    };
+
+    private static final String INVALID =
+      "<?xml version=\"1.0\"?>\n"
+      + "<part xmlns=\"dpml:part\"><unknown/></part>";
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 20;
+
+    private final DOM3DocumentBuilder m_builder = new DOM3DocumentBuilder();
+
+    private File m_dir;
+
+   /**
+    * Setup the test directory.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_dir = new File( System.getProperty( "project.test.dir" ) );
+    }
+
+   /**
+    * Test that repeated parses with pooled parsers return validated documents.
+    * @exception Exception if an error occurs
+    */
+    public void testRepeatedParse() throws Exception
+    {
+        for( int n=0; n < 3; n++ )
+        {
+            for( int i=0; i < DOCUMENTS.length; i++ )
+            {
+                assertValidated( parse( DOCUMENTS[i] ) );
+            }
+        }
+    }
+
+   /**
+    * Test that a validation failure does not affect subsequent parses.
+    * @exception Exception if an error occurs
+    */
+    public void testValidationFailure() throws Exception
+    {
+        URL url = new File( m_dir, "invalid.xml" ).toURI().toURL();
+        for( int n=0; n < 2; n++ )
+        {
+            try
+            {
+                m_builder.parse( url, new ByteArrayInputStream( INVALID.getBytes( "UTF-8" ) ) );
+                fail( "Invalid document accepted." );
+            }
+            catch( IOException e )
+            {
+                // success
+            }
+            assertValidated( parse( DOCUMENTS[0] ) );
+        }
+    }
+
+   /**
+    * Test concurrent parsing through a shared builder.
+    * @exception Exception if an error occurs
+    */
+    public void testConcurrentParse() throws Exception
+    {
+        final Throwable[] errors = new Throwable[ THREADS ];
+        Thread[] threads = new Thread[ THREADS ];
+        for( int i=0; i < THREADS; i++ )
+        {
+            final int index = i;
+            threads[i] =
+              new Thread()
+              {
+                  public void run()
+                  {
+                      try
+                      {
+                          for( int n=0; n < ITERATIONS; n++ )
+                          {
+                              assertValidated( parse( DOCUMENTS[ ( index + n ) % DOCUMENTS.length ] ) );
+                          }
+                      }
+                      catch( Throwable e )
+                      {
+                          errors[index] = e;
+                      }
+                  }
+              };
+            threads[i].start();
+        }
+        for( int i=0; i < THREADS; i++ )
+        {
+            threads[i].join();
+        }
+        for( int i=0; i < THREADS; i++ )
+        {
+            if( null != errors[i] )
+            {
+                throw new Exception( "Concurrent parse failure.", errors[i] );
+            }
+        }
+    }
+
+    private Document parse( String path ) throws Exception
+    {
+        File file = new File( m_dir, path );
+        return m_builder.parse( file.toURI().toURL() );
+    }
+
+    private static void assertValidated( Document document )
+    {
+        Element element = document.getDocumentElement();
+        assertEquals( "namespace", "dpml:part", element.getSchemaTypeInfo().getTypeNamespace() );
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.lang;
+
+import dpml.lang.Classpath;
+import dpml.lang.Info;
+import dpml.lang.Part;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+/**
+ * Validation of the bounded part cache.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class PartCacheTestCase extends TestCase
+{
+    private static final String WIDGET = "artifact:part:acme/widget#1.0";
+    private static final String GIZMO = "artifact:part:acme/gizmo#1.0";
+
+   /**
+    * Test cache hits and misses for distinct anchors.
+    * @exception Exception if an error occurs
+    */
+    public void testAnchors() throws Exception
+    {
+        PartCache cache = new PartCache( 8 );
+        ClassLoader first = createClassLoader();
+        ClassLoader second = createClassLoader();
+        Part part = createPart( WIDGET, first );
+        assertNull( "initial", cache.get( first, WIDGET ) );
+        cache.put( first, WIDGET, part );
+        assertSame( "cached", part, cache.get( first, WIDGET ) );
+        assertNull( "other anchor", cache.get( second, WIDGET ) );
+        assertEquals( "hits", 1, cache.getHits() );
+        assertEquals( "misses", 2, cache.getMisses() );
+        assertEquals( "size", 1, cache.size() );
+    }
+
+   /**
+    * Test that the least recently used part is evicted when the cache is full.
+    * @exception Exception if an error occurs
+    */
+    public void testEviction() throws Exception
+    {
+        PartCache cache = new PartCache( 2 );
+        ClassLoader anchor = createClassLoader();
+        cache.put( anchor, WIDGET, createPart( WIDGET, anchor ) );
+        cache.put( anchor, GIZMO, createPart( GIZMO, anchor ) );
+        assertNotNull( "widget", cache.get( anchor, WIDGET ) );
+        String uri = "artifact:part:acme/other#1.0";
+        cache.put( anchor, uri, createPart( uri, anchor ) );
+        assertEquals( "size", 2, cache.size() );
+        assertEquals( "evictions", 1, cache.getEvictions() );
+        assertNotNull( "recently used", cache.get( anchor, WIDGET ) );
+        assertNull( "least recently used", cache.get( anchor, GIZMO ) );
+    }
+
+   /**
+    * Test invalidation of the parts anchored by or established within a classloader.
+    * @exception Exception if an error occurs
+    */
+    public void testInvalidate() throws Exception
+    {
+        PartCache cache = new PartCache( 8 );
+        ClassLoader system = createClassLoader();
+        ClassLoader component = createClassLoader();
+        ClassLoader nested = createClassLoader();
+        ClassLoader other = createClassLoader();
+        cache.put( system, WIDGET, createPart( WIDGET, component ) );
+        cache.put( component, GIZMO, createPart( GIZMO, nested ) );
+        cache.put( nested, WIDGET, createPart( WIDGET, nested ) );
+        cache.put( system, GIZMO, createPart( GIZMO, other ) );
+        assertEquals( "invalidated", 3, cache.invalidate( component ) );
+        assertEquals( "size", 1, cache.size() );
+        assertNull( "widget", cache.get( system, WIDGET ) );
+        assertNotNull( "gizmo", cache.get( system, GIZMO ) );
+    }
+
+   /**
+    * Test that the cache does not prevent collection of an anchor classloader.
+    * @exception Exception if an error occurs
+    */
+    public void testAnchorCollection() throws Exception
+    {
+        PartCache cache = new PartCache( 8 );
+        ClassLoader anchor = createClassLoader();
+        cache.put( anchor, WIDGET, createPart( WIDGET, createClassLoader() ) );
+        WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>( anchor );
+        anchor = null;
+        for( int i=0; ( i < 50 ) && ( null != reference.get() ); i++ )
+        {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+        assertNull( "anchor retained", reference.get() );
+        assertEquals( "size", 0, cache.size() );
+        assertEquals( "evictions", 1, cache.getEvictions() );
+    }
+
+    private static ClassLoader createClassLoader()
+    {
+        return new URLClassLoader( new URL[0], PartCacheTestCase.class.getClassLoader() );
+    }
+
+    private static Part createPart( String uri, ClassLoader classloader ) throws IOException
+    {
+        Info info = new Info( URI.create( uri ), null, null );
+        return new Part( info, new Classpath(), new TestStrategy( classloader ) );
+    }
+
+   /**
+    * Minimal strategy used to establish cached parts.
+    */
+    private static class TestStrategy extends Strategy
+    {
+        TestStrategy( ClassLoader classloader )
+        {
+            super( classloader );
+        }
+
+        public int getPriority()
+        {
+            return 0;
+        }
+
+        public boolean isaCandidate( Class<?> type )
+        {
+            return false;
+        }
+
+        public <T>T getInstance( Class<T> type )
+        {
+            return null;
+        }
+
+        public void encode( Buffer buffer, String key ) throws IOException
+        {
+        }
+
+        public void initialize( ServiceRegistry registry )
+        {
+        }
+
+        public String getName()
+        {
+            return "test";
+        }
+
+        public <T>T getContentForClass( Class<T> c ) throws IOException
+        {
+            return null;
+        }
+    }
+}
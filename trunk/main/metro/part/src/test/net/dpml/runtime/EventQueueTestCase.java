@@ -0,0 +1,234 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import dpml.util.DefaultLogger;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Validation of event ordering, overflow handling and statistics of the 
+ * event dispatch queue.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class EventQueueTestCase extends TestCase
+{
+    private static final int CHANNELS = 16;
+    private static final int EVENTS = 5000;
+    
+   /**
+    * Test that events are dispatched in order per channel.
+    * @exception Exception if an error occurs
+    */
+    public void testOrdering() throws Exception
+    {
+        EventQueue queue = new EventQueue( new DefaultLogger( "test" ), "test", CHANNELS * EVENTS );
+        final List<List<Integer>> results = new ArrayList<List<Integer>>();
+        EventQueue.Channel[] channels = new EventQueue.Channel[ CHANNELS ];
+        for( int i=0; i < CHANNELS; i++ )
+        {
+            channels[i] = queue.createChannel();
+            results.add( new ArrayList<Integer>() );
+        }
+        for( int n=0; n < EVENTS; n++ )
+        {
+            for( int i=0; i < CHANNELS; i++ )
+            {
+                final List<Integer> list = results.get( i );
+                final int value = n;
+                channels[i].execute( 
+                  new Runnable()
+                  {
+                      public void run()
+                      {
+                          list.add( value );
+                      }
+                  } );
+            }
+        }
+        for( int i=0; i < CHANNELS; i++ )
+        {
+            assertTrue( "drain", channels[i].drain( 10, TimeUnit.SECONDS ) );
+        }
+        for( int i=0; i < CHANNELS; i++ )
+        {
+            List<Integer> list = results.get( i );
+            assertEquals( "count", EVENTS, list.size() );
+            for( int n=0; n < EVENTS; n++ )
+            {
+                assertEquals( "order", n, list.get( n ).intValue() );
+            }
+        }
+        assertEquals( "depth", 0, queue.getDepth() );
+        assertEquals( "dropped", 0, queue.getDroppedCount() );
+    }
+    
+   /**
+    * Test that a producer is blocked on a full queue and that the event is 
+    * dropped if capacity does not become available.
+    * @exception Exception if an error occurs
+    */
+    public void testOverflow() throws Exception
+    {
+        EventQueue queue = new EventQueue( new DefaultLogger( "test" ), "test", 2 );
+        EventQueue.Channel channel = queue.createChannel();
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        Runnable blocker = 
+          new Runnable()
+          {
+              public void run()
+              {
+                  started.countDown();
+                  try
+                  {
+                      latch.await();
+                  }
+                  catch( InterruptedException e )
+                  {
+                      // continue
+                  }
+              }
+          };
+        Runnable noop = 
+          new Runnable()
+          {
+              public void run()
+              {
+              }
+          };
+        assertTrue( "blocker", channel.execute( blocker ) );
+        started.await();
+        assertTrue( "first", channel.execute( noop ) );
+        assertTrue( "second", channel.execute( noop ) );
+        assertFalse( "overflow", channel.execute( noop ) );
+        assertEquals( "dropped", 1, queue.getDroppedCount() );
+        assertEquals( "depth", 2, queue.getDepth() );
+        Thread thread = 
+          new Thread()
+          {
+              public void run()
+              {
+                  try
+                  {
+                      Thread.sleep( 100 );
+                  }
+                  catch( InterruptedException e )
+                  {
+                      // continue
+                  }
+                  latch.countDown();
+              }
+          };
+        thread.start();
+        assertTrue( "backpressure", channel.execute( noop ) );
+        assertTrue( "drain", channel.drain( 10, TimeUnit.SECONDS ) );
+        assertEquals( "dispatched", 5, queue.getDispatchedCount() );
+        thread.join();
+    }
+    
+   /**
+    * Test that a required event is accepted in excess of the queue capacity.
+    * @exception Exception if an error occurs
+    */
+    public void testRequiredOverflow() throws Exception
+    {
+        EventQueue queue = new EventQueue( new DefaultLogger( "test" ), "test", 1 );
+        EventQueue.Channel channel = queue.createChannel();
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        Runnable blocker = 
+          new Runnable()
+          {
+              public void run()
+              {
+                  started.countDown();
+                  try
+                  {
+                      latch.await();
+                  }
+                  catch( InterruptedException e )
+                  {
+                      // continue
+                  }
+              }
+          };
+        final List<Integer> list = new ArrayList<Integer>();
+        Runnable task = 
+          new Runnable()
+          {
+              public void run()
+              {
+                  list.add( list.size() );
+              }
+          };
+        assertTrue( "blocker", channel.execute( blocker ) );
+        started.await();
+        assertTrue( "first", channel.execute( task, true ) );
+        assertTrue( "second", channel.execute( task, true ) );
+        assertEquals( "dropped", 0, queue.getDroppedCount() );
+        assertEquals( "depth", 2, queue.getDepth() );
+        latch.countDown();
+        assertTrue( "drain", channel.drain( 10, TimeUnit.SECONDS ) );
+        assertEquals( "dispatched", 2, list.size() );
+    }
+    
+   /**
+    * Test that events are dispatched under the context classloader of the 
+    * thread that raised the event.
+    * @exception Exception if an error occurs
+    */
+    public void testContextClassLoader() throws Exception
+    {
+        EventQueue queue = new EventQueue( new DefaultLogger( "test" ), "test" );
+        EventQueue.Channel channel = queue.createChannel();
+        final List<ClassLoader> list = new ArrayList<ClassLoader>();
+        Runnable task = 
+          new Runnable()
+          {
+              public void run()
+              {
+                  list.add( Thread.currentThread().getContextClassLoader() );
+              }
+          };
+        ClassLoader classloader = new URLClassLoader( new URL[0], getClass().getClassLoader() );
+        Thread thread = Thread.currentThread();
+        ClassLoader context = thread.getContextClassLoader();
+        thread.setContextClassLoader( classloader );
+        try
+        {
+            assertTrue( "execute", channel.execute( task ) );
+        }
+        finally
+        {
+            thread.setContextClassLoader( context );
+        }
+        assertTrue( "drain", channel.drain( 10, TimeUnit.SECONDS ) );
+        assertSame( "classloader", classloader, list.get( 0 ) );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import dpml.state.StateDecoder;
+import dpml.util.DefaultLogger;
+
+import java.util.logging.Level;
+
+import net.dpml.state.State;
+import net.dpml.state.StateMachine;
+import net.dpml.util.Logger;
+
+import org.acme.StateWidget;
+
+/**
+ * Comparison of the cost of transition application using the compiled state
+ * graph and resolution of the state graph on each request.  The benchmark is 
+ * not part of the test suite and is run directly from the command line.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class StateMachineBenchmark
+{
+    private static final int ITERATIONS = 10000;
+    
+    private StateMachineBenchmark()
+    {
+        // static utility
+    }
+    
+   /**
+    * Run the benchmark.
+    * @param args the command line arguments (ignored)
+    * @exception Exception if an error occurs
+    */
+    public static void main( String[] args ) throws Exception
+    {
+        java.util.logging.Logger quiet = java.util.logging.Logger.getLogger( "test.quiet" );
+        quiet.setLevel( Level.WARNING );
+        Logger logger = new DefaultLogger( quiet );
+        EventQueue queue = new EventQueue( logger, "State Machine Benchmark Queue" );
+        try
+        {
+            StateDecoder decoder = new StateDecoder();
+            State graph = decoder.loadState( StateWidget.class.getResource( "StateWidget.xgraph" ) );
+            long resolved = 
+              measure( new DefaultStateMachine( queue, logger, graph, null ), logger );
+            long compiled = 
+              measure( new DefaultStateMachine( queue, logger, graph, new StateTable( graph ) ), logger );
+            System.out.println(
+              "state transition: resolved " + resolved + "ns, compiled " + compiled + "ns" );
+        }
+        finally
+        {
+            queue.terminateDispatchThread();
+        }
+    }
+    
+    private static long measure( StateMachine machine, Logger logger ) throws Exception
+    {
+        StateWidget widget = new StateWidget( logger );
+        machine.initialize( widget );
+        long start = System.nanoTime();
+        for( int i=0; i < ITERATIONS; i++ )
+        {
+            machine.apply( "stop", widget );
+            machine.apply( "start", widget );
+        }
+        return ( System.nanoTime() - start ) / ( ITERATIONS * 2 );
+    }
+}
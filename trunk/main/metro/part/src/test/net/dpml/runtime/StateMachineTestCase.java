@@ -0,0 +1,123 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime;
+
+import dpml.state.StateDecoder;
+import dpml.util.DefaultLogger;
+
+import junit.framework.TestCase;
+
+import net.dpml.state.State;
+import net.dpml.state.StateMachine;
+import net.dpml.state.UnknownOperationException;
+import net.dpml.state.UnknownTransitionException;
+import net.dpml.util.Logger;
+
+import org.acme.StateWidget;
+
+/**
+ * Validation of the compiled state graph against resolution of the state 
+ * graph on each request.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class StateMachineTestCase extends TestCase
+{
+    private final Logger m_logger = new DefaultLogger( "test" );
+    
+    private EventQueue m_queue;
+    private State m_graph;
+    
+   /**
+    * Setup the state graph.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_queue = new EventQueue( m_logger, "State Machine Test Queue" );
+        StateDecoder decoder = new StateDecoder();
+        m_graph = decoder.loadState( StateWidget.class.getResource( "StateWidget.xgraph" ) );
+    }
+    
+   /**
+    * Release the event queue.
+    * @exception Exception if an error occurs
+    */
+    public void tearDown() throws Exception
+    {
+        m_queue.terminateDispatchThread();
+    }
+    
+   /**
+    * Test the lifecycle of a component using the compiled and uncompiled graph.
+    * @exception Exception if an error occurs
+    */
+    public void testLifecycle() throws Exception
+    {
+        validate( createMachine( null ) );
+        validate( createMachine( new StateTable( m_graph ) ) );
+    }
+    
+   /**
+    * Test that unknown transitions and operations are reported.
+    * @exception Exception if an error occurs
+    */
+    public void testUnknownActions() throws Exception
+    {
+        StateMachine machine = createMachine( new StateTable( m_graph ) );
+        try
+        {
+            machine.apply( "unknown", new StateWidget( m_logger ) );
+            fail( "Unknown transition applied." );
+        }
+        catch( UnknownTransitionException e )
+        {
+            // success
+        }
+        try
+        {
+            machine.execute( "unknown", new StateWidget( m_logger ), new Object[0] );
+            fail( "Unknown operation executed." );
+        }
+        catch( UnknownOperationException e )
+        {
+            // success
+        }
+    }
+    
+    private StateMachine createMachine( StateTable table )
+    {
+        return new DefaultStateMachine( m_queue, m_logger, m_graph, table );
+    }
+    
+    private void validate( StateMachine machine ) throws Exception
+    {
+        StateWidget widget = new StateWidget( m_logger );
+        machine.initialize( widget );
+        assertEquals( "started", 1, widget.getState() );
+        assertEquals( "state", "started", machine.getState().getName() );
+        assertEquals( "message", "started", machine.invoke( widget, "getMessage", null ) );
+        machine.terminate( widget );
+        assertEquals( "stopped", 2, widget.getState() );
+        assertEquals( "state", "stopped", machine.getState().getName() );
+        machine.apply( "start", widget );
+        assertEquals( "restarted", 1, widget.getState() );
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime.context;
+
+import net.dpml.runtime.AbstractTestCase;
+
+import org.acme.ContextualWidget;
+
+/**
+ * Context entry access test case.  Validates that constant context entries
+ * are reused while mutable and method backed entries are resolved on each 
+ * access.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class ContextAccessTestCase extends AbstractTestCase
+{
+    private ContextualWidget m_widget;
+
+   /**
+    * Setup the test widget.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_widget = load( ContextualWidget.class, "contextual.xml", "contextual" );
+    }
+
+   /**
+    * Test that literal entries are memoized.
+    * @exception Exception if an error occurs
+    */
+    public void testConstantEntries() throws Exception
+    {
+        assertEquals( "message", "Batman", m_widget.getMessage() );
+        assertSame( "message", m_widget.getMessage(), m_widget.getMessage() );
+        assertEquals( "primary", m_widget.getPrimary(), m_widget.getPrimary() );
+    }
+
+   /**
+    * Test that array entries are resolved on each access.
+    * @exception Exception if an error occurs
+    */
+    public void testMutableEntries() throws Exception
+    {
+        int[] numbers = m_widget.getNumbers();
+        numbers[0] = 99;
+        assertNotSame( "numbers", numbers, m_widget.getNumbers() );
+        assertEquals( "numbers[0]", 1, m_widget.getNumbers()[0] );
+    }
+
+   /**
+    * Test that entries backed by a static method are resolved on each access.
+    * @exception Exception if an error occurs
+    */
+    public void testMethodEntries() throws Exception
+    {
+        long time = m_widget.getTime().longValue();
+        Thread.sleep( 50 );
+        assertTrue( "time", m_widget.getTime().longValue() > time );
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime.lifestyle;
+
+import net.dpml.annotation.LifestylePolicy;
+import net.dpml.runtime.AbstractTestCase;
+
+import net.dpml.runtime.ComponentStrategy;
+import net.dpml.runtime.PoolStatistics;
+import net.dpml.runtime.Provider;
+
+import org.acme.PooledWidget;
+import org.acme.Widget;
+
+/**
+ * Pooled lifestyle testcase.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class PooledTestCase extends AbstractTestCase
+{
+    private ComponentStrategy m_component;
+    
+   /**
+    * Setup the pooled component.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_component = load( ComponentStrategy.class, "pooled.xml", "pooled" );
+    }
+    
+   /**
+    * Terminate the pooled component.
+    * @exception Exception if an error occurs
+    */
+    public void tearDown() throws Exception
+    {
+        m_component.terminate();
+    }
+    
+   /**
+    * Validate the pool settings declared by the annotation and part.
+    * @exception Exception if an error occurs
+    */
+    public void testPolicy() throws Exception
+    {
+        assertEquals( "lifestyle", LifestylePolicy.POOLED, m_component.getLifestylePolicy() );
+        PoolStatistics statistics = m_component.getPoolStatistics();
+        assertEquals( "minimum", 1, statistics.getMinimum() );
+        assertEquals( "maximum", 2, statistics.getMaximum() );
+    }
+    
+   /**
+    * Validate that a released provider and its instance are reused.
+    * @exception Exception if an error occurs
+    */
+    public void testReuse() throws Exception
+    {
+        PoolStatistics statistics = m_component.getPoolStatistics();
+        Provider p1 = m_component.getProvider();
+        Widget w1 = p1.getInstance( PooledWidget.class );
+        Provider p2 = m_component.getProvider();
+        Widget w2 = p2.getInstance( PooledWidget.class );
+        assertNotSame( "concurrent", w1, w2 );
+        m_component.release( p1 );
+        long reused = statistics.getReusedCount();
+        Provider p3 = m_component.getProvider();
+        assertSame( "provider", p1, p3 );
+        assertSame( "instance", w1, p3.getInstance( PooledWidget.class ) );
+        assertEquals( "reused", reused + 1, statistics.getReusedCount() );
+        assertEquals( "active", 2, statistics.getActiveCount() );
+        assertEquals( "idle", 0, statistics.getIdleCount() );
+        m_component.release( p2 );
+        m_component.release( p3 );
+        assertEquals( "released", 2, statistics.getIdleCount() );
+    }
+    
+   /**
+    * Validate that a request on an exhausted pool waits for a provider release.
+    * @exception Exception if an error occurs
+    */
+    public void testExhaustion() throws Exception
+    {
+        long waits = m_component.getPoolStatistics().getWaitCount();
+        final Provider p1 = m_component.getProvider();
+        m_component.getProvider();
+        Thread thread = 
+          new Thread()
+          {
+              public void run()
+              {
+                  try
+                  {
+                      Thread.sleep( 200 );
+                  }
+                  catch( InterruptedException e )
+                  {
+                      // continue
+                  }
+                  m_component.release( p1 );
+              }
+          };
+        thread.start();
+        Provider p3 = m_component.getProvider();
+        assertSame( "provider", p1, p3 );
+        assertEquals( "waits", waits + 1, m_component.getPoolStatistics().getWaitCount() );
+        thread.join();
+    }
+    
+   /**
+    * Validate that a provider that is not released remains leased following 
+    * collection and is disposed on termination.
+    * @exception Exception if an error occurs
+    */
+    public void testUnreleased() throws Exception
+    {
+        PoolStatistics statistics = m_component.getPoolStatistics();
+        m_component.getProvider().getInstance( PooledWidget.class );
+        System.gc();
+        assertEquals( "active", 1, statistics.getActiveCount() );
+        long disposed = statistics.getDisposedCount();
+        m_component.terminate();
+        assertEquals( "active", 0, statistics.getActiveCount() );
+        assertEquals( "disposed", disposed + 1, statistics.getDisposedCount() );
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.runtime.lifestyle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.dpml.annotation.LifestylePolicy;
+import net.dpml.runtime.AbstractTestCase;
+import net.dpml.runtime.ComponentError;
+import net.dpml.runtime.ComponentStrategy;
+import net.dpml.runtime.Provider;
+import net.dpml.runtime.Scope;
+
+import org.acme.ScopedWidget;
+import org.acme.Widget;
+
+/**
+ * Scoped lifestyle testcase.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class ScopedTestCase extends AbstractTestCase
+{
+    private static final int THREADS = 8;
+    private static final int SCOPES = 50;
+    
+    private ComponentStrategy m_component;
+    
+   /**
+    * Setup the scoped component.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_component = load( ComponentStrategy.class, "scoped.xml", "scoped" );
+    }
+    
+   /**
+    * Validate the lifestyle policy.
+    * @exception Exception if an error occurs
+    */
+    public void testPolicy() throws Exception
+    {
+        assertEquals( "lifestyle", LifestylePolicy.SCOPED, m_component.getLifestylePolicy() );
+    }
+    
+   /**
+    * Validate that instances are shared within a scope and released on 
+    * closure of the scope.
+    * @exception Exception if an error occurs
+    */
+    public void testScope() throws Exception
+    {
+        int live = m_component.getInstanceCount();
+        Scope scope = Scope.open();
+        try
+        {
+            assertSame( "current", scope, Scope.getCurrentScope() );
+            Widget w1 = m_component.getProvider().getInstance( ScopedWidget.class );
+            Widget w2 = m_component.getProvider().getInstance( ScopedWidget.class );
+            assertSame( "shared", w1, w2 );
+            Scope nested = Scope.open();
+            Widget w3 = m_component.getProvider().getInstance( ScopedWidget.class );
+            assertNotSame( "nested", w1, w3 );
+            assertEquals( "live", live + 2, m_component.getInstanceCount() );
+            nested.close();
+            assertSame( "restored", scope, Scope.getCurrentScope() );
+            assertEquals( "nested release", live + 1, m_component.getInstanceCount() );
+        }
+        finally
+        {
+            scope.close();
+        }
+        assertNull( "unbound", Scope.getCurrentScope() );
+        assertEquals( "size", 0, scope.size() );
+        assertEquals( "released", live, m_component.getInstanceCount() );
+    }
+    
+   /**
+    * Validate that a scope may be shared by tasks executed on other threads.
+    * @exception Exception if an error occurs
+    */
+    public void testTaskScope() throws Exception
+    {
+        final Scope scope = new Scope();
+        Callable<Widget> task = 
+          new Callable<Widget>()
+          {
+              public Widget call() throws Exception
+              {
+                  return m_component.getProvider().getInstance( ScopedWidget.class );
+              }
+          };
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Widget w1 = executor.submit( new ScopedTask( scope, task ) ).get();
+            Widget w2 = executor.submit( new ScopedTask( scope, task ) ).get();
+            assertSame( "shared", w1, w2 );
+            assertEquals( "size", 1, scope.size() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        long incarnations = m_component.getIncarnationCount();
+        scope.close();
+        assertTrue( "closed", scope.isClosed() );
+        assertEquals( "size", 0, scope.size() );
+        assertEquals( "incarnations", incarnations, m_component.getIncarnationCount() );
+    }
+    
+   /**
+    * Validate that a provider is not established within a closed scope.
+    * @exception Exception if an error occurs
+    */
+    public void testClosedScope() throws Exception
+    {
+        Scope scope = new Scope();
+        scope.close();
+        long incarnations = m_component.getIncarnationCount();
+        Callable<Provider> task = 
+          new Callable<Provider>()
+          {
+              public Provider call() throws Exception
+              {
+                  return m_component.getProvider();
+              }
+          };
+        try
+        {
+            scope.call( task );
+            fail( "Provider established within a closed scope." );
+        }
+        catch( ComponentError e )
+        {
+            // success
+        }
+        assertEquals( "size", 0, scope.size() );
+        assertEquals( "incarnations", incarnations, m_component.getIncarnationCount() );
+    }
+    
+   /**
+    * Validate that scopes closed on other threads concurrently with component
+    * termination release every instance.
+    * @exception Exception if an error occurs
+    */
+    public void testConcurrentClosure() throws Exception
+    {
+        Callable<Widget> task = 
+          new Callable<Widget>()
+          {
+              public Widget call() throws Exception
+              {
+                  return m_component.getProvider().getInstance( ScopedWidget.class );
+              }
+          };
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try
+        {
+            List<Scope> scopes = new ArrayList<Scope>();
+            for( int i=0; i < SCOPES; i++ )
+            {
+                Scope scope = new Scope();
+                executor.submit( new ScopedTask( scope, task ) ).get();
+                scopes.add( scope );
+            }
+            assertEquals( "live", SCOPES, m_component.getInstanceCount() );
+            final CountDownLatch latch = new CountDownLatch( 1 );
+            List<Future<Object>> closures = new ArrayList<Future<Object>>();
+            for( final Scope scope : scopes )
+            {
+                closures.add( 
+                  executor.submit( 
+                    new Callable<Object>()
+                    {
+                        public Object call() throws Exception
+                        {
+                            latch.await();
+                            scope.close();
+                            return null;
+                        }
+                    } ) );
+            }
+            latch.countDown();
+            m_component.terminate();
+            for( Future<Object> closure : closures )
+            {
+                closure.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertEquals( "released", 0, m_component.getInstanceCount() );
+    }
+    
+   /**
+    * Validate that a scoped component cannot be used outside of a scope.
+    * @exception Exception if an error occurs
+    */
+    public void testMissingScope() throws Exception
+    {
+        try
+        {
+            m_component.getProvider();
+            fail( "Provider returned without a scope." );
+        }
+        catch( ComponentError e )
+        {
+            // success
+        }
+    }
+    
+   /**
+    * Task wrapper executing a task within a scope.
+    */
+    private static class ScopedTask implements Callable<Widget>
+    {
+        private final Scope m_scope;
+        private final Callable<Widget> m_task;
+        
+        ScopedTask( Scope scope, Callable<Widget> task )
+        {
+            m_scope = scope;
+            m_task = task;
+        }
+        
+        public Widget call() throws Exception
+        {
+            return m_scope.call( m_task );
+        }
+    }
+}
@@ -43,4 +43,17 @@ public class SingletonTestCase extends AbstractTestCase
         Widget w2 = component.getProvider().getInstance( SingletonWidget.class );
         assertEquals( "equality", w1, w2 );
     }
+    
+   /**
+    * Validate that service requests return a shared service proxy.
+    * @exception Exception if an error occurs
+    */
+    public void testServiceProxy() throws Exception
+    {
+        Component component = load( Component.class, "singleton.xml", "singleton" );
+        Widget w1 = component.getProvider().getInstance( Widget.class );
+        Widget w2 = component.getProvider().getInstance( Widget.class );
+        assertSame( "proxy", w1, w2 );
+        assertEquals( "message", w1.getMessage(), w2.getMessage() );
+    }
 }
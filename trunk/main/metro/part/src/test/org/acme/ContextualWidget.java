@@ -46,6 +46,13 @@ public class ContextualWidget implements Widget
         */
         String getMessage( String value );
         
+       /**
+        * An optional entry resolved from a static method.
+        * @param value the default value
+        * @return the resolved value
+        */
+        Long getTime( Long value );
+        
        /**
         * A non-optional entry with a return type corresponding to a context interface.
         * @return the container resolved implementation of the ColorManager contract
@@ -81,6 +88,15 @@ public class ContextualWidget implements Widget
         return m_context.getMessage( "Hello" );
     }
     
+   /**
+    * Return the time value.
+    * @return the time
+    */
+    public Long getTime()
+    {
+        return m_context.getTime( null );
+    }
+    
    /**
     * Return the primary color from the nested context.
     * @return the primary color
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme;
+
+import net.dpml.annotation.Component;
+import net.dpml.annotation.Pool;
+import net.dpml.annotation.Services;
+
+import static net.dpml.annotation.LifestylePolicy.POOLED;
+
+/**
+ * Test component used to validate the pooled lifestyle policy.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+@Services( Widget.class )
+@Component( name="widget", lifestyle=POOLED, pool=@Pool( minimum=1, maximum=4 ) )
+public class PooledWidget extends DefaultWidget
+{
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Content addressed store of cached artifacts.  Blobs are keyed by the
+ * SHA-256 digest of their content and layout paths in the cache are hard
+ * links to the blob (or copies if the platform or file system does not 
+ * support links) so that identical content is stored once.  Hard links 
+ * require a Java 7 or later runtime and are created reflectively so that
+ * the store remains usable on earlier platforms.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class BlobStore
+{
+   /**
+    * The digest algorithm used to key blobs.
+    */
+    static final String ALGORITHM = "SHA-256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private static final Method TO_PATH = getMethod( File.class, "toPath" );
+    private static final Method CREATE_LINK = getCreateLinkMethod();
+
+    private final File m_base;
+
+   /**
+    * Creation of a new blob store.
+    * @param cache the cache directory
+    */
+    BlobStore( File cache )
+    {
+        m_base = new File( cache, ".blobs" );
+    }
+
+   /**
+    * Move a downloaded file into the store and link the layout destination
+    * to the stored blob.  If a blob with the same digest already exists the
+    * downloaded file is discarded.
+    *
+    * @param temp the downloaded file
+    * @param digest the SHA-256 digest of the downloaded content
+    * @param destination the layout path within the cache
+    * @return TRUE if the destination is a hard link to the stored blob or 
+    *   FALSE if the destination is a copy
+    * @exception IOException if an IO error occurs
+    */
+    boolean install( File temp, byte[] digest, File destination ) throws IOException
+    {
+        String key = toHex( digest );
+        File dir = new File( m_base, key.substring( 0, 2 ) );
+        File blob = new File( dir, key );
+        dir.mkdirs();
+        if( blob.exists() )
+        {
+            temp.delete();
+        }
+        else if( !temp.renameTo( blob ) )
+        {
+            temp.delete();
+            if( !blob.exists() )
+            {
+                throw new IOException( "Unable to store blob: " + blob );
+            }
+        }
+        destination.delete();
+        if( link( blob, destination ) )
+        {
+            return true;
+        }
+        else
+        {
+            copy( blob, destination );
+            return false;
+        }
+    }
+    
+   /**
+    * Create a hard link to a file.
+    * @param target the existing file
+    * @param link the link to create
+    * @return TRUE if the link was created
+    */
+    private static boolean link( File target, File link )
+    {
+        if( ( null == TO_PATH ) || ( null == CREATE_LINK ) )
+        {
+            return false;
+        }
+        try
+        {
+            Object from = TO_PATH.invoke( link );
+            Object to = TO_PATH.invoke( target );
+            CREATE_LINK.invoke( null, from, to );
+            return true;
+        }
+        catch( InvocationTargetException e )
+        {
+            return false; // links not supported by the file system
+        }
+        catch( IllegalAccessException e )
+        {
+            return false;
+        }
+    }
+    
+    private static Method getCreateLinkMethod()
+    {
+        try
+        {
+            Class<?> files = Class.forName( "java.nio.file.Files" );
+            Class<?> path = Class.forName( "java.nio.file.Path" );
+            return getMethod( files, "createLink", path, path );
+        }
+        catch( ClassNotFoundException e )
+        {
+            return null;
+        }
+    }
+    
+    private static Method getMethod( Class<?> c, String name, Class<?>... params )
+    {
+        try
+        {
+            return c.getMethod( name, params );
+        }
+        catch( NoSuchMethodException e )
+        {
+            return null;
+        }
+    }
+
+    private static void copy( File source, File destination ) throws IOException
+    {
+        FileInputStream input = new FileInputStream( source );
+        FileOutputStream output = new FileOutputStream( destination );
+        StreamUtils.copyStream( input, output, true );
+    }
+
+   /**
+    * Convert a digest to a lowercase hex string.
+    * @param digest the digest
+    * @return the hex value
+    */
+    static String toHex( byte[] digest )
+    {
+        char[] chars = new char[ digest.length * 2 ];
+        for( int i=0; i < digest.length; i++ )
+        {
+            int b = digest[i] & 0xFF;
+            chars[ i * 2 ] = HEX[ b >>> 4 ];
+            chars[ i * 2 + 1 ] = HEX[ b & 0x0F ];
+        }
+        return new String( chars );
+    }
+}
@@ -90,6 +90,20 @@ public interface Cache
     InputStream getResource( Artifact artifact, String resource )
         throws IOException, TransitException;
 
+   /**
+    * Resolve a sequence of artifacts into the cache.  Artifacts that are not
+    * already cached are downloaded concurrently and a request for an artifact
+    * that is already being downloaded is merged with the in-flight download.
+    *
+    * @param artifacts the artifacts to resolve
+    * @return the cached files in the order of the supplied artifacts (a file
+    *   will not exist if the corresponding artifact could not be downloaded)
+    * @exception IOException if an IO error occurs
+    * @exception TransitException is a transit system error occurs
+    */
+    File[] resolve( Artifact[] artifacts )
+        throws IOException, TransitException;
+
    /** 
     * Creates an output stream to where the artifact content can be written
     *  to.
@@ -24,17 +24,31 @@ import dpml.util.PropertyResolver;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Properties;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Hashtable;
 import java.util.TreeSet;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -66,6 +80,37 @@ class DefaultCacheHandler implements Cache, CacheManager
 {
     private static final File TRANSIT_DATA = DATA;
     
+   /**
+    * The maximum number of concurrent downloads used by bulk resolution.
+    */
+    private static final int RESOLVER_THREADS = 
+      Integer.getInteger( "dpml.transit.cache.threads", 4 ).intValue();
+    
+   /**
+    * Flag enabling storage of downloaded artifacts in a content addressed
+    * store with checksum verification.
+    */
+    private static final boolean BLOB_STORE_ENABLED = 
+      Boolean.getBoolean( "dpml.transit.cache.blobs" );
+    
+   /**
+    * Interval in seconds after which a cached link is revalidated against
+    * the resource hosts using a conditional request.  A negative value 
+    * disables revalidation.
+    */
+    private static final long LINK_REVALIDATE = 
+      Long.getLong( "dpml.transit.link.revalidate", -1 ).longValue();
+    
+   /**
+    * Suffix of the file holding the content of an incomplete download.
+    */
+    private static final String PARTIAL_SUFFIX = ".download";
+    
+   /**
+    * Idle time in seconds after which a resolver thread is released.
+    */
+    private static final long RESOLVER_KEEP_ALIVE = 30;
+    
     // ------------------------------------------------------------------------
     // state
     // ------------------------------------------------------------------------
@@ -90,6 +135,11 @@ class DefaultCacheHandler implements Cache, CacheManager
     */
     private Layout m_layout;
 
+   /**
+    * Memoized artifact paths resolved by the cache layout.
+    */
+    private LayoutCache m_paths;
+
    /**
     * Internal zip file cache.
     */
@@ -102,6 +152,28 @@ class DefaultCacheHandler implements Cache, CacheManager
     
     private final TransitContext m_context;
     
+   /**
+    * Downloads in progress keyed by artifact.
+    */
+    private final ConcurrentHashMap<Artifact, FutureTask<File>> m_pending = 
+      new ConcurrentHashMap<Artifact, FutureTask<File>>();
+    
+   /**
+    * Time at which cached links were last validated.
+    */
+    private final ConcurrentHashMap<Artifact, Long> m_validated = 
+      new ConcurrentHashMap<Artifact, Long>();
+    
+   /**
+    * Optional content addressed store.
+    */
+    private final BlobStore m_blobStore;
+    
+   /**
+    * Lazily created pool used for bulk resolution.
+    */
+    private ThreadPoolExecutor m_executor;
+    
     // ------------------------------------------------------------------------
     // constructor
     // ------------------------------------------------------------------------
@@ -128,6 +200,7 @@ class DefaultCacheHandler implements Cache, CacheManager
 
         String key = directive.getCacheLayout();
         m_layout = Layout.getLayout( key );
+        m_paths = new LayoutCache( m_layout, null );
         if( getLogger().isTraceEnabled() )
         {
             getLogger().trace( "cache initialization" );
@@ -159,6 +232,15 @@ class DefaultCacheHandler implements Cache, CacheManager
         cache.mkdirs();
         m_cacheDir = cache;
         
+        if( BLOB_STORE_ENABLED )
+        {
+            m_blobStore = new BlobStore( cache );
+        }
+        else
+        {
+            m_blobStore = null;
+        }
+        
         if( logger.isTraceEnabled() )
         {
             logger.trace( "setting cache: " + cache );
@@ -222,7 +304,7 @@ class DefaultCacheHandler implements Cache, CacheManager
     public File getLocalFile( Artifact artifact ) throws IOException
     {
         File cache = getCacheDirectory();
-        String name = m_layout.resolvePath( artifact );
+        String name = m_paths.resolvePath( artifact );
         return new File( cache, name );
     }
 
@@ -264,6 +346,33 @@ class DefaultCacheHandler implements Cache, CacheManager
     {
         return (HostManager[]) m_resourceHosts.toArray( new HostManager[0] ); 
     }
+    
+   /**
+    * Return the number of zip entry reads served by an open zip file.
+    * @return the zip cache hit count
+    */
+    public long getZipCacheHits()
+    {
+        return m_zipCache.getHitCount();
+    }
+    
+   /**
+    * Return the number of zip entry reads that required a zip file to be opened.
+    * @return the zip cache miss count
+    */
+    public long getZipCacheMisses()
+    {
+        return m_zipCache.getMissCount();
+    }
+    
+   /**
+    * Return the number of zip files closed due to the zip cache bounds.
+    * @return the zip cache eviction count
+    */
+    public long getZipCacheEvictions()
+    {
+        return m_zipCache.getEvictionCount();
+    }
 
     // ------------------------------------------------------------------------
     // CacheHandler
@@ -325,27 +434,93 @@ class DefaultCacheHandler implements Cache, CacheManager
         throws IOException, TransitException
     {
         String internalReference = resource;
-        synchronized( this )
+        if( internalReference.startsWith( "!" ) )
+        {
+            internalReference = internalReference.substring( 1 );
+        }
+        if( internalReference.startsWith( "/" ) )
         {
-            if( internalReference.startsWith( "!" ) )
+            internalReference = internalReference.substring( 1 );
+        }
+        File resourceFile = getResourceFile( artifact );
+        InputStream stream = 
+          m_zipCache.getInputStream( artifact, resourceFile, internalReference );
+        return new BufferedInputStream( stream );
+    }
+
+   /**
+    * Resolve a sequence of artifacts into the cache.  Artifacts that are not
+    * already cached are downloaded concurrently on a bounded pool and a request 
+    * for an artifact that is already being downloaded is merged with the 
+    * in-flight download.
+    *
+    * @param artifacts the artifacts to resolve
+    * @return the cached files in the order of the supplied artifacts (a file
+    *   will not exist if the corresponding artifact could not be downloaded)
+    * @exception IOException if an IO error occurs
+    * @exception TransitException is a transit system error occurs
+    * @exception NullPointerException if the artifacts argument is null.
+    */
+    public File[] resolve( Artifact[] artifacts )
+        throws IOException, TransitException, NullPointerException
+    {
+        if( null == artifacts )
+        {
+            throw new NullPointerException( "artifacts" );
+        }
+        File[] files = new File[ artifacts.length ];
+        ArrayList<Integer> missing = new ArrayList<Integer>();
+        for( int i=0; i < artifacts.length; i++ )
+        {
+            Artifact artifact = artifacts[i];
+            if( null == artifact )
             {
-                internalReference = internalReference.substring( 1 );
+                throw new NullPointerException( "artifacts[" + i + "]" );
             }
-            if( internalReference.startsWith( "/" ) )
+            File file = getLocalFile( artifact );
+            if( file.exists() )
             {
-                internalReference = internalReference.substring( 1 );
+                files[i] = file;
             }
-            ZipFile zip = m_zipCache.get( artifact );
-            if( zip == null )
+            else
             {
-                File resourceFile = getResourceFile( artifact );
-                zip = new ZipFile( resourceFile );
-                m_zipCache.put( artifact, zip );
+                missing.add( i );
             }
-            ZipEntry entry = zip.getEntry( internalReference );
-            InputStream stream = zip.getInputStream( entry );
-            return new BufferedInputStream( stream );
         }
+        
+        if( missing.size() == 1 )
+        {
+            int n = missing.get( 0 );
+            files[n] = getResourceFile( artifacts[n] );
+        }
+        else if( missing.size() > 1 )
+        {
+            if( getLogger().isTraceEnabled() )
+            {
+                getLogger().trace( "resolving " + missing.size() + " artifacts" );
+            }
+            ThreadPoolExecutor executor = getExecutor();
+            ArrayList<Future<File>> futures = new ArrayList<Future<File>>();
+            for( int n : missing )
+            {
+                final Artifact artifact = artifacts[n];
+                Callable<File> callable = 
+                  new Callable<File>()
+                  {
+                      public File call() throws Exception
+                      {
+                          return getResourceFile( artifact );
+                      }
+                  };
+                futures.add( executor.submit( callable ) );
+            }
+            for( int i=0; i < futures.size(); i++ )
+            {
+                int n = missing.get( i );
+                files[n] = getResult( futures.get( i ) );
+            }
+        }
+        return files;
     }
 
    /** 
@@ -373,7 +548,7 @@ class DefaultCacheHandler implements Cache, CacheManager
         {
             throw new ArtifactAlreadyExistsException( "Artifact found on server.", artifact );
         }
-        String path = m_layout.resolvePath( artifact );
+        String path = m_paths.resolvePath( artifact );
         File destination = new File( m_cacheDir, path );
         if( destination.exists() && flag )
         {
@@ -384,6 +559,11 @@ class DefaultCacheHandler implements Cache, CacheManager
         {
             parentDir.mkdirs();
         }
+        
+        // remove rather than truncate an existing file as it may be a 
+        // link to a shared blob
+        
+        destination.delete();
         return new FileOutputStream( destination );
     }
     
@@ -407,22 +587,22 @@ class DefaultCacheHandler implements Cache, CacheManager
     */
     private Host findKnownGroupHost( Artifact artifact )
     {
-        synchronized( m_resourceHosts )
+        // the host set is populated during construction and is not modified
+        // thereafter so concurrent resolution can iterate without locking
+        
+        Iterator<Host> list = m_resourceHosts.iterator();
+        while ( list.hasNext() )
         {
-            Iterator list = m_resourceHosts.iterator();
-            while ( list.hasNext() )
+            Host host = list.next();
+            if( host.isEnabled() )
             {
-                Host host = (Host) list.next();
-                if( host.isEnabled() )
+                if( host.checkPresence( artifact, true ) )
                 {
-                    if( host.checkPresence( artifact, true ) )
-                    {
-                        return host;
-                    }
+                    return host;
                 }
             }
-            return null;
         }
+        return null;
     }
 
    /**
@@ -432,23 +612,19 @@ class DefaultCacheHandler implements Cache, CacheManager
     */
     private Host findAnyPresence( Artifact artifact )
     {
-        synchronized( m_resourceHosts )
+        Iterator<Host> list = m_resourceHosts.iterator();
+        while ( list.hasNext() )
         {
-            //Iterator list = m_resourceHosts.values().iterator();
-            Iterator list = m_resourceHosts.iterator();
-            while ( list.hasNext() )
+            Host host = list.next();
+            if( host.isEnabled() )
             {
-                Host host = (Host) list.next();
-                if( host.isEnabled() )
+                if( host.checkPresence( artifact, false ) )
                 {
-                    if( host.checkPresence( artifact, false ) )
-                    {
-                        return host;
-                    }
+                    return host;
                 }
             }
-            return null;
         }
+        return null;
     }
 
    /**
@@ -467,19 +643,102 @@ class DefaultCacheHandler implements Cache, CacheManager
         {
             return false;
         }
+        if( ( null != m_blobStore ) && !"link".equals( artifact.getScheme() ) )
+        {
+            return downloadBlob( host, artifact, destination );
+        }
         
+        // content is written to a partial file next to the destination so that
+        // an interrupted download can be resumed - the partial file is locked 
+        // while in use and a private temporary file is used if another process 
+        // holds the lock
+        
+        File parentDir = destination.getParentFile();
+        File partial = new File( parentDir, destination.getName() + PARTIAL_SUFFIX );
+        RandomAccessFile guard = new RandomAccessFile( partial, "rw" );
+        FileLock lock = tryLock( guard );
+        File target = partial;
+        if( null == lock )
+        {
+            guard.close();
+            guard = null;
+            target = File.createTempFile( "~dpml", ".tmp", parentDir );
+            target.deleteOnExit(); // safety harness in case we abort abnormally
+        }
+        try
+        {
+            Date lastModified = host.download( artifact, target, 0 );
+            if( null != guard )
+            {
+                release( guard, lock );
+                guard = null;
+            }
+            replace( target, destination );
+            destination.setLastModified( lastModified.getTime() );
+            return true;
+        }
+        catch( Throwable e )
+        {
+            if( target != partial )
+            {
+                target.delete();
+            }
+            getMonitor().failedDownloadFromHost( host.toString(), artifact, e );
+            return false;
+        }
+        finally
+        {
+            if( null != guard )
+            {
+                release( guard, lock );
+                if( partial.length() == 0 )
+                {
+                    partial.delete(); // nothing to resume
+                }
+            }
+        }
+    }
+    
+   /**
+    * Download an artifact from a host into the content addressed store.
+    * @param host the remote host
+    * @param artifact the artifact being retrieved
+    * @param destination the cached destination
+    * @return TRUE if downloaded
+    * @exception IOException if an IO error occurs
+    */
+    private boolean downloadBlob( Host host, Artifact artifact, File destination )
+        throws IOException
+    {
         File parentDir = destination.getParentFile();
         File tempFile = File.createTempFile( "~dpml", ".tmp", parentDir );
         tempFile.deleteOnExit(); // safety harness in case we abort abnormally
-        FileOutputStream tempOut = new FileOutputStream( tempFile );
-        
         try
         {
-            Date lastModified = host.download( artifact, tempOut );
-            // An atomic operation and no risk of a corrupted
-            // artifact content.
-            tempFile.renameTo( destination );
-            destination.setLastModified( lastModified.getTime() );
+            // digests are computed as the content streams to the temp file
+            
+            MessageDigest sha = MessageDigest.getInstance( BlobStore.ALGORITHM );
+            MessageDigest md5 = MessageDigest.getInstance( "MD5" );
+            Date lastModified;
+            FileOutputStream tempOut = new FileOutputStream( tempFile );
+            try
+            {
+                OutputStream output = 
+                  new DigestOutputStream( new DigestOutputStream( tempOut, sha ), md5 );
+                lastModified = host.download( artifact, output );
+            }
+            finally
+            {
+                tempOut.close();
+            }
+            verifyChecksum( host, artifact, md5.digest() );
+            boolean linked = m_blobStore.install( tempFile, sha.digest(), destination );
+            if( !linked )
+            {
+                // a link shares the modification time of the blob
+                
+                destination.setLastModified( lastModified.getTime() );
+            }
             return true;
         }
         catch( Throwable e )
@@ -490,6 +749,168 @@ class DefaultCacheHandler implements Cache, CacheManager
         }
     }
     
+   /**
+    * Revalidate a cached artifact against the enabled hosts using a 
+    * conditional request.  The cached copy is replaced if a host returns 
+    * modified content and retained if the content is unmodified or no host
+    * can be reached.
+    * @param artifact the cached artifact
+    * @param destination the cached file
+    * @return TRUE if the cached file was replaced
+    * @exception IOException if an IO error occurs
+    */
+    private boolean revalidate( Artifact artifact, File destination ) throws IOException
+    {
+        File tempFile = File.createTempFile( "~dpml", ".tmp", destination.getParentFile() );
+        tempFile.deleteOnExit(); // safety harness in case we abort abnormally
+        try
+        {
+            Iterator<Host> list = m_resourceHosts.iterator();
+            while ( list.hasNext() )
+            {
+                Host host = list.next();
+                if( !host.isEnabled() )
+                {
+                    continue;
+                }
+                try
+                {
+                    Date lastModified = 
+                      host.download( artifact, tempFile, destination.lastModified() );
+                    if( null == lastModified )
+                    {
+                        return false;
+                    }
+                    replace( tempFile, destination );
+                    destination.setLastModified( lastModified.getTime() );
+                    return true;
+                }
+                catch( FileNotFoundException e )
+                {
+                    continue;
+                }
+                catch( IOException e )
+                {
+                    // offline or unreachable - retain the cached copy
+                    
+                    if( getLogger().isTraceEnabled() )
+                    {
+                        getLogger().trace( "unable to revalidate " + artifact + ": " + e );
+                    }
+                    return false;
+                }
+            }
+            return false;
+        }
+        finally
+        {
+            tempFile.delete();
+            m_validated.put( artifact, System.currentTimeMillis() );
+        }
+    }
+    
+    private boolean isRevalidationDue( Artifact artifact )
+    {
+        if( ( LINK_REVALIDATE < 0 ) || !"link".equals( artifact.getScheme() ) )
+        {
+            return false;
+        }
+        Long validated = m_validated.get( artifact );
+        if( null == validated )
+        {
+            return true;
+        }
+        return validated.longValue() + LINK_REVALIDATE * 1000 <= System.currentTimeMillis();
+    }
+    
+    private static FileLock tryLock( RandomAccessFile file )
+    {
+        // the lock region lies beyond the content so that writes through
+        // other file descriptors are not blocked on platforms with 
+        // mandatory locking
+        
+        try
+        {
+            return file.getChannel().tryLock( Long.MAX_VALUE - 1, 1, false );
+        }
+        catch( OverlappingFileLockException e )
+        {
+            return null;
+        }
+        catch( IOException e )
+        {
+            return null;
+        }
+    }
+    
+    private void release( RandomAccessFile file, FileLock lock )
+    {
+        try
+        {
+            lock.release();
+        }
+        catch( IOException e )
+        {
+            // closing the file releases the lock
+        }
+        try
+        {
+            file.close();
+        }
+        catch( IOException e )
+        {
+            getLogger().warn( "Unable to close cache lock file.", e );
+        }
+    }
+    
+   /**
+    * Replace a file with downloaded content.  The rename is an atomic 
+    * operation so there is no risk of a corrupted artifact.
+    * @param source the downloaded content
+    * @param destination the file to replace
+    * @exception IOException if the file cannot be replaced
+    */
+    private static void replace( File source, File destination ) throws IOException
+    {
+        if( source.renameTo( destination ) )
+        {
+            return;
+        }
+        destination.delete();
+        if( !source.renameTo( destination ) )
+        {
+            final String error = 
+              "Unable to move downloaded content [" + source + "] to [" + destination + "].";
+            throw new IOException( error );
+        }
+    }
+    
+   /**
+    * Verify downloaded content against the MD5 checksum published by
+    * the host.  Hosts that do not publish a checksum are not verified.
+    * @param host the remote host
+    * @param artifact the downloaded artifact
+    * @param digest the MD5 digest of the downloaded content
+    * @exception IOException if the checksum does not match
+    */
+    private void verifyChecksum( Host host, Artifact artifact, byte[] digest )
+        throws IOException
+    {
+        String expected = host.getChecksum( artifact, "md5" );
+        if( null == expected )
+        {
+            return;
+        }
+        String actual = BlobStore.toHex( digest );
+        if( !expected.equals( actual ) )
+        {
+            final String error = 
+              "Checksum mismatch for [" + artifact + "] from " + host 
+              + " (expected " + expected + " but received " + actual + ").";
+            throw new IOException( error );
+        }
+    }
+    
     private Monitor getMonitor()
     {
         return m_context.getMonitor();
@@ -523,21 +944,55 @@ class DefaultCacheHandler implements Cache, CacheManager
     }
 
    /** 
-    * Locates and if necessary downloads the artifact.
+    * Locates and if necessary downloads the artifact.  If another thread is
+    * already resolving the same artifact the invocation waits for and returns
+    * the result of that resolution.
     * @param artifact the Artifact to download and locate in the cache.
     * @return the File pointing to the artifact. The file may not exist if the
     *         download has failed.
     */
-    private File getResourceFile( Artifact artifact )
+    private File getResourceFile( final Artifact artifact )
         throws TransitException, IOException
     {
         if( null == artifact )
         {
             throw new NullPointerException( "artifact" );
         }
+        FutureTask<File> task = 
+          new FutureTask<File>( 
+            new Callable<File>()
+            {
+                public File call() throws Exception
+                {
+                    return resolveResourceFile( artifact );
+                }
+            } );
+        FutureTask<File> pending = m_pending.putIfAbsent( artifact, task );
+        if( null != pending )
+        {
+            if( getLogger().isTraceEnabled() )
+            {
+                getLogger().trace( "joining in-flight resolution of " + artifact );
+            }
+            return getResult( pending );
+        }
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            m_pending.remove( artifact, task );
+        }
+        return getResult( task );
+    }
+    
+    private File resolveResourceFile( Artifact artifact )
+        throws TransitException, IOException
+    {
         getMonitor().resourceRequested( artifact );
         
-        String path = m_layout.resolvePath( artifact );
+        String path = m_paths.resolvePath( artifact );
         File destination = new File( m_cacheDir, path );
         File parentDir = destination.getParentFile();
         parentDir.mkdirs();
@@ -546,6 +1001,10 @@ class DefaultCacheHandler implements Cache, CacheManager
         if( exist )
         {
             success = true;
+            if( isRevalidationDue( artifact ) && revalidate( artifact, destination ) )
+            {
+                getMonitor().updatedLocalCache( artifact.toURL(), destination );
+            }
         }
         else
         {
@@ -571,6 +1030,80 @@ class DefaultCacheHandler implements Cache, CacheManager
         return destination;
     }
 
+   /**
+    * Return the result of a resolution task rethrowing the original cause
+    * on failure.
+    * @param future the resolution task
+    * @return the resolved file
+    * @exception IOException if an IO error occured during resolution
+    * @exception TransitException if a transit system error occured during resolution
+    */
+    private File getResult( Future<File> future ) throws IOException, TransitException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            final String error = "Artifact resolution interrupted.";
+            throw new TransitException( error, e );
+        }
+        catch( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+            else if( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            else if( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            else
+            {
+                final String error = "Unexpected error during artifact resolution.";
+                throw new TransitException( error, cause );
+            }
+        }
+    }
+    
+    private synchronized ThreadPoolExecutor getExecutor()
+    {
+        if( null == m_executor )
+        {
+            int size = Math.max( 1, RESOLVER_THREADS );
+            m_executor = 
+              new ThreadPoolExecutor( 
+                size, size, RESOLVER_KEEP_ALIVE, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<Runnable>(), 
+                new ResolverThreadFactory() );
+            m_executor.allowCoreThreadTimeOut( true );
+        }
+        return m_executor;
+    }
+    
+   /**
+    * Thread factory used to create daemon resolver threads.
+    */
+    private static final class ResolverThreadFactory implements ThreadFactory
+    {
+        private int m_count = 0;
+        
+        public synchronized Thread newThread( Runnable runnable )
+        {
+            m_count++;
+            Thread thread = new Thread( runnable, "DPML Transit Resolver " + m_count );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
     // ------------------------------------------------------------------------
     // internals
     // ------------------------------------------------------------------------
@@ -23,30 +23,25 @@ import dpml.util.PropertyResolver;
 
 import dpml.transit.info.HostDirective;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
 import java.net.PasswordAuthentication;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Properties;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-
 import net.dpml.transit.Artifact;
 import net.dpml.transit.HostManager;
 import net.dpml.transit.Layout;
@@ -69,6 +64,25 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     {
         final File data = DATA; // static initialization
     }
+    
+   /**
+    * Time-to-live in seconds of cached positive presence check results.
+    */
+    private static final long PRESENCE_TTL = 
+      Long.getLong( "dpml.transit.presence.ttl", 3600 ).longValue();
+    
+   /**
+    * Time-to-live in seconds of cached negative presence check results.
+    */
+    private static final long ABSENCE_TTL = 
+      Long.getLong( "dpml.transit.absence.ttl", 60 ).longValue();
+    
+   /**
+    * Number of locks used to serialize downloads of an artifact.
+    */
+    private static final int LOCK_STRIPES = 
+      Integer.getInteger( "dpml.transit.host.locks", 64 ).intValue();
+    
     // ------------------------------------------------------------------------
     // state
     // ------------------------------------------------------------------------
@@ -79,16 +93,16 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     private HashSet<String> m_knownGroups = new HashSet<String>();
 
    /**
-    * The key is the Artifact one wants to lock against, and the value is an
-    * anonymously lock object.
+    * Locks against which downloads of an artifact are serialized.
     */
-    private HashMap<Artifact, Object> m_locks = new HashMap<Artifact, Object>();
+    private final LockStripes m_locks = new LockStripes( LOCK_STRIPES );
 
    /**
-    * Connections.
+    * Connection pool.
     */
-    private ConnectionCache m_connections;
+    private final HostConnectionPool m_pool;
     private Layout m_layout;
+    private LayoutCache m_urls;
     private HostDirective m_directive;
     private Logger m_logger;
     private String m_path;
@@ -97,6 +111,11 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     private RequestIdentifier m_identifier;
     
     private final Monitor m_monitor;
+    
+   /**
+    * Cache of remote presence check results.
+    */
+    private final PresenceCache m_presence;
 
     // ------------------------------------------------------------------------
     // constructor
@@ -119,7 +138,9 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         
         String layout = directive.getLayout();
         m_layout = Layout.getLayout( layout );
-        m_connections = ConnectionCache.getInstance();
+        m_pool = 
+          new HostConnectionPool( 
+            directive.getTrusted(), directive.getConnections(), directive.getIdle(), logger );
         
         String username = directive.getUsername();
         if( null != username )
@@ -135,6 +156,7 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         String id = directive.getID();
         m_path = resolveBaseValue( directive.getHost() );
         m_base = resolveBaseURL( id, m_path );
+        m_urls = new LayoutCache( m_layout, m_base );
         
         String scheme = directive.getScheme();
         String prompt = directive.getPrompt();
@@ -146,6 +168,8 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         
         String index = m_directive.getIndex();
         setGroups( id, m_base, index );
+        
+        m_presence = createPresenceCache( id, m_base );
     }
 
     // ------------------------------------------------------------------------
@@ -210,12 +234,20 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         Object lock = obtainLock( artifact );
         synchronized ( lock )
         {
-            NetworkLoader loader = new NetworkLoader( m_monitor );
             URL url = createRemoteUrl( artifact );
-            URLConnection connection;
-            synchronized ( m_connections )
+            if( "file".equals( url.getProtocol() ) && ( dest instanceof FileOutputStream ) )
             {
-                connection = m_connections.get( artifact );
+                // local transfers bypass the url connection and heap copy
+                
+                File source = toFile( url );
+                StreamUtils.copyFile( m_monitor, url, source, (FileOutputStream) dest );
+                return new Date( source.lastModified() );
+            }
+            NetworkLoader loader = new NetworkLoader( m_monitor, m_pool );
+            m_pool.acquire();
+            try
+            {
+                URLConnection connection = m_pool.take( artifact );
                 if( connection == null )
                 {
                     Logger log = getLogger().getChildLogger( "log" );
@@ -224,12 +256,148 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
                         String message = this + " - Info: Connection no longer in cache. Reconnecting.";
                         log.trace( message );
                     }
-                    URL remote = createRemoteUrl( artifact );
-                    connection = remote.openConnection();
+                    connection = m_pool.openConnection( url );
                     connection.connect();
                 }
+                return loader.loadResource( url, connection, dest );
+            }
+            catch( IOException e )
+            {
+                m_presence.invalidate( artifact );
+                throw e;
+            }
+            finally
+            {
+                m_pool.release();
+            }
+        }
+    }
+
+   /** 
+    * Downloads the given artifact to a file resuming a partial download
+    * where possible.
+    * 
+    * @param artifact the artifact that is requested to be downloaded
+    * @param file the destination file
+    * @param modifiedSince the modification time of a cached copy or zero
+    * @return the lastModified date of the downloaded artifact or null if the
+    *   artifact has not been modified
+    * @exception FileNotFoundException if the artifact does not exist on the host
+    * @exception IOException if an IO related error occurs
+    */
+    public Date download( Artifact artifact, File file, long modifiedSince )
+        throws IOException
+    {
+        Object lock = obtainLock( artifact );
+        synchronized ( lock )
+        {
+            URL url = createRemoteUrl( artifact );
+            if( "file".equals( url.getProtocol() ) )
+            {
+                File source = toFile( url );
+                if( !source.exists() )
+                {
+                    throw new FileNotFoundException( url.toString() );
+                }
+                long lastModified = source.lastModified();
+                if( ( modifiedSince > 0 ) && ( lastModified <= modifiedSince ) )
+                {
+                    return null;
+                }
+                FileOutputStream output = new FileOutputStream( file );
+                StreamUtils.copyFile( m_monitor, url, source, output );
+                return new Date( lastModified );
+            }
+            
+            // a cached connection holds an unconditional request for the
+            // complete resource and is only usable for a fresh download
+            
+            NetworkLoader loader = new NetworkLoader( m_monitor, m_pool );
+            m_pool.acquire();
+            try
+            {
+                URLConnection connection = m_pool.take( artifact );
+                if( ( file.length() > 0 ) || ( modifiedSince > 0 ) )
+                {
+                    HostConnectionPool.discard( connection );
+                    connection = null;
+                }
+                return loader.loadResource( url, connection, file, modifiedSince );
+            }
+            catch( IOException e )
+            {
+                m_presence.invalidate( artifact );
+                throw e;
+            }
+            finally
+            {
+                m_pool.release();
             }
-            return loader.loadResource( url, connection, dest );
+        }
+    }
+
+   /** 
+    * Return the checksum published by the host for an artifact.
+    *
+    * @param artifact the artifact
+    * @param extension the checksum file extension
+    * @return the lowercase hex checksum or null if the host does not publish one
+    * @exception IOException if an IO related error occurs
+    */
+    public String getChecksum( Artifact artifact, String extension )
+        throws IOException
+    {
+        URL remote = createRemoteUrl( artifact );
+        URL url = new URL( remote.toExternalForm() + "." + extension );
+        m_pool.acquire();
+        try
+        {
+            URLConnection connection = m_pool.openConnection( url );
+            if( connection instanceof HttpURLConnection )
+            {
+                int code = ( (HttpURLConnection) connection ).getResponseCode();
+                if( code != HttpURLConnection.HTTP_OK )
+                {
+                    HostConnectionPool.discard( connection );
+                    return null;
+                }
+            }
+            BufferedReader reader;
+            try
+            {
+                InputStream input = connection.getInputStream();
+                reader = new BufferedReader( new InputStreamReader( input, "ASCII" ) );
+            }
+            catch( FileNotFoundException e )
+            {
+                return null;
+            }
+            try
+            {
+                String line = reader.readLine();
+                if( null == line )
+                {
+                    return null;
+                }
+                
+                // checksum files may contain the filename following the digest
+                
+                String value = line.trim();
+                int n = value.indexOf( ' ' );
+                if( n > -1 )
+                {
+                    value = value.substring( 0, n );
+                }
+                return value.toLowerCase();
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        finally
+        {
+            m_pool.release();
         }
     }
 
@@ -318,6 +486,32 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     {
         return m_layout.getID();
     }
+    
+   /**
+    * Returns the number of presence checks answered from the presence cache.
+    * @return the presence cache hit count
+    */
+    public long getPresenceCacheHits()
+    {
+        return m_presence.getHitCount();
+    }
+    
+   /**
+    * Returns the number of presence checks that required a remote request.
+    * @return the presence cache miss count
+    */
+    public long getPresenceCacheMisses()
+    {
+        return m_presence.getMissCount();
+    }
+    
+   /**
+    * Clear the presence cache.
+    */
+    public void clearPresenceCache()
+    {
+        m_presence.clear();
+    }
 
     // ------------------------------------------------------------------------
     // implementation
@@ -374,27 +568,25 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
             String protocol = remote.getProtocol();
             if( protocol.startsWith( "file" ) )
             {
-                String path = remote.getPath();
-                File f = new File( path );
+                File f = toFile( remote );
                 return f.exists();
             }
             else
             {
-                return openRemoteConnection( artifact );
+                Boolean cached = m_presence.get( artifact );
+                if( null != cached )
+                {
+                    return cached.booleanValue();
+                }
+                boolean present = openRemoteConnection( artifact );
+                m_presence.put( artifact, present );
+                return present;
             }
         }
         catch( IOException e )
         {
             return false;
         }
-        catch( NoSuchAlgorithmException e )
-        {
-            return false;
-        }
-        catch( KeyManagementException e )
-        {
-            return false;
-        }
         catch( RuntimeException e )
         {
             return false;
@@ -408,29 +600,18 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     */
     private Object obtainLock( Artifact artifact )
     {
-        synchronized ( this )
-        {
-            Object lock = m_locks.get( artifact );
-            if( lock == null )
-            {
-                lock = new Object();
-                m_locks.put( artifact, lock );
-            }
-            return lock;
-        }
+        return m_locks.getLock( artifact );
     }
 
    /**
     * Open a remote connection relative to a supplied artifact.
     * @param artifact the artifact against which a connection will be established
     * @exception IOException if an IO error occurs
-    * @exception KeyManagementException if a key management error occurs
-    * @exception NoSuchAlgorithmException if no such algorithm exists?
     * @return true if the atrifact was found and could be opened, false if not
     *         available at this resource host.
     */
     private boolean openRemoteConnection( Artifact artifact )
-        throws IOException, KeyManagementException, NoSuchAlgorithmException
+        throws IOException
     {
         Logger log = getLogger().getChildLogger( "log" );
         if( log.isTraceEnabled() )
@@ -439,66 +620,50 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
             log.trace( message );
         }
         URL remote = createRemoteUrl( artifact );
-        URLConnection conn = remote.openConnection();
-        if( conn instanceof HttpsURLConnection )
+        m_pool.acquire();
+        try
         {
-            if( log.isTraceEnabled() )
-            {
-                String message = this + " - HTTPS connection opened.";
-                log.trace( message );
-            }
-            if( isTrusted() )
+            URLConnection conn = m_pool.openConnection( remote );
+            conn.connect();
+            if( conn instanceof HttpURLConnection )
             {
+                int code = ( (HttpURLConnection) conn ).getResponseCode();
                 if( log.isTraceEnabled() )
                 {
-                    String message = this + " - Using NullTrustManager.";
+                    String message = this + " - ResponseCode: " + code;
                     log.trace( message );
                 }
-                HttpsURLConnection ssl = (HttpsURLConnection) conn;
-                TrustManager nullTrustManager = new NullTrustManager();
-                SSLContext ctx = SSLContext.getInstance( "SSLv3" );
-                ctx.init( null, new TrustManager[]{nullTrustManager}, null );
-                if( log.isTraceEnabled() )
+                if( code != HttpURLConnection.HTTP_OK )
                 {
-                    String message = this + " - Setting SSLv3 socket factory.";
-                    log.trace( message );
+                    // consume the error response so the socket can be reused
+                    
+                    HostConnectionPool.discard( conn );
+                }
+                if( code == HttpURLConnection.HTTP_UNAUTHORIZED )
+                {
+                    throw new IOException( "Unauthorized request." );
+                }
+                else if( code == HttpURLConnection.HTTP_NOT_FOUND )
+                {
+                    return false;
+                }
+                else if( code != HttpURLConnection.HTTP_OK )
+                {
+                    throw new IOException( "Unexpected Result: " + code );
                 }
-                SSLSocketFactory factory = ctx.getSocketFactory();
-                ssl.setSSLSocketFactory( factory );
             }
-        }
-        conn.connect();
-        if( conn instanceof HttpURLConnection )
-        {
-            int code = ( (HttpURLConnection) conn ).getResponseCode();
             if( log.isTraceEnabled() )
             {
-                String message = this + " - ResponseCode: " + code;
+                String message = this + " - caching connection: " + conn;
                 log.trace( message );
             }
-            if( code == HttpURLConnection.HTTP_UNAUTHORIZED )
-            {
-                throw new IOException( "Unauthorized request." );
-            }
-            else if( code == HttpURLConnection.HTTP_NOT_FOUND )
-            {
-                return false;
-            }
-            else if( code != HttpURLConnection.HTTP_OK )
-            {
-                throw new IOException( "Unexpected Result: " + code );
-            }
+            m_pool.put( artifact, conn );
+            return true;
         }
-        synchronized ( m_connections )
+        finally
         {
-            if( log.isTraceEnabled() )
-            {
-                String message = this + " - caching connection: " + conn;
-                log.trace( message );
-            }
-            m_connections.put( artifact, conn );
+            m_pool.release();
         }
-        return true;
     }
 
    /**
@@ -511,10 +676,7 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
     private URL createRemoteUrl( Artifact artifact )
         throws MalformedURLException
     {
-        String path = m_layout.resolvePath( artifact );
-        URL base = getURL();
-        URL url = new URL( base, path );
-        return url;
+        return m_urls.resolveURL( artifact );
     }
 
    /**
@@ -593,64 +755,6 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         return new RequestIdentifier( host, port, protocol, scheme, prompt );
     }
 
-   /**
-    * A null trust manager that will accept any certificate. I.e. this
-    * class performs NO TRUST MANAGEMENT and simply serves as a mechanism
-    * through which https connections can be established with the same notion
-    * of trust as a http connection (i.e. none).
-    */
-    private static final class NullTrustManager
-        implements X509TrustManager
-    {
-       /**
-        * Empty certificate sequence.
-        */
-        private static final X509Certificate[] EMPTY_CERTS = new X509Certificate[0];
-
-       /**
-        * Null implementation.
-        * @param certs the supplied certs (ignored)
-        * @param authType the supplied type (ignored)
-        */
-        public void checkServerTrusted( final X509Certificate[] certs, final String authType )
-        {
-            //PrintWriter log = Transit.getInstance().getLogWriter();
-            //log.println( "NullTrustManager:  authType=" + authType );
-            //log.println( "Server Certificates" );
-            //log.println( "-------------------" );
-            //for( int i=0; i < certs.length; i++ )
-            //{
-            //    log.println( "   " + certs[ i ] );
-            //}
-        }
-
-       /**
-        * Null implementation.
-        * @param certs the supplied certs (ignored)
-        * @param authType the supplied type (ignored)
-        */
-        public void checkClientTrusted( final X509Certificate[] certs, final String authType )
-        {
-            //PrintWriter log = Transit.getInstance().getLogWriter();
-            //log.println( "NullTrustManager:  authType=" + authType );
-            //log.println( "Client Certificates" );
-            //log.println( "-------------------" );
-            //for( int i=0; i < certs.length; i++ )
-            //{
-            //    log.println( "   " + certs[ i ] );
-            //}
-        }
-
-       /**
-        * Null implementation.
-        * @return an empty certificate array
-        */
-        public X509Certificate[] getAcceptedIssuers()
-        {
-            return EMPTY_CERTS;
-        }
-    }
-
    /**
     * Return a set of known groups froma host.
     * @param href the host against which the request is to be made
@@ -753,6 +857,49 @@ class DefaultResourceHost implements Host, HostManager, Comparable<Host>
         }
     }
 
+   /**
+    * Convert a file url to a file decoding any escaped characters.
+    * @param url the file url
+    * @return the file
+    */
+    private static File toFile( URL url )
+    {
+        try
+        {
+            return new File( url.toURI() );
+        }
+        catch( URISyntaxException e )
+        {
+            return new File( url.getPath() ); // unescaped url
+        }
+        catch( IllegalArgumentException e )
+        {
+            return new File( url.getPath() ); // url with an authority
+        }
+    }
+    
+   /**
+    * Create the presence cache for a host.  Presence checks against file based
+    * hosts are not cached and the cache is disabled if the configured 
+    * time-to-live is not positive.
+    * @param id the host id
+    * @param base the host base url
+    * @return the presence cache
+    */
+    private static PresenceCache createPresenceCache( String id, URL base )
+    {
+        if( ( PRESENCE_TTL <= 0 ) || "file".equals( base.getProtocol() ) )
+        {
+            return new PresenceCache( null, 0, 0 );
+        }
+        File dir = new File( DATA, "hosts" );
+        File file = new File( dir, id + ".presence" );
+        PresenceCache cache = 
+          new PresenceCache( file, PRESENCE_TTL * 1000, ABSENCE_TTL * 1000 );
+        cache.saveOnExit();
+        return cache;
+    }
+    
     private static URL getDefaultHostURL()
     {
         try
@@ -19,6 +19,7 @@
 
 package dpml.transit;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.IOException;
@@ -51,6 +52,37 @@ public interface Host
     Date download( Artifact artifact, OutputStream dest )
         throws IOException;
 
+   /** 
+    * Downloads the given artifact to a file.  If the file contains the partial
+    * content of an earlier failed download the host may resume the transfer
+    * from the end of the existing content.  If <tt>modifiedSince</tt> is greater
+    * than zero the request is conditional and the file is left unchanged if the
+    * artifact has not been modified since the supplied time.
+    * 
+    * @param artifact the artifact that is requested to be downloaded
+    * @param file the destination file
+    * @param modifiedSince the modification time of a cached copy or zero
+    * @return the lastModified date of the downloaded artifact or null if the
+    *   artifact has not been modified
+    * @exception java.io.FileNotFoundException if the artifact does not exist on the host
+    * @exception IOException if an IO related error occurs
+    */
+    Date download( Artifact artifact, File file, long modifiedSince )
+        throws IOException;
+
+   /** 
+    * Return the checksum published by the host for an artifact.  The checksum
+    * is read from a sidecar resource named after the artifact with the
+    * supplied extension (e.g. <tt>md5</tt>).
+    *
+    * @param artifact the artifact
+    * @param extension the checksum file extension
+    * @return the lowercase hex checksum or null if the host does not publish one
+    * @exception IOException if an IO related error occurs
+    */
+    String getChecksum( Artifact artifact, String extension )
+        throws IOException;
+
    /** 
     * Uploads the given file to the resource host as an artifact.
     *
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import net.dpml.transit.Artifact;
+import net.dpml.util.Logger;
+
+/**
+ * Connection pool maintained by a resource host.  The pool bounds the number
+ * of concurrent requests against the host and holds the responses of presence
+ * checks so that a subsequent download can consume the response without a
+ * further request.  Responses are consumed and closed rather than disconnected
+ * so that the underlying socket is returned to the keep-alive cache and reused
+ * by later requests against the same host.  Connections to trusted https hosts
+ * share a single socket factory so that TLS sessions are resumed across
+ * requests.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class HostConnectionPool implements Runnable
+{
+    private static final int PAUSE_DELAY = 10000;
+    
+   /**
+    * Maximum number of bytes read from a discarded response.  Larger responses
+    * are disconnected as reading them would cost more than a new connection.
+    */
+    private static final int DRAIN_LIMIT = 
+      Integer.getInteger( "dpml.transit.drain", 65536 ).intValue();
+
+    private final Logger m_logger;
+    private final boolean m_trusted;
+    private final long m_timeToLive;
+    private final Semaphore m_permits;
+    private final HashMap<Artifact, Entry> m_store = new HashMap<Artifact, Entry>();
+    private Thread m_thread;
+
+   /**
+    * Creation of a new connection pool.
+    * @param trusted true if certificates presented by the host are trusted
+    * @param connections the maximum number of concurrent requests
+    * @param idle the idle time in seconds after which an unconsumed response is closed
+    * @param logger the assigned logger
+    */
+    HostConnectionPool( boolean trusted, int connections, int idle, Logger logger )
+    {
+        m_logger = logger;
+        m_trusted = trusted;
+        m_timeToLive = Math.max( 0, idle ) * 1000L;
+        m_permits = new Semaphore( Math.max( 1, connections ), true );
+    }
+
+   /**
+    * Acquire a request permit waiting if the maximum number of concurrent
+    * requests against the host are in progress.
+    * @exception InterruptedIOException if interrupted while waiting
+    */
+    void acquire() throws InterruptedIOException
+    {
+        try
+        {
+            m_permits.acquire();
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for a connection." );
+        }
+    }
+
+   /**
+    * Acquire a request permit if one is immediately available.
+    * @return true if a permit was acquired
+    */
+    boolean tryAcquire()
+    {
+        return m_permits.tryAcquire();
+    }
+
+   /**
+    * Release a request permit.
+    */
+    void release()
+    {
+        m_permits.release();
+    }
+
+   /**
+    * Open a connection to a url on the host.  The connection is not connected.
+    * @param url the url
+    * @return the url connection
+    * @exception IOException if an IO error occurs
+    */
+    URLConnection openConnection( URL url ) throws IOException
+    {
+        URLConnection connection = url.openConnection();
+        if( m_trusted && ( connection instanceof HttpsURLConnection ) )
+        {
+            HttpsURLConnection ssl = (HttpsURLConnection) connection;
+            ssl.setSSLSocketFactory( TrustedSocketFactory.TRUSTED_FACTORY );
+        }
+        return connection;
+    }
+
+   /**
+    * Hold the unconsumed response of a connection against an artifact.
+    * Any response already held for the artifact is discarded.
+    * @param key the artifact
+    * @param connection the connected url connection
+    */
+    void put( Artifact key, URLConnection connection )
+    {
+        Entry previous;
+        synchronized( this )
+        {
+            previous = m_store.put( key, new Entry( connection, m_timeToLive ) );
+            if( m_thread == null )
+            {
+                m_thread = new Thread( this, "DPML Transit Connection Pool Cleaner" );
+                m_thread.setDaemon( true );
+                m_thread.start();
+            }
+        }
+        if( null != previous )
+        {
+            discard( previous.m_connection );
+        }
+    }
+
+   /**
+    * Remove and return the unconsumed response held for an artifact.
+    * @param key the artifact
+    * @return the connection or null if no response is held
+    */
+    URLConnection take( Artifact key )
+    {
+        Entry entry;
+        synchronized( this )
+        {
+            entry = m_store.remove( key );
+        }
+        if( null == entry )
+        {
+            return null;
+        }
+        return entry.m_connection;
+    }
+
+   /**
+    * Discard the response of a connection.  A response body of up to 
+    * <tt>dpml.transit.drain</tt> bytes is read and closed allowing the 
+    * underlying socket to be returned to the keep-alive cache.  Larger
+    * responses are disconnected.
+    * @param connection the connection (may be null)
+    */
+    static void discard( URLConnection connection )
+    {
+        if( null == connection )
+        {
+            return;
+        }
+        try
+        {
+            InputStream input = null;
+            if( connection instanceof HttpURLConnection )
+            {
+                HttpURLConnection http = (HttpURLConnection) connection;
+                if( http.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST )
+                {
+                    input = http.getErrorStream();
+                }
+                else
+                {
+                    input = http.getInputStream();
+                }
+            }
+            else
+            {
+                input = connection.getInputStream();
+            }
+            if( null != input )
+            {
+                drain( connection, input );
+            }
+        }
+        catch( IOException e )
+        {
+            if( connection instanceof HttpURLConnection )
+            {
+                ( (HttpURLConnection) connection ).disconnect();
+            }
+        }
+    }
+
+   /**
+    * Read and close the remainder of a response body.
+    * @param connection the connection
+    * @param input the response body
+    * @exception IOException if an IO error occurs
+    */
+    private static void drain( URLConnection connection, InputStream input ) throws IOException
+    {
+        try
+        {
+            byte[] buffer = new byte[ 4096 ];
+            int count = 0;
+            int n = input.read( buffer );
+            while( n != -1 )
+            {
+                count = count + n;
+                if( count > DRAIN_LIMIT )
+                {
+                    if( connection instanceof HttpURLConnection )
+                    {
+                        ( (HttpURLConnection) connection ).disconnect();
+                    }
+                    return;
+                }
+                n = input.read( buffer );
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+   /**
+    * Close held responses that have exceeded the idle timeout.
+    */
+    public void run()
+    {
+        while( true )
+        {
+            try
+            {
+                ArrayList<URLConnection> expired = new ArrayList<URLConnection>();
+                synchronized( this )
+                {
+                    long now = System.currentTimeMillis();
+                    Iterator<Entry> list = m_store.values().iterator();
+                    while( list.hasNext() )
+                    {
+                        Entry entry = list.next();
+                        if( entry.m_collectTime < now )
+                        {
+                            expired.add( entry.m_connection );
+                            list.remove();
+                        }
+                    }
+                    if( m_store.size() == 0 )
+                    {
+                        m_thread = null;
+                    }
+                }
+
+                // close responses outside of the pool lock
+
+                for( URLConnection connection : expired )
+                {
+                    discard( connection );
+                }
+                synchronized( this )
+                {
+                    if( null == m_thread )
+                    {
+                        break;
+                    }
+                    wait( Math.min( PAUSE_DELAY, Math.max( 1000, m_timeToLive ) ) );
+                }
+            }
+            catch( Exception e )
+            {
+                // handled in the next round
+                
+                m_logger.warn( "Connection pool maintenance failure.", e );
+            }
+        }
+    }
+
+   /**
+    * Holder of the socket factory shared by connections to trusted hosts.  The
+    * factory is established on first use by a trusted https connection.
+    */
+    private static final class TrustedSocketFactory
+    {
+        private static final SSLSocketFactory TRUSTED_FACTORY = newTrustedSocketFactory();
+        
+        private static SSLSocketFactory newTrustedSocketFactory()
+        {
+            try
+            {
+                SSLContext context = SSLContext.getInstance( "TLS" );
+                context.init( null, new TrustManager[]{new NullTrustManager()}, null );
+                return context.getSocketFactory();
+            }
+            catch( GeneralSecurityException e )
+            {
+                throw new ExceptionInInitializerError( e );
+            }
+        }
+    }
+
+   /**
+    * Internal class used for held responses.
+    */
+    private static final class Entry
+    {
+        private final URLConnection m_connection;
+        private final long m_collectTime;
+
+        Entry( URLConnection connection, long ttl )
+        {
+            m_connection = connection;
+            m_collectTime = System.currentTimeMillis() + ttl;
+        }
+    }
+
+   /**
+    * A null trust manager that will accept any certificate. I.e. this
+    * class performs NO TRUST MANAGEMENT and simply serves as a mechanism
+    * through which https connections can be established with the same notion
+    * of trust as a http connection (i.e. none).
+    */
+    private static final class NullTrustManager
+        implements X509TrustManager
+    {
+       /**
+        * Empty certificate sequence.
+        */
+        private static final X509Certificate[] EMPTY_CERTS = new X509Certificate[0];
+
+       /**
+        * Null implementation.
+        * @param certs the supplied certs (ignored)
+        * @param authType the supplied type (ignored)
+        */
+        public void checkServerTrusted( final X509Certificate[] certs, final String authType )
+        {
+        }
+
+       /**
+        * Null implementation.
+        * @param certs the supplied certs (ignored)
+        * @param authType the supplied type (ignored)
+        */
+        public void checkClientTrusted( final X509Certificate[] certs, final String authType )
+        {
+        }
+
+       /**
+        * Null implementation.
+        * @return an empty certificate array
+        */
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return EMPTY_CERTS;
+        }
+    }
+}
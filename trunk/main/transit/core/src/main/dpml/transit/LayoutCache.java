@@ -0,0 +1,123 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Layout;
+
+/**
+ * Memoization of the paths and remote urls resolved by a layout.  Results
+ * are only cached if the layout declares itself as cacheable.  The cache is
+ * bounded and is cleared when the maximum number of entries is exceeded.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class LayoutCache
+{
+    private static final int MAXIMUM_ENTRIES =
+      Integer.getInteger( "dpml.transit.layout.cache", 4096 ).intValue();
+
+    private final Layout m_layout;
+    private final URL m_base;
+    private final boolean m_cacheable;
+    private final ConcurrentHashMap<Artifact, String> m_paths =
+      new ConcurrentHashMap<Artifact, String>();
+    private final ConcurrentHashMap<Artifact, URL> m_urls =
+      new ConcurrentHashMap<Artifact, URL>();
+
+   /**
+    * Creation of a new layout cache.
+    * @param layout the layout
+    * @param base the base url against which remote urls are resolved (may be null)
+    */
+    LayoutCache( Layout layout, URL base )
+    {
+        m_layout = layout;
+        m_base = base;
+        m_cacheable = ( MAXIMUM_ENTRIES > 0 ) && layout.isCacheable();
+    }
+
+   /**
+    * Return the layout.
+    * @return the layout
+    */
+    Layout getLayout()
+    {
+        return m_layout;
+    }
+
+   /**
+    * Return the path of an artifact relative to a logical root directory.
+    * @param artifact the artifact
+    * @return the artifact path
+    */
+    String resolvePath( Artifact artifact )
+    {
+        if( !m_cacheable )
+        {
+            return m_layout.resolvePath( artifact );
+        }
+        String path = m_paths.get( artifact );
+        if( null == path )
+        {
+            path = m_layout.resolvePath( artifact );
+            put( m_paths, artifact, path );
+        }
+        return path;
+    }
+
+   /**
+    * Return the url of an artifact relative to the base url.
+    * @param artifact the artifact
+    * @return the artifact url
+    * @exception MalformedURLException if the artifact path is not resolvable to a url
+    */
+    URL resolveURL( Artifact artifact ) throws MalformedURLException
+    {
+        if( null == m_base )
+        {
+            throw new IllegalStateException( "base" );
+        }
+        if( !m_cacheable )
+        {
+            return new URL( m_base, m_layout.resolvePath( artifact ) );
+        }
+        URL url = m_urls.get( artifact );
+        if( null == url )
+        {
+            url = new URL( m_base, resolvePath( artifact ) );
+            put( m_urls, artifact, url );
+        }
+        return url;
+    }
+
+    private static <T> void put( ConcurrentHashMap<Artifact, T> map, Artifact artifact, T value )
+    {
+        if( map.size() >= MAXIMUM_ENTRIES )
+        {
+            map.clear();
+        }
+        map.put( artifact, value );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+/**
+ * Fixed table of lock objects selected by key hash.  Equal keys always map
+ * to the same lock while distinct keys are spread across the table so that
+ * unrelated operations rarely contend.  The table is allocated once and does
+ * not grow with the number of keys.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class LockStripes
+{
+    private final Object[] m_locks;
+    private final int m_mask;
+
+   /**
+    * Creation of a new lock table.
+    * @param count the requested number of locks (rounded up to a power of two)
+    */
+    LockStripes( int count )
+    {
+        int size = 1;
+        while( size < count )
+        {
+            size = size << 1;
+        }
+        m_locks = new Object[ size ];
+        for( int i=0; i < size; i++ )
+        {
+            m_locks[i] = new Object();
+        }
+        m_mask = size - 1;
+    }
+
+   /**
+    * Return the lock assigned to a key.
+    * @param key the key
+    * @return the lock
+    */
+    Object getLock( Object key )
+    {
+        return m_locks[ spread( key.hashCode() ) & m_mask ];
+    }
+
+   /**
+    * Return the number of locks in the table.
+    * @return the lock count
+    */
+    int size()
+    {
+        return m_locks.length;
+    }
+
+   /**
+    * Spread the bits of a hash code so that keys differing only in their
+    * high order bits are assigned different locks.
+    */
+    private static int spread( int hash )
+    {
+        int h = hash;
+        h ^= ( h >>> 20 ) ^ ( h >>> 12 );
+        return h ^ ( h >>> 7 ) ^ ( h >>> 4 );
+    }
+}
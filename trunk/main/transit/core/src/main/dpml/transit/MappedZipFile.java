@@ -0,0 +1,410 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only zip file backed by a memory mapped buffer.  Entry content is
+ * read directly from the mapped file without an intermediate copy through
+ * a file descriptor.  Zip64 archives are not supported and raise a
+ * <tt>ZipException</tt> during construction.  Entry names are decoded as 
+ * UTF-8 if the language encoding flag is set and as IBM437 otherwise.  The
+ * caller is responsible for closing the file only after all streams 
+ * returned from it have been closed as the mapping is released on close.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+final class MappedZipFile
+{
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_HEADER_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final String UTF8 = "UTF-8";
+    private static final String LEGACY = "IBM437";
+
+    private final String m_name;
+    private final ByteBuffer m_buffer;
+    private final HashMap<String, MappedEntry> m_entries;
+    
+    private volatile boolean m_closed = false;
+
+   /**
+    * Creation of a new mapped zip file.
+    * @param file the zip file
+    * @exception ZipException if the file is not a supported zip file
+    * @exception IOException if an IO error occurs
+    */
+    MappedZipFile( File file ) throws IOException
+    {
+        m_name = file.getPath();
+        RandomAccessFile random = new RandomAccessFile( file, "r" );
+        try
+        {
+            FileChannel channel = random.getChannel();
+            long size = channel.size();
+            if( size > Integer.MAX_VALUE )
+            {
+                throw new ZipException( "File too large to map: " + file );
+            }
+            ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            buffer.order( ByteOrder.LITTLE_ENDIAN );
+            m_buffer = buffer;
+        }
+        finally
+        {
+            random.close(); // the mapping remains valid after close
+        }
+        m_entries = readCentralDirectory( m_buffer );
+    }
+
+   /**
+    * Return an input stream to the content of the named entry.
+    * @param name the entry name
+    * @return the input stream or null if the entry does not exist
+    * @exception IOException if an IO error occurs
+    */
+    InputStream getInputStream( String name ) throws IOException
+    {
+        if( m_closed )
+        {
+            throw new ZipException( "Zip file closed: " + m_name );
+        }
+        MappedEntry entry = m_entries.get( name );
+        if( null == entry )
+        {
+            return null;
+        }
+        ByteBuffer buffer = m_buffer.duplicate();
+        buffer.order( ByteOrder.LITTLE_ENDIAN );
+        int offset = entry.m_offset;
+        if( buffer.getInt( offset ) != LOCAL_SIGNATURE )
+        {
+            throw new ZipException( "Invalid local header for [" + name + "] in " + m_name );
+        }
+        int nameLength = buffer.getShort( offset + 26 ) & 0xFFFF;
+        int extraLength = buffer.getShort( offset + 28 ) & 0xFFFF;
+        int start = offset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+        buffer.limit( start + entry.m_compressedSize );
+        buffer.position( start );
+        InputStream input = new BufferInputStream( buffer.slice() );
+        if( STORED == entry.m_method )
+        {
+            return input;
+        }
+        else if( DEFLATED == entry.m_method )
+        {
+            return new EntryInflaterInputStream( input );
+        }
+        else
+        {
+            throw new ZipException(
+              "Unsupported compression method [" + entry.m_method
+              + "] for [" + name + "] in " + m_name );
+        }
+    }
+
+   /**
+    * Release the mapped buffer.  If the platform does not support explicit
+    * release the mapping is released when the buffer is garbage collected.
+    */
+    void close()
+    {
+        synchronized( this )
+        {
+            if( m_closed )
+            {
+                return;
+            }
+            m_closed = true;
+        }
+        m_entries.clear();
+        unmap( m_buffer );
+    }
+
+   /**
+    * Return a string representation of the file.
+    * @return the file name
+    */
+    public String toString()
+    {
+        return m_name;
+    }
+
+    private static HashMap<String, MappedEntry> readCentralDirectory( ByteBuffer buffer )
+        throws ZipException
+    {
+        int end = findEndHeader( buffer );
+        int count = buffer.getShort( end + 10 ) & 0xFFFF;
+        long offset = buffer.getInt( end + 16 ) & 0xFFFFFFFFL;
+        if( ( count == 0xFFFF ) || ( offset == 0xFFFFFFFFL ) )
+        {
+            throw new ZipException( "Zip64 archives are not supported." );
+        }
+        HashMap<String, MappedEntry> entries = new HashMap<String, MappedEntry>( count * 2 );
+        int position = (int) offset;
+        for( int i=0; i < count; i++ )
+        {
+            if( buffer.getInt( position ) != CENTRAL_SIGNATURE )
+            {
+                throw new ZipException( "Invalid central directory header." );
+            }
+            int flags = buffer.getShort( position + 8 ) & 0xFFFF;
+            int method = buffer.getShort( position + 10 ) & 0xFFFF;
+            long compressed = buffer.getInt( position + 20 ) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort( position + 28 ) & 0xFFFF;
+            int extraLength = buffer.getShort( position + 30 ) & 0xFFFF;
+            int commentLength = buffer.getShort( position + 32 ) & 0xFFFF;
+            long local = buffer.getInt( position + 42 ) & 0xFFFFFFFFL;
+            if( ( compressed == 0xFFFFFFFFL ) || ( local == 0xFFFFFFFFL ) )
+            {
+                throw new ZipException( "Zip64 archives are not supported." );
+            }
+            byte[] bytes = new byte[ nameLength ];
+            ByteBuffer names = buffer.duplicate();
+            names.position( position + CENTRAL_HEADER_SIZE );
+            names.get( bytes );
+            String name = decodeName( bytes, ( flags & UTF8_FLAG ) != 0 );
+            entries.put( name, new MappedEntry( method, (int) compressed, (int) local ) );
+            position = position + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static int findEndHeader( ByteBuffer buffer ) throws ZipException
+    {
+        int last = buffer.limit() - END_HEADER_SIZE;
+        int first = Math.max( 0, last - MAX_COMMENT_SIZE );
+        for( int i=last; i >= first; i-- )
+        {
+            if( buffer.getInt( i ) == END_SIGNATURE )
+            {
+                return i;
+            }
+        }
+        throw new ZipException( "End of central directory not found." );
+    }
+
+    private static String decodeName( byte[] bytes, boolean utf8 )
+    {
+        try
+        {
+            return new String( bytes, utf8 ? UTF8 : LEGACY );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            try
+            {
+                return new String( bytes, "ISO-8859-1" ); // IBM437 is optional
+            }
+            catch( UnsupportedEncodingException uee )
+            {
+                throw new InternalError( uee.toString() ); // can not happen
+            }
+        }
+    }
+    
+   /**
+    * Release a mapped buffer using the platform specific cleaner.  The
+    * buffer must not be accessed after this method returns.
+    * @param buffer the mapped buffer
+    */
+    private static void unmap( ByteBuffer buffer )
+    {
+        try
+        {
+            Class<?> c = Class.forName( "sun.misc.Unsafe" );
+            try
+            {
+                Method method = c.getMethod( "invokeCleaner", ByteBuffer.class );
+                Field field = c.getDeclaredField( "theUnsafe" );
+                field.setAccessible( true );
+                method.invoke( field.get( null ), buffer );
+            }
+            catch( NoSuchMethodException e )
+            {
+                // pre Java 9 direct buffers expose a cleaner
+                
+                Method method = buffer.getClass().getMethod( "cleaner" );
+                method.setAccessible( true );
+                Object cleaner = method.invoke( buffer );
+                if( null != cleaner )
+                {
+                    cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+                }
+            }
+        }
+        catch( Exception e )
+        {
+            // the mapping will be released when the buffer is collected
+        }
+    }
+
+   /**
+    * Central directory information for an entry.
+    */
+    private static final class MappedEntry
+    {
+        private final int m_method;
+        private final int m_compressedSize;
+        private final int m_offset;
+
+        MappedEntry( int method, int compressedSize, int offset )
+        {
+            m_method = method;
+            m_compressedSize = compressedSize;
+            m_offset = offset;
+        }
+    }
+
+   /**
+    * Input stream reading from a byte buffer.
+    */
+    private static final class BufferInputStream extends InputStream
+    {
+        private final ByteBuffer m_buffer;
+        private boolean m_closed = false;
+
+        BufferInputStream( ByteBuffer buffer )
+        {
+            m_buffer = buffer;
+        }
+
+        public int read() throws IOException
+        {
+            checkOpen();
+            if( !m_buffer.hasRemaining() )
+            {
+                return -1;
+            }
+            return m_buffer.get() & 0xFF;
+        }
+
+        public int read( byte[] bytes, int offset, int length ) throws IOException
+        {
+            checkOpen();
+            if( length == 0 )
+            {
+                return 0;
+            }
+            int remaining = m_buffer.remaining();
+            if( remaining == 0 )
+            {
+                return -1;
+            }
+            int n = Math.min( length, remaining );
+            m_buffer.get( bytes, offset, n );
+            return n;
+        }
+
+        public long skip( long n ) throws IOException
+        {
+            checkOpen();
+            int count = (int) Math.min( Math.max( n, 0 ), m_buffer.remaining() );
+            m_buffer.position( m_buffer.position() + count );
+            return count;
+        }
+
+        public int available() throws IOException
+        {
+            checkOpen();
+            return m_buffer.remaining();
+        }
+        
+       /**
+        * Prevent access to the mapped buffer once closed as the buffer
+        * may be unmapped.
+        */
+        public void close()
+        {
+            m_closed = true;
+        }
+        
+        private void checkOpen() throws IOException
+        {
+            if( m_closed )
+            {
+                throw new IOException( "Stream closed." );
+            }
+        }
+    }
+
+   /**
+    * Inflater stream that supplies the trailing dummy byte required by
+    * the inflater in nowrap mode and releases the inflater on close.
+    */
+    private static final class EntryInflaterInputStream extends InflaterInputStream
+    {
+        private boolean m_eof = false;
+        private boolean m_closed = false;
+
+        EntryInflaterInputStream( InputStream input )
+        {
+            super( input, new Inflater( true ), 8192 );
+        }
+
+        protected void fill() throws IOException
+        {
+            if( m_eof )
+            {
+                throw new EOFException( "Unexpected end of ZLIB input stream" );
+            }
+            len = in.read( buf, 0, buf.length );
+            if( len == -1 )
+            {
+                buf[0] = 0;
+                len = 1;
+                m_eof = true;
+            }
+            inf.setInput( buf, 0, len );
+        }
+
+        public void close() throws IOException
+        {
+            if( !m_closed )
+            {
+                m_closed = true;
+                inf.end();
+                super.close();
+            }
+        }
+    }
+}
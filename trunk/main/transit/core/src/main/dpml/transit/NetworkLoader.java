@@ -18,13 +18,23 @@
 
 package dpml.transit;
 
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import net.dpml.transit.ArtifactException;
 import net.dpml.transit.Monitor;
@@ -38,25 +48,96 @@ import net.dpml.transit.TransitException;
  */
 class NetworkLoader
 {
+   /**
+    * Content length at or above which a download is split into
+    * parallel ranged segments.
+    */
+    private static final long SEGMENT_THRESHOLD =
+      Long.getLong( "dpml.transit.segment.threshold", 32 * 1024 * 1024 ).longValue();
+
+   /**
+    * Number of parallel segments used for large downloads.
+    */
+    private static final int SEGMENT_COUNT =
+      Integer.getInteger( "dpml.transit.segment.count", 4 ).intValue();
+
+   /**
+    * HTTP partial content response code.
+    */
+    private static final int HTTP_PARTIAL = 206;
+
+   /**
+    * HTTP range not satisfiable response code.
+    */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final int BUFFER_SIZE = 65536;
+
    /**
     * Network monitor router.
     */
     private Monitor m_monitor;
-    
+
+   /**
+    * Connection pool of the host (may be null).
+    */
+    private final HostConnectionPool m_pool;
+
+    private final long m_threshold;
+    private final int m_segments;
+
    /**
     * Creation of a new network loader.
+    * @param monitor the network monitor
     * @exception TransitException if an error in transit system establishment occurs
     */
     public NetworkLoader( Monitor monitor )
         throws TransitException
+    {
+        this( monitor, null, SEGMENT_THRESHOLD, SEGMENT_COUNT );
+    }
+
+   /**
+    * Creation of a new network loader opening connections through a host
+    * connection pool.
+    * @param monitor the network monitor
+    * @param pool the host connection pool
+    */
+    NetworkLoader( Monitor monitor, HostConnectionPool pool )
+    {
+        this( monitor, pool, SEGMENT_THRESHOLD, SEGMENT_COUNT );
+    }
+
+   /**
+    * Creation of a new network loader.
+    * @param monitor the network monitor
+    * @param threshold the content length at or above which downloads are segmented
+    * @param segments the number of parallel segments
+    */
+    NetworkLoader( Monitor monitor, long threshold, int segments )
+    {
+        this( monitor, null, threshold, segments );
+    }
+
+   /**
+    * Creation of a new network loader.
+    * @param monitor the network monitor
+    * @param pool the host connection pool (may be null)
+    * @param threshold the content length at or above which downloads are segmented
+    * @param segments the number of parallel segments
+    */
+    NetworkLoader( Monitor monitor, HostConnectionPool pool, long threshold, int segments )
     {
         m_monitor = monitor;
+        m_pool = pool;
+        m_threshold = threshold;
+        m_segments = segments;
     }
 
     // ------------------------------------------------------------------------
     // implementation
     // ------------------------------------------------------------------------
-   
+
    /**
     * Retrieve a remote resource.
     *
@@ -80,11 +161,447 @@ class NetworkLoader
                 throw new IOException( "Not authorized." );
             }
         }
-        
+
         InputStream in = connection.getInputStream();
         int expected = connection.getContentLength();
         StreamUtils.copyStream( m_monitor, url, expected, in, destination, true );
         long remoteTimestamp = connection.getLastModified();
         return new Date( remoteTimestamp );
     }
+
+   /**
+    * Retrieve a remote resource into a file.  If the file contains the
+    * partial content of an earlier failed download and the server supports
+    * ranged requests the download resumes from the end of the existing content.
+    * If the supplied modification time is greater than zero the request is
+    * conditional and null is returned if the remote resource has not changed.
+    * If a download fails the partial content is retained for resumption if the
+    * server supplied a modification time with which the content can later be
+    * validated.
+    *
+    * @param url the of the file to retrieve
+    * @param connection an optional established connection for an unconditional
+    *   request of the complete resource (may be null)
+    * @param file the destination file
+    * @param modifiedSince the modification time of a locally cached copy or zero
+    * @return the lastModified date of the downloaded resource or null if the
+    *   resource has not been modified
+    * @exception FileNotFoundException if the remote resource does not exist
+    * @exception IOException if an IO error occurs
+    */
+    Date loadResource( URL url, URLConnection connection, File file, long modifiedSince )
+        throws IOException
+    {
+        long offset = file.length();
+        if( ( null == connection ) || ( offset > 0 ) || ( modifiedSince > 0 ) )
+        {
+            connection = openConnection( url, file, offset, modifiedSince );
+        }
+        if( !( connection instanceof HttpURLConnection ) )
+        {
+            InputStream in = connection.getInputStream();
+            int expected = connection.getContentLength();
+            OutputStream out = new FileOutputStream( file );
+            StreamUtils.copyStream( m_monitor, url, expected, in, out, true );
+            return new Date( connection.getLastModified() );
+        }
+
+        HttpURLConnection http = (HttpURLConnection) connection;
+        int code = http.getResponseCode();
+        if( code == HttpURLConnection.HTTP_UNAUTHORIZED )
+        {
+            throw new IOException( "Not authorized." );
+        }
+        else if( code == HttpURLConnection.HTTP_NOT_MODIFIED )
+        {
+            http.disconnect();
+            return null;
+        }
+        else if( code == HttpURLConnection.HTTP_NOT_FOUND )
+        {
+            throw new FileNotFoundException( url.toString() );
+        }
+        else if( code == HTTP_RANGE_NOT_SATISFIABLE )
+        {
+            // the partial content does not match the remote resource
+
+            http.disconnect();
+            truncate( file );
+            return loadResource( url, null, file, modifiedSince );
+        }
+        else if( code == HTTP_PARTIAL )
+        {
+            if( getRangeStart( http ) != offset )
+            {
+                http.disconnect();
+                truncate( file );
+                throw new IOException( "Unexpected content range returned from: " + url );
+            }
+        }
+        else if( code == HttpURLConnection.HTTP_OK )
+        {
+            offset = 0;
+        }
+        else
+        {
+            throw new IOException( "Unexpected Result: " + code );
+        }
+
+        long lastModified = http.getLastModified();
+        long length = http.getContentLength();
+        boolean ranged = "bytes".equalsIgnoreCase( http.getHeaderField( "Accept-Ranges" ) );
+        if( ( offset == 0 ) && ranged && ( m_segments > 1 ) && ( length >= m_threshold ) )
+        {
+            // additional segments are limited to the connections available 
+            // within the host connection pool
+
+            int permits = acquirePermits( m_segments - 1 );
+            if( permits > 0 )
+            {
+                try
+                {
+                    loadSegments( url, http, file, length, permits + 1 );
+                }
+                finally
+                {
+                    releasePermits( permits );
+                }
+                return new Date( lastModified );
+            }
+        }
+
+        InputStream in = http.getInputStream();
+        int expected = (int) Math.min( length + offset, Integer.MAX_VALUE );
+        OutputStream out = new FileOutputStream( file, offset > 0 );
+        try
+        {
+            StreamUtils.copyStream( m_monitor, url, expected, in, out, true );
+        }
+        catch( IOException e )
+        {
+            retain( file, lastModified );
+            throw e;
+        }
+        return new Date( lastModified );
+    }
+
+    private HttpURLConnection openRangeConnection(
+      URL url, long start, long end, String validator ) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) open( url );
+        connection.setRequestProperty( "Range", "bytes=" + start + "-" + end );
+        if( null != validator )
+        {
+            connection.setRequestProperty( "If-Range", validator );
+        }
+        connection.connect();
+        return connection;
+    }
+
+    private URLConnection open( URL url ) throws IOException
+    {
+        if( null != m_pool )
+        {
+            return m_pool.openConnection( url );
+        }
+        else
+        {
+            return url.openConnection();
+        }
+    }
+
+    private URLConnection openConnection( URL url, File file, long offset, long modifiedSince )
+        throws IOException
+    {
+        URLConnection connection = open( url );
+        if( connection instanceof HttpURLConnection )
+        {
+            if( offset > 0 )
+            {
+                connection.setRequestProperty( "Range", "bytes=" + offset + "-" );
+                connection.setRequestProperty( "If-Range", formatDate( file.lastModified() ) );
+            }
+            if( modifiedSince > 0 )
+            {
+                connection.setIfModifiedSince( modifiedSince );
+            }
+        }
+        else if( modifiedSince > 0 )
+        {
+            connection.setIfModifiedSince( modifiedSince );
+        }
+        connection.connect();
+        return connection;
+    }
+
+   /**
+    * Download a resource as a set of parallel ranged segments.  The first
+    * segment is read from the initial response and the remaining segments
+    * are requested concurrently.
+    */
+    private void loadSegments( URL url, HttpURLConnection first, File file, long length, int count )
+        throws IOException
+    {
+        String validator = first.getHeaderField( "ETag" );
+        if( null == validator )
+        {
+            validator = first.getHeaderField( "Last-Modified" );
+        }
+        int expected = (int) Math.min( length, Integer.MAX_VALUE );
+        if( null != m_monitor )
+        {
+            m_monitor.notifyUpdate( url, expected, 0 );
+        }
+        RandomAccessFile output = new RandomAccessFile( file, "rw" );
+        boolean complete = false;
+        try
+        {
+            output.setLength( length );
+            FileChannel channel = output.getChannel();
+            long size = ( length + count - 1 ) / count;
+            Segment[] segments = new Segment[ count - 1 ];
+            for( int i=0; i < segments.length; i++ )
+            {
+                long start = size * ( i + 1 );
+                long end = Math.min( start + size, length ) - 1;
+                segments[i] = new Segment( url, validator, channel, start, end );
+                segments[i].start();
+            }
+            try
+            {
+                InputStream in = first.getInputStream();
+                try
+                {
+                    copySegment( in, channel, 0, Math.min( size, length ) );
+                }
+                finally
+                {
+                    first.disconnect();
+                }
+            }
+            finally
+            {
+                for( Segment segment : segments )
+                {
+                    segment.join( url );
+                }
+            }
+            for( Segment segment : segments )
+            {
+                segment.check();
+            }
+            complete = true;
+        }
+        finally
+        {
+            if( !complete )
+            {
+                output.setLength( 0 ); // segmented content cannot be resumed
+            }
+            output.close();
+            if( null != m_monitor )
+            {
+                if( complete )
+                {
+                    m_monitor.notifyUpdate( url, expected, expected );
+                }
+                m_monitor.notifyCompletion( url );
+            }
+        }
+    }
+
+    private int acquirePermits( int count )
+    {
+        if( null == m_pool )
+        {
+            return count;
+        }
+        int n = 0;
+        while( ( n < count ) && m_pool.tryAcquire() )
+        {
+            n++;
+        }
+        return n;
+    }
+
+    private void releasePermits( int count )
+    {
+        if( null == m_pool )
+        {
+            return;
+        }
+        for( int i=0; i < count; i++ )
+        {
+            m_pool.release();
+        }
+    }
+
+    private static void copySegment( InputStream in, FileChannel channel, long position, long length )
+        throws IOException
+    {
+        byte[] buffer = new byte[ BUFFER_SIZE ];
+        long remaining = length;
+        long index = position;
+        while( remaining > 0 )
+        {
+            int n = in.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+            if( n < 0 )
+            {
+                throw new EOFException( "Premature end of segment content." );
+            }
+            ByteBuffer bytes = ByteBuffer.wrap( buffer, 0, n );
+            while( bytes.hasRemaining() )
+            {
+                index = index + channel.write( bytes, index );
+            }
+            remaining = remaining - n;
+        }
+    }
+
+   /**
+    * Return the first byte position of a partial content response.
+    */
+    private static long getRangeStart( HttpURLConnection connection )
+    {
+        String range = connection.getHeaderField( "Content-Range" );
+        if( null == range )
+        {
+            return -1;
+        }
+        int space = range.indexOf( ' ' );
+        int dash = range.indexOf( '-' );
+        if( ( space < 0 ) || ( dash < space ) )
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong( range.substring( space + 1, dash ).trim() );
+        }
+        catch( NumberFormatException e )
+        {
+            return -1;
+        }
+    }
+
+   /**
+    * Retain partial content following a failed download.  The file modification
+    * time is set to the remote modification time so that a later resumption can
+    * be validated.  Content without a remote modification time is discarded.
+    */
+    private static void retain( File file, long lastModified )
+    {
+        if( lastModified > 0 )
+        {
+            file.setLastModified( lastModified );
+        }
+        else
+        {
+            truncate( file );
+        }
+    }
+
+    private static void truncate( File file )
+    {
+        try
+        {
+            new FileOutputStream( file ).close();
+        }
+        catch( IOException e )
+        {
+            file.delete();
+        }
+    }
+
+    private static String formatDate( long time )
+    {
+        SimpleDateFormat format =
+          new SimpleDateFormat( "EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US );
+        format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+        return format.format( new Date( time ) );
+    }
+
+   /**
+    * Thread retrieving a single ranged segment.
+    */
+    private final class Segment extends Thread
+    {
+        private final URL m_url;
+        private final String m_validator;
+        private final FileChannel m_channel;
+        private final long m_start;
+        private final long m_end;
+        private IOException m_error;
+
+        Segment( URL url, String validator, FileChannel channel, long start, long end )
+        {
+            super( "DPML Transit Segment " + start + "-" + end );
+            setDaemon( true );
+            m_url = url;
+            m_validator = validator;
+            m_channel = channel;
+            m_start = start;
+            m_end = end;
+        }
+
+        public void run()
+        {
+            try
+            {
+                HttpURLConnection connection =
+                  openRangeConnection( m_url, m_start, m_end, m_validator );
+                try
+                {
+                    int code = connection.getResponseCode();
+                    if( ( code != HTTP_PARTIAL ) || ( getRangeStart( connection ) != m_start ) )
+                    {
+                        throw new IOException(
+                          "Ranged request rejected by server (" + code + "): " + m_url );
+                    }
+                    InputStream in = connection.getInputStream();
+                    try
+                    {
+                        copySegment( in, m_channel, m_start, m_end - m_start + 1 );
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+                finally
+                {
+                    connection.disconnect();
+                }
+            }
+            catch( IOException e )
+            {
+                m_error = e;
+            }
+            catch( RuntimeException e )
+            {
+                m_error = new IOException( e.toString() );
+            }
+        }
+
+        void join( URL url ) throws IOException
+        {
+            try
+            {
+                join();
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted while downloading: " + url );
+            }
+        }
+
+        void check() throws IOException
+        {
+            if( null != m_error )
+            {
+                throw m_error;
+            }
+        }
+    }
 }
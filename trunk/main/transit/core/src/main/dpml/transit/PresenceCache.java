@@ -0,0 +1,326 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Cache of the presence or absence of artifacts on a remote host.  Entries
+ * expire after a fixed time-to-live and positive entries are persisted
+ * so that a new JVM does not repeat the same remote presence checks.  
+ * Negative entries use a separate (normally much shorter) time-to-live and 
+ * are never persisted so that a newly published artifact is picked up 
+ * promptly.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+class PresenceCache
+{
+    private static final String PRESENT = "+";
+    
+    private static final Set<PresenceCache> PERSISTENT = 
+      Collections.newSetFromMap( new WeakHashMap<PresenceCache, Boolean>() );
+    
+    private static boolean m_HOOK = false;
+
+    private final ConcurrentHashMap<String, Entry> m_store =
+      new ConcurrentHashMap<String, Entry>();
+    private final AtomicLong m_hits = new AtomicLong();
+    private final AtomicLong m_misses = new AtomicLong();
+    private final File m_file;
+    private final long m_timeToLive;
+    private final long m_negativeTimeToLive;
+
+    private volatile boolean m_modified = false;
+
+   /**
+    * Creation of a new presence cache.
+    * @param file the file used to persist the cache (may be null)
+    * @param ttl the positive entry time-to-live in milliseconds
+    * @param negativeTtl the negative entry time-to-live in milliseconds
+    */
+    PresenceCache( File file, long ttl, long negativeTtl )
+    {
+        m_file = file;
+        m_timeToLive = ttl;
+        m_negativeTimeToLive = negativeTtl;
+        load();
+    }
+    
+   /**
+    * Register the cache for saving when the JVM exits.  A single shutdown 
+    * hook is shared by all registered caches.
+    */
+    void saveOnExit()
+    {
+        if( null == m_file )
+        {
+            return;
+        }
+        synchronized( PERSISTENT )
+        {
+            PERSISTENT.add( this );
+            if( !m_HOOK )
+            {
+                m_HOOK = true;
+                Runtime.getRuntime().addShutdownHook( 
+                  new Thread( "DPML Transit Presence Cache" )
+                  {
+                      public void run()
+                      {
+                          saveAll();
+                      }
+                  }
+                );
+            }
+        }
+    }
+    
+    private static void saveAll()
+    {
+        PresenceCache[] caches;
+        synchronized( PERSISTENT )
+        {
+            caches = PERSISTENT.toArray( new PresenceCache[ PERSISTENT.size() ] );
+        }
+        for( PresenceCache cache : caches )
+        {
+            cache.save();
+        }
+    }
+
+   /**
+    * Return the cached presence of an artifact.
+    * @param artifact the artifact
+    * @return TRUE if present, FALSE if absent or null if unknown or expired
+    */
+    Boolean get( Artifact artifact )
+    {
+        String key = artifact.toString();
+        Entry entry = m_store.get( key );
+        if( null == entry )
+        {
+            m_misses.incrementAndGet();
+            return null;
+        }
+        else if( entry.m_expires < System.currentTimeMillis() )
+        {
+            m_store.remove( key, entry );
+            m_modified = true;
+            m_misses.incrementAndGet();
+            return null;
+        }
+        else
+        {
+            m_hits.incrementAndGet();
+            return Boolean.valueOf( entry.m_present );
+        }
+    }
+
+   /**
+    * Record the presence of an artifact.
+    * @param artifact the artifact
+    * @param present TRUE if the artifact is present on the host
+    */
+    void put( Artifact artifact, boolean present )
+    {
+        long ttl = present ? m_timeToLive : m_negativeTimeToLive;
+        if( ttl <= 0 )
+        {
+            invalidate( artifact );
+            return;
+        }
+        long expires = System.currentTimeMillis() + ttl;
+        m_store.put( artifact.toString(), new Entry( present, expires ) );
+        if( present )
+        {
+            m_modified = true;
+        }
+    }
+
+   /**
+    * Remove any cached presence information for an artifact.
+    * @param artifact the artifact
+    */
+    void invalidate( Artifact artifact )
+    {
+        if( null != m_store.remove( artifact.toString() ) )
+        {
+            m_modified = true;
+        }
+    }
+
+   /**
+    * Remove all cached entries.
+    */
+    void clear()
+    {
+        m_store.clear();
+        m_modified = true;
+    }
+
+   /**
+    * Return the number of lookups answered from the cache.
+    * @return the hit count
+    */
+    long getHitCount()
+    {
+        return m_hits.get();
+    }
+
+   /**
+    * Return the number of lookups not answered from the cache.
+    * @return the miss count
+    */
+    long getMissCount()
+    {
+        return m_misses.get();
+    }
+
+   /**
+    * Return the number of cached entries.
+    * @return the entry count
+    */
+    int size()
+    {
+        return m_store.size();
+    }
+
+   /**
+    * Write unexpired positive entries to the cache file.
+    */
+    synchronized void save()
+    {
+        if( ( null == m_file ) || !m_modified )
+        {
+            return;
+        }
+        m_modified = false;
+        long now = System.currentTimeMillis();
+        Properties properties = new Properties();
+        for( Map.Entry<String, Entry> e : m_store.entrySet() )
+        {
+            Entry entry = e.getValue();
+            if( entry.m_present && ( entry.m_expires > now ) )
+            {
+                properties.setProperty( e.getKey(), PRESENT + entry.m_expires );
+            }
+        }
+        try
+        {
+            File dir = m_file.getParentFile();
+            dir.mkdirs();
+            File temp = File.createTempFile( "~dpml", ".tmp", dir );
+            OutputStream output = new FileOutputStream( temp );
+            try
+            {
+                properties.store( output, "Transit host presence cache." );
+            }
+            finally
+            {
+                output.close();
+            }
+            m_file.delete();
+            if( !temp.renameTo( m_file ) )
+            {
+                temp.delete();
+            }
+        }
+        catch( IOException e )
+        {
+            // the cache is an optimization only
+        }
+    }
+
+    private void load()
+    {
+        if( ( null == m_file ) || !m_file.exists() )
+        {
+            return;
+        }
+        Properties properties = new Properties();
+        try
+        {
+            InputStream input = new FileInputStream( m_file );
+            try
+            {
+                properties.load( input );
+            }
+            finally
+            {
+                input.close();
+            }
+        }
+        catch( IOException e )
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for( String key : properties.stringPropertyNames() )
+        {
+            String value = properties.getProperty( key );
+            if( ( value.length() < 2 ) || !value.startsWith( PRESENT ) )
+            {
+                continue; // negative entries from older releases are ignored
+            }
+            try
+            {
+                long expires = Long.parseLong( value.substring( 1 ) );
+                if( expires > now )
+                {
+                    m_store.put( key, new Entry( true, expires ) );
+                }
+            }
+            catch( NumberFormatException e )
+            {
+                // ignore corrupt entry
+            }
+        }
+    }
+
+   /**
+    * Internal class that maintains a cache entry.
+    */
+    private static final class Entry
+    {
+        private final boolean m_present;
+        private final long m_expires;
+
+        Entry( boolean present, long expires )
+        {
+            m_present = present;
+            m_expires = expires;
+        }
+    }
+}
@@ -18,14 +18,17 @@
 
 package dpml.transit;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
 import java.net.URL;
 
+import java.nio.channels.FileChannel;
+
 import net.dpml.transit.Monitor;
 
 /**
@@ -47,6 +50,23 @@ public final class StreamUtils
     */
     private static final int BUFFER_SIZE = 102400;
 
+   /**
+    * Maximum number of bytes moved in a single channel transfer.
+    */
+    private static final long TRANSFER_SIZE = 8 * 1024 * 1024;
+
+   /**
+    * Minimum number of bytes between monitor progress notifications.
+    */
+    private static final int UPDATE_BYTES = 
+      Integer.getInteger( "dpml.transit.monitor.bytes", 1048576 ).intValue();
+
+   /**
+    * Minimum number of milliseconds between monitor progress notifications.
+    */
+    private static final long UPDATE_INTERVAL = 
+      Long.getLong( "dpml.transit.monitor.interval", 250 ).longValue();
+
    /** 
     * Copy a stream.
     * @param src the source input stream
@@ -91,30 +111,21 @@ public final class StreamUtils
         int length;
         int count = 0; // cumulative total read
         byte[] buffer = new byte[BUFFER_SIZE];
-        if( !( dest instanceof BufferedOutputStream ) )
-        {
-            dest = new BufferedOutputStream( dest );
-        }
-        if( !( src instanceof BufferedInputStream ) )
-        {
-            src = new BufferedInputStream( src );
-        }
+        Progress progress = new Progress( monitor, source, expected );
+
+        // the copy buffer is large enough that wrapping the source or 
+        // destination in buffered streams only adds an extra copy
 
         try
         {
-            if( null != monitor )
-            {
-                monitor.notifyUpdate( source, expected, 0 );
-            }
+            progress.start();
             while( ( length = src.read( buffer ) ) >= 0 )
             {
                 count = count + length;
                 dest.write( buffer, 0, length );
-                if( null != monitor )
-                {
-                    monitor.notifyUpdate( source, expected, count );
-                }
+                progress.update( count );
             }
+            dest.flush();
         }
         finally
         {
@@ -137,11 +148,111 @@ public final class StreamUtils
                     e.printStackTrace();
                 }
             }
-            if( null != monitor )
+            progress.complete( count );
+        }
+    }
+
+   /** 
+    * Copy a file.  Any existing destination file is removed (rather than 
+    * overwritten in place) and the content is transferred using file channels
+    * without copying through a heap buffer.  The last modified time of the 
+    * destination is set to the last modified time of the source.
+    *
+    * @param src the source file
+    * @param dest the destination file
+    * @exception IOException if an IO error occurs
+    * @exception NullPointerException if src or destination are null
+    */
+    public static void copyFile( File src, File dest )
+      throws IOException, NullPointerException
+    {
+        if( src == null )
+        {
+            throw new NullPointerException( "src" );
+        }
+        if( dest == null )
+        {
+            throw new NullPointerException( "dest" );
+        }
+        dest.delete();
+        copyFile( null, null, src, new FileOutputStream( dest ) );
+        dest.setLastModified( src.lastModified() );
+    }
+
+   /** 
+    * Copy a file to a file output stream using file channels.  The 
+    * destination stream is closed on completion.
+    *
+    * @param monitor optional network monitor to log updates
+    * @param source the source url
+    * @param src the source file
+    * @param dest the destination output stream
+    * @exception IOException if an IO error occurs
+    * @exception NullPointerException if src or destination are null
+    */
+    public static void copyFile( 
+      Monitor monitor, URL source, File src, FileOutputStream dest )
+      throws IOException, NullPointerException
+    {
+        if( src == null )
+        {
+            throw new NullPointerException( "src" );
+        }
+        if( dest == null )
+        {
+            throw new NullPointerException( "dest" );
+        }
+        
+        long count = 0;
+        long size = src.length();
+        int expected = (int) Math.min( size, Integer.MAX_VALUE );
+        Progress progress = new Progress( monitor, source, expected );
+        FileInputStream input = null;
+        try
+        {
+            input = new FileInputStream( src );
+            FileChannel in = input.getChannel();
+            FileChannel out = dest.getChannel();
+            size = in.size();
+            progress.start();
+            while( count < size )
             {
-                monitor.notifyCompletion( source );
+                long n = Math.min( TRANSFER_SIZE, size - count );
+                long transferred = in.transferTo( count, n, out );
+                if( transferred <= 0 )
+                {
+                    final String error = 
+                      "Source file [" + src + "] truncated during copy at " 
+                      + count + " of " + size + " bytes.";
+                    throw new IOException( error );
+                }
+                count = count + transferred;
+                progress.update( (int) Math.min( count, Integer.MAX_VALUE ) );
             }
         }
+        finally
+        {
+            if( null != input )
+            {
+                try
+                {
+                    input.close();
+                }
+                catch( Throwable e )
+                {
+                    e.printStackTrace();
+                }
+            }
+            try
+            {
+                dest.close();
+            }
+            catch( Throwable e )
+            {
+                e.printStackTrace();
+            }
+            progress.complete( (int) Math.min( count, Integer.MAX_VALUE ) );
+        }
     }
 
    /**
@@ -170,4 +281,75 @@ public final class StreamUtils
         } while( true );
         return result;
     }
+
+   /**
+    * Coalesces monitor progress notifications so that a monitor is updated
+    * at most once per <tt>dpml.transit.monitor.bytes</tt> bytes or 
+    * <tt>dpml.transit.monitor.interval</tt> milliseconds, whichever is reached 
+    * first.
+    */
+    private static final class Progress
+    {
+        private final Monitor m_monitor;
+        private final URL m_source;
+        private final int m_expected;
+        private int m_count = 0;
+        private long m_time = 0;
+
+        Progress( Monitor monitor, URL source, int expected )
+        {
+            m_monitor = monitor;
+            m_source = source;
+            m_expected = expected;
+        }
+
+        void start()
+        {
+            if( null != m_monitor )
+            {
+                m_time = System.currentTimeMillis();
+                m_monitor.notifyUpdate( m_source, m_expected, 0 );
+            }
+        }
+
+        void update( int count )
+        {
+            if( null == m_monitor )
+            {
+                return;
+            }
+            if( ( count - m_count ) >= UPDATE_BYTES )
+            {
+                publish( count, System.currentTimeMillis() );
+            }
+            else
+            {
+                long now = System.currentTimeMillis();
+                if( ( now - m_time ) >= UPDATE_INTERVAL )
+                {
+                    publish( count, now );
+                }
+            }
+        }
+
+        void complete( int count )
+        {
+            if( null == m_monitor )
+            {
+                return;
+            }
+            if( count != m_count )
+            {
+                m_monitor.notifyUpdate( m_source, m_expected, count );
+            }
+            m_monitor.notifyCompletion( m_source );
+        }
+
+        private void publish( int count, long now )
+        {
+            m_count = count;
+            m_time = now;
+            m_monitor.notifyUpdate( m_source, m_expected, count );
+        }
+    }
 }
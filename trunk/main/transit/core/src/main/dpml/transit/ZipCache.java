@@ -18,25 +18,52 @@
 
 package dpml.transit;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
-
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 import net.dpml.transit.Artifact;
 
 /**
- * Internal cache.
+ * Internal cache of open zip files.  The cache is bounded by both the number
+ * of open files and their aggregate size and evicts the least recently used
+ * entry when either bound is exceeded.  Entries are reference counted so that
+ * a file is only closed once all streams opened against it have been closed.
+ * Files larger than the <tt>dpml.transit.zip.mmap</tt> threshold (in bytes)
+ * are read through a memory mapped buffer.
+ *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
 class ZipCache implements Runnable
 {
-    private static final int TIME_TO_LIVE = 30000;
+    private static final long TIME_TO_LIVE =
+      Long.getLong( "dpml.transit.zip.ttl", 30 ).longValue() * 1000;
+    private static final int MAX_ENTRIES =
+      Integer.getInteger( "dpml.transit.zip.entries", 64 ).intValue();
+    private static final long MAX_SIZE =
+      Long.getLong( "dpml.transit.zip.size", 256 ).longValue() * 1024 * 1024;
+    private static final long MMAP_THRESHOLD =
+      Long.getLong( "dpml.transit.zip.mmap", -1 ).longValue();
     private static final int DELAY = 10000;
 
-    private HashMap<Artifact, Entry> m_store;
-    private long m_timeToLive;
+    private final LinkedHashMap<Artifact, Entry> m_store;
+    private final int m_maxEntries;
+    private final long m_maxSize;
+    private final long m_mmapThreshold;
+    private final AtomicLong m_hits = new AtomicLong();
+    private final AtomicLong m_misses = new AtomicLong();
+    private final AtomicLong m_evictions = new AtomicLong();
+    private long m_size = 0;
     private Thread m_thread;
 
    /**
@@ -44,37 +71,156 @@ class ZipCache implements Runnable
     */
     ZipCache()
     {
-        m_store = new HashMap<Artifact, Entry>();
-        m_timeToLive = TIME_TO_LIVE;
+        this( MAX_ENTRIES, MAX_SIZE, MMAP_THRESHOLD );
     }
 
-    ZipFile get( Artifact key )
+   /**
+    * Creation of a zip cache with explicit bounds.
+    * @param entries the maximum number of open files
+    * @param size the maximum aggregate size of open files in bytes
+    * @param threshold the minimum size of a file read through a memory 
+    *   mapped buffer or a negative value to disable mapping
+    */
+    ZipCache( int entries, long size, long threshold )
     {
-        synchronized( this ) // ensure no ConcurrentModificationException can occur.
+        m_store = new LinkedHashMap<Artifact, Entry>( 16, 0.75f, true );
+        m_maxEntries = entries;
+        m_maxSize = size;
+        m_mmapThreshold = threshold;
+    }
+
+   /**
+    * Return an input stream to an entry within a cached zip file.  The
+    * zip file will not be closed before the returned stream is closed.
+    * @param key the artifact identifying the zip file
+    * @param file the local zip file
+    * @param name the entry name
+    * @return the entry input stream
+    * @exception FileNotFoundException if the entry does not exist
+    * @exception IOException if an IO error occurs
+    */
+    InputStream getInputStream( Artifact key, File file, String name ) throws IOException
+    {
+        Entry entry = acquire( key, file );
+        try
         {
-            Entry entry = (Entry) m_store.get( key );
-            if( entry == null )
+            InputStream stream = entry.openStream( name );
+            if( null == stream )
             {
-                return null;
+                entry.release();
+                final String error =
+                  "Entry [" + name + "] not found in [" + file + "].";
+                throw new FileNotFoundException( error );
             }
-            ZipFile zip = entry.m_file;
-            return zip;
+            return new EntryInputStream( stream, entry );
+        }
+        catch( IOException e )
+        {
+            entry.release();
+            throw e;
         }
+        catch( RuntimeException e )
+        {
+            entry.release();
+            throw e;
+        }
+    }
+
+   /**
+    * Return the number of requests satisfied by an open zip file.
+    * @return the hit count
+    */
+    long getHitCount()
+    {
+        return m_hits.get();
+    }
+
+   /**
+    * Return the number of requests that required a zip file to be opened.
+    * @return the miss count
+    */
+    long getMissCount()
+    {
+        return m_misses.get();
+    }
+
+   /**
+    * Return the number of zip files evicted due to the cache bounds.
+    * @return the eviction count
+    */
+    long getEvictionCount()
+    {
+        return m_evictions.get();
     }
 
-    void put( Artifact key, ZipFile file )
+    private Entry acquire( Artifact key, File file ) throws IOException
     {
-        synchronized( this ) // ensure no ConcurrentModificationException can occur.
+        synchronized( this )
         {
-            Entry entry = new Entry( file );
-            m_store.put( key, entry );
-            if( m_thread == null )
+            Entry entry = m_store.get( key );
+            if( null != entry )
             {
-                m_thread = new Thread( this, "DPML Transit Zip Cache Cleaner" );
-                m_thread.setDaemon( true );
-                m_thread.start();
+                m_hits.incrementAndGet();
+                entry.acquire();
+                return entry;
             }
         }
+
+        // open the file outside of the lock and resolve any race with a
+        // concurrent open of the same file afterwards
+
+        m_misses.incrementAndGet();
+        Entry created = new Entry( file, m_mmapThreshold );
+        ArrayList<Entry> evicted = new ArrayList<Entry>();
+        Entry result;
+        synchronized( this )
+        {
+            Entry existing = m_store.get( key );
+            if( null != existing )
+            {
+                existing.acquire();
+                evicted.add( created );
+                result = existing;
+            }
+            else
+            {
+                created.acquire();
+                m_store.put( key, created );
+                m_size = m_size + created.m_length;
+                evictOverflow( evicted );
+                if( m_thread == null )
+                {
+                    m_thread = new Thread( this, "DPML Transit Zip Cache Cleaner" );
+                    m_thread.setDaemon( true );
+                    m_thread.start();
+                }
+                result = created;
+            }
+        }
+        for( Entry entry : evicted )
+        {
+            entry.evict();
+        }
+        return result;
+    }
+
+   /**
+    * Remove least recently used entries until the cache is within bounds.
+    * The most recently added entry is always retained.
+    * @param evicted list to which removed entries are added
+    */
+    private void evictOverflow( ArrayList<Entry> evicted )
+    {
+        Iterator<Entry> iterator = m_store.values().iterator();
+        while( ( m_store.size() > 1 )
+          && ( ( m_store.size() > m_maxEntries ) || ( m_size > m_maxSize ) ) )
+        {
+            Entry entry = iterator.next();
+            iterator.remove();
+            m_size = m_size - entry.m_length;
+            m_evictions.incrementAndGet();
+            evicted.add( entry );
+        }
     }
 
    /**
@@ -86,22 +232,37 @@ class ZipCache implements Runnable
         {
             try
             {
+                ArrayList<Entry> expired = new ArrayList<Entry>();
                 synchronized( this )
                 {
                     long now = System.currentTimeMillis();
-                    Iterator list = m_store.values().iterator();
+                    Iterator<Entry> list = m_store.values().iterator();
                     while( list.hasNext() )
                     {
-                        Entry entry = (Entry) list.next();
-                        if( entry.m_collectTime < now )
+                        Entry entry = list.next();
+                        if( entry.isIdle( now ) )
                         {
-                            entry.m_file.close();
                             list.remove();
+                            m_size = m_size - entry.m_length;
+                            expired.add( entry );
                         }
                     }
                     if( m_store.size() == 0 )
                     {
                         m_thread = null;
+                    }
+                }
+
+                // close files outside of the cache lock
+
+                for( Entry entry : expired )
+                {
+                    entry.evict();
+                }
+                synchronized( this )
+                {
+                    if( null == m_thread )
+                    {
                         break;
                     }
                     wait( DELAY );
@@ -117,55 +278,127 @@ class ZipCache implements Runnable
     }
 
    /**
-    * Internal class that maintains a cache entry.
+    * Internal class that maintains a reference counted cache entry.
     */
-    class Entry
+    private static final class Entry
     {
-        private ZipFile  m_file;
-        private long     m_collectTime;
+        private final ZipFile m_file;
+        private final MappedZipFile m_mapped;
+        private final long m_length;
+        private int m_references = 0;
+        private boolean m_evicted = false;
+        private boolean m_closed = false;
+        private long m_lastAccess;
 
        /**
         * Creation of a new zip cache entry.
-        * @param file the zip file to cache
+        * @param file the zip file to open
+        * @param threshold the memory mapping threshold
+        * @exception IOException if the file could not be opened
         */
-        Entry( ZipFile file )
+        Entry( File file, long threshold ) throws IOException
         {
-            m_file = file;
-            m_collectTime = System.currentTimeMillis() + m_timeToLive;
+            m_length = file.length();
+            m_lastAccess = System.currentTimeMillis();
+            MappedZipFile mapped = null;
+            if( ( threshold >= 0 ) && ( m_length >= threshold ) )
+            {
+                try
+                {
+                    mapped = new MappedZipFile( file );
+                }
+                catch( ZipException e )
+                {
+                    mapped = null; // unsupported format - fall back to ZipFile
+                }
+            }
+            if( null != mapped )
+            {
+                m_mapped = mapped;
+                m_file = null;
+            }
+            else
+            {
+                m_mapped = null;
+                m_file = new ZipFile( file );
+            }
         }
 
-       /**
-        * Test this objexct for equality with another.
-        * @param obj the other object
-        * @return the equaility status
-        */
-        public boolean equals( Object obj )
+        InputStream openStream( String name ) throws IOException
         {
-            if( obj == null )
+            if( null != m_mapped )
             {
-                return false;
+                return m_mapped.getInputStream( name );
             }
-            if( !obj.getClass().equals( Entry.class ) )
+            ZipEntry entry = m_file.getEntry( name );
+            if( null == entry )
             {
-                return false;
+                return null;
             }
-            Entry other = (Entry) obj;
+            return m_file.getInputStream( entry );
+        }
 
-            if( !m_file.equals( other.m_file ) )
+        synchronized void acquire()
+        {
+            m_references++;
+            m_lastAccess = System.currentTimeMillis();
+        }
+
+        void release()
+        {
+            synchronized( this )
             {
-                return false;
+                m_references--;
+                m_lastAccess = System.currentTimeMillis();
+                if( !m_evicted || ( m_references > 0 ) || m_closed )
+                {
+                    return;
+                }
+                m_closed = true;
             }
+            close();
+        }
 
-            return true;
+        synchronized boolean isIdle( long now )
+        {
+            return ( m_references == 0 ) && ( m_lastAccess + TIME_TO_LIVE < now );
         }
 
        /**
-        * Retun the instance hashcode.
-        * @return the hashcode value
+        * Mark the entry as evicted closing the file immediately if there are
+        * no open streams or otherwise on release of the last stream.
         */
-        public int hashCode()
+        void evict()
         {
-            return m_file.hashCode();
+            synchronized( this )
+            {
+                m_evicted = true;
+                if( ( m_references > 0 ) || m_closed )
+                {
+                    return;
+                }
+                m_closed = true;
+            }
+            close();
+        }
+
+        private void close()
+        {
+            if( null != m_file )
+            {
+                try
+                {
+                    m_file.close();
+                }
+                catch( IOException e )
+                {
+                    // the entry is no longer in use
+                }
+            }
+            else
+            {
+                m_mapped.close();
+            }
         }
 
        /**
@@ -174,7 +407,43 @@ class ZipCache implements Runnable
         */
         public String toString()
         {
-            return "Entry[" + m_file + ", " + m_collectTime + "]";
+            Object file = ( null != m_file ) ? (Object) m_file.getName() : (Object) m_mapped;
+            return "Entry[" + file + ", " + m_references + "]";
+        }
+    }
+
+   /**
+    * Input stream that releases its cache entry on close.
+    */
+    private static final class EntryInputStream extends FilterInputStream
+    {
+        private final Entry m_entry;
+        private boolean m_released = false;
+
+        EntryInputStream( InputStream stream, Entry entry )
+        {
+            super( stream );
+            m_entry = entry;
+        }
+
+        public void close() throws IOException
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                synchronized( this )
+                {
+                    if( m_released )
+                    {
+                        return;
+                    }
+                    m_released = true;
+                }
+                m_entry.release();
+            }
         }
     }
 }
@@ -30,6 +30,16 @@ import dpml.util.ObjectUtils;
  */
 public class HostDirective implements Serializable
 {
+   /**
+    * Default maximum number of concurrent connections to a host.
+    */
+    public static final int DEFAULT_CONNECTIONS = 4;
+    
+   /**
+    * Default idle time in seconds after which an unused connection is closed.
+    */
+    public static final int DEFAULT_IDLE = 30;
+    
     private final String m_id;
     private final int m_priority;
     private final String m_host;
@@ -41,6 +51,8 @@ public class HostDirective implements Serializable
     private final String m_layout;
     private final String m_scheme;
     private final String m_prompt;
+    private final int m_connections;
+    private final int m_idle;
 
    /**
     * Creation of a new host description.
@@ -61,6 +73,35 @@ public class HostDirective implements Serializable
       String id, int priority, String host, String index, String username, char[] password, boolean enabled, 
       boolean trusted, String layout, String scheme, String prompt )
       throws NullPointerException
+    {
+        this( 
+          id, priority, host, index, username, password, enabled, trusted, layout, scheme, prompt, 
+          DEFAULT_CONNECTIONS, DEFAULT_IDLE );
+    }
+    
+   /**
+    * Creation of a new host description.
+    * @param id a unique resource host identifier
+    * @param priority the host prority
+    * @param host the resource host
+    * @param index the name of an index resource (may be null)
+    * @param username a possibly null username
+    * @param password a possibly null password
+    * @param enabled true if enabled
+    * @param trusted true if trusted
+    * @param layout the name of the layout strategy
+    * @param scheme the security scheme (may be null)
+    * @param prompt authentication prompt (may be null)
+    * @param connections the maximum number of concurrent connections
+    * @param idle the connection idle timeout in seconds
+    * @exception NullPointerException if the id, host, or layout are null
+    * @exception IllegalArgumentException if the connection limit is less than one
+    *   or the idle timeout is negative
+    */
+    public HostDirective( 
+      String id, int priority, String host, String index, String username, char[] password, boolean enabled, 
+      boolean trusted, String layout, String scheme, String prompt, int connections, int idle )
+      throws NullPointerException, IllegalArgumentException
     {
         if( null == id )
         {
@@ -85,6 +126,21 @@ public class HostDirective implements Serializable
         m_trusted = trusted;
         m_layout = layout;
         
+        if( connections < 1 )
+        {
+            final String error = 
+              "Connection limit [" + connections + "] must be greater than zero.";
+            throw new IllegalArgumentException( error );
+        }
+        if( idle < 0 )
+        {
+            final String error = 
+              "Idle timeout [" + idle + "] must not be negative.";
+            throw new IllegalArgumentException( error );
+        }
+        m_connections = connections;
+        m_idle = idle;
+        
         if( null == scheme )
         {
             m_scheme = "";
@@ -204,6 +260,24 @@ public class HostDirective implements Serializable
         return m_scheme;
     }
     
+   /**
+    * Return the maximum number of concurrent connections to the host.
+    * @return the connection limit
+    */
+    public int getConnections()
+    {
+        return m_connections;
+    }
+    
+   /**
+    * Return the idle time in seconds after which an unused connection is closed.
+    * @return the idle timeout
+    */
+    public int getIdle()
+    {
+        return m_idle;
+    }
+    
    /**
     * Compare this instance with a supplied object for equality.
     * @param other the other object
@@ -230,6 +304,14 @@ public class HostDirective implements Serializable
             {
                 return false;
             }
+            else if( m_connections != directive.m_connections )
+            {
+                return false;
+            }
+            else if( m_idle != directive.m_idle )
+            {
+                return false;
+            }
             else if( !ObjectUtils.equals( m_host, directive.m_host ) )
             {
                 return false;
@@ -299,6 +381,8 @@ public class HostDirective implements Serializable
         hash ^= ObjectUtils.hashValue( m_layout );
         hash ^= ObjectUtils.hashValue( m_scheme );
         hash ^= ObjectUtils.hashValue( m_prompt );
+        hash ^= m_connections;
+        hash ^= m_idle << 8;
         return hash;
     }
 
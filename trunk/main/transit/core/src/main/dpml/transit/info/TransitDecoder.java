@@ -219,17 +219,33 @@ class TransitDecoder
             String index = ElementHelper.getAttribute( elem, "index" );
             String scheme = ElementHelper.getAttribute( elem, "scheme" );
             String prompt = ElementHelper.getAttribute( elem, "prompt" );
+            int connections = 
+              getIntegerAttribute( elem, "connections", HostDirective.DEFAULT_CONNECTIONS );
+            int idle = getIntegerAttribute( elem, "idle", HostDirective.DEFAULT_IDLE );
             Element credentialsElement = ElementHelper.getChild( elem, "credentials" );
             String username = getUsername( credentialsElement );
             char[] password = getPassword( credentialsElement );
             hosts[i] = 
               new HostDirective( 
                 id, priority, url, index, username, password, enabled, trusted,
-                layout, scheme, prompt );
+                layout, scheme, prompt, connections, idle );
         }
         return hosts;
     }
     
+    private int getIntegerAttribute( Element element, String key, int value )
+    {
+        String attribute = ElementHelper.getAttribute( element, key );
+        if( null == attribute )
+        {
+            return value;
+        }
+        else
+        {
+            return Integer.parseInt( attribute );
+        }
+    }
+    
     private String getUsername( Element element )
     {
         if( null == element )
@@ -228,6 +228,14 @@ class TransitEncoder
         {
             writer.write( " prompt=\"" + prompt + "\"" );
         }
+        if( host.getConnections() != HostDirective.DEFAULT_CONNECTIONS )
+        {
+            writer.write( " connections=\"" + host.getConnections() + "\"" );
+        }
+        if( host.getIdle() != HostDirective.DEFAULT_IDLE )
+        {
+            writer.write( " idle=\"" + host.getIdle() + "\"" );
+        }
         if( credentials )
         {
             writer.write( "\n    <credentials" );
@@ -126,6 +126,7 @@ public class ConfigurationHandler
             ByteArrayInputStream input = new ByteArrayInputStream( bytes );
             LogManager manager = LogManager.getLogManager();
             manager.readConfiguration( input );
+            DefaultLogger.invalidate();
         }
         catch( Throwable e )
         {
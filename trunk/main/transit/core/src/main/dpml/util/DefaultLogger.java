@@ -18,11 +18,20 @@
 
 package dpml.util;
 
+import java.lang.reflect.Method;
+import java.util.logging.ErrorManager;
+import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
- * Generic logging channel.
+ * Generic logging channel.  The effective level of the underlying logger is 
+ * cached so that disabled logging calls return without consulting the logging
+ * system.  Cached levels are invalidated whenever the logging configuration is
+ * read (applications modifying the level of a logger directly should invoke
+ * {@link #invalidate()}).  If a logging queue has been assigned, enabled 
+ * logging calls are added to the queue and dispatched to the logging system 
+ * by the queue's consumer thread.
  *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
@@ -35,6 +44,71 @@ public final class DefaultLogger implements net.dpml.util.Logger
 
     private static final PID ID = new PID();
     
+    private static final long LEVEL_MASK = 0xFFFFFFFFL;
+    
+    private static volatile int m_GENERATION = 1;
+    
+    private static volatile LogQueue m_QUEUE = null;
+    
+    static
+    {
+        addConfigurationListener();
+    }
+    
+   /**
+    * Invalidate the cached logging levels.
+    */
+    public static synchronized void invalidate()
+    {
+        m_GENERATION++;
+    }
+    
+   /**
+    * Assign the queue through which logging calls are dispatched.
+    * @param queue the logging queue (null to restore synchronous logging)
+    */
+    public static void setLogQueue( LogQueue queue )
+    {
+        m_QUEUE = queue;
+    }
+    
+   /**
+    * Return the queue through which logging calls are dispatched.
+    * @return the logging queue (possibly null)
+    */
+    public static LogQueue getLogQueue()
+    {
+        return m_QUEUE;
+    }
+    
+    private static void addConfigurationListener()
+    {
+        Runnable listener = 
+          new Runnable()
+          {
+              public void run()
+              {
+                  invalidate();
+              }
+          };
+        try
+        {
+            Method method = 
+              LogManager.class.getMethod( "addConfigurationListener", Runnable.class );
+            method.invoke( LogManager.getLogManager(), listener );
+        }
+        catch( NoSuchMethodException e )
+        {
+            // configuration listeners are not supported by this platform
+        }
+        catch( Exception e )
+        {
+            final String error = 
+              "Unable to register logging configuration listener.";
+            new ErrorManager().error( error, e, ErrorManager.GENERIC_FAILURE );
+        }
+    }
+    
     private static String clean( String category )
     {
         if( null == category )
@@ -61,6 +135,12 @@ public final class DefaultLogger implements net.dpml.util.Logger
     // ------------------------------------------------------------------------
 
     private Logger m_logger;
+    
+   /**
+    * The cached effective level value (low word) and the generation 
+    * of the cached value (high word).
+    */
+    private volatile long m_level = 0;
 
     // ------------------------------------------------------------------------
     // constructor
@@ -105,7 +185,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     */
     public boolean isTraceEnabled()
     {
-        return m_logger.isLoggable( Level.FINER );
+        return isLoggable( Level.FINER );
     }
     
    /**
@@ -114,7 +194,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     */
     public boolean isDebugEnabled()
     {
-        return m_logger.isLoggable( Level.FINE );
+        return isLoggable( Level.FINE );
     }
 
    /**
@@ -123,7 +203,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     */
     public boolean isInfoEnabled()
     {
-        return m_logger.isLoggable( Level.INFO );
+        return isLoggable( Level.INFO );
     }
 
    /**
@@ -132,7 +212,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     */
     public boolean isWarnEnabled()
     {
-        return m_logger.isLoggable( Level.WARNING );
+        return isLoggable( Level.WARNING );
     }
 
    /**
@@ -141,7 +221,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     */
     public boolean isErrorEnabled()
     {
-        return m_logger.isLoggable( Level.SEVERE );
+        return isLoggable( Level.SEVERE );
     }
 
    /**
@@ -152,7 +232,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isTraceEnabled() )
         {
-            m_logger.finer( message );
+            log( Level.FINER, message, null, null );
         }
     }
 
@@ -164,7 +244,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isDebugEnabled() )
         {
-            m_logger.fine( message );
+            log( Level.FINE, message, null, null );
         }
     }
 
@@ -176,7 +256,51 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isInfoEnabled() )
         {
-            m_logger.info( message );
+            log( Level.INFO, message, null, null );
+        }
+    }
+
+   /**
+    * Log a trace level message if trace mode is enabled.  The pattern follows
+    * the java.text.MessageFormat conventions and is formatted by the handler
+    * only if the record is published.
+    * @param pattern the message pattern
+    * @param args the message arguments
+    */
+    public void trace( String pattern, Object... args )
+    {
+        if( isTraceEnabled() )
+        {
+            log( Level.FINER, pattern, args, null );
+        }
+    }
+
+   /**
+    * Log a debug level message if debug mode is enabled.  The pattern follows
+    * the java.text.MessageFormat conventions and is formatted by the handler
+    * only if the record is published.
+    * @param pattern the message pattern
+    * @param args the message arguments
+    */
+    public void debug( String pattern, Object... args )
+    {
+        if( isDebugEnabled() )
+        {
+            log( Level.FINE, pattern, args, null );
+        }
+    }
+
+   /**
+    * Log a info level message.  The pattern follows the java.text.MessageFormat
+    * conventions and is formatted by the handler only if the record is published.
+    * @param pattern the message pattern
+    * @param args the message arguments
+    */
+    public void info( String pattern, Object... args )
+    {
+        if( isInfoEnabled() )
+        {
+            log( Level.INFO, pattern, args, null );
         }
     }
 
@@ -188,7 +312,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isWarnEnabled() )
         {
-            m_logger.warning( message );
+            log( Level.WARNING, message, null, null );
         }
     }
 
@@ -201,7 +325,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isWarnEnabled() )
         {
-            m_logger.log( Level.WARNING, message, cause );
+            log( Level.WARNING, message, null, cause );
         }
     }
 
@@ -213,7 +337,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {
         if( isErrorEnabled() )
         {
-            m_logger.log( Level.SEVERE, message );
+            log( Level.SEVERE, message, null, null );
         }
     }
 
@@ -226,7 +350,7 @@ public final class DefaultLogger implements net.dpml.util.Logger
     {        
         if( isErrorEnabled() )
         {
-            m_logger.log( Level.SEVERE, message, e );
+            log( Level.SEVERE, message, null, e );
         }
     }
 
@@ -264,5 +388,68 @@ public final class DefaultLogger implements net.dpml.util.Logger
             return path;
         }
     }
+    
+    // ------------------------------------------------------------------------
+    // internal
+    // ------------------------------------------------------------------------
+    
+    private boolean isLoggable( Level level )
+    {
+        return level.intValue() >= getEffectiveLevel();
+    }
+    
+   /**
+    * Return the effective level value of the underlying logger, resolving
+    * and caching the value if the cached value is from a prior generation.
+    * @return the effective level value
+    */
+    private int getEffectiveLevel()
+    {
+        int generation = m_GENERATION;
+        long level = m_level;
+        if( (int) ( level >>> 32 ) == generation )
+        {
+            return (int) level;
+        }
+        int value = resolveEffectiveLevel();
+        m_level = ( ( (long) generation ) << 32 ) | ( value & LEVEL_MASK );
+        return value;
+    }
+    
+    private int resolveEffectiveLevel()
+    {
+        Logger logger = m_logger;
+        while( null != logger )
+        {
+            Level level = logger.getLevel();
+            if( null != level )
+            {
+                return level.intValue();
+            }
+            logger = logger.getParent();
+        }
+        return Level.INFO.intValue();
+    }
+    
+    private void log( Level level, String message, Object[] args, Throwable cause )
+    {
+        Object[] parameters = ( ( null == args ) || ( args.length == 0 ) ) ? null : args;
+        LogQueue queue = m_QUEUE;
+        if( ( null != queue ) && queue.offer( m_logger, level, message, parameters, cause ) )
+        {
+            return;
+        }
+        else if( null != cause )
+        {
+            m_logger.log( level, message, cause );
+        }
+        else if( null != parameters )
+        {
+            m_logger.log( level, message, parameters );
+        }
+        else
+        {
+            m_logger.log( level, message );
+        }
+    }
 }
-
@@ -18,18 +18,33 @@
 
 package dpml.util;
 
-import java.io.OutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
 import java.util.logging.Handler;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
 /**
  * Logging message handler that redirects log messages from a subprocess to 
- * a remote logging system.
+ * a remote logging system.  Records are encoded on the publishing thread 
+ * using the {@link LogRecordCodec} binary format and placed in a bounded 
+ * buffer.  A dedicated writer thread drains the buffer and writes records to
+ * the log server in batches with a single flush per batch.  When the buffer
+ * is full the publishing thread is blocked until space is available or the
+ * timeout declared by the <tt>dpml.logging.timeout</tt> property expires 
+ * (or if the <tt>dpml.logging.overflow</tt> property is set to <tt>drop</tt>
+ * records are discarded immediately).  The number of discarded records is 
+ * reported to the log server as a warning.
+ *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
@@ -37,9 +52,35 @@ public class DepotHandler extends Handler
 {
     private static final PID ID = new PID();
     
+   /**
+    * The maximum number of buffered records.
+    */
+    private static final int CAPACITY = Integer.getInteger( "dpml.logging.capacity", 8192 );
+    
+   /**
+    * The maximum number of records written between flushes.
+    */
+    private static final int BATCH = Integer.getInteger( "dpml.logging.batch", 256 );
+    
+   /**
+    * Duration in milliseconds a publishing thread waits for buffer space.
+    */
+    private static final long TIMEOUT = Long.getLong( "dpml.logging.timeout", 1000 );
+    
+   /**
+    * True if records are dropped without waiting when the buffer is full.
+    */
+    private static final boolean DROP = 
+      "drop".equalsIgnoreCase( System.getProperty( "dpml.logging.overflow", "block" ) );
+    
     private final Socket m_socket;
     private final OutputStream m_output;
-    private final ObjectOutputStream m_stream;
+    private final BlockingQueue<byte[]> m_queue;
+    private final AtomicLong m_dropped = new AtomicLong();
+    private final AtomicLong m_pending = new AtomicLong();
+    private final Writer m_writer;
+    
+    private volatile boolean m_closed = false;
 
    /**
     * Creation of a new handler instance.
@@ -59,29 +100,60 @@ public class DepotHandler extends Handler
     public DepotHandler( String host, int port ) throws IOException
     {
         m_socket = new Socket( host, port );
-        m_output = m_socket.getOutputStream();
-        m_stream = new ObjectOutputStream( new BufferedOutputStream( m_output ) );
+        m_socket.setTcpNoDelay( true );
+        m_output = new BufferedOutputStream( m_socket.getOutputStream(), 64 * 1024 );
+        m_queue = new ArrayBlockingQueue<byte[]>( Math.max( 1, CAPACITY ) );
+        m_writer = new Writer();
+        m_writer.start();
     }
 
    /**
-    * Flush the handler.
+    * Flush the handler.  The implementation waits for records pending in the
+    * asynchronous logging queue (if any) to be dispatched and for buffered 
+    * records to be written subject to the overflow timeout.
     */
     public void flush()
     {
+        LogQueue queue = DefaultLogger.getLogQueue();
+        if( null != queue )
+        {
+            queue.flush( TIMEOUT );
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while( !m_closed && ( m_pending.get() > 0 ) && ( System.currentTimeMillis() < deadline ) )
+        {
+            try
+            {
+                Thread.sleep( 1 );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 
    /**
-    * Close the log record handler.
+    * Close the log record handler.  Buffered records are written before 
+    * the connection is closed.
     */
     public void close()
     {
+        if( m_closed )
+        {
+            return;
+        }
+        flush();
+        m_closed = true;
+        m_writer.interrupt();
         try
         {
-            m_output.close();
+            m_writer.join( TIMEOUT );
         }
-        catch( Exception e )
+        catch( InterruptedException e )
         {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
         }
         try
         {
@@ -89,42 +161,145 @@ public class DepotHandler extends Handler
         }
         catch( Exception e )
         {
-            e.printStackTrace();
+            reportError( "Unable to close logging socket.", e, ErrorManager.CLOSE_FAILURE );
         }
     }
+    
+   /**
+    * Return the number of records dropped due to buffer overflow.
+    * @return the dropped record count
+    */
+    public long getDroppedCount()
+    {
+        return m_dropped.get();
+    }
 
    /**
-    * Publish a log record. The implementation packages the supplied log
-    * record under a LogStatement, binding the record with the associated process
-    * identifier.  The statement is subsequently writen to a socket established 
-    * within the instance constructor.
+    * Publish a log record. The implementation encodes the supplied log
+    * record together with the associated process identifier and adds the
+    * encoded record to the write buffer.
     *
     * @param record the log record to publish
     */
     public void publish( LogRecord record )
     {
-        synchronized( m_socket )
+        if( m_closed || !isLoggable( record ) )
+        {
+            return;
+        }
+        try
         {
-            if( m_socket.isClosed() )
+            byte[] frame = LogRecordCodec.encode( ID, record );
+            m_pending.incrementAndGet();
+            if( !offer( frame ) )
             {
-                return;
+                m_pending.decrementAndGet();
+                m_dropped.incrementAndGet();
             }
-
+        }
+        catch( Exception e )
+        {
+            reportError( "Unable to encode log record.", e, ErrorManager.FORMAT_FAILURE );
+        }
+    }
+    
+    private boolean offer( byte[] frame )
+    {
+        if( m_queue.offer( frame ) )
+        {
+            return true;
+        }
+        else if( DROP || ( Thread.currentThread() == m_writer ) )
+        {
+            return false;
+        }
+        try
+        {
+            return m_queue.offer( frame, TIMEOUT, TimeUnit.MILLISECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+   /**
+    * Thread writing buffered records to the log server.
+    */
+    private class Writer extends Thread
+    {
+        private final List<byte[]> m_batch = new ArrayList<byte[]>( BATCH );
+        private long m_reported = 0;
+        
+        Writer()
+        {
+            setName( "DPML Log Writer" );
+            setDaemon( true );
+        }
+        
+        public void run()
+        {
             try
             {
-                LogStatement statement = new LogStatement( ID, record );
-                m_stream.writeObject( statement );
-                m_stream.flush();
+                while( true )
+                {
+                    byte[] frame;
+                    if( m_closed )
+                    {
+                        frame = m_queue.poll();
+                        if( null == frame )
+                        {
+                            return;
+                        }
+                    }
+                    else
+                    {
+                        try
+                        {
+                            frame = m_queue.take();
+                        }
+                        catch( InterruptedException e )
+                        {
+                            continue;
+                        }
+                    }
+                    m_batch.add( frame );
+                    m_queue.drainTo( m_batch, BATCH - 1 );
+                    for( byte[] bytes : m_batch )
+                    {
+                        m_output.write( bytes );
+                    }
+                    int count = m_batch.size();
+                    m_batch.clear();
+                    reportDropped();
+                    m_output.flush();
+                    m_pending.addAndGet( -count );
+                }
             }
-            catch( SocketException e )
+            catch( IOException e )
             {
-                e.printStackTrace();
+                m_closed = true;
+                m_queue.clear();
+                m_pending.set( 0 );
             }
-            catch( Exception e )
+        }
+        
+        private void reportDropped() throws IOException
+        {
+            long dropped = m_dropped.get();
+            if( dropped > m_reported )
             {
-                e.printStackTrace();
+                LogRecord record = 
+                  new LogRecord( 
+                    Level.WARNING, 
+                    ( dropped - m_reported ) + " log records dropped due to buffer overflow." );
+                record.setLoggerName( "dpml.logging" );
+                record.setSourceClassName( DepotHandler.class.getName() );
+                record.setSourceMethodName( "publish" );
+                m_output.write( LogRecordCodec.encode( ID, record ) );
+                m_reported = dropped;
             }
         }
     }
 }
-
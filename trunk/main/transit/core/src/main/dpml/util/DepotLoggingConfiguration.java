@@ -20,21 +20,44 @@ package dpml.util;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
+import java.util.logging.ErrorManager;
 import java.util.logging.LogManager;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 /**
  * Utility class used to establish the logging configuration for managed subprocesses.
  * The handler redirects logging records to a remote LoggingService via RMI that 
  * aggregates logging messages from multiple JVM within a local domain.  This 
  * configuration handler is declared as the default logging configuration for 
- * suprocesses launched by the DPML Station.
+ * suprocesses launched by the DPML Station.  If the <tt>dpml.logging.async</tt>
+ * property is <tt>true</tt> logging calls made through {@link DefaultLogger} are
+ * queued and dispatched by a background thread (see {@link LogQueue}).  The queue
+ * capacity, overflow policy (<tt>block</tt> or <tt>drop</tt>) and overflow timeout
+ * are declared by the <tt>dpml.logging.async.capacity</tt>, 
+ * <tt>dpml.logging.async.overflow</tt> and <tt>dpml.logging.async.timeout</tt>
+ * properties and the queue depth and drop count are published as the 
+ * <tt>dpml.logging:type=LogQueue</tt> management bean.
  *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
 public class DepotLoggingConfiguration
 {
+    private static final boolean ASYNC = Boolean.getBoolean( "dpml.logging.async" );
+    
+    private static final int CAPACITY = 
+      Integer.getInteger( "dpml.logging.async.capacity", 16384 ).intValue();
+    
+    private static final boolean DROP = 
+      "drop".equalsIgnoreCase( System.getProperty( "dpml.logging.async.overflow", "block" ) );
+    
+    private static final long TIMEOUT = 
+      Long.getLong( "dpml.logging.async.timeout", 1000 ).longValue();
+    
    /**
     * Creation of the logging controller.
     */
@@ -65,11 +88,46 @@ public class DepotLoggingConfiguration
             ByteArrayInputStream input = new ByteArrayInputStream( bytes );
             LogManager manager = LogManager.getLogManager();
             manager.readConfiguration( input );
+            DefaultLogger.invalidate();
         }
         catch( Throwable e )
         {
             e.printStackTrace();
         }
+        
+        if( ASYNC && ( null == DefaultLogger.getLogQueue() ) )
+        {
+            setupLogQueue();
+        }
+    }
+    
+    private void setupLogQueue()
+    {
+        final LogQueue queue = new LogQueue( CAPACITY, DROP, TIMEOUT );
+        DefaultLogger.setLogQueue( queue );
+        Runtime.getRuntime().addShutdownHook( 
+          new Thread( "DPML Log Queue Shutdown" )
+          {
+              public void run()
+              {
+                  queue.close( TIMEOUT );
+              }
+          } );
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName( "dpml.logging:type=LogQueue" );
+            if( !server.isRegistered( name ) )
+            {
+                server.registerMBean( queue, name );
+            }
+        }
+        catch( Exception e )
+        {
+            final String error = 
+              "Unable to register log queue management bean.";
+            new ErrorManager().error( error, e, ErrorManager.GENERIC_FAILURE );
+        }
     }
     
     private String getDefaultLevel()
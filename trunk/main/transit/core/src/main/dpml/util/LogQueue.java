@@ -0,0 +1,367 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous logging queue.  Logging calls claim a preallocated slot in a
+ * bounded lock-free ring buffer and record the level, message pattern, 
+ * parameters, throwable, time and thread of the call.  A dedicated consumer
+ * thread creates the corresponding log record and dispatches it to the 
+ * logging system so that message formatting and handler processing do not 
+ * take place on the calling thread.  When the ring is full the caller waits 
+ * until a slot is available or the overflow timeout expires (or if the queue
+ * was created with the drop policy the record is discarded immediately).  The
+ * number of discarded records is reported as a warning by the consumer.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class LogQueue implements LogQueueMBean
+{
+    private static final long PARK_NANOS = 100000;
+    
+    private final int m_capacity;
+    private final int m_mask;
+    private final boolean m_drop;
+    private final long m_timeout;
+    private final Slot[] m_slots;
+    private final AtomicLongArray m_sequences;
+    private final AtomicLong m_tail = new AtomicLong();
+    private final AtomicLong m_dropped = new AtomicLong();
+    private final Consumer m_consumer;
+    private final ErrorManager m_errorManager = new ErrorManager();
+    
+    private volatile long m_head = 0;
+    private volatile long m_dispatched = 0;
+    private volatile boolean m_waiting = false;
+    private volatile boolean m_closed = false;
+    
+   /**
+    * Creation of a new logging queue.
+    * @param capacity the minimum queue capacity (rounded up to a power of two)
+    * @param drop true if records are dropped without waiting when the queue is full
+    * @param timeout duration in milliseconds a caller waits for a free slot
+    */
+    public LogQueue( int capacity, boolean drop, long timeout )
+    {
+        int size = 2;
+        while( size < capacity )
+        {
+            size = size << 1;
+        }
+        m_capacity = size;
+        m_mask = size - 1;
+        m_drop = drop;
+        m_timeout = timeout;
+        m_slots = new Slot[ size ];
+        m_sequences = new AtomicLongArray( size );
+        for( int i=0; i<size; i++ )
+        {
+            m_slots[i] = new Slot();
+            m_sequences.set( i, i );
+        }
+        m_consumer = new Consumer();
+        m_consumer.start();
+    }
+    
+   /**
+    * Return the maximum number of queued records.
+    * @return the queue capacity
+    */
+    public int getCapacity()
+    {
+        return m_capacity;
+    }
+    
+   /**
+    * Return the number of queued records.
+    * @return the queue depth
+    */
+    public int getDepth()
+    {
+        return (int) Math.max( 0, m_tail.get() - m_head );
+    }
+    
+   /**
+    * Return the number of records dispatched to the logging system.
+    * @return the dispatched record count
+    */
+    public long getDispatchedCount()
+    {
+        return m_dispatched;
+    }
+    
+   /**
+    * Return the number of records dropped due to queue overflow.
+    * @return the dropped record count
+    */
+    public long getDroppedCount()
+    {
+        return m_dropped.get();
+    }
+    
+   /**
+    * Add a logging call to the queue.
+    * @param logger the target logger
+    * @param level the level
+    * @param pattern the message or message pattern
+    * @param parameters the message parameters (possibly null)
+    * @param thrown the causal exception (possibly null)
+    * @return false if the queue is closed (true if the call was queued or dropped)
+    */
+    public boolean offer( 
+      Logger logger, Level level, String pattern, Object[] parameters, Throwable thrown )
+    {
+        if( m_closed )
+        {
+            return false;
+        }
+        long pos = claim();
+        if( pos < 0 )
+        {
+            m_dropped.incrementAndGet();
+            return true;
+        }
+        int index = (int) pos & m_mask;
+        Slot slot = m_slots[ index ];
+        slot.m_logger = logger;
+        slot.m_level = level;
+        slot.m_pattern = pattern;
+        slot.m_parameters = parameters;
+        slot.m_thrown = thrown;
+        slot.m_millis = System.currentTimeMillis();
+        slot.m_thread = (int) Thread.currentThread().getId();
+        m_sequences.set( index, pos + 1 );
+        if( m_waiting )
+        {
+            m_waiting = false;
+            LockSupport.unpark( m_consumer );
+        }
+        return true;
+    }
+    
+   /**
+    * Wait for queued records to be dispatched.  A record is considered as 
+    * dispatched once the target logger has returned from processing the record.
+    * @param timeout the maximum duration in milliseconds to wait
+    */
+    public void flush( long timeout )
+    {
+        if( Thread.currentThread() == m_consumer )
+        {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        while( ( m_dispatched < m_tail.get() ) && m_consumer.isAlive() 
+          && ( System.currentTimeMillis() < deadline ) )
+        {
+            LockSupport.unpark( m_consumer );
+            LockSupport.parkNanos( PARK_NANOS );
+        }
+    }
+    
+   /**
+    * Dispatch the queued records and stop the consumer thread.  The call
+    * returns once the consumer thread has terminated or the timeout expires.
+    * @param timeout the maximum duration in milliseconds to wait
+    */
+    public void close( long timeout )
+    {
+        long deadline = System.currentTimeMillis() + timeout;
+        flush( timeout );
+        m_closed = true;
+        LockSupport.unpark( m_consumer );
+        if( Thread.currentThread() == m_consumer )
+        {
+            return;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if( remaining > 0 )
+        {
+            try
+            {
+                m_consumer.join( remaining );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+   /**
+    * Claim the next free slot.
+    * @return the slot sequence or -1 if no slot could be claimed
+    */
+    private long claim()
+    {
+        long deadline = 0;
+        while( true )
+        {
+            long pos = m_tail.get();
+            long sequence = m_sequences.get( (int) pos & m_mask );
+            long diff = sequence - pos;
+            if( diff == 0 )
+            {
+                if( m_tail.compareAndSet( pos, pos + 1 ) )
+                {
+                    return pos;
+                }
+            }
+            else if( diff < 0 )
+            {
+                if( m_drop || ( Thread.currentThread() == m_consumer ) )
+                {
+                    return -1;
+                }
+                long now = System.currentTimeMillis();
+                if( deadline == 0 )
+                {
+                    deadline = now + m_timeout;
+                }
+                else if( now >= deadline )
+                {
+                    return -1;
+                }
+                LockSupport.unpark( m_consumer );
+                LockSupport.parkNanos( PARK_NANOS );
+            }
+        }
+    }
+    
+   /**
+    * Dispatch the next queued record.
+    * @return true if a record was dispatched
+    */
+    @SuppressWarnings( "deprecation" )
+    private boolean dispatch()
+    {
+        long pos = m_head;
+        int index = (int) pos & m_mask;
+        if( m_sequences.get( index ) != pos + 1 )
+        {
+            return false;
+        }
+        Slot slot = m_slots[ index ];
+        Logger logger = slot.m_logger;
+        LogRecord record = new LogRecord( slot.m_level, slot.m_pattern );
+        record.setParameters( slot.m_parameters );
+        record.setThrown( slot.m_thrown );
+        record.setMillis( slot.m_millis );
+        record.setThreadID( slot.m_thread );
+        record.setLoggerName( logger.getName() );
+        record.setSourceClassName( null );
+        record.setSourceMethodName( null );
+        slot.clear();
+        m_sequences.set( index, pos + m_capacity );
+        m_head = pos + 1;
+        try
+        {
+            logger.log( record );
+        }
+        catch( Exception e )
+        {
+            final String error = 
+              "Log record dispatch failure in [" + logger.getName() + "].";
+            m_errorManager.error( error, e, ErrorManager.WRITE_FAILURE );
+        }
+        m_dispatched++;
+        return true;
+    }
+    
+    private long m_reported = 0;
+    
+    private void reportDropped()
+    {
+        long dropped = m_dropped.get();
+        if( dropped > m_reported )
+        {
+            Logger logger = Logger.getLogger( "dpml.logging" );
+            logger.log( 
+              Level.WARNING, 
+              ( dropped - m_reported ) + " log records dropped due to queue overflow." );
+            m_reported = dropped;
+        }
+    }
+    
+   /**
+    * Ring buffer slot.
+    */
+    private static final class Slot
+    {
+        private Logger m_logger;
+        private Level m_level;
+        private String m_pattern;
+        private Object[] m_parameters;
+        private Throwable m_thrown;
+        private long m_millis;
+        private int m_thread;
+        
+        void clear()
+        {
+            m_logger = null;
+            m_level = null;
+            m_pattern = null;
+            m_parameters = null;
+            m_thrown = null;
+        }
+    }
+    
+   /**
+    * Thread dispatching queued records.
+    */
+    private final class Consumer extends Thread
+    {
+        Consumer()
+        {
+            setName( "DPML Log Dispatcher" );
+            setDaemon( true );
+        }
+        
+        public void run()
+        {
+            while( true )
+            {
+                if( dispatch() )
+                {
+                    continue;
+                }
+                reportDropped();
+                if( m_closed )
+                {
+                    return;
+                }
+                m_waiting = true;
+                if( !dispatch() )
+                {
+                    LockSupport.parkNanos( this, 10 * 1000000L );
+                }
+                m_waiting = false;
+            }
+        }
+    }
+}
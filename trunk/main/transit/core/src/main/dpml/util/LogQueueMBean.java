@@ -0,0 +1,52 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util;
+
+/**
+ * Management interface of the asynchronous logging queue.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public interface LogQueueMBean
+{
+   /**
+    * Return the maximum number of queued records.
+    * @return the queue capacity
+    */
+    int getCapacity();
+    
+   /**
+    * Return the number of queued records.
+    * @return the queue depth
+    */
+    int getDepth();
+    
+   /**
+    * Return the number of records dispatched to the logging system.
+    * @return the dispatched record count
+    */
+    long getDispatchedCount();
+    
+   /**
+    * Return the number of records dropped due to queue overflow.
+    * @return the dropped record count
+    */
+    long getDroppedCount();
+}
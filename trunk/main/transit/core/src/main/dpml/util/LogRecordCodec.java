@@ -0,0 +1,216 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Binary encoding of log records exchanged between a subprocess and the 
+ * station logging server.  Each record is written as a frame composed of
+ * a four byte payload length followed by the payload.  The payload contains
+ * the process identifier, the level, the timestamp, the sequence number, 
+ * the thread id, the logger name, the formatted message, the source class
+ * and method names and an optional serialized throwable.  Strings are encoded 
+ * as a four byte length (-1 for null) followed by UTF-8 bytes.  Messages are 
+ * formatted by the sender so record parameters and resource bundles are not 
+ * transferred.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class LogRecordCodec
+{
+   /**
+    * The maximum payload length accepted by the decoder.
+    */
+    public static final int MAXIMUM_FRAME_LENGTH = 16 * 1024 * 1024;
+    
+    private static final String ENCODING = "UTF-8";
+    
+    private static final Formatter FORMATTER = 
+      new Formatter()
+      {
+          public String format( LogRecord record )
+          {
+              return formatMessage( record );
+          }
+      };
+    
+    private LogRecordCodec()
+    {
+        // static utility
+    }
+    
+   /**
+    * Encode a log record as a frame.
+    * @param pid the process identifier
+    * @param record the log record
+    * @return the frame
+    * @exception IOException if an encoding error occurs
+    */
+    @SuppressWarnings( "deprecation" )
+    public static byte[] encode( PID pid, LogRecord record ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+        DataOutputStream output = new DataOutputStream( bytes );
+        output.writeInt( 0 ); // length placeholder
+        output.writeInt( pid.getValue() );
+        Level level = record.getLevel();
+        output.writeInt( level.intValue() );
+        writeString( output, level.getName() );
+        output.writeLong( record.getMillis() );
+        output.writeLong( record.getSequenceNumber() );
+        output.writeInt( record.getThreadID() );
+        writeString( output, record.getLoggerName() );
+        writeString( output, FORMATTER.formatMessage( record ) );
+        writeString( output, record.getSourceClassName() );
+        writeString( output, record.getSourceMethodName() );
+        writeThrowable( output, record.getThrown() );
+        output.flush();
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 4;
+        frame[0] = (byte) ( length >>> 24 );
+        frame[1] = (byte) ( length >>> 16 );
+        frame[2] = (byte) ( length >>> 8 );
+        frame[3] = (byte) length;
+        return frame;
+    }
+    
+   /**
+    * Decode a frame payload.  The buffer position is advanced to the end
+    * of the payload.
+    * @param buffer the buffer positioned at the start of the payload
+    * @return the log statement
+    * @exception IOException if a decoding error occurs
+    */
+    @SuppressWarnings( "deprecation" )
+    public static LogStatement decode( ByteBuffer buffer ) throws IOException
+    {
+        PID pid = new PID( buffer.getInt() );
+        int value = buffer.getInt();
+        String name = readString( buffer );
+        LogRecord record = new LogRecord( getLevel( name, value ), null );
+        record.setMillis( buffer.getLong() );
+        record.setSequenceNumber( buffer.getLong() );
+        record.setThreadID( buffer.getInt() );
+        record.setLoggerName( readString( buffer ) );
+        record.setMessage( readString( buffer ) );
+        record.setSourceClassName( readString( buffer ) );
+        record.setSourceMethodName( readString( buffer ) );
+        record.setThrown( readThrowable( buffer ) );
+        return new LogStatement( pid, record );
+    }
+    
+    private static Level getLevel( String name, int value )
+    {
+        try
+        {
+            Level level = Level.parse( name );
+            if( level.intValue() == value )
+            {
+                return level;
+            }
+        }
+        catch( IllegalArgumentException e )
+        {
+            // unknown level name
+        }
+        return Level.parse( Integer.toString( value ) );
+    }
+    
+    private static void writeString( DataOutputStream output, String value ) throws IOException
+    {
+        if( null == value )
+        {
+            output.writeInt( -1 );
+        }
+        else
+        {
+            byte[] bytes = value.getBytes( ENCODING );
+            output.writeInt( bytes.length );
+            output.write( bytes );
+        }
+    }
+    
+    private static String readString( ByteBuffer buffer ) throws IOException
+    {
+        int length = buffer.getInt();
+        if( length < 0 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[ length ];
+        buffer.get( bytes );
+        return new String( bytes, ENCODING );
+    }
+    
+    private static void writeThrowable( DataOutputStream output, Throwable thrown ) throws IOException
+    {
+        if( null == thrown )
+        {
+            output.writeInt( -1 );
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try
+        {
+            ObjectOutputStream stream = new ObjectOutputStream( bytes );
+            stream.writeObject( thrown );
+            stream.close();
+        }
+        catch( IOException e )
+        {
+            bytes.reset();
+            ObjectOutputStream stream = new ObjectOutputStream( bytes );
+            stream.writeObject( new Exception( thrown.toString() ) );
+            stream.close();
+        }
+        output.writeInt( bytes.size() );
+        bytes.writeTo( output );
+    }
+    
+    private static Throwable readThrowable( ByteBuffer buffer ) throws IOException
+    {
+        int length = buffer.getInt();
+        if( length < 0 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[ length ];
+        buffer.get( bytes );
+        try
+        {
+            ObjectInputStream input = new ObjectInputStream( new ByteArrayInputStream( bytes ) );
+            return (Throwable) input.readObject();
+        }
+        catch( ClassNotFoundException e )
+        {
+            return new Exception( "Unresolved remote exception (" + e.getMessage() + ")." );
+        }
+    }
+}
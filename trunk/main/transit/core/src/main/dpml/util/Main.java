@@ -330,6 +330,7 @@ public final class Main
             try
             {
                 LogManager.getLogManager().readConfiguration();
+                DefaultLogger.invalidate();
             }
             catch( Throwable e )
             {
@@ -43,7 +43,7 @@ public class PID implements Serializable
    /**
     * Creation of a new process identifier.
     */
-    private PID( int id )
+    PID( int id )
     {
         m_value = id;
     }
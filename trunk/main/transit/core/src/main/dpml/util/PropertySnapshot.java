@@ -0,0 +1,118 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable view of a set of properties merged with the system properties.
+ * A snapshot is used when a series of values are resolved against the same
+ * properties (such as the loading of a library) so that each symbolic 
+ * reference is resolved with a single lookup and all values are resolved
+ * against a consistent view.  As with {@link PropertyResolver} system 
+ * properties take precedence over the supplied properties.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class PropertySnapshot
+{
+    private final Map<String, String> m_properties;
+    
+   /**
+    * Creation of a new property snapshot.
+    * @param properties the supplied properties including any defaults (possibly null)
+    */
+    public PropertySnapshot( Properties properties )
+    {
+        Properties system = System.getProperties();
+        m_properties = new HashMap<String, String>( 
+          system.size() + ( ( null == properties ) ? 0 : properties.size() ) * 2 );
+        if( null != properties )
+        {
+            copy( properties );
+        }
+        copy( system );
+    }
+    
+   /**
+    * Creation of a new property snapshot layered over an existing snapshot.  The
+    * local entries of the supplied properties override the entries of the base 
+    * snapshot (property defaults are not consulted as they are assumed to be
+    * represented by the base snapshot) and system properties take precedence 
+    * over local entries.
+    * @param base the base snapshot
+    * @param properties the local properties
+    */
+    public PropertySnapshot( PropertySnapshot base, Properties properties )
+    {
+        m_properties = new HashMap<String, String>( base.m_properties );
+        Properties system = System.getProperties();
+        for( Map.Entry<Object, Object> entry : properties.entrySet() )
+        {
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+            if( ( key instanceof String ) && ( value instanceof String ) 
+              && !system.containsKey( key ) )
+            {
+                m_properties.put( (String) key, (String) value );
+            }
+        }
+    }
+    
+   /**
+    * Return a property value.
+    * @param key the property key
+    * @return the property value or null if undefined
+    */
+    public String getProperty( String key )
+    {
+        return m_properties.get( key );
+    }
+    
+   /**
+    * Return the number of properties in the snapshot.
+    * @return the property count
+    */
+    public int size()
+    {
+        return m_properties.size();
+    }
+    
+    private void copy( Properties properties )
+    {
+        Enumeration<?> names = properties.propertyNames();
+        while( names.hasMoreElements() )
+        {
+            Object name = names.nextElement();
+            if( name instanceof String )
+            {
+                String key = (String) name;
+                String value = properties.getProperty( key );
+                if( null != value )
+                {
+                    m_properties.put( key, value );
+                }
+            }
+        }
+    }
+}
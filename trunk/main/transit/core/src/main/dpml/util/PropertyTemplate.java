@@ -0,0 +1,404 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util;
+
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.Properties;
+import java.util.Stack;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled form of a string containing ${[key]} symbolic references.  A 
+ * template is parsed once into a sequence of literal and placeholder segments
+ * (where the name of a placeholder may itself contain nested placeholders) 
+ * and is evaluated against a set of properties using a single buffer.  The
+ * parse applies the same token rules as the original stack based substitution
+ * so that the expanded value of a template is identical to the value returned 
+ * by previous releases (resolved property values are treated as opaque text).
+ * Compiled templates are immutable and are cached by source value.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class PropertyTemplate
+{
+    // ------------------------------------------------------------------------
+    // static
+    // ------------------------------------------------------------------------
+    
+    private static final int CACHE_SIZE = 
+      Integer.getInteger( "dpml.util.template.cache", 1024 ).intValue();
+    
+    private static final ConcurrentHashMap<String, PropertyTemplate> CACHE = 
+      new ConcurrentHashMap<String, PropertyTemplate>();
+    
+   /**
+    * Return the compiled template for a value.
+    * @param value a string containing possibly multiple ${[value]} sequences
+    * @return the compiled template
+    * @exception EmptyStackException if the value contains an unbalanced '}'
+    */
+    public static PropertyTemplate compile( String value )
+    {
+        if( null == value )
+        {
+            throw new NullPointerException( "value" );
+        }
+        PropertyTemplate template = CACHE.get( value );
+        if( null != template )
+        {
+            return template;
+        }
+        template = new PropertyTemplate( value );
+        if( CACHE.size() >= CACHE_SIZE )
+        {
+            CACHE.clear();
+        }
+        CACHE.put( value, template );
+        return template;
+    }
+    
+    // ------------------------------------------------------------------------
+    // state
+    // ------------------------------------------------------------------------
+    
+    private final String m_source;
+    private final Segment[] m_segments;
+    private final String m_literal;
+    
+    // ------------------------------------------------------------------------
+    // constructor
+    // ------------------------------------------------------------------------
+    
+    private PropertyTemplate( String value )
+    {
+        m_source = value;
+        m_segments = parse( value );
+        if( m_segments.length == 0 )
+        {
+            m_literal = "";
+        }
+        else if( ( m_segments.length == 1 ) && ( m_segments[0] instanceof Literal ) )
+        {
+            m_literal = ( (Literal) m_segments[0] ).m_text;
+        }
+        else
+        {
+            m_literal = null;
+        }
+    }
+    
+    // ------------------------------------------------------------------------
+    // implementation
+    // ------------------------------------------------------------------------
+    
+   /**
+    * Return the template source.
+    * @return the source value
+    */
+    public String getSource()
+    {
+        return m_source;
+    }
+    
+   /**
+    * Return TRUE if the template does not contain any placeholders.
+    * @return the literal state
+    */
+    public boolean isLiteral()
+    {
+        return null != m_literal;
+    }
+    
+   /**
+    * Expand the template.  Placeholders are resolved against the system
+    * properties and then the supplied properties.  Unresolved placeholders
+    * are retained as ${[key]} in the result.
+    * @param properties the supplied properties (possibly null)
+    * @return the expanded value
+    */
+    public String resolve( Properties properties )
+    {
+        if( null != m_literal )
+        {
+            return m_literal;
+        }
+        StringBuilder buffer = new StringBuilder( m_source.length() + 32 );
+        append( buffer, m_segments, properties, null );
+        return buffer.toString();
+    }
+    
+   /**
+    * Expand the template against a property snapshot.  Unresolved placeholders
+    * are retained as ${[key]} in the result.
+    * @param snapshot the property snapshot
+    * @return the expanded value
+    */
+    public String resolve( PropertySnapshot snapshot )
+    {
+        if( null != m_literal )
+        {
+            return m_literal;
+        }
+        StringBuilder buffer = new StringBuilder( m_source.length() + 32 );
+        append( buffer, m_segments, null, snapshot );
+        return buffer.toString();
+    }
+    
+   /**
+    * Return the template source.
+    * @return the source value
+    */
+    public String toString()
+    {
+        return m_source;
+    }
+    
+    private static void append( 
+      StringBuilder buffer, Segment[] segments, Properties properties, PropertySnapshot snapshot )
+    {
+        for( Segment segment : segments )
+        {
+            if( segment instanceof Literal )
+            {
+                buffer.append( ( (Literal) segment ).m_text );
+            }
+            else
+            {
+                Placeholder placeholder = (Placeholder) segment;
+                int mark = buffer.length();
+                append( buffer, placeholder.m_name, properties, snapshot );
+                String name = buffer.substring( mark );
+                String value = lookup( name, properties, snapshot );
+                if( null == value )
+                {
+                    buffer.insert( mark, "${" );
+                    buffer.append( '}' );
+                }
+                else
+                {
+                    buffer.setLength( mark );
+                    buffer.append( value );
+                }
+            }
+        }
+    }
+    
+    private static String lookup( String name, Properties properties, PropertySnapshot snapshot )
+    {
+        if( null != snapshot )
+        {
+            return snapshot.getProperty( name );
+        }
+        String value = System.getProperty( name );
+        if( ( null == value ) && ( null != properties ) )
+        {
+            value = properties.getProperty( name );
+        }
+        return value;
+    }
+    
+    //------------------------------------------------------------------------
+    // parser
+    //------------------------------------------------------------------------
+    
+   /**
+    * Parse a value into template segments.  The token handling mirrors the 
+    * stack based substitution of earlier releases with the exception that 
+    * resolved placeholders are retained as symbolic fragments.
+    * @param value the template source
+    * @return the template segments
+    */
+    private static Segment[] parse( String value )
+    {
+        Stack<Fragment> stack = new Stack<Fragment>();
+        StringTokenizer st = new StringTokenizer( value, "${}", true );
+        while( st.hasMoreTokens() )
+        {
+            String token = st.nextToken();
+            if( token.equals( "}" ) )
+            {
+                Fragment name = stack.pop();
+                Fragment open = stack.pop();
+                if( open.equals( "$${" ) )
+                {
+                    push( stack, new Fragment( "${" ).append( name ).append( "}" ) );
+                }
+                else if( open.equals( "${" ) )
+                {
+                    push( stack, new Fragment( new Placeholder( name.toSegments() ) ) );
+                }
+                else
+                {
+                    push( stack, new Fragment( "${" ).append( name ).append( "}" ) );
+                }
+            }
+            else if( token.equals( "$" ) )
+            {
+                if( !stack.isEmpty() && stack.peek().equals( "$" ) )
+                {
+                    stack.push( new Fragment( "$$" ) );
+                }
+                else
+                {
+                    stack.push( new Fragment( "$" ) );
+                }
+            }
+            else
+            {
+                push( stack, new Fragment( token ) );
+            }
+        }
+        Fragment result = new Fragment( "" );
+        for( Fragment fragment : stack )
+        {
+            result.append( fragment );
+        }
+        return result.toSegments();
+    }
+    
+    private static void push( Stack<Fragment> stack, Fragment value )
+    {
+        if( stack.size() > 0 )
+        {
+            Fragment data = stack.pop();
+            if( data.equals( "$" ) && !value.equals( "{" ) )
+            {
+                stack.push( value );
+            }
+            else if( data.equals( "${" ) )
+            {
+                stack.push( data );
+                stack.push( value );
+            }
+            else if( data.equals( "$${" ) )
+            {
+                stack.push( value );
+            }
+            else
+            {
+                stack.push( data.append( value ) );
+            }
+        }
+        else
+        {
+            stack.push( value );
+        }
+    }
+    
+   /**
+    * A template segment.
+    */
+    private abstract static class Segment
+    {
+    }
+    
+   /**
+    * Literal text segment.
+    */
+    private static final class Literal extends Segment
+    {
+        private final String m_text;
+        
+        Literal( String text )
+        {
+            m_text = text;
+        }
+    }
+    
+   /**
+    * Placeholder segment with a possibly symbolic name.
+    */
+    private static final class Placeholder extends Segment
+    {
+        private final Segment[] m_name;
+        
+        Placeholder( Segment[] name )
+        {
+            m_name = name;
+        }
+    }
+    
+   /**
+    * Mutable sequence of segments used during parsing.  Adjacent literal
+    * text is merged so that a fragment without placeholders is held as a 
+    * single text buffer.
+    */
+    private static final class Fragment
+    {
+        private final List<Segment> m_segments = new ArrayList<Segment>();
+        private final StringBuilder m_text = new StringBuilder();
+        
+        Fragment( String text )
+        {
+            m_text.append( text );
+        }
+        
+        Fragment( Placeholder placeholder )
+        {
+            m_segments.add( placeholder );
+        }
+        
+        Fragment append( String text )
+        {
+            m_text.append( text );
+            return this;
+        }
+        
+        Fragment append( Fragment fragment )
+        {
+            if( !fragment.m_segments.isEmpty() )
+            {
+                flush();
+                m_segments.addAll( fragment.m_segments );
+            }
+            m_text.append( fragment.m_text );
+            return this;
+        }
+        
+       /**
+        * Test if the fragment is the supplied literal text.
+        * @param text the text
+        * @return true if the fragment is literal and equal to the text
+        */
+        boolean equals( String text )
+        {
+            return m_segments.isEmpty() && ( m_text.length() == text.length() ) 
+              && m_text.toString().equals( text );
+        }
+        
+        Segment[] toSegments()
+        {
+            flush();
+            return m_segments.toArray( new Segment[ m_segments.size() ] );
+        }
+        
+        private void flush()
+        {
+            if( m_text.length() > 0 )
+            {
+                m_segments.add( new Literal( m_text.toString() ) );
+                m_text.setLength( 0 );
+            }
+        }
+    }
+}
@@ -24,7 +24,11 @@ import java.net.URL;
 import java.net.URI;
 import java.net.URLClassLoader;
 
+import dpml.transit.Cache;
+import dpml.transit.TransitContext;
+
 import net.dpml.transit.Artifact;
+import net.dpml.transit.Transit;
 
 import net.dpml.util.Logger;
 
@@ -55,6 +59,7 @@ public class StandardClassLoader extends URLClassLoader
     public static ClassLoader buildClassLoader( Logger logger, String name, Category category, ClassLoader parent, URI[] uris )
       throws IOException
     {
+        prefetch( logger, uris );
         URL[] urls = toURLs( uris  );
         if( 0 == urls.length )
         {
@@ -82,6 +87,47 @@ public class StandardClassLoader extends URLClassLoader
         }
     }
 
+   /**
+    * Concurrently resolve the artifact based entries in the supplied uri 
+    * sequence into the Transit cache.  Resolution failures are not reported
+    * here and will be raised when the classloader accesses the entry.
+    *
+    * @param logger the logging channel
+    * @param uris the classpath uris to prefetch
+    */
+    public static void prefetch( Logger logger, URI[] uris )
+    {
+        try
+        {
+            ArrayList<Artifact> list = new ArrayList<Artifact>();
+            for( URI uri : uris )
+            {
+                if( Artifact.ARTIFACT.equals( uri.getScheme() ) )
+                {
+                    list.add( Artifact.createArtifact( uri ) );
+                }
+            }
+            if( list.size() < 2 )
+            {
+                return;
+            }
+            Transit.getInstance(); // make sure Transit is initialized
+            Cache cache = TransitContext.getInstance().getCacheHandler();
+            Artifact[] artifacts = list.toArray( new Artifact[ list.size() ] );
+            cache.resolve( artifacts );
+        }
+        catch( Exception e )
+        {
+            // the classloader will retry each entry individually so a
+            // prefetch failure is not fatal
+            
+            if( logger.isDebugEnabled() )
+            {
+                logger.debug( "classpath prefetch failed: " + e );
+            }
+        }
+    }
+
    /**
     * Convert a sequence of URIs to URLs.
     * @param uris the uris to convert
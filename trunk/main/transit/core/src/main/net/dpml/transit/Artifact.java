@@ -19,16 +19,23 @@
 
 package net.dpml.transit;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.net.URLStreamHandler;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A utility class the handles validation of <code>artifact</code> style uri
- * strings.
+ * strings.  Artifacts created by the factory methods are interned so that
+ * repeated creation of an artifact from the same specification returns a
+ * shared instance.  The size of the intern table is bounded by the
+ * <tt>dpml.transit.artifact.cache</tt> system property.
  *
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
@@ -57,6 +64,18 @@ public final class Artifact implements Serializable, Comparable
     
     static final long serialVersionUID = 2L;
     
+   /**
+    * Maximum number of entries in the intern table.
+    */
+    private static final int CACHE_SIZE = 
+      Integer.getInteger( "dpml.transit.artifact.cache", 4096 ).intValue();
+    
+   /**
+    * Intern table of artifacts keyed by specification.
+    */
+    private static final ConcurrentHashMap<String, Artifact> INTERNED = 
+      new ConcurrentHashMap<String, Artifact>();
+    
     // ------------------------------------------------------------------------
     // static
     // ------------------------------------------------------------------------
@@ -98,25 +117,35 @@ public final class Artifact implements Serializable, Comparable
         {
             throw new NullPointerException( "uri" );
         }
-        int asterix = uri.indexOf( "!" );
-        if( asterix == -1 )
+        Artifact artifact = INTERNED.get( uri );
+        if( null != artifact )
         {
-            return createArtifact( new URI( uri ) );
+            return artifact;
         }
-        else
+        artifact = parse( uri );
+        if( null == artifact )
         {
-            String path = uri.substring( 0, asterix );
-            int versionPos = uri.indexOf( "#" );
-            if( versionPos < asterix )
+            int asterix = uri.indexOf( "!" );
+            if( asterix == -1 )
             {
-                return createArtifact( path );
+                artifact = createArtifact( new URI( uri ) );
             }
             else
             {
-                path = path + uri.substring( versionPos );
-                return createArtifact( path );
+                String path = uri.substring( 0, asterix );
+                int versionPos = uri.indexOf( "#" );
+                if( versionPos < asterix )
+                {
+                    artifact = createArtifact( path );
+                }
+                else
+                {
+                    path = path + uri.substring( versionPos );
+                    artifact = createArtifact( path );
+                }
             }
         }
+        return intern( uri, artifact );
     }
 
     /**
@@ -153,7 +182,13 @@ public final class Artifact implements Serializable, Comparable
         }
         else
         {
-            return new Artifact( uri );
+            String spec = uri.toString();
+            Artifact artifact = INTERNED.get( spec );
+            if( null != artifact )
+            {
+                return artifact;
+            }
+            return intern( spec, new Artifact( uri ) );
         }
     }
 
@@ -208,10 +243,19 @@ public final class Artifact implements Serializable, Comparable
             throw new NullPointerException( "scheme" );
         }
         String composite = buildComposite( scheme, group, name, version, type );
+        Artifact artifact = INTERNED.get( composite );
+        if( null != artifact )
+        {
+            return artifact;
+        }
         try
         {
-            URI uri = new URI( composite );
-            return new Artifact( uri );
+            artifact = parse( composite );
+            if( null == artifact )
+            {
+                artifact = new Artifact( new URI( composite ) );
+            }
+            return intern( composite, artifact );
         } 
         catch( URISyntaxException e )
         {
@@ -247,6 +291,182 @@ public final class Artifact implements Serializable, Comparable
         return spec;
     }
     
+   /**
+    * Add an artifact to the intern table.  If an equal artifact has already
+    * been interned the existing instance is returned.
+    * @param key the specification from which the artifact was created
+    * @param artifact the artifact
+    * @return the interned artifact
+    */
+    private static Artifact intern( String key, Artifact artifact )
+    {
+        if( INTERNED.size() >= CACHE_SIZE )
+        {
+            INTERNED.clear();
+        }
+        Artifact canonical = INTERNED.putIfAbsent( artifact.m_key, artifact );
+        if( null != canonical )
+        {
+            artifact = canonical;
+        }
+        if( !key.equals( artifact.m_key ) )
+        {
+            INTERNED.putIfAbsent( key, artifact );
+        }
+        return artifact;
+    }
+    
+   /**
+    * Normalize a specification following the equality rules of 
+    * <tt>java.net.URI</tt> for opaque uris.  The scheme is converted to lower 
+    * case and the hex digits of escaped octets to upper case.  Specifications
+    * handled by the parser are already in normal form and are returned as is.
+    * @param spec the artifact specification
+    * @return the normalized specification
+    */
+    private static String normalize( final String spec )
+    {
+        int colon = spec.indexOf( ':' );
+        boolean lower = true;
+        for( int i=0; i < colon; i++ )
+        {
+            char c = spec.charAt( i );
+            if( ( c >= 'A' ) && ( c <= 'Z' ) )
+            {
+                lower = false;
+                break;
+            }
+        }
+        if( lower && ( spec.indexOf( '%' ) == -1 ) )
+        {
+            return spec;
+        }
+        StringBuffer buffer = new StringBuffer( spec.length() );
+        buffer.append( spec.substring( 0, colon + 1 ).toLowerCase() );
+        int length = spec.length();
+        for( int i=colon + 1; i < length; i++ )
+        {
+            char c = spec.charAt( i );
+            buffer.append( c );
+            if( ( c == '%' ) && ( i + 2 < length ) )
+            {
+                buffer.append( Character.toUpperCase( spec.charAt( i + 1 ) ) );
+                buffer.append( Character.toUpperCase( spec.charAt( i + 2 ) ) );
+                i = i + 2;
+            }
+        }
+        return buffer.toString();
+    }
+    
+   /**
+    * Single pass parser for artifact specifications in the common form
+    * [scheme]:[type]:[group]/[name]#[version] where all characters are
+    * unreserved.  Specifications containing any other characters or 
+    * sequences are not handled and result in a null return value in which 
+    * case the specification is validated using a <tt>java.net.URI</tt>.
+    * @param spec the artifact specification
+    * @return the artifact or null if the specification requires full validation
+    */
+    private static Artifact parse( final String spec )
+    {
+        int length = spec.length();
+        int scheme = -1;
+        int type = -1;
+        int slash = -1;
+        int hash = -1;
+        char previous = 0;
+        for( int i=0; i < length; i++ )
+        {
+            char c = spec.charAt( i );
+            if( hash > -1 )
+            {
+                if( !isUnreserved( c ) )
+                {
+                    return null;
+                }
+            }
+            else if( c == ':' )
+            {
+                if( ( scheme == -1 ) && ( i > 0 ) )
+                {
+                    scheme = i;
+                }
+                else if( ( type == -1 ) && ( scheme > -1 ) && ( previous != ':' ) )
+                {
+                    type = i;
+                }
+                else
+                {
+                    return null;
+                }
+            }
+            else if( c == '/' )
+            {
+                if( ( type == -1 ) || ( previous == '/' ) || ( previous == ':' ) )
+                {
+                    return null;
+                }
+                slash = i;
+            }
+            else if( c == '#' )
+            {
+                if( ( type == -1 ) || ( previous == '/' ) || ( previous == ':' ) )
+                {
+                    return null;
+                }
+                hash = i;
+            }
+            else if( scheme == -1 )
+            {
+                if( !( ( c >= 'a' ) && ( c <= 'z' ) ) 
+                  && !( ( i > 0 ) && ( ( ( c >= '0' ) && ( c <= '9' ) ) || ( c == '-' ) ) ) )
+                {
+                    return null;
+                }
+            }
+            else if( !isUnreserved( c ) )
+            {
+                return null;
+            }
+            previous = c;
+        }
+        if( ( type == -1 ) || ( previous == '/' ) || ( previous == ':' ) )
+        {
+            return null;
+        }
+        int end = ( hash > -1 ) ? hash : length;
+        String group = null;
+        String name;
+        if( slash > -1 )
+        {
+            group = spec.substring( type + 1, slash );
+            name = spec.substring( slash + 1, end );
+        }
+        else
+        {
+            name = spec.substring( type + 1, end );
+        }
+        String version = null;
+        if( ( hash > -1 ) && ( hash < length - 1 ) )
+        {
+            version = spec.substring( hash + 1 );
+        }
+        return new Artifact( 
+          spec, spec.substring( 0, scheme ), spec.substring( scheme + 1, type ), 
+          group, name, version );
+    }
+    
+    private static boolean isUnreserved( char c )
+    {
+        return ( ( c >= 'a' ) && ( c <= 'z' ) )
+          || ( ( c >= 'A' ) && ( c <= 'Z' ) )
+          || ( ( c >= '0' ) && ( c <= '9' ) )
+          || ( c == '-' )
+          || ( c == '.' )
+          || ( c == '_' )
+          || ( c == '~' );
+    }
+    
    /**
     * Construct a new URL form a given URI.  If the URI is a Transit URI the 
     * returned URL will be associated with the appropriate handler.
@@ -324,9 +544,29 @@ public final class Artifact implements Serializable, Comparable
     // ------------------------------------------------------------------------
 
     /**
-     * The artifact uri.
+     * The artifact uri (created on demand for artifacts handled by the parser).
+     */
+    private volatile URI m_uri;
+
+    /**
+     * The artifact specification.
+     */
+    private final transient String m_spec;
+    
+    /**
+     * The normalized specification used for equality and interning.
+     */
+    private final transient String m_key;
+
+    /**
+     * The artifact scheme.
+     */
+    private final transient String m_scheme;
+
+    /**
+     * The artifact version.
      */
-    private final URI m_uri;
+    private final transient String m_version;
 
     /**
      * The artifact group.
@@ -355,6 +595,9 @@ public final class Artifact implements Serializable, Comparable
     private Artifact( URI uri ) throws InvalidArtifactException
     {
         m_uri = reconstructURI( uri );
+        m_spec = m_uri.toString();
+        m_key = normalize( m_spec );
+        m_scheme = m_uri.getScheme();
         String ssp = m_uri.getSchemeSpecificPart();
         
         if( ssp.indexOf( '?' ) > -1 )
@@ -431,6 +674,36 @@ public final class Artifact implements Serializable, Comparable
                 throw new InvalidArtifactException( error );
             }
         }
+        if( ( null == ver ) || ( ver.length() == 0 ) )
+        {
+            m_version = null;
+        }
+        else
+        {
+            m_version = ver;
+        }
+    }
+
+    /**
+     * Creation of a new Artifact using values established by the parser.
+     * @param spec the artifact specification
+     * @param scheme the scheme
+     * @param type the type
+     * @param group the group (possibly null)
+     * @param name the name
+     * @param version the version (possibly null)
+     */
+    private Artifact( 
+      String spec, String scheme, String type, String group, String name, String version )
+    {
+        m_uri = null;
+        m_spec = spec;
+        m_key = spec;
+        m_scheme = scheme;
+        m_type = type;
+        m_group = group;
+        m_name = name;
+        m_version = version;
     }
 
     private URI reconstructURI( URI uri ) 
@@ -488,7 +761,7 @@ public final class Artifact implements Serializable, Comparable
      */
     public final String getScheme()
     {
-        return m_uri.getScheme();
+        return m_scheme;
     }
 
     /**
@@ -529,19 +802,7 @@ public final class Artifact implements Serializable, Comparable
      */
     public final String getVersion()
     {
-        String ver = m_uri.getFragment();
-        if( ver == null )
-        {
-            return null;
-        }
-        else if( ver.length() == 0 )
-        {
-            return null;
-        }
-        else
-        {
-            return ver;
-        }
+        return m_version;
     }
 
    /**
@@ -552,7 +813,10 @@ public final class Artifact implements Serializable, Comparable
     */
     public boolean isRecognized()
     {
-        return isRecognized( m_uri );
+        return ARTIFACT.equals( m_scheme ) 
+          || LINK.equals( m_scheme )
+          || CONFIGURATION.equals( m_scheme )
+          || LOCAL.equals( m_scheme );
     }
 
     /**
@@ -582,7 +846,7 @@ public final class Artifact implements Serializable, Comparable
         else
         {
             final String error = 
-              "URI scheme not recognized: " + m_uri;
+              "URI scheme not recognized: " + m_spec;
             throw new UnsupportedSchemeException( error );
         }
     }
@@ -596,14 +860,18 @@ public final class Artifact implements Serializable, Comparable
     {
         try
         {
-            return new URL( null, m_uri.toASCIIString(), handler );
+            // specifications handled by the parser are plain ascii
+            
+            URI uri = m_uri;
+            String spec = ( null == uri ) ? m_spec : uri.toASCIIString();
+            return new URL( null, spec, handler );
         }
         catch( MalformedURLException e )
         {
             // Can not happen!
             final String error =
               "An artifact URI could not be converted to a URL [" 
-              + m_uri 
+              + m_spec 
               + "].";
             throw new TransitRuntimeException( error );
         }
@@ -616,7 +884,24 @@ public final class Artifact implements Serializable, Comparable
      */
     public URI toURI()
     {
-        return m_uri;
+        URI uri = m_uri;
+        if( null == uri )
+        {
+            try
+            {
+                uri = new URI( m_spec );
+            }
+            catch( URISyntaxException e )
+            {
+                // Can not happen.
+                final String error =
+                  "An internal error has occurred. "
+                  + "The following URI could not be constructed: " + m_spec;
+                throw new TransitRuntimeException( error );
+            }
+            m_uri = uri;
+        }
+        return uri;
     }
 
     // ------------------------------------------------------------------------
@@ -639,8 +924,7 @@ public final class Artifact implements Serializable, Comparable
     {
         if( object instanceof Artifact )
         {
-            String name = this.toString();
-            return name.compareTo( object.toString() );
+            return m_spec.compareTo( ( (Artifact) object ).m_spec );
         }
         else if( null == object )
         {
@@ -667,13 +951,14 @@ public final class Artifact implements Serializable, Comparable
      */
     public String toString()
     {
-         return m_uri.toString();
+         return m_spec;
     }
 
     /**
      * Compare this artifact with the supplied object for equality.  This method
      * will return true if the supplied object is an Artifact and has an equal
-     * uri.
+     * uri specification.  As with <tt>java.net.URI</tt> the scheme and the 
+     * hex digits of escaped octets are compared without regard to case.
      *
      * @param other the object to compare with this instance
      * @return TRUE if this artifact is equal to the supplied object
@@ -691,7 +976,7 @@ public final class Artifact implements Serializable, Comparable
         else if( other instanceof Artifact )
         {
             Artifact art = (Artifact) other;
-            return m_uri.equals( art.m_uri );
+            return m_key.equals( art.m_key );
         }
         else
         {
@@ -705,7 +990,32 @@ public final class Artifact implements Serializable, Comparable
     */
     public int hashCode()
     {
-        return m_uri.hashCode();
+        return m_key.hashCode();
+    }
+
+    // ------------------------------------------------------------------------
+    // Serializable
+    // ------------------------------------------------------------------------
+
+   /**
+    * Ensure the uri is established before serialization.
+    * @param out the object output stream
+    * @exception IOException if an IO error occurs
+    */
+    private void writeObject( ObjectOutputStream out ) throws IOException
+    {
+        toURI();
+        out.defaultWriteObject();
+    }
+
+   /**
+    * Resolve a deserialized artifact to the interned instance.
+    * @return the artifact
+    * @exception ObjectStreamException if the artifact cannot be resolved
+    */
+    private Object readResolve() throws ObjectStreamException
+    {
+        return createArtifact( m_uri );
     }
 }
 
@@ -52,4 +52,22 @@ public interface CacheManager
     * @return the host manager array
     */
     HostManager[] getHosts();
+    
+   /**
+    * Return the number of zip entry reads served by an already open zip file.
+    * @return the zip cache hit count
+    */
+    long getZipCacheHits();
+    
+   /**
+    * Return the number of zip entry reads that required a zip file to be opened.
+    * @return the zip cache miss count
+    */
+    long getZipCacheMisses();
+    
+   /**
+    * Return the number of zip files closed due to the zip cache bounds.
+    * @return the zip cache eviction count
+    */
+    long getZipCacheEvictions();
 }
\ No newline at end of file
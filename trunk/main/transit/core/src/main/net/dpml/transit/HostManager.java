@@ -72,4 +72,24 @@ public interface HostManager
     */
     boolean isTrusted() throws MBeanException;
     
+   /**
+    * Returns the number of presence checks answered from the presence cache.
+    * @return the presence cache hit count
+    * @exception MBeanException if a JMX error occurs
+    */
+    long getPresenceCacheHits() throws MBeanException;
+    
+   /**
+    * Returns the number of presence checks that required a remote request.
+    * @return the presence cache miss count
+    * @exception MBeanException if a JMX error occurs
+    */
+    long getPresenceCacheMisses() throws MBeanException;
+    
+   /**
+    * Clear the presence cache.
+    * @exception MBeanException if a JMX error occurs
+    */
+    void clearPresenceCache() throws MBeanException;
+    
 }
\ No newline at end of file
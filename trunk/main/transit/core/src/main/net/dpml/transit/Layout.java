@@ -103,4 +103,17 @@ public abstract class Layout
      * @return the logical artifact path
      */
     public abstract String resolveFilename( Artifact artifact );
+    
+   /**
+    * Return true if the paths resolved by the layout depend only on the 
+    * supplied artifact in which case resolved paths may be cached by the 
+    * cache handler and resource hosts.  The default implementation returns
+    * false.
+    *
+    * @return the cacheable status
+    */
+    public boolean isCacheable()
+    {
+        return false;
+    }
 }
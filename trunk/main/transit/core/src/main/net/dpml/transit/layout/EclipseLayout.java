@@ -19,10 +19,6 @@
 
 package net.dpml.transit.layout;
 
-import net.dpml.transit.Artifact;
-import net.dpml.transit.Layout;
-import net.dpml.transit.TransitRuntimeException;
-
 /** 
  * The EclipseLayout decodes artifacts into the Eclipse specified layout
  * of artifacts on a file system or http server.
@@ -35,10 +31,18 @@ import net.dpml.transit.TransitRuntimeException;
  * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
  * @version @PROJECT-VERSION@
  */
-public class EclipseLayout extends Layout
+public class EclipseLayout extends TemplateLayout
 {
     private static final String LAYOUT_IDENTIFIER = "eclipse";
     
+   /**
+    * Creation of a new eclipse layout.
+    */
+    public EclipseLayout()
+    {
+        super( "{[group]-}[version]", "[name].[type]" );
+    }
+    
     /**
      * Return the layout identifier.  The id value is used
      * to identify layout instances assigned to cache handlers and 
@@ -50,88 +54,6 @@ public class EclipseLayout extends Layout
     {
         return LAYOUT_IDENTIFIER;
     }
-    
-    /**
-     * Return the base path for an artifact.  The base path is derived from
-     * the artifact group and version.  For an artifact group of "metro/cache" and a
-     * version equal to "1.3", the base value will be translated using the pattern
-     * "[group]-[version]" to form "metro/cache-1.3".  The base path value represents
-     * the directory path relative to a repository root of the directory containing
-     * this artifact.
-     *
-     * @param artifact the artifact to resolve the base path from
-     * @return the base path
-     */
-    public final String resolveBase( Artifact artifact )
-    {
-        if( null == artifact.getGroup() )
-        {
-            return artifact.getVersion();
-        }
-        else
-        {
-            return artifact.getGroup() + "-" + artifact.getVersion();
-        }
-    }
-
-    /**
-     * Returns the full path of the artifact relative to a logical root directory.
-     * The full path is equivalent to the base path and artifact filename using the
-     * pattern "[base]/[filename]".  Path values may be used to resolve an artifact
-     * from a remote repository or local cache relative to the repository or cache
-     * root. An artifact such as
-     * <code>artifact:jar:eclipse/plugins/eclipse-osgi-runtime/core#3.1.0</code>
-     * would return the path
-     * <code>eclipse/plugins/eclipse-osgi-runtime-3.1.0/core.jar</code>.
-     *
-     * @param artifact the artifact to resolve the path from
-     * @see #resolveBase
-     * @see #resolveFilename
-     * @return the logical artifact path
-     */
-    public final String resolvePath( Artifact artifact )
-    {
-        return resolveBase( artifact ) + "/" + resolveFilename( artifact );
-    }
-
-    /**
-     * Return the expanded filename of the artifact.
-     * The filename is expressed as <code>[name].[type]</code>.
-     *
-     * @param artifact the artifact to resolve
-     * @return the artifact expanded filename
-     */
-    public String resolveFilename( Artifact artifact )
-    {
-        String scheme = artifact.getScheme();
-        String filename = resolveBaseFilename( artifact );
-        if( "artifact".equals( scheme ) )
-        {
-            return filename;
-        }
-        else if( "link".equals( scheme ) )
-        {
-            return filename + ".link";
-        }
-        else
-        {
-            final String error = 
-              "Protocol not recognized: " + scheme;
-            throw new TransitRuntimeException( error );
-        }
-    }
-
-    /**
-     * Return the expanded filename of the artifact.
-     * The filename is expressed as <code>[name].[type]</code>.
-     *
-     * @param artifact the artifact to resolve
-     * @return the artifact expanded filename
-     */
-    public String resolveBaseFilename( Artifact artifact )
-    {
-        return artifact.getName() + "." + artifact.getType();
-    }
 
    /**
     * Compare this object with another for equality.
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.transit.layout;
+
+import java.util.ArrayList;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Layout;
+import net.dpml.transit.TransitRuntimeException;
+
+/**
+ * Abstract layout that resolves artifact paths using precompiled base and
+ * filename templates.  A template is composed of literal text and the
+ * fields <code>[group]</code>, <code>[group-path]</code> (the group with period
+ * characters replaced by '/'), <code>[name]</code>, <code>[type]</code> and
+ * <code>[version]</code>.  A section enclosed in braces is only included if
+ * every field within the section is non-null.  For example the template
+ * <code>[name]{-[version]}.[type]</code> resolves to <code>[name].[type]</code>
+ * for an artifact without a version.  Link artifacts resolve to the filename
+ * with a <code>.link</code> suffix.  Resolution depends only on the artifact
+ * so template layouts are cacheable.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public abstract class TemplateLayout extends Layout
+{
+    private static final int LITERAL = 0;
+    private static final int GROUP = 1;
+    private static final int GROUP_PATH = 2;
+    private static final int NAME = 3;
+    private static final int TYPE = 4;
+    private static final int VERSION = 5;
+    private static final int OPTIONAL = 6;
+
+    private static final String LINK_SUFFIX = ".link";
+
+    private final Segment[] m_base;
+    private final Segment[] m_filename;
+
+   /**
+    * Creation of a new template layout.
+    * @param base the base path template
+    * @param filename the filename template
+    * @exception IllegalArgumentException if a template is invalid
+    */
+    protected TemplateLayout( String base, String filename )
+        throws IllegalArgumentException
+    {
+        m_base = compile( base );
+        m_filename = compile( filename );
+    }
+
+   /**
+    * Return the base path for an artifact.
+    * @param artifact the resource artifact
+    * @return the base path
+    */
+    public final String resolveBase( Artifact artifact )
+    {
+        StringBuilder buffer = new StringBuilder( 64 );
+        append( buffer, m_base, artifact );
+        return buffer.toString();
+    }
+
+   /**
+    * Returns the full path of the artifact relative to a logical root directory
+    * using the pattern "[base]/[filename]".
+    *
+    * @param artifact the resource artifact
+    * @see #resolveBase
+    * @see #resolveFilename
+    * @return the logical artifact path
+    */
+    public final String resolvePath( Artifact artifact )
+    {
+        String suffix = getSuffix( artifact );
+        StringBuilder buffer = new StringBuilder( 96 );
+        append( buffer, m_base, artifact );
+        buffer.append( '/' );
+        append( buffer, m_filename, artifact );
+        buffer.append( suffix );
+        return buffer.toString();
+    }
+
+   /**
+    * Return the expanded filename of the artifact.
+    *
+    * @param artifact the resource artifact
+    * @return the artifact expanded filename
+    */
+    public String resolveFilename( Artifact artifact )
+    {
+        String suffix = getSuffix( artifact );
+        StringBuilder buffer = new StringBuilder( 48 );
+        append( buffer, m_filename, artifact );
+        buffer.append( suffix );
+        return buffer.toString();
+    }
+
+   /**
+    * Return the expanded filename of the artifact excluding any link suffix.
+    *
+    * @param artifact the artifact to resolve
+    * @return the artifact expanded filename
+    */
+    public String resolveBaseFilename( Artifact artifact )
+    {
+        StringBuilder buffer = new StringBuilder( 48 );
+        append( buffer, m_filename, artifact );
+        return buffer.toString();
+    }
+
+   /**
+    * Template layouts are cacheable.
+    * @return true
+    */
+    public boolean isCacheable()
+    {
+        return true;
+    }
+
+    private static String getSuffix( Artifact artifact )
+    {
+        String scheme = artifact.getScheme();
+        if( Artifact.ARTIFACT.equals( scheme ) )
+        {
+            return "";
+        }
+        else if( Artifact.LINK.equals( scheme ) )
+        {
+            return LINK_SUFFIX;
+        }
+        else
+        {
+            final String error =
+              "Protocol not recognized: " + scheme;
+            throw new TransitRuntimeException( error );
+        }
+    }
+
+    private static void append( StringBuilder buffer, Segment[] segments, Artifact artifact )
+    {
+        for( int i=0; i < segments.length; i++ )
+        {
+            Segment segment = segments[i];
+            if( LITERAL == segment.m_kind )
+            {
+                buffer.append( segment.m_text );
+            }
+            else if( OPTIONAL == segment.m_kind )
+            {
+                if( isComplete( segment.m_segments, artifact ) )
+                {
+                    append( buffer, segment.m_segments, artifact );
+                }
+            }
+            else
+            {
+                buffer.append( getValue( segment.m_kind, artifact ) );
+            }
+        }
+    }
+
+    private static boolean isComplete( Segment[] segments, Artifact artifact )
+    {
+        for( int i=0; i < segments.length; i++ )
+        {
+            int kind = segments[i].m_kind;
+            if( ( LITERAL != kind ) && ( null == getValue( kind, artifact ) ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getValue( int kind, Artifact artifact )
+    {
+        switch( kind )
+        {
+            case GROUP:
+                return artifact.getGroup();
+            case GROUP_PATH:
+                String group = artifact.getGroup();
+                if( null == group )
+                {
+                    return null;
+                }
+                return group.replace( '.', '/' );
+            case NAME:
+                return artifact.getName();
+            case TYPE:
+                return artifact.getType();
+            case VERSION:
+                return artifact.getVersion();
+            default:
+                throw new IllegalStateException( "Unexpected segment: " + kind );
+        }
+    }
+
+   /**
+    * Compile a template into a sequence of segments.
+    * @param template the template
+    * @return the compiled segments
+    */
+    private static Segment[] compile( String template )
+    {
+        if( null == template )
+        {
+            throw new NullPointerException( "template" );
+        }
+        ArrayList<Segment> segments = new ArrayList<Segment>();
+        ArrayList<Segment> optional = null;
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while( i < template.length() )
+        {
+            char c = template.charAt( i );
+            if( c == '[' )
+            {
+                int end = template.indexOf( ']', i );
+                if( end < 0 )
+                {
+                    throw new IllegalArgumentException( "Unterminated field in template: " + template );
+                }
+                int kind = getKind( template.substring( i + 1, end ), template );
+                ArrayList<Segment> target = ( null == optional ) ? segments : optional;
+                flush( literal, target );
+                target.add( new Segment( kind, null, null ) );
+                i = end + 1;
+            }
+            else if( c == '{' )
+            {
+                if( null != optional )
+                {
+                    throw new IllegalArgumentException( "Nested section in template: " + template );
+                }
+                flush( literal, segments );
+                optional = new ArrayList<Segment>();
+                i++;
+            }
+            else if( c == '}' )
+            {
+                if( null == optional )
+                {
+                    throw new IllegalArgumentException( "Unbalanced section in template: " + template );
+                }
+                flush( literal, optional );
+                Segment[] children = optional.toArray( new Segment[ optional.size() ] );
+                segments.add( new Segment( OPTIONAL, null, children ) );
+                optional = null;
+                i++;
+            }
+            else
+            {
+                literal.append( c );
+                i++;
+            }
+        }
+        if( null != optional )
+        {
+            throw new IllegalArgumentException( "Unterminated section in template: " + template );
+        }
+        flush( literal, segments );
+        return segments.toArray( new Segment[ segments.size() ] );
+    }
+
+   /**
+    * Return the segment kind for a field name.  Field names are not held in a
+    * static table as layouts are instantiated during initialization of the
+    * Layout class.
+    */
+    private static int getKind( String field, String template )
+    {
+        if( "group".equals( field ) )
+        {
+            return GROUP;
+        }
+        else if( "group-path".equals( field ) )
+        {
+            return GROUP_PATH;
+        }
+        else if( "name".equals( field ) )
+        {
+            return NAME;
+        }
+        else if( "type".equals( field ) )
+        {
+            return TYPE;
+        }
+        else if( "version".equals( field ) )
+        {
+            return VERSION;
+        }
+        throw new IllegalArgumentException(
+          "Unknown field [" + field + "] in template: " + template );
+    }
+
+    private static void flush( StringBuilder literal, ArrayList<Segment> segments )
+    {
+        if( literal.length() > 0 )
+        {
+            segments.add( new Segment( LITERAL, literal.toString(), null ) );
+            literal.setLength( 0 );
+        }
+    }
+
+   /**
+    * A compiled template segment.
+    */
+    private static final class Segment
+    {
+        private final int m_kind;
+        private final String m_text;
+        private final Segment[] m_segments;
+
+        Segment( int kind, String text, Segment[] segments )
+        {
+            m_kind = kind;
+            m_text = text;
+            m_segments = segments;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the content addressed blob store.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class BlobStoreTestCase extends TestCase
+{
+    private static final long MODIFIED = 1167609600000L;
+    
+    private File m_cache;
+    private BlobStore m_store;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_cache = File.createTempFile( "dpml-blobs", ".test" );
+        m_cache.delete();
+        m_cache.mkdirs();
+        m_store = new BlobStore( m_cache );
+    }
+
+   /**
+    * Remove the test cache.
+    */
+    public void tearDown()
+    {
+        delete( m_cache );
+    }
+
+   /**
+    * Test that identical content is stored once.
+    * @exception Exception if an error occurs
+    */
+    public void testSharedContent() throws Exception
+    {
+        byte[] content = "shared content".getBytes( "UTF-8" );
+        File first = new File( m_cache, "a/first.jar" );
+        File second = new File( m_cache, "b/second.jar" );
+        install( content, first );
+        install( content, second );
+        assertContent( content, first );
+        assertContent( content, second );
+        File blob = getBlob( content );
+        assertTrue( "blob", blob.exists() );
+        assertEquals( "blobs", 1, blob.getParentFile().getParentFile().list().length );
+    }
+
+   /**
+    * Test that the modification time of a copied destination is independent
+    * of the blob and that a linked destination shares the blob's time.
+    * @exception Exception if an error occurs
+    */
+    public void testModificationTime() throws Exception
+    {
+        byte[] content = "timed content".getBytes( "UTF-8" );
+        File first = new File( m_cache, "a/first.jar" );
+        File second = new File( m_cache, "b/second.jar" );
+        boolean linked = install( content, first );
+        File blob = getBlob( content );
+        long time = blob.lastModified();
+        if( linked )
+        {
+            assertEquals( "linked", time, first.lastModified() );
+        }
+        else
+        {
+            first.setLastModified( MODIFIED );
+        }
+        install( content, second );
+        assertEquals( "blob", time, blob.lastModified() );
+        if( !linked )
+        {
+            assertEquals( "copy", MODIFIED, first.lastModified() );
+        }
+    }
+
+   /**
+    * Test replacement of an existing destination with new content.
+    * @exception Exception if an error occurs
+    */
+    public void testReplacement() throws Exception
+    {
+        byte[] original = "original".getBytes( "UTF-8" );
+        byte[] replacement = "replacement".getBytes( "UTF-8" );
+        File first = new File( m_cache, "a/first.jar" );
+        File second = new File( m_cache, "b/second.jar" );
+        install( original, first );
+        install( original, second );
+        install( replacement, first );
+        assertContent( replacement, first );
+        assertContent( original, second );
+    }
+
+   /**
+    * Test the hex encoding of digests.
+    */
+    public void testToHex()
+    {
+        assertEquals( "hex", "00ff10ab", BlobStore.toHex( new byte[]{ 0, -1, 16, -85 } ) );
+    }
+    
+    private boolean install( byte[] content, File destination ) throws Exception
+    {
+        destination.getParentFile().mkdirs();
+        File temp = File.createTempFile( "~dpml", ".tmp", destination.getParentFile() );
+        FileOutputStream output = new FileOutputStream( temp );
+        try
+        {
+            output.write( content );
+        }
+        finally
+        {
+            output.close();
+        }
+        boolean linked = m_store.install( temp, digest( content ), destination );
+        assertFalse( "temp", temp.exists() );
+        return linked;
+    }
+    
+    private File getBlob( byte[] content ) throws Exception
+    {
+        String key = BlobStore.toHex( digest( content ) );
+        File base = new File( m_cache, ".blobs" );
+        return new File( new File( base, key.substring( 0, 2 ) ), key );
+    }
+    
+    private static byte[] digest( byte[] content ) throws Exception
+    {
+        return MessageDigest.getInstance( BlobStore.ALGORITHM ).digest( content );
+    }
+    
+    private static void assertContent( byte[] content, File file ) throws IOException
+    {
+        assertEquals( "length", content.length, file.length() );
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            for( int i=0; i < content.length; i++ )
+            {
+                assertEquals( "content", content[i], (byte) input.read() );
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+    
+    private static void delete( File file )
+    {
+        File[] files = file.listFiles();
+        if( null != files )
+        {
+            for( File f : files )
+            {
+                delete( f );
+            }
+        }
+        file.delete();
+    }
+}
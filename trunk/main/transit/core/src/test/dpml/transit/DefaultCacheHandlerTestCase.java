@@ -0,0 +1,313 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import dpml.transit.info.CacheDirective;
+import dpml.transit.info.HostDirective;
+import dpml.util.DefaultLogger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Monitor;
+import net.dpml.transit.Transit;
+
+/**
+ * Test concurrent and deduplicated artifact resolution.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class DefaultCacheHandlerTestCase extends TestCase
+{
+    private static final String GROUP = "dpml/test/resolver";
+    private static final int SIZE = 20000;
+    private static final int THREADS = 8;
+    private static final long DELAY = 500;
+    
+    static
+    {
+        System.setProperty( "java.protocol.handler.pkgs", "dpml.transit" );
+    }
+    
+    private static final RequestMonitor MONITOR = new RequestMonitor();
+
+    private HttpServer m_server;
+    private File m_basedir;
+    private DefaultCacheHandler m_cache;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        TransitContext context = getTransitContext();
+        m_server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        m_server.createContext( "/", new ContentHandler() );
+        m_server.start();
+        int port = m_server.getAddress().getPort();
+        m_basedir = File.createTempFile( "dpml-resolver", ".test" );
+        m_basedir.delete();
+        m_basedir.mkdirs();
+        HostDirective host = 
+          new HostDirective( 
+            "test", 1, "http://localhost:" + port + "/", null, null, null, 
+            true, true, CacheDirective.CACHE_LAYOUT, null, null );
+        CacheDirective directive = 
+          new CacheDirective( 
+            new File( m_basedir, "cache" ).getAbsolutePath(),
+            CacheDirective.CACHE_LAYOUT,
+            new File( m_basedir, "local" ).toURI().toASCIIString(),
+            CacheDirective.LOCAL_LAYOUT,
+            new HostDirective[]{host} );
+        m_cache = 
+          new DefaultCacheHandler( 
+            null, context, directive, new DefaultLogger( "test" ) );
+        MONITOR.reset();
+    }
+
+   /**
+    * Stop the server and remove the test cache.
+    */
+    public void tearDown()
+    {
+        m_server.stop( 0 );
+        delete( m_basedir );
+    }
+
+   /**
+    * Test that concurrent requests for the same artifact share a single 
+    * resolution.
+    * @exception Exception if an error occurs
+    */
+    public void testConcurrentResolution() throws Exception
+    {
+        final Artifact artifact = Artifact.createArtifact( "artifact:jar:" + GROUP + "/shared#1.0" );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try
+        {
+            List<Future<File>> futures = new ArrayList<Future<File>>();
+            for( int i=0; i < THREADS; i++ )
+            {
+                Callable<File> callable = 
+                  new Callable<File>()
+                  {
+                      public File call() throws Exception
+                      {
+                          start.await();
+                          return m_cache.resolve( new Artifact[]{artifact} )[0];
+                      }
+                  };
+                futures.add( executor.submit( callable ) );
+            }
+            start.countDown();
+            File expected = futures.get( 0 ).get();
+            for( Future<File> future : futures )
+            {
+                assertEquals( "file", expected, future.get() );
+            }
+            assertContent( expected );
+            assertEquals( "resolutions", 1, MONITOR.getCount( artifact ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+   /**
+    * Test that a multi-artifact resolution returns the files in the 
+    * order of the supplied artifacts.
+    * @exception Exception if an error occurs
+    */
+    public void testResolutionOrder() throws Exception
+    {
+        Artifact[] artifacts = new Artifact[ THREADS ];
+        for( int i=0; i < artifacts.length; i++ )
+        {
+            artifacts[i] = Artifact.createArtifact( "artifact:jar:" + GROUP + "/demo-" + i + "#1.0" );
+        }
+        File[] files = m_cache.resolve( artifacts );
+        assertEquals( "length", artifacts.length, files.length );
+        for( int i=0; i < artifacts.length; i++ )
+        {
+            assertTrue( "name", files[i].getName().startsWith( "demo-" + i + "-" ) );
+            assertContent( files[i] );
+            assertEquals( "resolutions", 1, MONITOR.getCount( artifacts[i] ) );
+        }
+    }
+    
+    private void assertContent( File file ) throws IOException
+    {
+        assertTrue( "exists", file.exists() );
+        assertEquals( "length", SIZE, file.length() );
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            for( int i=0; i < SIZE; i++ )
+            {
+                assertEquals( "content", i % 251, input.read() );
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+    
+    private static void delete( File file )
+    {
+        File[] files = file.listFiles();
+        if( null != files )
+        {
+            for( File f : files )
+            {
+                delete( f );
+            }
+        }
+        file.delete();
+    }
+    
+    private static TransitContext getTransitContext() throws Exception
+    {
+        Transit.getInstance(); // make sure Transit is initialized
+        TransitContext context = TransitContext.getInstance();
+        if( MONITOR.register() )
+        {
+            context.addMonitor( MONITOR );
+        }
+        return context;
+    }
+    
+   /**
+    * Handler serving fixed content for any path after a short delay so that
+    * concurrent requests overlap.
+    */
+    private static class ContentHandler implements HttpHandler
+    {
+        public void handle( HttpExchange exchange ) throws IOException
+        {
+            try
+            {
+                Thread.sleep( DELAY );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            byte[] content = new byte[ SIZE ];
+            for( int i=0; i < SIZE; i++ )
+            {
+                content[i] = (byte) ( i % 251 );
+            }
+            exchange.sendResponseHeaders( 200, SIZE );
+            OutputStream output = exchange.getResponseBody();
+            output.write( content );
+            output.close();
+        }
+    }
+    
+   /**
+    * Monitor counting resolution requests for the test group.
+    */
+    private static class RequestMonitor implements Monitor
+    {
+        private final List<Artifact> m_requests = new ArrayList<Artifact>();
+        private final AtomicInteger m_registered = new AtomicInteger();
+        
+        boolean register()
+        {
+            return m_registered.getAndIncrement() == 0;
+        }
+        
+        synchronized void reset()
+        {
+            m_requests.clear();
+        }
+        
+        synchronized int getCount( Artifact artifact )
+        {
+            int count = 0;
+            for( Artifact a : m_requests )
+            {
+                if( a.equals( artifact ) )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        public synchronized void resourceRequested( Artifact artifact )
+        {
+            if( GROUP.equals( artifact.getGroup() ) )
+            {
+                m_requests.add( artifact );
+            }
+        }
+        
+        public void addedToLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void updatedLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void removedFromLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void failedDownloadFromHost( String host, Artifact artifact, Throwable cause )
+        {
+        }
+        
+        public void failedDownload( Artifact artifact )
+        {
+        }
+        
+        public void notifyUpdate( URL resource, int expected, int count )
+        {
+        }
+        
+        public void notifyCompletion( URL resource )
+        {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import dpml.transit.info.HostDirective;
+import dpml.util.DefaultLogger;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Layout;
+
+/**
+ * Test downloads from a file based resource host.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class DefaultResourceHostTestCase extends TestCase
+{
+    private static final long MODIFIED = 1167609600000L;
+    private static final int SIZE = 300000;
+    
+    private File m_basedir;
+    private File m_destination;
+    private Artifact m_artifact;
+    private DefaultResourceHost m_host;
+    
+   /**
+    * Setup a host in a directory containing a space.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        File temp = File.createTempFile( "dpml-host", ".test" );
+        temp.delete();
+        m_basedir = new File( temp, "repository with spaces" );
+        m_basedir.mkdirs();
+        m_destination = File.createTempFile( "dpml-host", ".download" );
+        m_artifact = Artifact.createArtifact( "artifact:jar:dpml/test/demo#1.0" );
+        Layout layout = Layout.getLayout( "classic" );
+        String path = new LayoutCache( layout, null ).resolvePath( m_artifact );
+        File source = new File( m_basedir, path );
+        source.getParentFile().mkdirs();
+        FileOutputStream output = new FileOutputStream( source );
+        try
+        {
+            for( int i=0; i < SIZE; i++ )
+            {
+                output.write( i % 251 );
+            }
+        }
+        finally
+        {
+            output.close();
+        }
+        source.setLastModified( MODIFIED );
+        HostDirective directive = 
+          new HostDirective( 
+            "file-test", 1, m_basedir.toURI().toASCIIString(), null, null, null, 
+            true, true, "classic", null, null );
+        m_host = new DefaultResourceHost( null, directive, new DefaultLogger( "test" ) );
+    }
+
+   /**
+    * Remove the test repository.
+    */
+    public void tearDown()
+    {
+        delete( m_basedir.getParentFile() );
+        m_destination.delete();
+    }
+
+   /**
+    * Test presence and stream download from an escaped file url.
+    * @exception Exception if an error occurs
+    */
+    public void testStreamDownload() throws Exception
+    {
+        assertTrue( "present", m_host.checkPresence( m_artifact, false ) );
+        Date modified = m_host.download( m_artifact, new FileOutputStream( m_destination ) );
+        assertEquals( "modified", MODIFIED, modified.getTime() );
+        StreamUtilsTestCase.assertContent( m_destination );
+    }
+
+   /**
+    * Test file download from an escaped file url.
+    * @exception Exception if an error occurs
+    */
+    public void testFileDownload() throws Exception
+    {
+        Date modified = m_host.download( m_artifact, m_destination, 0 );
+        assertEquals( "modified", MODIFIED, modified.getTime() );
+        StreamUtilsTestCase.assertContent( m_destination );
+        assertNull( "unmodified", m_host.download( m_artifact, m_destination, MODIFIED ) );
+    }
+
+   /**
+    * Test presence and file download of a missing artifact.
+    * @exception Exception if an error occurs
+    */
+    public void testMissingArtifact() throws Exception
+    {
+        Artifact artifact = Artifact.createArtifact( "artifact:jar:dpml/test/missing#1.0" );
+        assertFalse( "present", m_host.checkPresence( artifact, false ) );
+        try
+        {
+            m_host.download( artifact, m_destination, 0 );
+            fail( "missing artifact downloaded" );
+        }
+        catch( FileNotFoundException e )
+        {
+            // success
+        }
+    }
+    
+    private static void delete( File file )
+    {
+        File[] files = file.listFiles();
+        if( null != files )
+        {
+            for( File f : files )
+            {
+                delete( f );
+            }
+        }
+        file.delete();
+    }
+}
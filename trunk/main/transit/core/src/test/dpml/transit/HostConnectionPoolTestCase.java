@@ -0,0 +1,172 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import dpml.util.DefaultLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Test the host connection pool.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class HostConnectionPoolTestCase extends TestCase
+{
+    private static final int SMALL = 1000;
+    private static final int LARGE = 1000000;
+    
+    private HttpServer m_server;
+    private String m_base;
+    private final List<Integer> m_ports = new ArrayList<Integer>();
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        m_server.createContext( "/", new ContentHandler() );
+        m_server.start();
+        m_base = "http://localhost:" + m_server.getAddress().getPort() + "/";
+    }
+
+   /**
+    * Stop the server.
+    */
+    public void tearDown()
+    {
+        m_server.stop( 0 );
+    }
+
+   /**
+    * Test that a discarded small response leaves the socket reusable.
+    * @exception Exception if an error occurs
+    */
+    public void testDiscardSmallResponse() throws Exception
+    {
+        HostConnectionPool pool = new HostConnectionPool( false, 1, 1, new DefaultLogger( "test" ) );
+        HostConnectionPool.discard( connect( pool, "small" ) );
+        HostConnectionPool.discard( connect( pool, "small" ) );
+        assertEquals( "requests", 2, m_ports.size() );
+        assertEquals( "reused", m_ports.get( 0 ), m_ports.get( 1 ) );
+    }
+
+   /**
+    * Test that a discarded error response leaves the socket reusable.
+    * @exception Exception if an error occurs
+    */
+    public void testDiscardErrorResponse() throws Exception
+    {
+        HostConnectionPool pool = new HostConnectionPool( false, 1, 1, new DefaultLogger( "test" ) );
+        HttpURLConnection connection = (HttpURLConnection) connect( pool, "missing" );
+        assertEquals( "code", 404, connection.getResponseCode() );
+        HostConnectionPool.discard( connection );
+        HostConnectionPool.discard( connect( pool, "small" ) );
+        assertEquals( "reused", m_ports.get( 0 ), m_ports.get( 1 ) );
+    }
+
+   /**
+    * Test that a discarded large response is disconnected.
+    * @exception Exception if an error occurs
+    */
+    public void testDiscardLargeResponse() throws Exception
+    {
+        HostConnectionPool pool = new HostConnectionPool( false, 1, 1, new DefaultLogger( "test" ) );
+        HostConnectionPool.discard( connect( pool, "large" ) );
+        HostConnectionPool.discard( connect( pool, "small" ) );
+        assertEquals( "requests", 2, m_ports.size() );
+        assertFalse( "reused", m_ports.get( 0 ).equals( m_ports.get( 1 ) ) );
+    }
+
+   /**
+    * Test holding and taking a response.
+    * @exception Exception if an error occurs
+    */
+    public void testHeldResponse() throws Exception
+    {
+        HostConnectionPool pool = new HostConnectionPool( false, 1, 1, new DefaultLogger( "test" ) );
+        Artifact artifact = Artifact.createArtifact( "artifact:jar:dpml/test/pool#1.0" );
+        URLConnection connection = connect( pool, "small" );
+        pool.put( artifact, connection );
+        assertSame( "held", connection, pool.take( artifact ) );
+        assertNull( "taken", pool.take( artifact ) );
+        InputStream input = connection.getInputStream();
+        int count = 0;
+        while( input.read() != -1 )
+        {
+            count++;
+        }
+        input.close();
+        assertEquals( "length", SMALL, count );
+    }
+    
+    private URLConnection connect( HostConnectionPool pool, String path ) throws IOException
+    {
+        URLConnection connection = pool.openConnection( new URL( m_base + path ) );
+        connection.connect();
+        ( (HttpURLConnection) connection ).getResponseCode();
+        return connection;
+    }
+    
+   /**
+    * Handler recording the client port of each request.
+    */
+    private class ContentHandler implements HttpHandler
+    {
+        public void handle( HttpExchange exchange ) throws IOException
+        {
+            synchronized( m_ports )
+            {
+                m_ports.add( exchange.getRemoteAddress().getPort() );
+            }
+            String path = exchange.getRequestURI().getPath();
+            int size = path.endsWith( "large" ) ? LARGE : SMALL;
+            int code = path.endsWith( "missing" ) ? 404 : 200;
+            exchange.sendResponseHeaders( code, size );
+            OutputStream output = exchange.getResponseBody();
+            try
+            {
+                output.write( new byte[ size ] );
+            }
+            catch( IOException e )
+            {
+                // client disconnected
+            }
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.util.IdentityHashMap;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Test the striped artifact lock table.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class LockStripesTestCase extends TestCase
+{
+    private static final int THREADS = 64;
+    private static final int ARTIFACTS = 1000;
+    private static final long HOLD = 20;
+
+    private final Object m_monitor = new Object();
+    private int m_active = 0;
+    private int m_peak = 0;
+
+   /**
+    * Test that equal artifacts share a lock.
+    * @exception Exception if an error occurs
+    */
+    public void testEqualArtifacts() throws Exception
+    {
+        LockStripes locks = new LockStripes( 64 );
+        Artifact a = Artifact.createArtifact( "test", "demo", "1.0", "jar" );
+        Artifact b = Artifact.createArtifact( "test", "demo", "1.0", "jar" );
+        assertSame( "lock", locks.getLock( a ), locks.getLock( b ) );
+    }
+
+   /**
+    * Test that the table is rounded to a power of two.
+    * @exception Exception if an error occurs
+    */
+    public void testSize() throws Exception
+    {
+        assertEquals( "size", 64, new LockStripes( 64 ).size() );
+        assertEquals( "size", 128, new LockStripes( 100 ).size() );
+        assertEquals( "size", 1, new LockStripes( 0 ).size() );
+    }
+
+   /**
+    * Test that the number of locks does not grow with the number of artifacts
+    * and that distinct artifacts are spread across the table.
+    * @exception Exception if an error occurs
+    */
+    public void testBoundedLocks() throws Exception
+    {
+        LockStripes locks = new LockStripes( 64 );
+        IdentityHashMap<Object, Object> used = new IdentityHashMap<Object, Object>();
+        for( int i=0; i < ARTIFACTS * 10; i++ )
+        {
+            Artifact artifact =
+              Artifact.createArtifact( "link", "test/group" + ( i % 17 ), "demo-" + i, "1.0", "jar" );
+            used.put( locks.getLock( artifact ), artifact );
+        }
+        assertEquals( "locks", locks.size(), used.size() );
+    }
+
+   /**
+    * Test that 64 threads locking distinct artifacts proceed concurrently.
+    * @exception Exception if an error occurs
+    */
+    public void testConcurrentLocking() throws Exception
+    {
+        final LockStripes locks = new LockStripes( 64 );
+        Thread[] threads = new Thread[ THREADS ];
+        for( int i=0; i < THREADS; i++ )
+        {
+            final Artifact artifact =
+              Artifact.createArtifact( "link", "test", "demo-" + i, "1.0", "jar" );
+            threads[i] =
+              new Thread()
+              {
+                  public void run()
+                  {
+                      synchronized( locks.getLock( artifact ) )
+                      {
+                          hold();
+                      }
+                  }
+              };
+        }
+        long start = System.currentTimeMillis();
+        for( int i=0; i < THREADS; i++ )
+        {
+            threads[i].start();
+        }
+        for( int i=0; i < THREADS; i++ )
+        {
+            threads[i].join();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue( "concurrency: " + m_peak, m_peak > THREADS / 8 );
+        assertTrue( "elapsed: " + elapsed, elapsed < THREADS * HOLD );
+    }
+
+    private void hold()
+    {
+        synchronized( m_monitor )
+        {
+            m_active++;
+            m_peak = Math.max( m_peak, m_active );
+        }
+        try
+        {
+            Thread.sleep( HOLD );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        synchronized( m_monitor )
+        {
+            m_active--;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the memory mapped zip file reader.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class MappedZipFileTestCase extends TestCase
+{
+    private static final byte[] CONTENT = createContent( 10000 );
+    
+    private File m_file;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_file = File.createTempFile( "dpml-mapped", ".zip" );
+    }
+
+   /**
+    * Remove the test archive.
+    */
+    public void tearDown()
+    {
+        m_file.delete();
+    }
+
+   /**
+    * Test reading of stored and deflated entries.
+    * @exception Exception if an error occurs
+    */
+    public void testEntries() throws Exception
+    {
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( m_file ) );
+        writeEntry( output, "stored.txt", ZipEntry.STORED, null );
+        writeEntry( output, "deflated.txt", ZipEntry.DEFLATED, null );
+        output.close();
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            assertContent( zip, "stored.txt" );
+            assertContent( zip, "deflated.txt" );
+            assertNull( "missing", zip.getInputStream( "missing.txt" ) );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+   /**
+    * Test an archive containing archive and entry comments.
+    * @exception Exception if an error occurs
+    */
+    public void testComments() throws Exception
+    {
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( m_file ) );
+        writeEntry( output, "a.txt", ZipEntry.DEFLATED, "first entry comment" );
+        writeEntry( output, "b.txt", ZipEntry.STORED, "second entry comment" );
+        output.setComment( "archive comment" );
+        output.close();
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            assertContent( zip, "a.txt" );
+            assertContent( zip, "b.txt" );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+   /**
+    * Test lookup of an entry name flagged as UTF-8.
+    * @exception Exception if an error occurs
+    */
+    public void testUnicodeName() throws Exception
+    {
+        String name = "r\u00e9sum\u00e9.txt";
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( m_file ) );
+        writeEntry( output, name, ZipEntry.DEFLATED, null );
+        output.close();
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            assertContent( zip, name );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+   /**
+    * Test that zip64 archives are rejected.
+    * @exception Exception if an error occurs
+    */
+    public void testZip64Rejection() throws Exception
+    {
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( m_file ) );
+        writeEntry( output, "a.txt", ZipEntry.STORED, null );
+        output.close();
+        
+        // mark the central directory offset as held in a zip64 record
+        
+        RandomAccessFile random = new RandomAccessFile( m_file, "rw" );
+        try
+        {
+            random.seek( random.length() - 6 );
+            random.write( new byte[]{ (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF } );
+        }
+        finally
+        {
+            random.close();
+        }
+        try
+        {
+            new MappedZipFile( m_file ).close();
+            fail( "zip64 archive accepted" );
+        }
+        catch( ZipException e )
+        {
+            // success
+        }
+    }
+
+   /**
+    * Test that a closed file rejects further requests.
+    * @exception Exception if an error occurs
+    */
+    public void testClose() throws Exception
+    {
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( m_file ) );
+        writeEntry( output, "a.txt", ZipEntry.STORED, null );
+        output.close();
+        MappedZipFile zip = new MappedZipFile( m_file );
+        InputStream input = zip.getInputStream( "a.txt" );
+        input.close();
+        zip.close();
+        zip.close();
+        try
+        {
+            input.read();
+            fail( "closed stream readable" );
+        }
+        catch( IOException e )
+        {
+            // success
+        }
+        try
+        {
+            zip.getInputStream( "a.txt" );
+            fail( "closed file readable" );
+        }
+        catch( ZipException e )
+        {
+            // success
+        }
+    }
+    
+    static byte[] createContent( int size )
+    {
+        byte[] content = new byte[ size ];
+        for( int i=0; i < size; i++ )
+        {
+            content[i] = (byte) ( i % 251 );
+        }
+        return content;
+    }
+    
+    static void writeEntry( 
+      ZipOutputStream output, String name, int method, String comment ) throws IOException
+    {
+        ZipEntry entry = new ZipEntry( name );
+        entry.setMethod( method );
+        entry.setComment( comment );
+        if( ZipEntry.STORED == method )
+        {
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            crc.update( CONTENT );
+            entry.setSize( CONTENT.length );
+            entry.setCompressedSize( CONTENT.length );
+            entry.setCrc( crc.getValue() );
+        }
+        output.putNextEntry( entry );
+        output.write( CONTENT );
+        output.closeEntry();
+    }
+    
+    static void assertContent( InputStream input ) throws IOException
+    {
+        try
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] bytes = new byte[ 1024 ];
+            int n = input.read( bytes );
+            while( n != -1 )
+            {
+                buffer.write( bytes, 0, n );
+                n = input.read( bytes );
+            }
+            assertTrue( "content", java.util.Arrays.equals( CONTENT, buffer.toByteArray() ) );
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+    
+    private static void assertContent( MappedZipFile zip, String name ) throws IOException
+    {
+        InputStream input = zip.getInputStream( name );
+        assertNotNull( name, input );
+        assertContent( input );
+    }
+}
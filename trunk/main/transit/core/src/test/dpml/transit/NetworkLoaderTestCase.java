@@ -0,0 +1,293 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+/**
+ * Test ranged, resumable and conditional downloads.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class NetworkLoaderTestCase extends TestCase
+{
+    private static final long MODIFIED = 1167609600000L;
+    private static final int SIZE = 100000;
+    private static final String HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss 'GMT'";
+
+    private HttpServer m_server;
+    private byte[] m_content;
+    private URL m_url;
+    private File m_file;
+    private int m_requests;
+    private int m_ranged;
+
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_content = new byte[ SIZE ];
+        for( int i=0; i < SIZE; i++ )
+        {
+            m_content[i] = (byte) ( i % 251 );
+        }
+        m_server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        m_server.createContext( "/", new ContentHandler() );
+        m_server.start();
+        int port = m_server.getAddress().getPort();
+        m_url = new URL( "http://localhost:" + port + "/content.jar" );
+        m_file = File.createTempFile( "dpml-loader", ".download" );
+    }
+
+   /**
+    * Stop the server.
+    */
+    public void tearDown()
+    {
+        m_server.stop( 0 );
+        m_file.delete();
+    }
+
+   /**
+    * Test a complete download.
+    * @exception Exception if an error occurs
+    */
+    public void testCompleteDownload() throws Exception
+    {
+        NetworkLoader loader = new NetworkLoader( null, Long.MAX_VALUE, 1 );
+        Date modified = loader.loadResource( m_url, null, m_file, 0 );
+        assertEquals( "modified", MODIFIED, modified.getTime() );
+        assertContent();
+        assertEquals( "ranged", 0, m_ranged );
+    }
+
+   /**
+    * Test resumption of a partial download.
+    * @exception Exception if an error occurs
+    */
+    public void testResumedDownload() throws Exception
+    {
+        int offset = SIZE / 3;
+        FileOutputStream output = new FileOutputStream( m_file );
+        output.write( m_content, 0, offset );
+        output.close();
+        m_file.setLastModified( MODIFIED );
+        NetworkLoader loader = new NetworkLoader( null, Long.MAX_VALUE, 1 );
+        loader.loadResource( m_url, null, m_file, 0 );
+        assertContent();
+        assertEquals( "ranged", 1, m_ranged );
+    }
+
+   /**
+    * Test that stale partial content is replaced by the complete resource.
+    * @exception Exception if an error occurs
+    */
+    public void testStalePartialContent() throws Exception
+    {
+        FileOutputStream output = new FileOutputStream( m_file );
+        output.write( new byte[ 1000 ] );
+        output.close();
+        m_file.setLastModified( MODIFIED - 60000 );
+        NetworkLoader loader = new NetworkLoader( null, Long.MAX_VALUE, 1 );
+        loader.loadResource( m_url, null, m_file, 0 );
+        assertContent();
+        assertEquals( "ranged", 0, m_ranged );
+    }
+
+   /**
+    * Test a conditional request against an unmodified resource.
+    * @exception Exception if an error occurs
+    */
+    public void testNotModified() throws Exception
+    {
+        NetworkLoader loader = new NetworkLoader( null, Long.MAX_VALUE, 1 );
+        Date modified = loader.loadResource( m_url, null, m_file, MODIFIED );
+        assertNull( "not-modified", modified );
+        assertEquals( "length", 0, m_file.length() );
+        modified = loader.loadResource( m_url, null, m_file, MODIFIED - 60000 );
+        assertNotNull( "modified", modified );
+        assertContent();
+    }
+
+   /**
+    * Test a download split into parallel segments.
+    * @exception Exception if an error occurs
+    */
+    public void testSegmentedDownload() throws Exception
+    {
+        NetworkLoader loader = new NetworkLoader( null, 1024, 4 );
+        loader.loadResource( m_url, null, m_file, 0 );
+        assertContent();
+        assertEquals( "requests", 4, m_requests );
+        assertEquals( "ranged", 3, m_ranged );
+    }
+
+   /**
+    * Test a request for a missing resource.
+    * @exception Exception if an error occurs
+    */
+    public void testNotFound() throws Exception
+    {
+        NetworkLoader loader = new NetworkLoader( null, Long.MAX_VALUE, 1 );
+        URL url = new URL( m_url, "/missing.jar" );
+        try
+        {
+            loader.loadResource( url, null, m_file, 0 );
+            fail( "Expected FileNotFoundException" );
+        }
+        catch( FileNotFoundException e )
+        {
+            // success
+        }
+    }
+
+    private void assertContent() throws IOException
+    {
+        assertEquals( "length", SIZE, m_file.length() );
+        byte[] bytes = new byte[ SIZE ];
+        FileInputStream input = new FileInputStream( m_file );
+        try
+        {
+            int offset = 0;
+            while( offset < SIZE )
+            {
+                offset = offset + input.read( bytes, offset, SIZE - offset );
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+        for( int i=0; i < SIZE; i++ )
+        {
+            if( bytes[i] != m_content[i] )
+            {
+                fail( "Content mismatch at offset " + i );
+            }
+        }
+    }
+
+   /**
+    * Handler serving the test content with support for ranged and
+    * conditional requests.
+    */
+    private class ContentHandler implements HttpHandler
+    {
+        public void handle( HttpExchange exchange ) throws IOException
+        {
+            synchronized( NetworkLoaderTestCase.this )
+            {
+                m_requests++;
+            }
+            if( !"/content.jar".equals( exchange.getRequestURI().getPath() ) )
+            {
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_NOT_FOUND, -1 );
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set( "Last-Modified", formatDate( MODIFIED ) );
+            exchange.getResponseHeaders().set( "Accept-Ranges", "bytes" );
+            String since = exchange.getRequestHeaders().getFirst( "If-Modified-Since" );
+            if( ( null != since ) && ( parseDate( since ) >= MODIFIED ) )
+            {
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_NOT_MODIFIED, -1 );
+                exchange.close();
+                return;
+            }
+            int start = 0;
+            int end = SIZE - 1;
+            String range = exchange.getRequestHeaders().getFirst( "Range" );
+            String condition = exchange.getRequestHeaders().getFirst( "If-Range" );
+            boolean valid = ( null == condition ) || ( parseDate( condition ) == MODIFIED );
+            if( ( null != range ) && valid )
+            {
+                String spec = range.substring( range.indexOf( '=' ) + 1 );
+                int dash = spec.indexOf( '-' );
+                start = Integer.parseInt( spec.substring( 0, dash ) );
+                if( dash < spec.length() - 1 )
+                {
+                    end = Integer.parseInt( spec.substring( dash + 1 ) );
+                }
+                synchronized( NetworkLoaderTestCase.this )
+                {
+                    m_ranged++;
+                }
+                exchange.getResponseHeaders().set(
+                  "Content-Range", "bytes " + start + "-" + end + "/" + SIZE );
+                exchange.sendResponseHeaders( 206, end - start + 1 );
+            }
+            else
+            {
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_OK, SIZE );
+            }
+            OutputStream output = exchange.getResponseBody();
+            try
+            {
+                output.write( m_content, start, end - start + 1 );
+            }
+            catch( IOException e )
+            {
+                // client closed the connection after reading its segment
+            }
+            exchange.close();
+        }
+    }
+
+    private static String formatDate( long time )
+    {
+        SimpleDateFormat format = new SimpleDateFormat( HTTP_DATE, Locale.US );
+        format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+        return format.format( new Date( time ) );
+    }
+
+    private static long parseDate( String value )
+    {
+        SimpleDateFormat format = new SimpleDateFormat( HTTP_DATE, Locale.US );
+        format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+        try
+        {
+            return format.parse( value ).getTime();
+        }
+        catch( ParseException e )
+        {
+            return -1;
+        }
+    }
+}
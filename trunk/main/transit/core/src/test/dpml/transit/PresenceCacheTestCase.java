@@ -0,0 +1,120 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Test the host presence cache.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class PresenceCacheTestCase extends TestCase
+{
+    private static final long TTL = 60000;
+    
+    private File m_file;
+    private Artifact m_present;
+    private Artifact m_absent;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_file = File.createTempFile( "dpml-presence", ".cache" );
+        m_file.delete();
+        m_present = Artifact.createArtifact( "artifact:jar:dpml/test/present#1.0" );
+        m_absent = Artifact.createArtifact( "artifact:jar:dpml/test/absent#1.0" );
+    }
+
+   /**
+    * Remove the cache file.
+    */
+    public void tearDown()
+    {
+        m_file.delete();
+    }
+
+   /**
+    * Test lookup of known and unknown entries.
+    */
+    public void testLookup()
+    {
+        PresenceCache cache = new PresenceCache( null, TTL, TTL );
+        assertNull( "unknown", cache.get( m_present ) );
+        cache.put( m_present, true );
+        cache.put( m_absent, false );
+        assertEquals( "present", Boolean.TRUE, cache.get( m_present ) );
+        assertEquals( "absent", Boolean.FALSE, cache.get( m_absent ) );
+        assertEquals( "hits", 2, cache.getHitCount() );
+        assertEquals( "misses", 1, cache.getMissCount() );
+        cache.invalidate( m_present );
+        assertNull( "invalidated", cache.get( m_present ) );
+        cache.clear();
+        assertEquals( "size", 0, cache.size() );
+    }
+
+   /**
+    * Test that negative entries expire after the negative time-to-live.
+    * @exception Exception if an error occurs
+    */
+    public void testNegativeExpiry() throws Exception
+    {
+        PresenceCache cache = new PresenceCache( null, TTL, 10 );
+        cache.put( m_present, true );
+        cache.put( m_absent, false );
+        Thread.sleep( 50 );
+        assertEquals( "present", Boolean.TRUE, cache.get( m_present ) );
+        assertNull( "absent", cache.get( m_absent ) );
+    }
+
+   /**
+    * Test that negative entries are not cached when the negative 
+    * time-to-live is disabled.
+    */
+    public void testNegativeDisabled()
+    {
+        PresenceCache cache = new PresenceCache( null, TTL, 0 );
+        cache.put( m_absent, false );
+        assertNull( "absent", cache.get( m_absent ) );
+        assertEquals( "size", 0, cache.size() );
+    }
+
+   /**
+    * Test that only positive entries are persisted.
+    */
+    public void testPersistence()
+    {
+        PresenceCache cache = new PresenceCache( m_file, TTL, TTL );
+        cache.put( m_present, true );
+        cache.put( m_absent, false );
+        cache.save();
+        assertTrue( "saved", m_file.exists() );
+        PresenceCache restored = new PresenceCache( m_file, TTL, TTL );
+        assertEquals( "size", 1, restored.size() );
+        assertEquals( "present", Boolean.TRUE, restored.get( m_present ) );
+        assertNull( "absent", restored.get( m_absent ) );
+    }
+}
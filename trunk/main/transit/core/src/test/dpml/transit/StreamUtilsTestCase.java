@@ -0,0 +1,223 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Monitor;
+
+/**
+ * Test the stream and file copy utilities.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class StreamUtilsTestCase extends TestCase
+{
+    private static final long MODIFIED = 1167609600000L;
+    private static final int SIZE = 300000;
+    
+    private File m_source;
+    private File m_destination;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_source = File.createTempFile( "dpml-source", ".bin" );
+        m_destination = File.createTempFile( "dpml-destination", ".bin" );
+        FileOutputStream output = new FileOutputStream( m_source );
+        try
+        {
+            for( int i=0; i < SIZE; i++ )
+            {
+                output.write( i % 251 );
+            }
+        }
+        finally
+        {
+            output.close();
+        }
+        m_source.setLastModified( MODIFIED );
+    }
+
+   /**
+    * Remove the test files.
+    */
+    public void tearDown()
+    {
+        m_source.delete();
+        m_destination.delete();
+    }
+
+   /**
+    * Test that a file copy replaces the destination content and preserves
+    * the source modification time.
+    * @exception Exception if an error occurs
+    */
+    public void testCopyFile() throws Exception
+    {
+        FileOutputStream output = new FileOutputStream( m_destination );
+        output.write( new byte[ SIZE * 2 ] );
+        output.close();
+        StreamUtils.copyFile( m_source, m_destination );
+        assertContent( m_destination );
+        assertEquals( "modified", MODIFIED, m_destination.lastModified() );
+    }
+
+   /**
+    * Test that a monitored file copy reports progress and completion.
+    * @exception Exception if an error occurs
+    */
+    public void testMonitoredCopy() throws Exception
+    {
+        ProgressMonitor monitor = new ProgressMonitor();
+        URL url = m_source.toURI().toURL();
+        StreamUtils.copyFile( monitor, url, m_source, new FileOutputStream( m_destination ) );
+        assertContent( m_destination );
+        assertEquals( "expected", SIZE, monitor.m_expected );
+        assertEquals( "count", SIZE, monitor.m_count );
+        assertEquals( "completed", 1, monitor.m_completed );
+    }
+
+   /**
+    * Test copying an empty file.
+    * @exception Exception if an error occurs
+    */
+    public void testEmptyFile() throws Exception
+    {
+        new FileOutputStream( m_source ).close();
+        StreamUtils.copyFile( m_source, m_destination );
+        assertTrue( "exists", m_destination.exists() );
+        assertEquals( "length", 0, m_destination.length() );
+    }
+    
+   /**
+    * Test that a source file truncated during the copy raises an error.
+    * @exception Exception if an error occurs
+    */
+    public void testTruncatedSource() throws Exception
+    {
+        ProgressMonitor monitor = 
+          new ProgressMonitor()
+          {
+              public void notifyUpdate( URL resource, int expected, int count )
+              {
+                  if( 0 == count )
+                  {
+                      truncate( m_source );
+                  }
+                  super.notifyUpdate( resource, expected, count );
+              }
+          };
+        URL url = m_source.toURI().toURL();
+        try
+        {
+            StreamUtils.copyFile( monitor, url, m_source, new FileOutputStream( m_destination ) );
+            fail( "Truncated source copied." );
+        }
+        catch( IOException e )
+        {
+            // success
+        }
+    }
+    
+    private static void truncate( File file )
+    {
+        try
+        {
+            new FileOutputStream( file ).close();
+        }
+        catch( IOException e )
+        {
+            throw new IllegalStateException( e.toString() );
+        }
+    }
+    
+    static void assertContent( File file ) throws IOException
+    {
+        assertEquals( "length", SIZE, file.length() );
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            for( int i=0; i < SIZE; i++ )
+            {
+                assertEquals( "content", i % 251, input.read() );
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+    
+   /**
+    * Monitor recording progress notifications.
+    */
+    private static class ProgressMonitor implements Monitor
+    {
+        private int m_expected = -1;
+        private int m_count = -1;
+        private int m_completed = 0;
+        
+        public void resourceRequested( Artifact artifact )
+        {
+        }
+        
+        public void addedToLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void updatedLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void removedFromLocalCache( URL resource, File localFile )
+        {
+        }
+        
+        public void failedDownloadFromHost( String host, Artifact artifact, Throwable cause )
+        {
+        }
+        
+        public void failedDownload( Artifact artifact )
+        {
+        }
+        
+        public void notifyUpdate( URL resource, int expected, int count )
+        {
+            assertTrue( "progress", count >= m_count );
+            m_expected = expected;
+            m_count = count;
+        }
+        
+        public void notifyCompletion( URL resource )
+        {
+            m_completed++;
+        }
+    }
+}
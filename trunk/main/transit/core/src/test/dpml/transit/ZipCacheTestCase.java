@@ -0,0 +1,140 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.transit;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Test the zip file cache.
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class ZipCacheTestCase extends TestCase
+{
+    private File m_first;
+    private File m_second;
+    private Artifact m_a;
+    private Artifact m_b;
+    
+   /**
+    * Setup the test case.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_first = createArchive();
+        m_second = createArchive();
+        m_a = Artifact.createArtifact( "artifact:jar:dpml/test/zip-a#1.0" );
+        m_b = Artifact.createArtifact( "artifact:jar:dpml/test/zip-b#1.0" );
+    }
+
+   /**
+    * Remove the test archives.
+    */
+    public void tearDown()
+    {
+        m_first.delete();
+        m_second.delete();
+    }
+
+   /**
+    * Test eviction of mapped files while streams are open.
+    * @exception Exception if an error occurs
+    */
+    public void testMappedEviction() throws Exception
+    {
+        evict( new ZipCache( 1, Long.MAX_VALUE, 0 ) );
+    }
+
+   /**
+    * Test eviction of standard zip files while streams are open.
+    * @exception Exception if an error occurs
+    */
+    public void testEviction() throws Exception
+    {
+        evict( new ZipCache( 1, Long.MAX_VALUE, -1 ) );
+    }
+
+   /**
+    * Test hit and miss accounting.
+    * @exception Exception if an error occurs
+    */
+    public void testHits() throws Exception
+    {
+        ZipCache cache = new ZipCache( 4, Long.MAX_VALUE, 0 );
+        MappedZipFileTestCase.assertContent( cache.getInputStream( m_a, m_first, "a.txt" ) );
+        MappedZipFileTestCase.assertContent( cache.getInputStream( m_a, m_first, "b.txt" ) );
+        assertEquals( "misses", 1, cache.getMissCount() );
+        assertEquals( "hits", 1, cache.getHitCount() );
+        assertEquals( "evictions", 0, cache.getEvictionCount() );
+    }
+
+   /**
+    * Test a request for an unknown entry.
+    * @exception Exception if an error occurs
+    */
+    public void testMissingEntry() throws Exception
+    {
+        ZipCache cache = new ZipCache( 4, Long.MAX_VALUE, 0 );
+        try
+        {
+            cache.getInputStream( m_a, m_first, "missing.txt" );
+            fail( "missing entry returned" );
+        }
+        catch( FileNotFoundException e )
+        {
+            // success
+        }
+    }
+    
+    private void evict( ZipCache cache ) throws IOException
+    {
+        InputStream first = cache.getInputStream( m_a, m_first, "a.txt" );
+        InputStream second = cache.getInputStream( m_b, m_second, "b.txt" );
+        assertEquals( "evictions", 1, cache.getEvictionCount() );
+        MappedZipFileTestCase.assertContent( first );
+        MappedZipFileTestCase.assertContent( second );
+        
+        // the evicted file is reopened on the next request
+        
+        MappedZipFileTestCase.assertContent( cache.getInputStream( m_a, m_first, "b.txt" ) );
+        assertEquals( "misses", 3, cache.getMissCount() );
+        assertEquals( "evictions", 2, cache.getEvictionCount() );
+    }
+    
+    private static File createArchive() throws IOException
+    {
+        File file = File.createTempFile( "dpml-cache", ".zip" );
+        ZipOutputStream output = new ZipOutputStream( new FileOutputStream( file ) );
+        MappedZipFileTestCase.writeEntry( output, "a.txt", ZipEntry.STORED, null );
+        MappedZipFileTestCase.writeEntry( output, "b.txt", ZipEntry.DEFLATED, null );
+        output.close();
+        return file;
+    }
+}
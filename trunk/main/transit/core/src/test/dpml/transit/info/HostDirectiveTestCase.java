@@ -191,6 +191,46 @@ public final class HostDirectiveTestCase extends AbstractTestCase
         assertEquals( "prompt", m_prompt, directive.getPrompt() );
     }
     
+   /**
+    * Test connection pool accessors.
+    * @exception Exception if an error occurs
+    */
+    public void testConnections() throws Exception
+    {
+        HostDirective directive = 
+          new HostDirective( 
+            m_id, m_priority, m_host, m_index, m_username, m_password, m_enabled, m_trusted, 
+            m_layout, m_scheme, m_prompt );
+        assertEquals( "connections", HostDirective.DEFAULT_CONNECTIONS, directive.getConnections() );
+        assertEquals( "idle", HostDirective.DEFAULT_IDLE, directive.getIdle() );
+        directive = 
+          new HostDirective( 
+            m_id, m_priority, m_host, m_index, m_username, m_password, m_enabled, m_trusted, 
+            m_layout, m_scheme, m_prompt, 8, 60 );
+        assertEquals( "connections", 8, directive.getConnections() );
+        assertEquals( "idle", 60, directive.getIdle() );
+    }
+    
+   /**
+    * Test invalid connection limit in constructor.
+    * @exception Exception if an error occurs
+    */
+    public void testInvalidConnections() throws Exception
+    {
+        try
+        {
+            HostDirective directive = 
+              new HostDirective( 
+                m_id, m_priority, m_host, m_index, m_username, m_password, m_enabled, m_trusted, 
+                m_layout, m_scheme, m_prompt, 0, 60 );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch( IllegalArgumentException e )
+        {
+            // success
+        }
+    }
+    
    /**
     * Test invalid null id in constructor.
     * @exception Exception if an error occurs
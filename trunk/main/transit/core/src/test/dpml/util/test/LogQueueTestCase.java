@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dpml.util.test;
+
+import dpml.util.DefaultLogger;
+import dpml.util.LogQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the asynchronous logging queue and the cached level checks
+ * of the default logger.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class LogQueueTestCase extends TestCase
+{
+    private Logger m_logger;
+    private CapturingHandler m_handler;
+    
+   /**
+    * Setup the test logger.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_logger = Logger.getLogger( "dpml.test.queue." + getName() );
+        m_logger.setUseParentHandlers( false );
+        m_logger.setLevel( Level.INFO );
+        m_handler = new CapturingHandler();
+        m_logger.addHandler( m_handler );
+        DefaultLogger.invalidate();
+    }
+    
+   /**
+    * Remove the test handler and restore synchronous logging.
+    * @exception Exception if an error occurs
+    */
+    public void tearDown() throws Exception
+    {
+        DefaultLogger.setLogQueue( null );
+        m_logger.removeHandler( m_handler );
+    }
+    
+   /**
+    * Test that queued records are dispatched in order.
+    * @exception Exception if an error occurs
+    */
+    public void testOrdering() throws Exception
+    {
+        LogQueue queue = new LogQueue( 16, false, 1000 );
+        for( int i=0; i < 100; i++ )
+        {
+            queue.offer( m_logger, Level.INFO, "message {0}", new Object[]{new Integer( i )}, null );
+        }
+        queue.close( 5000 );
+        List<String> messages = m_handler.getMessages();
+        assertEquals( "count", 100, messages.size() );
+        for( int i=0; i < 100; i++ )
+        {
+            assertEquals( "message", "message " + i, messages.get( i ) );
+        }
+        assertEquals( "dispatched", 100, queue.getDispatchedCount() );
+        assertEquals( "depth", 0, queue.getDepth() );
+        assertEquals( "dropped", 0, queue.getDroppedCount() );
+    }
+    
+   /**
+    * Test that message arguments are only formatted for enabled levels and 
+    * that formatting takes place on the dispatching thread.
+    * @exception Exception if an error occurs
+    */
+    public void testLazyFormatting() throws Exception
+    {
+        LogQueue queue = new LogQueue( 16, false, 1000 );
+        DefaultLogger.setLogQueue( queue );
+        DefaultLogger logger = new DefaultLogger( m_logger );
+        Argument argument = new Argument();
+        logger.debug( "disabled {0}", argument );
+        logger.info( "enabled {0}", argument );
+        queue.close( 5000 );
+        assertEquals( "count", 1, m_handler.getMessages().size() );
+        assertEquals( "message", "enabled argument", m_handler.getMessages().get( 0 ) );
+        assertEquals( "formatted", 1, argument.m_count.get() );
+        assertEquals( "thread", "DPML Log Dispatcher", argument.m_thread );
+    }
+    
+   /**
+    * Test that records are dropped and counted when the queue is full.
+    * @exception Exception if an error occurs
+    */
+    public void testDropped() throws Exception
+    {
+        LogQueue queue = new LogQueue( 4, true, 0 );
+        m_handler.m_latch = new CountDownLatch( 1 );
+        for( int i=0; i < 20; i++ )
+        {
+            queue.offer( m_logger, Level.INFO, "message", null, null );
+        }
+        assertTrue( "dropped", queue.getDroppedCount() > 0 );
+        assertTrue( "depth", queue.getDepth() <= queue.getCapacity() );
+        m_handler.m_latch.countDown();
+        queue.close( 5000 );
+        assertEquals( 
+          "total", 20, queue.getDispatchedCount() + queue.getDroppedCount() );
+    }
+    
+   /**
+    * Test that cached levels are invalidated.
+    * @exception Exception if an error occurs
+    */
+    public void testLevelInvalidation() throws Exception
+    {
+        DefaultLogger logger = new DefaultLogger( m_logger );
+        assertFalse( "debug", logger.isDebugEnabled() );
+        m_logger.setLevel( Level.FINE );
+        DefaultLogger.invalidate();
+        assertTrue( "debug", logger.isDebugEnabled() );
+        assertFalse( "trace", logger.isTraceEnabled() );
+        m_logger.setLevel( Level.OFF );
+        DefaultLogger.invalidate();
+        assertFalse( "error", logger.isErrorEnabled() );
+    }
+    
+   /**
+    * Test that a flush returns once the last record has been processed by the
+    * logging system and that a closed queue rejects further records.
+    * @exception Exception if an error occurs
+    */
+    public void testFlush() throws Exception
+    {
+        LogQueue queue = new LogQueue( 16, false, 1000 );
+        m_handler.m_delay = 20;
+        for( int i=0; i < 10; i++ )
+        {
+            queue.offer( m_logger, Level.INFO, "message", null, null );
+        }
+        queue.flush( 5000 );
+        assertEquals( "count", 10, m_handler.getMessages().size() );
+        assertEquals( "dispatched", 10, queue.getDispatchedCount() );
+        queue.close( 5000 );
+        assertFalse( "closed", queue.offer( m_logger, Level.INFO, "message", null, null ) );
+    }
+    
+   /**
+    * Argument recording the formatting thread.
+    */
+    private static class Argument
+    {
+        private final AtomicInteger m_count = new AtomicInteger();
+        private volatile String m_thread;
+        
+        public String toString()
+        {
+            m_count.incrementAndGet();
+            m_thread = Thread.currentThread().getName();
+            return "argument";
+        }
+    }
+    
+   /**
+    * Handler collecting formatted messages.
+    */
+    private static class CapturingHandler extends Handler
+    {
+        private final List<String> m_messages = new ArrayList<String>();
+        private volatile CountDownLatch m_latch;
+        private volatile long m_delay;
+        
+        CapturingHandler()
+        {
+            setFormatter( new SimpleFormatter() );
+        }
+        
+        public void publish( LogRecord record )
+        {
+            CountDownLatch latch = m_latch;
+            if( null != latch )
+            {
+                try
+                {
+                    latch.await();
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if( m_delay > 0 )
+            {
+                try
+                {
+                    Thread.sleep( m_delay );
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String message = getFormatter().formatMessage( record );
+            synchronized( m_messages )
+            {
+                m_messages.add( message );
+            }
+        }
+        
+        List<String> getMessages()
+        {
+            synchronized( m_messages )
+            {
+                return new ArrayList<String>( m_messages );
+            }
+        }
+        
+        public void flush()
+        {
+        }
+        
+        public void close()
+        {
+        }
+    }
+}
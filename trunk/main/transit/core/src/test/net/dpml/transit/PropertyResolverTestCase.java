@@ -24,6 +24,8 @@ import junit.framework.TestCase;
 import java.util.Properties;
 
 import dpml.util.PropertyResolver;
+import dpml.util.PropertySnapshot;
+import dpml.util.PropertyTemplate;
 
 /**
  * Testcases for the PropertyResolver
@@ -156,4 +158,56 @@ public class PropertyResolverTestCase extends TestCase
         String expected = "${user.dir}";
         assertEquals( expected, result );
     }
+
+   /**
+    * Test that a nested symbol within an unresolved symbol is expanded.
+    * @exception Exception if an error occurs
+    */
+    public void testUnresolvedNestedSymbol() throws Exception
+    {
+        String src = "${some.${mama}.value}";
+        String result = PropertyResolver.resolve( m_properties, src );
+        String expected = "${some.abc.value}";
+        assertEquals( expected, result );
+    }
+
+   /**
+    * Test that compiled templates are reused.
+    * @exception Exception if an error occurs
+    */
+    public void testTemplateCache() throws Exception
+    {
+        PropertyTemplate template = PropertyTemplate.compile( "${some.${mama}.${papa}.value}" );
+        assertSame( template, PropertyTemplate.compile( "${some.${mama}.${papa}.value}" ) );
+        assertFalse( "literal", template.isLiteral() );
+        assertTrue( "escaped", PropertyTemplate.compile( "$${abc}" ).isLiteral() );
+    }
+
+   /**
+    * Test resolution against a property snapshot.
+    * @exception Exception if an error occurs
+    */
+    public void testSnapshot() throws Exception
+    {
+        PropertySnapshot snapshot = new PropertySnapshot( m_properties );
+        String src = "${some.${mama}.${papa}.${child}.value} ${def}";
+        assertEquals( "All that. Hi", PropertyResolver.resolve( snapshot, src ) );
+        m_properties.setProperty( "def", "Bye" );
+        assertEquals( "All that. Hi", PropertyResolver.resolve( snapshot, src ) );
+    }
+
+   /**
+    * Test that system properties take precedence over snapshot properties.
+    * @exception Exception if an error occurs
+    */
+    public void testSnapshotSystemProperty() throws Exception
+    {
+        m_properties.setProperty( "user.dir", "other" );
+        PropertySnapshot snapshot = new PropertySnapshot( m_properties );
+        String expected = System.getProperty( "user.dir" );
+        assertEquals( expected, PropertyResolver.resolve( snapshot, "${user.dir}" ) );
+        PropertySnapshot layered = new PropertySnapshot( snapshot, m_properties );
+        assertEquals( expected, PropertyResolver.resolve( layered, "${user.dir}" ) );
+        assertEquals( "def", PropertyResolver.resolve( layered, "${abc}" ) );
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.transit.test;
+
+import java.net.URI;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Measurement of the cost of artifact creation, uri based parsing and 
+ * comparison over the artifact parser test corpus.  The benchmark is not 
+ * part of the test suite and is run directly from the command line.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class ArtifactParserBenchmark
+{
+    private static final int ITERATIONS = 200000;
+    
+    private ArtifactParserBenchmark()
+    {
+        // static utility
+    }
+    
+   /**
+    * Run the benchmark.
+    * @param args the command line arguments (ignored)
+    * @exception Exception if an error occurs
+    */
+    public static void main( String[] args ) throws Exception
+    {
+        String[] specs = new String[ ArtifactParserTestCase.CORPUS.length ];
+        for( int i=0; i < specs.length; i++ )
+        {
+            specs[i] = new String( ArtifactParserTestCase.CORPUS[i] );
+        }
+        Artifact[] artifacts = new Artifact[ specs.length ];
+        long start = System.nanoTime();
+        for( int n=0; n < ITERATIONS; n++ )
+        {
+            int i = n % specs.length;
+            artifacts[i] = Artifact.createArtifact( specs[i] );
+        }
+        long create = System.nanoTime() - start;
+        start = System.nanoTime();
+        for( int n=0; n < ITERATIONS; n++ )
+        {
+            int i = n % specs.length;
+            new URI( specs[i] ).getSchemeSpecificPart();
+        }
+        long parse = System.nanoTime() - start;
+        int total = 0;
+        start = System.nanoTime();
+        for( int n=0; n < ITERATIONS; n++ )
+        {
+            int i = n % artifacts.length;
+            int j = ( n + 7 ) % artifacts.length;
+            total = total + artifacts[i].compareTo( artifacts[j] );
+        }
+        long compare = System.nanoTime() - start;
+        System.out.println(
+          "artifact creation: " + ( create / ITERATIONS ) + "ns"
+          + ", uri parsing: " + ( parse / ITERATIONS ) + "ns"
+          + ", comparison: " + ( compare / ITERATIONS ) + "ns (" + total + ")" );
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.transit.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+
+/**
+ * Validation of the artifact parser and interning against uri based
+ * resolution over a corpus of typical artifact specifications.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class ArtifactParserTestCase extends TestCase
+{
+    static final String[] CORPUS = new String[]
+    {
+        "artifact:jar:dpml/transit/dpml-transit-main#1234",
+        "artifact:jar:dpml/transit/dpml-transit-main",
+        "link:jar:dpml/transit/dpml-transit-main#1.0",
+        "link:part:dpml/metro/dpml-metro-runtime#2.0",
+        "link:plugin:dpml/depot/dpml-depot-builder#SNAPSHOT",
+        "artifact:part:dpml/metro/dpml-metro-part#2.1.0",
+        "artifact:jar:ant/ant#1.7.0",
+        "artifact:jar:ant/ant-junit#",
+        "artifact:jar:antlr/antlr#2.7.6",
+        "artifact:jar:bcel/bcel#5.1",
+        "artifact:jar:checkstyle/checkstyle#4.3",
+        "artifact:jar:com/google/code/ant-deb/ant-deb-task#20070903",
+        "artifact:jar:commons-logging/commons-logging#1.0.4",
+        "artifact:jar:junit/junit#3.8.1",
+        "artifact:jar:org/mortbay/jetty/jetty#6.1.5",
+        "artifact:jar:org/mortbay/jetty/jetty-util#6.1.5",
+        "artifact:jar:org/apache/xerces/xercesImpl#2.9.0",
+        "artifact:appliance:osm/http/osm-http-express#1.0.0",
+        "artifact:block:group/sub-group/name#version",
+        "artifact:jar:artifact",
+        "local:properties:dpml/tools/standard",
+        "local:xml:dpml/metro/config",
+        "configuration:xml:dpml/station/station",
+        "artifact:war:jmx-html/jmx-html#1.3",
+        "artifact:jar:acme/widget/acme-widget#1.2.3-rc_1",
+    };
+
+    private static final String[] SPECIAL = new String[]
+    {
+        "artifact:war:jmx-html/jmx-html#1.3!/images/abc.png",
+        "artifact:war:jmx-html/jmx-html!/images/abc.png#1.3",
+        "link:part:dpml/test/example#1.0?name=value",
+        "artifact:jar:dpml/util/dpml%20util#1.0",
+        "ARTIFACT:jar:dpml/util/dpml-util#1.0",
+    };
+
+   /**
+    * Test that artifacts handled by the parser are consistent with the
+    * corresponding uri.
+    * @exception Exception if an error occurs
+    */
+    public void testParserConsistency() throws Exception
+    {
+        for( int i=0; i < CORPUS.length; i++ )
+        {
+            String spec = CORPUS[i];
+            Artifact artifact = Artifact.createArtifact( spec );
+            URI uri = new URI( spec );
+            assertEquals( "spec", spec, artifact.toString() );
+            assertEquals( "uri", uri, artifact.toURI() );
+            assertEquals( "scheme", uri.getScheme(), artifact.getScheme() );
+            String ssp = uri.getSchemeSpecificPart();
+            int typeIndex = ssp.indexOf( ':' );
+            assertEquals( "type", ssp.substring( 0, typeIndex ), artifact.getType() );
+            String path = ssp.substring( typeIndex + 1 );
+            int groupIndex = path.lastIndexOf( '/' );
+            if( groupIndex > -1 )
+            {
+                assertEquals( "group", path.substring( 0, groupIndex ), artifact.getGroup() );
+                assertEquals( "name", path.substring( groupIndex + 1 ), artifact.getName() );
+            }
+            else
+            {
+                assertNull( "group", artifact.getGroup() );
+                assertEquals( "name", path, artifact.getName() );
+            }
+            String fragment = uri.getFragment();
+            if( ( null == fragment ) || ( fragment.length() == 0 ) )
+            {
+                assertNull( "version", artifact.getVersion() );
+            }
+            else
+            {
+                assertEquals( "version", fragment, artifact.getVersion() );
+            }
+            assertEquals( "equals-uri", artifact, Artifact.createArtifact( uri ) );
+        }
+    }
+
+   /**
+    * Test specifications requiring full uri validation.
+    * @exception Exception if an error occurs
+    */
+    public void testSpecialSpecifications() throws Exception
+    {
+        Artifact a = Artifact.createArtifact( SPECIAL[0] );
+        Artifact b = Artifact.createArtifact( SPECIAL[1] );
+        assertEquals( "internal-reference", "artifact:war:jmx-html/jmx-html#1.3", a.toString() );
+        assertSame( "internal-reference-interned", a, b );
+        Artifact query = Artifact.createArtifact( SPECIAL[2] );
+        assertEquals( "query-name", "example", query.getName() );
+        assertEquals( "query-version", "1.0", query.getVersion() );
+        Artifact escaped = Artifact.createArtifact( SPECIAL[3] );
+        assertEquals( "escaped-name", "dpml util", escaped.getName() );
+        Artifact upper = Artifact.createArtifact( SPECIAL[4] );
+        assertEquals( "scheme", "ARTIFACT", upper.getScheme() );
+    }
+
+   /**
+    * Test that equal specifications resolve to the same instance.
+    * @exception Exception if an error occurs
+    */
+    public void testInterning() throws Exception
+    {
+        for( int i=0; i < CORPUS.length; i++ )
+        {
+            String spec = CORPUS[i];
+            Artifact artifact = Artifact.createArtifact( spec );
+            assertSame( spec, artifact, Artifact.createArtifact( new String( spec ) ) );
+            assertSame( spec, artifact, Artifact.createArtifact( new URI( spec ) ) );
+        }
+        Artifact artifact =
+          Artifact.createArtifact( "dpml/transit", "dpml-transit-main", "1234", "jar" );
+        assertSame( "components", artifact, Artifact.createArtifact( CORPUS[0] ) );
+    }
+
+   /**
+    * Test that deserialization resolves the interned instance.
+    * @exception Exception if an error occurs
+    */
+    public void testSerialization() throws Exception
+    {
+        Artifact artifact = Artifact.createArtifact( CORPUS[2] );
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream( bytes );
+        output.writeObject( artifact );
+        output.close();
+        ObjectInputStream input =
+          new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        Object result = input.readObject();
+        input.close();
+        assertSame( "resolved", artifact, result );
+    }
+
+   /**
+    * Test that artifact ordering matches the ordering of the specifications.
+    * @exception Exception if an error occurs
+    */
+    public void testOrdering() throws Exception
+    {
+        Artifact[] artifacts = new Artifact[ CORPUS.length ];
+        for( int i=0; i < CORPUS.length; i++ )
+        {
+            artifacts[i] = Artifact.createArtifact( CORPUS[i] );
+        }
+        String[] specs = (String[]) CORPUS.clone();
+        Arrays.sort( artifacts );
+        Arrays.sort( specs );
+        for( int i=0; i < specs.length; i++ )
+        {
+            assertEquals( "order", specs[i], artifacts[i].toString() );
+        }
+    }
+}
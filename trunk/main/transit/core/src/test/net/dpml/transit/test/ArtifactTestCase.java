@@ -18,6 +18,8 @@
 
 package net.dpml.transit.test;
 
+import java.net.URI;
+
 import junit.framework.TestCase;
 
 import net.dpml.transit.layout.ClassicLayout;
@@ -294,6 +296,37 @@ public class ArtifactTestCase extends TestCase
         assertTrue( spec, artifact1.equals( artifact2 ) );
     }
 
+   /**
+    * Test that the scheme is compared without regard to case.
+    * @exception Exception if an unexpected error occurs
+    */
+    public void testSchemeCaseEquality() throws Exception
+    {
+        final String spec1 = "artifact:jar:group/sub-group/name#version";
+        final String spec2 = "ARTIFACT:jar:group/sub-group/name#version";
+        Artifact artifact1 = Artifact.createArtifact( spec1 );
+        Artifact artifact2 = Artifact.createArtifact( new URI( spec2 ) );
+        assertEquals( spec2, artifact1, artifact2 );
+        assertEquals( "hashcode", artifact1.hashCode(), artifact2.hashCode() );
+        assertEquals( "uri", new URI( spec1 ), new URI( spec2 ) );
+    }
+
+   /**
+    * Test that escaped octets are compared without regard to case.
+    * @exception Exception if an unexpected error occurs
+    */
+    public void testEscapeCaseEquality() throws Exception
+    {
+        final String spec1 = "artifact:jar:group/sub-group/na%7eme#version";
+        final String spec2 = "artifact:jar:group/sub-group/na%7Eme#version";
+        Artifact artifact1 = Artifact.createArtifact( spec1 );
+        Artifact artifact2 = Artifact.createArtifact( spec2 );
+        assertEquals( spec2, artifact1, artifact2 );
+        assertEquals( "hashcode", artifact1.hashCode(), artifact2.hashCode() );
+        assertFalse( "case", artifact1.equals( Artifact.createArtifact( 
+          "artifact:jar:group/sub-group/NAME#version" ) ) );
+    }
+
    /**
     * Test equality operation.
     * @exception Exception if an unexpected error occurs
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.transit.test;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Layout;
+import net.dpml.transit.layout.ClassicLayout;
+import net.dpml.transit.layout.EclipseLayout;
+import net.dpml.transit.layout.ModernLayout;
+
+/**
+ * Measurement of the cost of path resolution by the classic, modern and 
+ * eclipse layouts.  The benchmark is not part of the test suite and is run 
+ * directly from the command line.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public final class LayoutBenchmark
+{
+    private static final int ITERATIONS = 200000;
+    
+    private LayoutBenchmark()
+    {
+        // static utility
+    }
+    
+   /**
+    * Run the benchmark.
+    * @param args the command line arguments (ignored)
+    * @exception Exception if an error occurs
+    */
+    public static void main( String[] args ) throws Exception
+    {
+        Artifact[] artifacts = new Artifact[]
+        {
+            Artifact.createArtifact( "artifact:jar:metro/cache/dpml-cache-main#1.0.0" ),
+            Artifact.createArtifact( "artifact:jar:metro/cache/dpml-cache-main" ),
+            Artifact.createArtifact( "artifact:jar:demo#2.0" ),
+            Artifact.createArtifact( "link:part:dpml/metro/dpml-metro-runtime#2.0" ),
+            Artifact.createArtifact( "artifact:jar:org.acme/widget#1.2" )
+        };
+        Layout[] layouts = new Layout[]{new ClassicLayout(), new ModernLayout(), new EclipseLayout()};
+        for( int j=0; j < layouts.length; j++ )
+        {
+            Layout layout = layouts[j];
+            int total = 0;
+            long start = System.nanoTime();
+            for( int n=0; n < ITERATIONS; n++ )
+            {
+                total = total + layout.resolvePath( artifacts[ n % artifacts.length ] ).length();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.println(
+              layout.getID() + " path resolution: "
+              + ( elapsed / ITERATIONS ) + "ns (" + total + ")" );
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2007 Stephen J. McConnell.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dpml.transit.test;
+
+import junit.framework.TestCase;
+
+import net.dpml.transit.Artifact;
+import net.dpml.transit.Layout;
+import net.dpml.transit.TransitRuntimeException;
+import net.dpml.transit.layout.ClassicLayout;
+import net.dpml.transit.layout.EclipseLayout;
+import net.dpml.transit.layout.ModernLayout;
+import net.dpml.transit.layout.TemplateLayout;
+
+/**
+ * Validation of the template based layouts against the paths produced by
+ * the classic, modern and eclipse layout rules.
+ *
+ * @author <a href="@PUBLISHER-URL@">@PUBLISHER-NAME@</a>
+ * @version @PROJECT-VERSION@
+ */
+public class LayoutTemplateTestCase extends TestCase
+{
+    private Artifact m_full;
+    private Artifact m_noVersion;
+    private Artifact m_noGroup;
+    private Artifact m_link;
+    private Artifact m_dotted;
+
+   /**
+    * Setup the test artifacts.
+    * @exception Exception if an error occurs
+    */
+    public void setUp() throws Exception
+    {
+        m_full = Artifact.createArtifact( "artifact:jar:metro/cache/dpml-cache-main#1.0.0" );
+        m_noVersion = Artifact.createArtifact( "artifact:jar:metro/cache/dpml-cache-main" );
+        m_noGroup = Artifact.createArtifact( "artifact:jar:demo#2.0" );
+        m_link = Artifact.createArtifact( "link:part:dpml/metro/dpml-metro-runtime#2.0" );
+        m_dotted = Artifact.createArtifact( "artifact:jar:org.acme/widget#1.2" );
+    }
+
+   /**
+    * Test classic layout paths.
+    * @exception Exception if an error occurs
+    */
+    public void testClassicLayout() throws Exception
+    {
+        Layout layout = new ClassicLayout();
+        assertEquals( "metro/cache/jars/dpml-cache-main-1.0.0.jar", layout.resolvePath( m_full ) );
+        assertEquals( "metro/cache/jars/dpml-cache-main.jar", layout.resolvePath( m_noVersion ) );
+        assertEquals( "jars/demo-2.0.jar", layout.resolvePath( m_noGroup ) );
+        assertEquals(
+          "dpml/metro/parts/dpml-metro-runtime-2.0.part.link", layout.resolvePath( m_link ) );
+        assertEquals( "dpml-metro-runtime-2.0.part.link", layout.resolveFilename( m_link ) );
+        assertEquals( "metro/cache/jars", layout.resolveBase( m_full ) );
+        assertTrue( "cacheable", layout.isCacheable() );
+    }
+
+   /**
+    * Test modern layout paths.
+    * @exception Exception if an error occurs
+    */
+    public void testModernLayout() throws Exception
+    {
+        Layout layout = new ModernLayout();
+        assertEquals(
+          "metro/cache/dpml-cache-main/1.0.0/dpml-cache-main-1.0.0.jar",
+          layout.resolvePath( m_full ) );
+        assertEquals(
+          "metro/cache/dpml-cache-main/dpml-cache-main.jar", layout.resolvePath( m_noVersion ) );
+        assertEquals( "demo/2.0/demo-2.0.jar", layout.resolvePath( m_noGroup ) );
+        assertEquals( "org/acme/widget/1.2/widget-1.2.jar", layout.resolvePath( m_dotted ) );
+        assertEquals(
+          "dpml/metro/dpml-metro-runtime/2.0/dpml-metro-runtime-2.0.part.link",
+          layout.resolvePath( m_link ) );
+    }
+
+   /**
+    * Test eclipse layout paths.
+    * @exception Exception if an error occurs
+    */
+    public void testEclipseLayout() throws Exception
+    {
+        Layout layout = new EclipseLayout();
+        assertEquals( "metro/cache-1.0.0/dpml-cache-main.jar", layout.resolvePath( m_full ) );
+        assertEquals( "2.0/demo.jar", layout.resolvePath( m_noGroup ) );
+        assertEquals( "metro/cache-null/dpml-cache-main.jar", layout.resolvePath( m_noVersion ) );
+        assertEquals( "dpml/metro-2.0/dpml-metro-runtime.part.link", layout.resolvePath( m_link ) );
+        assertEquals( "equals", new EclipseLayout(), layout );
+    }
+
+   /**
+    * Test that an unknown scheme is rejected.
+    * @exception Exception if an error occurs
+    */
+    public void testUnknownScheme() throws Exception
+    {
+        Artifact artifact = Artifact.createArtifact( "local:xml:dpml/metro/config" );
+        try
+        {
+            new ClassicLayout().resolvePath( artifact );
+            fail( "Unknown scheme accepted." );
+        }
+        catch( TransitRuntimeException e )
+        {
+            // success
+        }
+    }
+
+   /**
+    * Test that invalid templates are rejected.
+    * @exception Exception if an error occurs
+    */
+    public void testInvalidTemplates() throws Exception
+    {
+        String[] templates = new String[]{"[group", "{[group]", "[group]}", "{{[name]}}", "[unknown]"};
+        for( int i=0; i < templates.length; i++ )
+        {
+            try
+            {
+                new TestLayout( templates[i] );
+                fail( "Invalid template accepted: " + templates[i] );
+            }
+            catch( IllegalArgumentException e )
+            {
+                // success
+            }
+        }
+    }
+
+   /**
+    * Layout used to validate template compilation.
+    */
+    private static class TestLayout extends TemplateLayout
+    {
+        TestLayout( String template )
+        {
+            super( template, "[name].[type]" );
+        }
+
+        public String getID()
+        {
+            return "test";
+        }
+    }
+}